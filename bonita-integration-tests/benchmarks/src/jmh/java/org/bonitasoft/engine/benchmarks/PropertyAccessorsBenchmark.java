@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.commons.ClassReflector;
+import org.bonitasoft.engine.commons.PropertyAccessors;
+import org.bonitasoft.engine.core.process.instance.model.SUserTaskInstance;
+import org.bonitasoft.engine.core.process.instance.model.archive.SAUserTaskInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Compare the ways of applying the fields of an update descriptor to a flow node when its state changes, and of
+ * setting the archive date of an archived object: reflective {@link ClassReflector} calls,
+ * {@link PropertyAccessors} method handles and direct calls as baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PropertyAccessorsBenchmark {
+
+    private SUserTaskInstance flowNodeInstance;
+    private int stateId;
+    private SAUserTaskInstance archivedObject;
+    private long archiveDate;
+
+    @Setup
+    public void setup() {
+        flowNodeInstance = new SUserTaskInstance();
+        archivedObject = new SAUserTaskInstance();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public SUserTaskInstance classReflector() throws Exception {
+        ClassReflector.setField(flowNodeInstance, "stateId", ++stateId);
+        ClassReflector.setField(flowNodeInstance, "stateName", "executing");
+        ClassReflector.setField(flowNodeInstance, "stable", false);
+        return flowNodeInstance;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public SUserTaskInstance propertyAccessors() throws Exception {
+        PropertyAccessors.setProperty(flowNodeInstance, "stateId", ++stateId);
+        PropertyAccessors.setProperty(flowNodeInstance, "stateName", "executing");
+        PropertyAccessors.setProperty(flowNodeInstance, "stable", false);
+        return flowNodeInstance;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public SUserTaskInstance directCall() {
+        flowNodeInstance.setStateId(++stateId);
+        flowNodeInstance.setStateName("executing");
+        flowNodeInstance.setStable(false);
+        return flowNodeInstance;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public SAUserTaskInstance archiveDateClassReflector() throws Exception {
+        ClassReflector.invokeSetter(archivedObject, "setArchiveDate", long.class, ++archiveDate);
+        return archivedObject;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public SAUserTaskInstance archiveDatePropertyAccessors() throws Exception {
+        PropertyAccessors.setLong(archivedObject, "archiveDate", ++archiveDate);
+        return archivedObject;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public SAUserTaskInstance archiveDateDirectCall() {
+        archivedObject.setArchiveDate(++archiveDate);
+        return archivedObject;
+    }
+}
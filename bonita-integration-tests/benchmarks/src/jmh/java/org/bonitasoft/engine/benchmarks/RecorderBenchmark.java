@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.core.process.instance.api.FlowNodeInstanceService;
+import org.bonitasoft.engine.core.process.instance.model.SAutomaticTaskInstance;
+import org.bonitasoft.engine.events.EventService;
+import org.bonitasoft.engine.events.impl.EventServiceImpl;
+import org.bonitasoft.engine.events.model.SEvent;
+import org.bonitasoft.engine.events.model.SHandler;
+import org.bonitasoft.engine.recorder.Recorder;
+import org.bonitasoft.engine.recorder.impl.RecorderImpl;
+import org.bonitasoft.engine.recorder.model.DeleteRecord;
+import org.bonitasoft.engine.recorder.model.InsertRecord;
+import org.bonitasoft.engine.recorder.model.UpdateRecord;
+import org.bonitasoft.engine.services.PersistenceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the {@link Recorder} for the records of a flow node transition (state updated, next flow node created,
+ * flow node deleted) and for a batch of inserts, with or without handlers listening to the events. The persistence
+ * service does nothing, so that only the cost of the recorder and of the events is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecorderBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean withHandlers;
+
+    private Recorder recorder;
+    private SAutomaticTaskInstance flowNodeInstance;
+    private SAutomaticTaskInstance nextFlowNodeInstance;
+    private Map<String, Object> stateFields;
+    private List<InsertRecord> batch;
+
+    @Setup
+    public void setup() throws Exception {
+        PersistenceService persistenceService = (PersistenceService) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { PersistenceService.class },
+                (proxy, method, args) -> method.getReturnType() == int.class ? 1 : null);
+        EventService eventService = new EventServiceImpl();
+        if (withHandlers) {
+            SHandler<SEvent> handler = new NoOpHandler();
+            eventService.addHandler(FlowNodeInstanceService.ACTIVITYINSTANCE_STATE + SEvent.UPDATED, handler);
+            eventService.addHandler(FlowNodeInstanceService.FLOWNODE_INSTANCE + SEvent.CREATED, handler);
+            eventService.addHandler(FlowNodeInstanceService.FLOWNODE_INSTANCE + SEvent.DELETED, handler);
+        }
+        recorder = new RecorderImpl(persistenceService, eventService);
+        flowNodeInstance = new SAutomaticTaskInstance();
+        nextFlowNodeInstance = new SAutomaticTaskInstance();
+        stateFields = new HashMap<>();
+        stateFields.put("stateId", 2);
+        stateFields.put("stateName", "completed");
+        stateFields.put("stable", true);
+        stateFields.put("terminal", true);
+        batch = Arrays.asList(new InsertRecord(new SAutomaticTaskInstance()),
+                new InsertRecord(new SAutomaticTaskInstance()), new InsertRecord(new SAutomaticTaskInstance()),
+                new InsertRecord(new SAutomaticTaskInstance()), new InsertRecord(new SAutomaticTaskInstance()));
+    }
+
+    @Benchmark
+    public Recorder flowNodeTransition() throws Exception {
+        recorder.recordUpdate(UpdateRecord.buildSetFields(flowNodeInstance, stateFields),
+                FlowNodeInstanceService.ACTIVITYINSTANCE_STATE);
+        recorder.recordInsert(new InsertRecord(nextFlowNodeInstance), FlowNodeInstanceService.FLOWNODE_INSTANCE);
+        recorder.recordDelete(new DeleteRecord(flowNodeInstance), FlowNodeInstanceService.FLOWNODE_INSTANCE);
+        return recorder;
+    }
+
+    @Benchmark
+    public Recorder insertFiveRecordsOneByOne() throws Exception {
+        for (InsertRecord record : batch) {
+            recorder.recordInsert(record, FlowNodeInstanceService.FLOWNODE_INSTANCE);
+        }
+        return recorder;
+    }
+
+    @Benchmark
+    public Recorder insertFiveRecordsInBatch() throws Exception {
+        recorder.recordInserts(batch, FlowNodeInstanceService.FLOWNODE_INSTANCE);
+        return recorder;
+    }
+
+    private static class NoOpHandler implements SHandler<SEvent> {
+
+        @Override
+        public void execute(SEvent event) {
+        }
+
+        @Override
+        public boolean isInterested(SEvent event) {
+            return true;
+        }
+
+        @Override
+        public String getIdentifier() {
+            return "benchmark";
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tenant.restart;
+
+import static java.util.Collections.emptyList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.core.process.instance.api.FlowNodeInstanceService;
+import org.bonitasoft.engine.core.process.instance.api.ProcessInstanceService;
+import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Recovery of 1 million flow nodes. The database is simulated: reading a page of ids and recovering a batch
+ * of flow nodes both cost a fixed latency, so that the benchmark measures how the recovery pipeline is organized.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RecoveryServiceBenchmark {
+
+    private static final int NUMBER_OF_FLOW_NODES = 1_000_000;
+    private static final long SIMULATED_DATABASE_LATENCY_MILLIS = 2;
+
+    @Param({ "1", "4", "8" })
+    public int recoveryThreads;
+
+    private RecoveryService recoveryService;
+
+    @Setup
+    public void setup() throws Exception {
+        FlowNodeInstanceService flowNodeInstanceService = mock(FlowNodeInstanceService.class);
+        doAnswer(invocation -> readPage(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(flowNodeInstanceService).getFlowNodeInstanceIdsToRecover(any(), anyLong(), anyInt());
+        doAnswer(invocation -> emptyList())
+                .when(flowNodeInstanceService).getGatewayInstanceIdsToRecover(any(), anyLong(), anyInt());
+        ProcessInstanceService processInstanceService = mock(ProcessInstanceService.class);
+        doAnswer(invocation -> emptyList())
+                .when(processInstanceService).getProcessInstanceIdsToRecover(any(), anyLong(), anyInt());
+        UserTransactionService userTransactionService = mock(UserTransactionService.class);
+        doAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call())
+                .when(userTransactionService).executeInTransaction(any());
+        FlowNodesRecover flowNodesRecover = mock(FlowNodesRecover.class);
+        doAnswer(invocation -> {
+            Thread.sleep(SIMULATED_DATABASE_LATENCY_MILLIS);
+            return null;
+        }).when(flowNodesRecover).execute(any(), any());
+
+        recoveryService = new RecoveryService(flowNodeInstanceService, processInstanceService,
+                userTransactionService, flowNodesRecover, mock(ProcessesRecover.class),
+                mock(SessionAccessor.class), RecoveryMonitor::new, new SimpleMeterRegistry());
+        recoveryService.setTenantId(1L);
+        recoveryService.initMetrics();
+        recoveryService.setReadBatchSize(5000);
+        recoveryService.setBatchRestartSize(1000);
+        recoveryService.setRecoveryThreads(recoveryThreads);
+        recoveryService.setConsiderElementsOlderThan(Duration.ZERO);
+    }
+
+    private static List<Long> readPage(long afterId, int maxResults) throws InterruptedException {
+        Thread.sleep(SIMULATED_DATABASE_LATENCY_MILLIS);
+        long to = Math.min(NUMBER_OF_FLOW_NODES, afterId + maxResults);
+        return LongStream.rangeClosed(afterId + 1, to).boxed().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void recover1MillionFlowNodes() {
+        recoveryService.recoverAllElements();
+    }
+}
@@ -246,6 +246,21 @@ public class FlowNodeInstanceTest {
         assertThat(nodeToRestart).containsOnly(oldTask1.getId(), oldTask2.getId());
     }
 
+    @Test
+    public void getFlowNodeInstanceIdsToRecover_should_return_the_ids_after_the_given_id() {
+        // given
+        SFlowNodeInstance task1 = repository.add(aUserTask().withName("task1").withTerminal(true).build());
+        SFlowNodeInstance task2 = repository.add(aUserTask().withName("task2").withTerminal(true).build());
+        SFlowNodeInstance task3 = repository.add(aUserTask().withName("task3").withTerminal(true).build());
+
+        // when
+        List<Long> nodeToRestart = repository.getFlowNodeInstanceIdsToRecover(Duration.ZERO, task1.getId(),
+                new QueryOptions(0, 10));
+
+        // then
+        assertThat(nodeToRestart).containsExactly(task2.getId(), task3.getId());
+    }
+
     // For
     @Test
     public void getNumberOfSHumanTaskInstanceAssignedAndPendingByRootProcessFor_should_return_number_of_process_definition_if_one_instance_has_assigned_tasks_to_the_user() {
@@ -41,13 +41,19 @@ public class FlowNodeInstanceRepository extends TestRepository {
         return (SFlowNodeInstance) namedQuery.uniqueResult();
     }
 
-    @SuppressWarnings("unchecked")
     public List<Long> getFlowNodeInstanceIdsToRecover(Duration considerElementsOlderThan,
             final QueryOptions queryOptions) {
+        return getFlowNodeInstanceIdsToRecover(considerElementsOlderThan, 0, queryOptions);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Long> getFlowNodeInstanceIdsToRecover(Duration considerElementsOlderThan, long afterId,
+            final QueryOptions queryOptions) {
         final Query namedQuery = getNamedQuery("getFlowNodeInstanceIdsToRecover");
         namedQuery.setMaxResults(queryOptions.getNumberOfResults());
         namedQuery.setFirstResult(queryOptions.getFromIndex());
         namedQuery.setParameter("maxLastUpdate", System.currentTimeMillis() - considerElementsOlderThan.toMillis());
+        namedQuery.setParameter("afterId", afterId);
         return (List<Long>) namedQuery.list();
     }
 
@@ -58,6 +64,7 @@ public class FlowNodeInstanceRepository extends TestRepository {
         namedQuery.setMaxResults(queryOptions.getNumberOfResults());
         namedQuery.setFirstResult(queryOptions.getFromIndex());
         namedQuery.setParameter("maxLastUpdate", System.currentTimeMillis() - considerElementsOlderThan.toMillis());
+        namedQuery.setParameter("afterId", 0L);
         return (List<Long>) namedQuery.list();
     }
 
@@ -161,6 +161,7 @@ public class ProcessInstanceRepository extends TestRepository {
     public List<Long> getProcessInstanceIdsToRecover(final long maxLastUpdate) {
         final Query<Long> namedQuery = getNamedQuery("getProcessInstanceIdsToRecover");
         namedQuery.setParameter("maxLastUpdate", maxLastUpdate);
+        namedQuery.setParameter("afterId", 0L);
         return namedQuery.list();
     }
 
@@ -29,7 +29,6 @@ import org.apache.commons.lang3.text.WordUtils;
 import org.bonitasoft.engine.cache.CacheService;
 import org.bonitasoft.engine.cache.SCacheException;
 import org.bonitasoft.engine.commons.ClassReflector;
-import org.bonitasoft.engine.commons.exceptions.SReflectException;
 import org.bonitasoft.engine.core.data.instance.TransientDataService;
 import org.bonitasoft.engine.core.expression.control.api.ExpressionResolverService;
 import org.bonitasoft.engine.core.expression.control.model.SExpressionContext;
@@ -112,11 +111,10 @@ public class TransientDataServiceImpl implements TransientDataService {
         }
     }
 
-    private void setId(final SDataInstance dataInstance)
-            throws SecurityException, IllegalArgumentException, SReflectException {
+    private void setId(final SDataInstance dataInstance) {
         // FIXME: probably the id will be be used, so not necessary to be set
         final long id = Math.abs(UUID.randomUUID().getMostSignificantBits());
-        ClassReflector.invokeSetter(dataInstance, "setId", long.class, id);
+        dataInstance.setId(id);
     }
 
     @Override
@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.classloader.SClassLoaderException;
@@ -84,12 +85,13 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
     public Object evaluate(final SExpression expression, final SExpressionContext evaluationContext)
             throws SExpressionTypeUnknownException, SExpressionEvaluationException,
             SExpressionDependencyMissingException, SInvalidExpressionException {
-        final long startTime = System.currentTimeMillis();
+        final long startTime = System.nanoTime();
         try {
             return evaluateExpressionsFlatten(Collections.singletonList(expression), evaluationContext).get(0);
         } finally {
+            final long duration = System.nanoTime() - startTime;
+            timeTracker.recordDuration(TimeTrackerRecords.EVALUATE_EXPRESSION_INCLUDING_CONTEXT, duration);
             if (timeTracker.isTrackable(TimeTrackerRecords.EVALUATE_EXPRESSION_INCLUDING_CONTEXT)) {
-                final long endTime = System.currentTimeMillis();
                 final StringBuilder desc = new StringBuilder();
                 desc.append("Expression: ");
                 desc.append(expression);
@@ -97,7 +99,7 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
                 desc.append("evaluationContext: ");
                 desc.append(evaluationContext);
                 timeTracker.track(TimeTrackerRecords.EVALUATE_EXPRESSION_INCLUDING_CONTEXT, desc.toString(),
-                        endTime - startTime);
+                        TimeUnit.NANOSECONDS.toMillis(duration));
             }
         }
     }
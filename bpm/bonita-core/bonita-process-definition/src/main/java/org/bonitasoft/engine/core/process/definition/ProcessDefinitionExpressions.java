@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.process.definition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.bonitasoft.engine.core.operation.model.SOperation;
+import org.bonitasoft.engine.core.process.definition.model.SActivityDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SBusinessDataDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SCallActivityDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SConnectorDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SContextEntry;
+import org.bonitasoft.engine.core.process.definition.model.SDocumentDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SDocumentListDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SFlowElementContainerDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SFlowNodeDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SHumanTaskDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SLoopCharacteristics;
+import org.bonitasoft.engine.core.process.definition.model.SMultiInstanceLoopCharacteristics;
+import org.bonitasoft.engine.core.process.definition.model.SProcessDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SStandardLoopCharacteristics;
+import org.bonitasoft.engine.core.process.definition.model.SSubProcessDefinition;
+import org.bonitasoft.engine.core.process.definition.model.STransitionDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.SCatchEventDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.SThrowEventDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.trigger.SCatchMessageEventTriggerDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.trigger.SCorrelationDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.trigger.SThrowMessageEventTriggerDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.trigger.STimerEventTriggerDefinition;
+import org.bonitasoft.engine.data.definition.model.SDataDefinition;
+import org.bonitasoft.engine.expression.model.SExpression;
+
+/**
+ * Collects the expressions declared in a process definition, e.g. to compile its scripts before they are evaluated.
+ * Dependencies of the expressions are not collected.
+ */
+public final class ProcessDefinitionExpressions {
+
+    private final List<SExpression> expressions = new ArrayList<>();
+
+    private ProcessDefinitionExpressions() {
+    }
+
+    public static List<SExpression> of(SProcessDefinition processDefinition) {
+        ProcessDefinitionExpressions collector = new ProcessDefinitionExpressions();
+        collector.addContainer(processDefinition.getProcessContainer());
+        for (int i = 1; i <= 5; i++) {
+            collector.add(processDefinition.getStringIndexValue(i));
+        }
+        if (processDefinition.getContext() != null) {
+            for (SContextEntry contextEntry : processDefinition.getContext()) {
+                collector.add(contextEntry.getExpression());
+            }
+        }
+        return collector.expressions;
+    }
+
+    private void add(SExpression expression) {
+        if (expression != null) {
+            expressions.add(expression);
+        }
+    }
+
+    private void addContainer(SFlowElementContainerDefinition container) {
+        if (container == null) {
+            return;
+        }
+        addDataDefinitions(container.getDataDefinitions());
+        addBusinessDataDefinitions(container.getBusinessDataDefinitions());
+        for (SDocumentDefinition document : container.getDocumentDefinitions()) {
+            add(document.getInitialValue());
+        }
+        for (SDocumentListDefinition documentList : container.getDocumentListDefinitions()) {
+            add(documentList.getExpression());
+        }
+        addConnectors(container.getConnectors());
+        for (STransitionDefinition transition : container.getTransitions()) {
+            add(transition.getCondition());
+        }
+        for (SFlowNodeDefinition flowNode : container.getFlowNodes()) {
+            addFlowNode(flowNode);
+        }
+        for (SFlowNodeDefinition boundaryEvent : container.getBoundaryEvents()) {
+            addFlowNode(boundaryEvent);
+        }
+    }
+
+    private void addFlowNode(SFlowNodeDefinition flowNode) {
+        add(flowNode.getDisplayName());
+        add(flowNode.getDisplayDescription());
+        add(flowNode.getDisplayDescriptionAfterCompletion());
+        addConnectors(flowNode.getConnectors());
+        if (flowNode.getDefaultTransition() != null) {
+            add(flowNode.getDefaultTransition().getCondition());
+        }
+        if (flowNode instanceof SActivityDefinition) {
+            addActivity((SActivityDefinition) flowNode);
+        }
+        if (flowNode instanceof SCatchEventDefinition) {
+            addCatchEvent((SCatchEventDefinition) flowNode);
+        }
+        if (flowNode instanceof SThrowEventDefinition) {
+            addThrowEvent((SThrowEventDefinition) flowNode);
+        }
+    }
+
+    private void addActivity(SActivityDefinition activity) {
+        addDataDefinitions(activity.getSDataDefinitions());
+        addBusinessDataDefinitions(activity.getBusinessDataDefinitions());
+        addOperations(activity.getSOperations());
+        addLoopCharacteristics(activity.getLoopCharacteristics());
+        if (activity instanceof SHumanTaskDefinition) {
+            SHumanTaskDefinition humanTask = (SHumanTaskDefinition) activity;
+            add(humanTask.getExpectedDuration());
+            if (humanTask.getSUserFilterDefinition() != null) {
+                addAll(humanTask.getSUserFilterDefinition().getInputs().values());
+            }
+        }
+        if (activity instanceof SCallActivityDefinition) {
+            SCallActivityDefinition callActivity = (SCallActivityDefinition) activity;
+            add(callActivity.getCallableElement());
+            add(callActivity.getCallableElementVersion());
+            addOperations(callActivity.getDataInputOperations());
+            addOperations(callActivity.getDataOutputOperations());
+            if (callActivity.getProcessStartContractInputs() != null) {
+                addAll(callActivity.getProcessStartContractInputs().values());
+            }
+        }
+        if (activity instanceof SSubProcessDefinition) {
+            addContainer(((SSubProcessDefinition) activity).getSubProcessContainer());
+        }
+    }
+
+    private void addLoopCharacteristics(SLoopCharacteristics loopCharacteristics) {
+        if (loopCharacteristics instanceof SStandardLoopCharacteristics) {
+            add(((SStandardLoopCharacteristics) loopCharacteristics).getLoopCondition());
+            add(((SStandardLoopCharacteristics) loopCharacteristics).getLoopMax());
+        } else if (loopCharacteristics instanceof SMultiInstanceLoopCharacteristics) {
+            add(((SMultiInstanceLoopCharacteristics) loopCharacteristics).getLoopCardinality());
+            add(((SMultiInstanceLoopCharacteristics) loopCharacteristics).getCompletionCondition());
+        }
+    }
+
+    private void addCatchEvent(SCatchEventDefinition catchEvent) {
+        for (STimerEventTriggerDefinition timer : catchEvent.getTimerEventTriggerDefinitions()) {
+            add(timer.getTimerExpression());
+        }
+        for (SCatchMessageEventTriggerDefinition message : catchEvent.getMessageEventTriggerDefinitions()) {
+            addCorrelations(message.getCorrelations());
+            addOperations(message.getOperations());
+        }
+    }
+
+    private void addThrowEvent(SThrowEventDefinition throwEvent) {
+        for (SThrowMessageEventTriggerDefinition message : throwEvent.getMessageEventTriggerDefinitions()) {
+            add(message.getTargetProcess());
+            add(message.getTargetFlowNode());
+            addCorrelations(message.getCorrelations());
+            addDataDefinitions(message.getDataDefinitions());
+        }
+    }
+
+    private void addCorrelations(List<SCorrelationDefinition> correlations) {
+        for (SCorrelationDefinition correlation : correlations) {
+            add(correlation.getKey());
+            add(correlation.getValue());
+        }
+    }
+
+    private void addConnectors(List<SConnectorDefinition> connectors) {
+        for (SConnectorDefinition connector : connectors) {
+            addAll(connector.getInputs().values());
+            addOperations(connector.getOutputs());
+        }
+    }
+
+    private void addDataDefinitions(List<SDataDefinition> dataDefinitions) {
+        for (SDataDefinition dataDefinition : dataDefinitions) {
+            add(dataDefinition.getDefaultValueExpression());
+        }
+    }
+
+    private void addBusinessDataDefinitions(List<SBusinessDataDefinition> businessDataDefinitions) {
+        for (SBusinessDataDefinition businessDataDefinition : businessDataDefinitions) {
+            add(businessDataDefinition.getDefaultValueExpression());
+        }
+    }
+
+    private void addOperations(List<SOperation> operations) {
+        if (operations == null) {
+            return;
+        }
+        for (SOperation operation : operations) {
+            add(operation.getRightOperand());
+        }
+    }
+
+    private void addAll(Collection<SExpression> expressions) {
+        expressions.forEach(this::add);
+    }
+}
@@ -21,6 +21,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.transaction.Status;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 
 import org.bonitasoft.engine.bpm.bar.ProcessDefinitionBARContribution;
 import org.bonitasoft.engine.bpm.process.ActivationState;
@@ -79,6 +86,11 @@ import org.bonitasoft.engine.recorder.model.UpdateRecord;
 import org.bonitasoft.engine.services.QueriableLoggerService;
 import org.bonitasoft.engine.session.SessionService;
 import org.bonitasoft.engine.sessionaccessor.ReadSessionAccessor;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * @author Baptiste Mesta
@@ -91,25 +103,56 @@ import org.bonitasoft.engine.sessionaccessor.ReadSessionAccessor;
  */
 public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProcessDefinitionServiceImpl.class);
+
+    public static final String CACHE_VALIDATIONS = "bonita.bpmengine.processdefinition.cache.validations";
+
     private final Recorder recorder;
     private final ReadPersistenceService persistenceService;
     private final SessionService sessionService;
     private final ReadSessionAccessor sessionAccessor;
     private final QueriableLoggerService queriableLoggerService;
     private final CacheService cacheService;
+    private final UserTransactionService transactionService;
     protected ProcessDefinitionBARContribution processDefinitionBARContribution;
+    /**
+     * Last time each cached process definition was checked against its deploy info in database. Entries older than
+     * the validation interval are useless and are purged at most once per interval.
+     */
+    private final Map<Long, Long> lastValidationTimes = new ConcurrentHashMap<>();
+    private volatile long lastPurgeTime = System.currentTimeMillis();
+    private long validationIntervalMillis;
+    private final Counter validationsPerformed;
+    private final Counter validationsAvoided;
 
     public ProcessDefinitionServiceImpl(final Recorder recorder, final ReadPersistenceService persistenceService,
             final SessionService sessionService,
             final ReadSessionAccessor sessionAccessor, final QueriableLoggerService queriableLoggerService,
-            CacheService cacheService) {
+            CacheService cacheService, UserTransactionService transactionService, MeterRegistry meterRegistry,
+            long tenantId) {
         this.recorder = recorder;
         this.persistenceService = persistenceService;
         this.sessionService = sessionService;
         this.sessionAccessor = sessionAccessor;
         this.queriableLoggerService = queriableLoggerService;
         this.cacheService = cacheService;
+        this.transactionService = transactionService;
         processDefinitionBARContribution = new ProcessDefinitionBARContribution();
+        final Tags tags = Tags.of("tenant", String.valueOf(tenantId));
+        validationsPerformed = Counter.builder(CACHE_VALIDATIONS).tags(tags).tag("result", "performed")
+                .description("Cached process definitions checked against the database").register(meterRegistry);
+        validationsAvoided = Counter.builder(CACHE_VALIDATIONS).tags(tags).tag("result", "avoided")
+                .description("Cached process definitions returned without being checked against the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached process definitions are invalidated by the updates done through this service. They are also checked
+     * against the last update date of their deploy info in database, to detect updates done by other nodes, at most
+     * once every {@code validationIntervalMillis} milliseconds. 0 means they are checked on each access.
+     */
+    public void setValidationIntervalMillis(long validationIntervalMillis) {
+        this.validationIntervalMillis = validationIntervalMillis;
     }
 
     @Override
@@ -130,8 +173,9 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
 
         try {
             recorder.recordDelete(new DeleteRecord(processDefinitionDeployInfo), PROCESSDEFINITION);
+            removeProcessDefinitionFromCache(processId);
             log(processId, SQueriableLog.STATUS_OK, logBuilder, "delete");
-        } catch (final SRecorderException e) {
+        } catch (final SRecorderException | SCacheException e) {
             log(processId, SQueriableLog.STATUS_FAIL, logBuilder, "delete");
             throw new SProcessDeletionException(e, processDefinitionDeployInfo);
         }
@@ -250,16 +294,24 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
     public SProcessDefinition getProcessDefinition(final long processId)
             throws SProcessDefinitionNotFoundException, SBonitaReadException {
         try {
-            //get from database
-            final SProcessDefinitionDeployInfo processDeploymentInfo = getProcessDeploymentInfo(processId);
             //get from cache
             final Pair<Long, SProcessDefinition> processWithTimestamp = getSProcessDefinitionFromCache(processId);
+            if (processWithTimestamp != null && isValidatedRecently(processId)) {
+                validationsAvoided.increment();
+                return processWithTimestamp.getValue();
+            }
+            //get from database
+            final SProcessDefinitionDeployInfo processDeploymentInfo = getProcessDeploymentInfo(processId);
+            validationsPerformed.increment();
             //read SProcessDefinition if needed
+            final SProcessDefinition processDefinition;
             if (isSProcessDefinitionUpToDate(processDeploymentInfo, processWithTimestamp)) {
-                return readSProcessDefinitionFromDatabase(processId, processDeploymentInfo);
+                processDefinition = readSProcessDefinitionFromDatabase(processId, processDeploymentInfo);
             } else {
-                return processWithTimestamp.getValue();
+                processDefinition = processWithTimestamp.getValue();
             }
+            validated(processId);
+            return processDefinition;
         } catch (IOException | SReflectException | SCacheException e) {
             throw new SBonitaReadException(e);
         }
@@ -282,6 +334,32 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
                 || processWithTimestamp.getKey() != processDeploymentInfo.getLastUpdateDate();
     }
 
+    boolean isValidatedRecently(long processId) {
+        if (validationIntervalMillis <= 0) {
+            return false;
+        }
+        final Long lastValidationTime = lastValidationTimes.get(processId);
+        return lastValidationTime != null
+                && System.currentTimeMillis() - lastValidationTime < validationIntervalMillis;
+    }
+
+    private void validated(long processId) {
+        if (validationIntervalMillis <= 0) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        lastValidationTimes.put(processId, now);
+        if (now - lastPurgeTime >= validationIntervalMillis) {
+            lastPurgeTime = now;
+            // also drops definitions deleted by other nodes or evicted from the cache
+            lastValidationTimes.values().removeIf(time -> now - time >= validationIntervalMillis);
+        }
+    }
+
+    int getNumberOfValidationTimes() {
+        return lastValidationTimes.size();
+    }
+
     @SuppressWarnings("unchecked")
     Pair<Long, SProcessDefinition> getSProcessDefinitionFromCache(long processId) throws SCacheException {
         return (Pair<Long, SProcessDefinition>) cacheService.get(PROCESS_CACHE_NAME, processId);
@@ -391,6 +469,31 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
         cacheService.store(PROCESS_CACHE_NAME, definition.getId(), Pair.of(lastUpdateDate, definition));
     }
 
+    /**
+     * Remove the process definition from the cache now, so that the current transaction reads it again, and once more
+     * after the transaction completes: until then, other transactions can still read and cache the previous version.
+     */
+    void removeProcessDefinitionFromCache(long processId) throws SCacheException {
+        evictProcessDefinition(processId);
+        try {
+            transactionService.registerBonitaSynchronization((BonitaTransactionSynchronization) status -> {
+                try {
+                    evictProcessDefinition(processId);
+                } catch (final SCacheException e) {
+                    logger.warn("Unable to remove process definition {} from the cache after transaction {}",
+                            processId, status == Status.STATUS_COMMITTED ? "commit" : "rollback", e);
+                }
+            });
+        } catch (final STransactionNotFoundException e) {
+            throw new SCacheException(e);
+        }
+    }
+
+    private void evictProcessDefinition(long processId) throws SCacheException {
+        lastValidationTimes.remove(processId);
+        cacheService.remove(PROCESS_CACHE_NAME, processId);
+    }
+
     String getProcessContent(DesignProcessDefinition designProcessDefinition) throws IOException {
         return processDefinitionBARContribution.convertProcessToXml(designProcessDefinition);
     }
@@ -584,7 +687,10 @@ public class ProcessDefinitionServiceImpl implements ProcessDefinitionService {
             String eventType)
             throws SRecorderException, SCacheException {
         recorder.recordUpdate(updateRecord, eventType);
-        if (!updateRecord.getFields().containsKey(SProcessDefinitionDeployInfo.DESIGN_CONTENT)) {
+        if (updateRecord.getFields().containsKey(SProcessDefinitionDeployInfo.DESIGN_CONTENT)) {
+            // the design changed, the process definition will be read again from the database
+            removeProcessDefinitionFromCache(processId);
+        } else {
             updateSProcessDefinitionTimestampInCache(processId, processDefinitionDeployInfo);
         }
     }
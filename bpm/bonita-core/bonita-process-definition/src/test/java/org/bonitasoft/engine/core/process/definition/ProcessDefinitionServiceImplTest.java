@@ -27,6 +27,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.transaction.Status;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.bpm.bar.ProcessDefinitionBARContribution;
 import org.bonitasoft.engine.bpm.process.ActivationState;
 import org.bonitasoft.engine.bpm.process.DesignProcessDefinition;
@@ -63,14 +66,14 @@ import org.bonitasoft.engine.recorder.model.UpdateRecord;
 import org.bonitasoft.engine.services.QueriableLoggerService;
 import org.bonitasoft.engine.session.SessionService;
 import org.bonitasoft.engine.sessionaccessor.ReadSessionAccessor;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 
 /**
@@ -97,14 +100,18 @@ public class ProcessDefinitionServiceImplTest {
     private SessionService sessionService;
     @Mock
     private ProcessDefinitionBARContribution processDefinitionBARContribution;
-    @InjectMocks
-    @Spy
+    @Mock
+    private UserTransactionService transactionService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     private ProcessDefinitionServiceImpl processDefinitionServiceImpl;
     private SProcessDefinitionDeployInfo sProcessDefinitionDeployInfo;
     private DesignProcessDefinition designProcessDefinition;
 
     @Before
     public void before() throws SProcessDefinitionNotFoundException, SBonitaReadException, IOException {
+        processDefinitionServiceImpl = spy(new ProcessDefinitionServiceImpl(recorder, persistenceService,
+                sessionService, sessionAccessor, queriableLoggerService, cacheService, transactionService,
+                meterRegistry, 1L));
         sProcessDefinitionDeployInfo = new SProcessDefinitionDeployInfo();
         sProcessDefinitionDeployInfo.setId(PROCESS_DEFINITION_DEPLOY_ID);
         final SProcessDefinitionDesignContent designContent = new SProcessDefinitionDesignContent();
@@ -420,6 +427,84 @@ public class ProcessDefinitionServiceImplTest {
         verify(cacheService, times(1)).store(anyString(), any(Serializable.class), any());
     }
 
+    @Test
+    public void getProcessDefinition_should_not_check_database_when_validated_recently() throws Exception {
+        processDefinitionServiceImpl.setValidationIntervalMillis(60_000);
+        sProcessDefinitionDeployInfo.setLastUpdateDate(5478L);
+        final SProcessDefinitionImpl sProcessDefinition = new SProcessDefinitionImpl("a", "b");
+        doReturn(new Pair<Long, SProcessDefinition>(5478L, sProcessDefinition)).when(processDefinitionServiceImpl)
+                .getSProcessDefinitionFromCache(PROCESS_ID);
+
+        processDefinitionServiceImpl.getProcessDefinition(PROCESS_ID);
+        final SProcessDefinition processDefinition = processDefinitionServiceImpl.getProcessDefinition(PROCESS_ID);
+
+        assertThat(processDefinition).isEqualTo(sProcessDefinition);
+        verify(processDefinitionServiceImpl, times(1)).getProcessDeploymentInfo(PROCESS_ID);
+        assertThat(meterRegistry.find(ProcessDefinitionServiceImpl.CACHE_VALIDATIONS).tag("result", "avoided")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find(ProcessDefinitionServiceImpl.CACHE_VALIDATIONS).tag("result", "performed")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void getProcessDefinition_should_check_database_on_each_access_when_no_validation_interval()
+            throws Exception {
+        sProcessDefinitionDeployInfo.setLastUpdateDate(5478L);
+        final SProcessDefinitionImpl sProcessDefinition = new SProcessDefinitionImpl("a", "b");
+        doReturn(new Pair<Long, SProcessDefinition>(5478L, sProcessDefinition)).when(processDefinitionServiceImpl)
+                .getSProcessDefinitionFromCache(PROCESS_ID);
+
+        processDefinitionServiceImpl.getProcessDefinition(PROCESS_ID);
+        processDefinitionServiceImpl.getProcessDefinition(PROCESS_ID);
+
+        verify(processDefinitionServiceImpl, times(2)).getProcessDeploymentInfo(PROCESS_ID);
+        assertThat(processDefinitionServiceImpl.getNumberOfValidationTimes()).isZero();
+    }
+
+    @Test
+    public void getProcessDefinition_should_purge_expired_validation_times() throws Exception {
+        processDefinitionServiceImpl.setValidationIntervalMillis(1);
+        sProcessDefinitionDeployInfo.setLastUpdateDate(5478L);
+        doReturn(new Pair<Long, SProcessDefinition>(5478L, new SProcessDefinitionImpl("a", "b")))
+                .when(processDefinitionServiceImpl).getSProcessDefinitionFromCache(anyLong());
+        doReturn(sProcessDefinitionDeployInfo).when(processDefinitionServiceImpl).getProcessDeploymentInfo(43L);
+        doReturn(sProcessDefinitionDeployInfo).when(processDefinitionServiceImpl).getProcessDeploymentInfo(44L);
+
+        processDefinitionServiceImpl.getProcessDefinition(PROCESS_ID);
+        processDefinitionServiceImpl.getProcessDefinition(43L);
+        Thread.sleep(5);
+        processDefinitionServiceImpl.getProcessDefinition(44L);
+
+        assertThat(processDefinitionServiceImpl.getNumberOfValidationTimes()).isEqualTo(1);
+    }
+
+    @Test
+    public void update_should_remove_process_definition_from_cache_when_design_content_is_updated() throws Exception {
+        final EntityUpdateDescriptor descriptor = BuilderFactory
+                .get(SProcessDefinitionDeployInfoUpdateBuilderFactory.class)
+                .createNewInstance().updateDesignContent("new content").done();
+
+        processDefinitionServiceImpl.update(PROCESS_ID, sProcessDefinitionDeployInfo,
+                UpdateRecord.buildSetFields(sProcessDefinitionDeployInfo, descriptor), "event");
+
+        verify(cacheService).remove(ProcessDefinitionService.PROCESS_CACHE_NAME, PROCESS_ID);
+        verify(cacheService, never()).store(anyString(), any(Serializable.class), any());
+        verify(transactionService).registerBonitaSynchronization(any());
+    }
+
+    @Test
+    public void delete_should_remove_process_definition_from_cache_now_and_after_the_transaction() throws Exception {
+        processDefinitionServiceImpl.delete(PROCESS_ID);
+
+        verify(cacheService).remove(ProcessDefinitionService.PROCESS_CACHE_NAME, PROCESS_ID);
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor
+                .forClass(BonitaTransactionSynchronization.class);
+        verify(transactionService).registerBonitaSynchronization(synchronization.capture());
+        // a concurrent transaction cached the previous version before the commit
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+        verify(cacheService, times(2)).remove(ProcessDefinitionService.PROCESS_CACHE_NAME, PROCESS_ID);
+    }
+
     /**
      * Test method for
      * {@link org.bonitasoft.engine.core.process.definition.ProcessDefinitionServiceImpl#updateProcessDefinitionDeployInfo(long, org.bonitasoft.engine.recorder.model.EntityUpdateDescriptor)}
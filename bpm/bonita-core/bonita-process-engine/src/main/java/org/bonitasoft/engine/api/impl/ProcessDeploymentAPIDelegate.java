@@ -103,7 +103,8 @@ public class ProcessDeploymentAPIDelegate {
         final EventsHandler eventsHandler = getServiceAccessor().getEventsHandler();
         try {
             new EnableProcess(processDefinitionService, processDefinitionId,
-                    eventsHandler, SessionInfos.getUserNameFromSession()).execute();
+                    eventsHandler, getServiceAccessor().getExpressionService(), SessionInfos.getUserNameFromSession())
+                            .execute();
         } catch (final SProcessDefinitionNotFoundException e) {
             throw new ProcessDefinitionNotFoundException(e);
         } catch (final Exception e) {
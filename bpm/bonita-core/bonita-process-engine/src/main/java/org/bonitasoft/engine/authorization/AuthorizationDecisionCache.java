@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.authorization;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.bonitasoft.engine.api.permission.APICallContext;
+
+/**
+ * Authorization decisions of REST API calls, per session.
+ * <p>
+ * The permissions of a session are computed when the session is created, so a decision only changes when the
+ * permission mappings change: {@link #invalidate()} must then be called. Decisions are also forgotten after a time to
+ * live, and some of them are removed when the cache is full.
+ */
+class AuthorizationDecisionCache {
+
+    static final String HITS = "bonita.authorization.decisions.cache.hits";
+    static final String MISSES = "bonita.authorization.decisions.cache.misses";
+    static final String EVICTIONS = "bonita.authorization.decisions.cache.evictions";
+    static final String SIZE = "bonita.authorization.decisions.cache.size";
+
+    private final Map<Key, Decision> decisions = new ConcurrentHashMap<>();
+    // decisions taken before the last invalidation are ignored, even when put in the cache after it
+    private final AtomicLong generation = new AtomicLong();
+    private final int maxSize;
+    private final long timeToLiveInMillis;
+    private final LongSupplier clock;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    AuthorizationDecisionCache(int maxSize, long timeToLiveInMillis, MeterRegistry meterRegistry) {
+        this(maxSize, timeToLiveInMillis, meterRegistry, System::currentTimeMillis);
+    }
+
+    AuthorizationDecisionCache(int maxSize, long timeToLiveInMillis, MeterRegistry meterRegistry,
+            LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.timeToLiveInMillis = timeToLiveInMillis;
+        this.clock = clock;
+        hits = Counter.builder(HITS).description("Authorization decisions found in the cache")
+                .register(meterRegistry);
+        misses = Counter.builder(MISSES).description("Authorization decisions not found in the cache")
+                .register(meterRegistry);
+        evictions = Counter.builder(EVICTIONS)
+                .description("Authorization decisions removed from the cache because it was full")
+                .register(meterRegistry);
+        Gauge.builder(SIZE, decisions, Map::size).description("Authorization decisions in the cache")
+                .register(meterRegistry);
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0 && timeToLiveInMillis > 0;
+    }
+
+    /**
+     * @return the decision taken for this call in this session, or null when it is not in the cache
+     */
+    Boolean get(long sessionId, APICallContext apiCallContext) {
+        Decision decision = decisions.get(keyOf(sessionId, apiCallContext));
+        if (decision == null || decision.generation != generation.get()
+                || decision.expiration <= clock.getAsLong()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return decision.authorized;
+    }
+
+    /**
+     * @return the current generation of decisions, to give to {@link #put(long, APICallContext, boolean, long)}
+     *         once the decision is taken
+     */
+    long currentGeneration() {
+        return generation.get();
+    }
+
+    void put(long sessionId, APICallContext apiCallContext, boolean authorized, long decisionGeneration) {
+        if (decisions.size() >= maxSize) {
+            evict();
+        }
+        decisions.put(keyOf(sessionId, apiCallContext),
+                new Decision(authorized, decisionGeneration, clock.getAsLong() + timeToLiveInMillis));
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        decisions.clear();
+    }
+
+    private void evict() {
+        long now = clock.getAsLong();
+        long currentGeneration = generation.get();
+        // remove expired decisions first, then a tenth of the cache so that the next calls do not evict again
+        decisions.values().removeIf(decision -> decision.expiration <= now
+                || decision.generation != currentGeneration);
+        int toRemove = decisions.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<Decision> iterator = decisions.values().iterator();
+        long removed = 0;
+        while (removed < toRemove && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            removed++;
+        }
+        evictions.increment(removed);
+    }
+
+    private static Key keyOf(long sessionId, APICallContext apiCallContext) {
+        return new Key(sessionId, apiCallContext.getMethod(), apiCallContext.getApiName(),
+                apiCallContext.getResourceName(), apiCallContext.getResourceId());
+    }
+
+    @Value
+    private static class Key {
+
+        long sessionId;
+        String method;
+        String apiName;
+        String resourceName;
+        String resourceId;
+    }
+
+    private static final class Decision {
+
+        private final boolean authorized;
+        private final long generation;
+        private final long expiration;
+
+        private Decision(boolean authorized, long generation, long expiration) {
+            this.authorized = authorized;
+            this.generation = generation;
+            this.expiration = expiration;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.authorization;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watch the source files of the permission scripts, so that a script is compiled again only when its file changed
+ * instead of checking the file each time the script is used.
+ * <p>
+ * Only scripts loaded from a file are watched: scripts packaged in a jar do not change until the class loader is
+ * refreshed.
+ */
+@Slf4j
+class PermissionScriptsWatcher implements Closeable {
+
+    private final WatchService watchService;
+    private final Map<Path, Set<String>> classNamesByFile = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<>();
+
+    PermissionScriptsWatcher() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Watch the source of the given class, when it is a file
+     */
+    void watch(String className, URL source) {
+        if (source == null || !"file".equals(source.getProtocol())) {
+            return;
+        }
+        try {
+            Path file = Paths.get(source.toURI()).toAbsolutePath();
+            watchedDirectories.computeIfAbsent(file.getParent(), directory -> {
+                try {
+                    return directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            classNamesByFile.computeIfAbsent(file, f -> ConcurrentHashMap.newKeySet()).add(className);
+        } catch (URISyntaxException | IllegalStateException e) {
+            log.warn("Unable to watch the permission script {}, it will not be reloaded when changed: {}", source,
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * @return the names of the classes whose source changed since the last call, without blocking
+     */
+    Set<String> pollChangedClasses() {
+        Set<String> changedClasses = new HashSet<>();
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    // some events were lost: consider that all scripts changed
+                    classNamesByFile.values().forEach(changedClasses::addAll);
+                    continue;
+                }
+                Set<String> classNames = classNamesByFile.get(directory.resolve((Path) event.context()));
+                if (classNames != null) {
+                    changedClasses.addAll(classNames);
+                }
+            }
+            key.reset();
+        }
+        return changedClasses;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -16,10 +16,15 @@ package org.bonitasoft.engine.authorization;
 import static java.lang.String.format;
 import static org.bonitasoft.engine.classloader.ClassLoaderIdentifier.identifier;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import groovy.lang.GroovyClassLoader;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.bonitasoft.engine.api.impl.APIAccessorImpl;
 import org.bonitasoft.engine.api.permission.APICallContext;
@@ -46,6 +51,9 @@ import org.springframework.stereotype.Component;
 
 /**
  * Permission service implementation
+ * <p>
+ * Permission scripts are compiled once and compiled again only when their source file changes. Decisions that do not
+ * depend on a permission script are cached per session, see {@link AuthorizationDecisionCache}.
  *
  * @author Baptiste Mesta
  */
@@ -74,6 +82,9 @@ public class PermissionServiceImpl implements PermissionService {
     private final CustomPermissionsMapping customPermissionsMapping;
     protected final DynamicPermissionsChecks dynamicPermissionsChecks;
     protected final BooleanProperty dynamicPermissionCheck;
+    private final AuthorizationDecisionCache decisionCache;
+    private final Map<String, Class<?>> ruleClasses = new ConcurrentHashMap<>();
+    private PermissionScriptsWatcher scriptsWatcher;
 
     protected final long tenantId;
 
@@ -84,7 +95,10 @@ public class PermissionServiceImpl implements PermissionService {
             ResourcesPermissionsMapping resourcesPermissionsMapping,
             CustomPermissionsMapping customPermissionsMapping,
             DynamicPermissionsChecks dynamicPermissionsChecks,
-            @Value("${bonita.runtime.authorization.dynamic-check.enabled:true}") boolean dynamicPermissionCheck) {
+            @Value("${bonita.runtime.authorization.dynamic-check.enabled:true}") boolean dynamicPermissionCheck,
+            @Value("${bonita.runtime.authorization.decision-cache.max-size:10000}") int decisionCacheMaxSize,
+            @Value("${bonita.runtime.authorization.decision-cache.time-to-live:60}") long decisionCacheTtlInSeconds,
+            MeterRegistry meterRegistry) {
         this.classLoaderService = classLoaderService;
         this.sessionAccessor = sessionAccessor;
         this.sessionService = sessionService;
@@ -94,6 +108,8 @@ public class PermissionServiceImpl implements PermissionService {
         this.customPermissionsMapping = customPermissionsMapping;
         this.dynamicPermissionsChecks = dynamicPermissionsChecks;
         this.dynamicPermissionCheck = initDynamicPermissionsEnabledProperty(dynamicPermissionCheck);
+        this.decisionCache = new AuthorizationDecisionCache(decisionCacheMaxSize,
+                TimeUnit.SECONDS.toMillis(decisionCacheTtlInSeconds), meterRegistry);
     }
 
     BooleanProperty initDynamicPermissionsEnabledProperty(boolean dynamicPermissionsEnabled) {
@@ -122,7 +138,36 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     protected Class<?> getRuleClass(String className) throws SExecutionException, ClassNotFoundException {
-        return Class.forName(className, true, groovyClassLoader);
+        PermissionScriptsWatcher watcher = scriptsWatcher;
+        if (watcher == null) {
+            return Class.forName(className, true, groovyClassLoader);
+        }
+        for (String changedClass : watcher.pollChangedClasses()) {
+            log.info("Permission script {} changed, it will be compiled again", changedClass);
+            ruleClasses.remove(changedClass);
+            groovyClassLoader.removeClassCacheEntry(changedClass);
+        }
+        Class<?> ruleClass = ruleClasses.get(className);
+        if (ruleClass == null) {
+            // watched before being compiled, so that a change made while compiling is not missed
+            try {
+                watcher.watch(className, groovyClassLoader.getResourceLoader().loadGroovySource(className));
+            } catch (MalformedURLException e) {
+                log.debug("Unable to find the source of the permission script {}", className, e);
+            }
+            // not using Class.forName: the JVM would keep returning the first compiled class
+            ruleClass = groovyClassLoader.loadClass(className, true, false, true);
+            ruleClasses.put(className, ruleClass);
+        }
+        return ruleClass;
+    }
+
+    private long getSessionId() throws SExecutionException {
+        try {
+            return sessionAccessor.getSessionId();
+        } catch (SessionIdNotSetException e) {
+            throw new SExecutionException("The session is not set.", e);
+        }
     }
 
     public SSession getSession() throws SExecutionException {
@@ -156,33 +201,68 @@ public class PermissionServiceImpl implements PermissionService {
     public void start() throws SBonitaException {
         groovyClassLoader = new GroovyClassLoader(
                 classLoaderService.getClassLoader(identifier(ScopeType.TENANT, tenantId)));
-        groovyClassLoader.setShouldRecompile(true);
+        try {
+            scriptsWatcher = new PermissionScriptsWatcher();
+            groovyClassLoader.setShouldRecompile(false);
+        } catch (IOException e) {
+            log.warn("Unable to watch permission scripts, their source files will be checked on each use: {}",
+                    e.getMessage());
+            groovyClassLoader.setShouldRecompile(true);
+        }
+        decisionCache.invalidate();
     }
 
     @Override
     public void stop() {
+        if (scriptsWatcher != null) {
+            try {
+                scriptsWatcher.close();
+            } catch (IOException e) {
+                log.debug("Unable to close the permission scripts watcher", e);
+            }
+            scriptsWatcher = null;
+        }
+        ruleClasses.clear();
         if (groovyClassLoader != null) {
             groovyClassLoader.clearCache();
             groovyClassLoader = null;
         }
+        decisionCache.invalidate();
     }
 
     @Override
     public boolean isAuthorized(APICallContext apiCallContext) throws SExecutionException {
+        Set<String> resourceDynamicPermissions = Collections.emptySet();
         if (dynamicPermissionCheck.isEnabled()) {
             // Check if there is an active dynamic permission for this resource:
-            final Set<String> resourceDynamicPermissions = getDeclaredPermissions(apiCallContext.getApiName(),
+            resourceDynamicPermissions = getDeclaredPermissions(apiCallContext.getApiName(),
                     apiCallContext.getResourceName(), apiCallContext.getMethod(), apiCallContext.getResourceId(),
                     dynamicPermissionsChecks);
-            if (!resourceDynamicPermissions.isEmpty()) {
-                // if there is a dynamic rule, use it to check the permissions
-                if (log.isTraceEnabled()) {
-                    log.trace("Dynamic REST API permissions check");
-                }
-                return isAuthorizedByDynamicPermissions(apiCallContext,
-                        getSession().getUserPermissions(),
-                        resourceDynamicPermissions);
+        }
+        // a permission script can look at the whole call (body, query): its decision is not cached
+        if (!decisionCache.isEnabled() || getResourceClassName(resourceDynamicPermissions) != null) {
+            return isAuthorized(apiCallContext, resourceDynamicPermissions);
+        }
+        long sessionId = getSessionId();
+        Boolean authorized = decisionCache.get(sessionId, apiCallContext);
+        if (authorized == null) {
+            long generation = decisionCache.currentGeneration();
+            authorized = isAuthorized(apiCallContext, resourceDynamicPermissions);
+            decisionCache.put(sessionId, apiCallContext, authorized, generation);
+        }
+        return authorized;
+    }
+
+    private boolean isAuthorized(APICallContext apiCallContext, Set<String> resourceDynamicPermissions)
+            throws SExecutionException {
+        if (!resourceDynamicPermissions.isEmpty()) {
+            // if there is a dynamic rule, use it to check the permissions
+            if (log.isTraceEnabled()) {
+                log.trace("Dynamic REST API permissions check");
             }
+            return isAuthorizedByDynamicPermissions(apiCallContext,
+                    getSession().getUserPermissions(),
+                    resourceDynamicPermissions);
         }
         // if there is no dynamic rule, use the static permissions
         return isAuthorizedByStaticPermissions(apiCallContext);
@@ -317,6 +397,7 @@ public class PermissionServiceImpl implements PermissionService {
                 resourcesPermissionsMapping);
         addRestApiExtensionPermissions(resourcesPermissionsMapping, pageProperties);
         addPagePermissions(pageName, pageProperties, customPagePermissions);
+        decisionCache.invalidate();
     }
 
     private void addPagePermissions(String pageName, Properties pageProperties, Set<String> customPagePermissions) {
@@ -332,6 +413,7 @@ public class PermissionServiceImpl implements PermissionService {
             resourcesPermissionsMapping.removeInternalProperty(key);
         }
         compoundPermissionsMapping.removeInternalProperty(pageProperties.getProperty(PageService.PROPERTIES_NAME));
+        decisionCache.invalidate();
     }
 
     public Set<String> getCustomPagePermissions(final String declaredPageResources,
@@ -388,10 +470,13 @@ public class PermissionServiceImpl implements PermissionService {
 
     public void addCustomEntityPermissions(final String entity, final Set<String> resourcePermissions) {
         customPermissionsMapping.setPropertyAsSet(entity, resourcePermissions);
+        decisionCache.invalidate();
     }
 
     public void removeCustomEntityPermissions(String entity) {
         customPermissionsMapping.removeProperty(entity);
+        decisionCache.invalidate();
     }
 
+
 }
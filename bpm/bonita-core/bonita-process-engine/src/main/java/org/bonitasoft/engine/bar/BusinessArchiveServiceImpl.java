@@ -32,12 +32,14 @@ import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.commons.exceptions.SObjectCreationException;
 import org.bonitasoft.engine.commons.exceptions.SObjectModificationException;
 import org.bonitasoft.engine.commons.exceptions.SV6FormsDeployException;
+import org.bonitasoft.engine.core.process.definition.ProcessDefinitionExpressions;
 import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
 import org.bonitasoft.engine.core.process.definition.exception.SDeletingEnabledProcessException;
 import org.bonitasoft.engine.core.process.definition.exception.SProcessDefinitionNotFoundException;
 import org.bonitasoft.engine.core.process.definition.exception.SProcessDeletionException;
 import org.bonitasoft.engine.core.process.definition.model.SProcessDefinition;
 import org.bonitasoft.engine.dependency.model.ScopeType;
+import org.bonitasoft.engine.expression.ExpressionService;
 import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.recorder.SRecorderException;
 
@@ -50,12 +52,15 @@ public class BusinessArchiveServiceImpl implements BusinessArchiveService {
     private final ProcessDefinitionService processDefinitionService;
     private final BusinessArchiveArtifactsManager businessArchiveArtifactsManager;
     private final ClassLoaderService classLoaderService;
+    private final ExpressionService expressionService;
 
     public BusinessArchiveServiceImpl(ProcessDefinitionService processDefinitionService,
-            BusinessArchiveArtifactsManager businessArchiveArtifactsManager, ClassLoaderService classLoaderService) {
+            BusinessArchiveArtifactsManager businessArchiveArtifactsManager, ClassLoaderService classLoaderService,
+            ExpressionService expressionService) {
         this.processDefinitionService = processDefinitionService;
         this.businessArchiveArtifactsManager = businessArchiveArtifactsManager;
         this.classLoaderService = classLoaderService;
+        this.expressionService = expressionService;
     }
 
     @Override
@@ -75,6 +80,11 @@ public class BusinessArchiveServiceImpl implements BusinessArchiveService {
                 processDefinitionService.resolveProcess(sProcessDefinition.getId());
             }
             classLoaderService.refreshClassLoaderAfterUpdate(identifier(ScopeType.PROCESS, sProcessDefinition.getId()));
+            if (isResolved) {
+                // scripts are compiled now instead of on their first evaluation
+                expressionService.compile(ProcessDefinitionExpressions.of(sProcessDefinition),
+                        sProcessDefinition.getId());
+            }
         } catch (SV6FormsDeployException | SAlreadyExistsException e) {
             throw e;
         } catch (final SBonitaException e) {
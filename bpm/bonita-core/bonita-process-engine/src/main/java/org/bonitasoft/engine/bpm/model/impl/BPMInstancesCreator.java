@@ -188,11 +188,18 @@ public class BPMInstancesCreator {
             final long parentProcessInstanceId,
             final SStateCategory stateCategory) throws SBonitaException {
         final List<SFlowNodeInstance> flownNodeInstances = new ArrayList<>(flowNodeDefinitions.size());
+        // connector instances of all flow nodes are created together once the flow nodes have their ids
+        final List<SConnectorInstance> connectorInstances = new ArrayList<>();
         for (final SFlowNodeDefinition sFlowNodeDefinition : flowNodeDefinitions) {
-            flownNodeInstances.add(createFlowNodeInstance(processDefinitionId, rootContainerId, parentContainerId,
-                    SFlowElementsContainerType.PROCESS,
-                    sFlowNodeDefinition, rootProcessInstanceId, parentProcessInstanceId, false, -1, stateCategory, -1));
+            final SFlowNodeInstance flownNodeInstance = toFlowNodeInstance(processDefinitionId, rootContainerId,
+                    parentContainerId, SFlowElementsContainerType.PROCESS,
+                    sFlowNodeDefinition, rootProcessInstanceId, parentProcessInstanceId, false, -1, stateCategory, -1);
+            persistFlowNodeInstance(flownNodeInstance);
+            connectorInstances.addAll(createConnectorInstanceObjects(flownNodeInstance,
+                    sFlowNodeDefinition.getConnectors(), SConnectorInstance.FLOWNODE_TYPE));
+            flownNodeInstances.add(flownNodeInstance);
         }
+        connectorInstanceService.createConnectorInstances(connectorInstances);
         return flownNodeInstances;
     }
 
@@ -208,6 +215,13 @@ public class BPMInstancesCreator {
                 sFlowNodeDefinition, rootProcessInstanceId, parentProcessInstanceId, createInnerActivity, loopCounter,
                 stateCategory,
                 relatedActivityInstanceId);
+        persistFlowNodeInstance(flownNodeInstance);
+        createConnectorInstances(flownNodeInstance, sFlowNodeDefinition.getConnectors(),
+                SConnectorInstance.FLOWNODE_TYPE);
+        return flownNodeInstance;
+    }
+
+    private void persistFlowNodeInstance(final SFlowNodeInstance flownNodeInstance) throws SBonitaException {
         if (SFlowNodeType.GATEWAY.equals(flownNodeInstance.getType())) {
             gatewayInstanceService.createGatewayInstance((SGatewayInstance) flownNodeInstance);
         } else if (flownNodeInstance instanceof SActivityInstance) {
@@ -215,9 +229,6 @@ public class BPMInstancesCreator {
         } else {
             eventInstanceService.createEventInstance((SEventInstance) flownNodeInstance);
         }
-        createConnectorInstances(flownNodeInstance, sFlowNodeDefinition.getConnectors(),
-                SConnectorInstance.FLOWNODE_TYPE);
-        return flownNodeInstance;
     }
 
     public SFlowNodeInstance toFlowNodeInstance(final long processDefinitionId, final long rootContainerId,
@@ -635,6 +646,12 @@ public class BPMInstancesCreator {
     public void createConnectorInstances(final PersistentObject container, final List<SConnectorDefinition> connectors,
             final String containerType)
             throws SBonitaException {
+        connectorInstanceService.createConnectorInstances(
+                createConnectorInstanceObjects(container, connectors, containerType));
+    }
+
+    private List<SConnectorInstance> createConnectorInstanceObjects(final PersistentObject container,
+            final List<SConnectorDefinition> connectors, final String containerType) {
         final List<SConnectorInstance> connectorInstances = new ArrayList<>(connectors.size());
         int executionOrder = 0;
         for (final SConnectorDefinition sConnectorDefinition : connectors) {
@@ -642,9 +659,7 @@ public class BPMInstancesCreator {
                     sConnectorDefinition, executionOrder++);
             connectorInstances.add(connectorInstance);
         }
-        for (final SConnectorInstance connectorInstance : connectorInstances) {
-            connectorInstanceService.createConnectorInstance(connectorInstance);
-        }
+        return connectorInstances;
     }
 
     SConnectorInstance createConnectorInstanceObject(PersistentObject container, String containerType,
@@ -763,11 +778,7 @@ public class BPMInstancesCreator {
 
     private void createDataForProcess(final List<SDataInstance> sDataInstances)
             throws SDataInstanceException, SFlowNodeNotFoundException, SFlowNodeReadException {
-        if (!sDataInstances.isEmpty()) {
-            for (final SDataInstance sDataInstance : sDataInstances) {
-                dataInstanceService.createDataInstance(sDataInstance);
-            }
-        }
+        dataInstanceService.createDataInstances(sDataInstances);
     }
 
     private boolean hasLocalOrInheritedData(final SProcessDefinition processDefinition,
@@ -45,6 +45,7 @@ import org.bonitasoft.engine.dependency.model.ScopeType;
 import org.bonitasoft.engine.execution.archive.BPMArchiverService;
 import org.bonitasoft.engine.execution.state.FlowNodeStateManager;
 import org.bonitasoft.engine.execution.work.BPMWorkFactory;
+import org.bonitasoft.engine.execution.work.StraightThroughExecution;
 import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.work.SWorkRegisterException;
 import org.bonitasoft.engine.work.WorkService;
@@ -75,6 +76,7 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
     private final BPMWorkFactory workFactory;
     private final ProcessInstanceInterruptor processInstanceInterruptor;
     private final BPMArchiverService bpmArchiverService;
+    private final StraightThroughExecution straightThroughExecution;
 
     public FlowNodeExecutorImpl(final FlowNodeStateManager flowNodeStateManager,
             final ActivityInstanceService activityInstanceManager,
@@ -84,7 +86,8 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
             final ClassLoaderService classLoaderService,
             final WorkService workService, BPMWorkFactory workFactory,
             final ProcessInstanceInterruptor processInstanceInterruptor,
-            final BPMArchiverService bpmArchiverService) {
+            final BPMArchiverService bpmArchiverService,
+            final StraightThroughExecution straightThroughExecution) {
         this.flowNodeStateManager = flowNodeStateManager;
         activityInstanceService = activityInstanceManager;
         this.containerRegistry = containerRegistry;
@@ -96,6 +99,7 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
         this.processDefinitionService = processDefinitionService;
         this.commentService = commentService;
         this.bpmArchiverService = bpmArchiverService;
+        this.straightThroughExecution = straightThroughExecution;
 
     }
 
@@ -214,6 +218,9 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
     }
 
     private void registerExecuteFlowNodeWork(SFlowNodeInstance sFlowNodeInstance) throws SWorkRegisterException {
+        if (straightThroughExecution.chain(sFlowNodeInstance, false)) {
+            return;
+        }
         workService.registerWork(workFactory.createExecuteFlowNodeWorkDescriptor(sFlowNodeInstance));
     }
 
@@ -264,6 +271,9 @@ public class FlowNodeExecutorImpl implements FlowNodeExecutor {
     }
 
     private void registerNotifyFinishWork(SFlowNodeInstance sFlowNodeInstance) throws SWorkRegisterException {
+        if (straightThroughExecution.chain(sFlowNodeInstance, true)) {
+            return;
+        }
         workService.registerWork(
                 workFactory.createNotifyChildFinishedWorkDescriptor(sFlowNodeInstance));
     }
@@ -108,6 +108,7 @@ import org.bonitasoft.engine.execution.event.EventsHandler;
 import org.bonitasoft.engine.execution.flowmerger.FlowNodeTransitionsWrapper;
 import org.bonitasoft.engine.execution.handler.SProcessInstanceHandler;
 import org.bonitasoft.engine.execution.work.BPMWorkFactory;
+import org.bonitasoft.engine.execution.work.StraightThroughExecution;
 import org.bonitasoft.engine.expression.Expression;
 import org.bonitasoft.engine.expression.ExpressionService;
 import org.bonitasoft.engine.expression.exception.SExpressionDependencyMissingException;
@@ -158,6 +159,7 @@ public class ProcessExecutorImpl implements ProcessExecutor {
     private final BPMWorkFactory workFactory;
     private final BPMArchiverService bpmArchiverService;
     private final ProcessStarterVerifier processStarterVerifier;
+    private final StraightThroughExecution straightThroughExecution;
 
     public ProcessExecutorImpl(final ActivityInstanceService activityInstanceService,
             final ProcessInstanceService processInstanceService, final FlowNodeExecutor flowNodeExecutor,
@@ -175,7 +177,8 @@ public class ProcessExecutorImpl implements ProcessExecutor {
             final BusinessDataRepository businessDataRepository,
             final RefBusinessDataService refBusinessDataService, final TransitionEvaluator transitionEvaluator,
             final ContractDataService contractDataService, BPMWorkFactory workFactory,
-            BPMArchiverService bpmArchiverService, final ProcessStarterVerifier processStarterVerifier) {
+            BPMArchiverService bpmArchiverService, final ProcessStarterVerifier processStarterVerifier,
+            final StraightThroughExecution straightThroughExecution) {
         super();
         this.activityInstanceService = activityInstanceService;
         this.processInstanceService = processInstanceService;
@@ -199,6 +202,7 @@ public class ProcessExecutorImpl implements ProcessExecutor {
         this.workFactory = workFactory;
         this.bpmArchiverService = bpmArchiverService;
         this.processStarterVerifier = processStarterVerifier;
+        this.straightThroughExecution = straightThroughExecution;
         documentHelper = new DocumentHelper(documentService, processDefinitionService, processInstanceService);
         //FIXME There is responsibility issue the circular dependencies must be fixed next time.
         eventsHandler.setProcessExecutor(this);
@@ -1132,6 +1136,9 @@ public class ProcessExecutorImpl implements ProcessExecutor {
     }
 
     private void registerExecuteFlowNodeWork(SFlowNodeInstance sFlowNodeInstance) throws SWorkRegisterException {
+        if (straightThroughExecution.chain(sFlowNodeInstance, false)) {
+            return;
+        }
         workService
                 .registerWork(workFactory.createExecuteFlowNodeWorkDescriptor(sFlowNodeInstance));
     }
@@ -172,6 +172,20 @@ public class BPMWorkFactory implements WorkFactory {
                 activationEvent);
     }
 
+    /**
+     * @return the id of the flow node executed by the work, or null when the work does not execute a flow node
+     */
+    public Long getExecutedFlowNodeInstanceId(WorkDescriptor workDescriptor) {
+        switch (workDescriptor.getType()) {
+            case EXECUTE_FLOWNODE:
+            case FINISH_FLOWNODE:
+            case EXECUTE_ACTIVITY_CONNECTOR:
+                return workDescriptor.getLong(FLOW_NODE_INSTANCE_ID);
+            default:
+                return null;
+        }
+    }
+
     public WorkDescriptor createExecuteFlowNodeWorkDescriptor(SFlowNodeInstance flowNodeInstance) {
         return WorkDescriptor.create(EXECUTE_FLOWNODE)
                 .withParameter(PROCESS_DEFINITION_ID, flowNodeInstance.getProcessDefinitionId())
@@ -196,7 +210,8 @@ public class BPMWorkFactory implements WorkFactory {
                 workDescriptor.getBoolean(STATE_EXECUTING),
                 workDescriptor.getBoolean(STATE_ABORTING),
                 workDescriptor.getBoolean(STATE_CANCELING));
-        wrappedWork = withLock(processInstanceId, withTx(wrappedWork));
+        wrappedWork = withLock(processInstanceId, withStraightThrough(workDescriptor.getLong(PROCESS_DEFINITION_ID),
+                processInstanceId, withTx(wrappedWork)));
         wrappedWork = withFlowNodeContext(workDescriptor.getLong(PROCESS_DEFINITION_ID), processInstanceId,
                 flowNodeInstanceId, wrappedWork);
         return withSession(wrappedWork);
@@ -251,7 +266,8 @@ public class BPMWorkFactory implements WorkFactory {
                 workDescriptor.getBoolean(STATE_EXECUTING),
                 workDescriptor.getBoolean(STATE_ABORTING),
                 workDescriptor.getBoolean(STATE_CANCELING));
-        wrappedWork = withLock(processInstanceId, withTx(wrappedWork));
+        wrappedWork = withLock(processInstanceId,
+                withStraightThrough(processDefinitionId, processInstanceId, withTx(wrappedWork)));
         wrappedWork = withFlowNodeContext(processDefinitionId, processInstanceId, flowNodeInstanceId, wrappedWork);
         return withSession(wrappedWork);
     }
@@ -271,6 +287,10 @@ public class BPMWorkFactory implements WorkFactory {
         return new LockProcessInstanceWork(work, processInstanceId);
     }
 
+    private BonitaWork withStraightThrough(long processDefinitionId, long processInstanceId, BonitaWork work) {
+        return new StraightThroughWork(work, processDefinitionId, processInstanceId);
+    }
+
     private BonitaWork withTx(BonitaWork wrappedWork) {
         return new TxBonitaWork(wrappedWork);
     }
@@ -20,6 +20,7 @@ import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 import org.bonitasoft.engine.bpm.connector.FailAction;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
@@ -134,7 +135,7 @@ public abstract class ExecuteConnectorWork extends TenantAwareBonitaWork {
 
     @Override
     public CompletableFuture<Void> work(final Map<String, Object> context) throws Exception {
-        final long startTime = System.currentTimeMillis();
+        final long startTime = System.nanoTime();
         final ServiceAccessor serviceAccessor = getServiceAccessor(context);
         final ConnectorService connectorService = serviceAccessor.getConnectorService();
         final ConnectorInstanceService connectorInstanceService = serviceAccessor.getConnectorInstanceService();
@@ -167,8 +168,9 @@ public abstract class ExecuteConnectorWork extends TenantAwareBonitaWork {
                     });
 
         } finally {
+            final long duration = System.nanoTime() - startTime;
+            timeTracker.recordDuration(TimeTrackerRecords.EXECUTE_CONNECTOR_WORK, duration);
             if (timeTracker.isTrackable(TimeTrackerRecords.EXECUTE_CONNECTOR_WORK)) {
-                final long endTime = System.currentTimeMillis();
                 final StringBuilder desc = new StringBuilder();
                 desc.append("processDefinitionId: ");
                 desc.append(processDefinitionId);
@@ -178,7 +180,8 @@ public abstract class ExecuteConnectorWork extends TenantAwareBonitaWork {
                 desc.append(" - ");
                 desc.append("connectorInstanceId: ");
                 desc.append(connectorInstanceId);
-                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_WORK, desc.toString(), endTime - startTime);
+                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_WORK, desc.toString(),
+                        TimeUnit.NANOSECONDS.toMillis(duration));
             }
             Thread.currentThread().setContextClassLoader(contextClassLoader);
         }
@@ -60,6 +60,7 @@ public class ExecuteFlowNodeWork extends TenantAwareBonitaWork {
         final ServiceAccessor serviceAccessor = getServiceAccessor(context);
         SFlowNodeInstance flowNodeInstance = retrieveAndVerifyFlowNodeInstance(serviceAccessor);
         serviceAccessor.getFlowNodeExecutor().executeFlowNode(flowNodeInstance, null, null);
+        serviceAccessor.getStraightThroughExecution().executeChainedSteps(context);
         return CompletableFuture.completedFuture(null);
     }
 
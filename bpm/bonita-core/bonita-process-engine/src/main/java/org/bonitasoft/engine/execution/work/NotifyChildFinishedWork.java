@@ -64,15 +64,16 @@ public class NotifyChildFinishedWork extends TenantAwareBonitaWork {
     public CompletableFuture<Void> work(final Map<String, Object> context) throws Exception {
         final ClassLoader processClassloader = getClassLoader(context);
         final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        ServiceAccessor serviceAccessor = getServiceAccessor(context);
         try {
             Thread.currentThread().setContextClassLoader(processClassloader);
-            ServiceAccessor serviceAccessor = getServiceAccessor(context);
             SFlowNodeInstance flowNodeInstance = retrieveAndVerifyFlowNodeInstance(serviceAccessor);
             final ContainerRegistry containerRegistry = serviceAccessor.getContainerRegistry();
             containerRegistry.nodeReachedState(flowNodeInstance);
         } finally {
             Thread.currentThread().setContextClassLoader(contextClassLoader);
         }
+        serviceAccessor.getStraightThroughExecution().executeChainedSteps(context);
         return CompletableFuture.completedFuture(null);
     }
 
@@ -0,0 +1,227 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.execution.work;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
+import org.bonitasoft.engine.core.process.instance.model.SFlowNodeInstance;
+import org.bonitasoft.engine.work.SWorkPreconditionException;
+import org.bonitasoft.engine.work.WorkDescriptor;
+import org.bonitasoft.engine.work.WorkService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Straight-through execution of the flow nodes of some processes: instead of registering a new work for each state
+ * of a flow node and for each flow node reached by a transition, a work executing a flow node continues with the next
+ * steps of the same process instance, in its transaction and while holding the lock of the process instance, up to a
+ * number of steps and a duration.
+ * <p>
+ * When a step fails after other steps were chained, the transaction is rolled back and the work is executed again
+ * without chaining, so that the failure is handled on the flow node that caused it.
+ */
+@Slf4j
+@Component
+public class StraightThroughExecution {
+
+    public static final String STEPS_PER_WORK = "bonita.bpmengine.work.straightthrough.steps";
+    public static final String FALLBACKS = "bonita.bpmengine.work.straightthrough.fallbacks";
+    private static final String ALL_PROCESSES = "*";
+
+    private final Set<String> processNames;
+    private final int maxSteps;
+    private final long maxDurationInNanos;
+    private final ProcessDefinitionService processDefinitionService;
+    private final WorkService workService;
+    private final BPMWorkFactory workFactory;
+    private final Map<Long, Boolean> enabledByProcessDefinition = new ConcurrentHashMap<>();
+    private final ThreadLocal<Chain> currentChain = new ThreadLocal<>();
+    private final DistributionSummary stepsPerWork;
+    private final Counter fallbacks;
+
+    public StraightThroughExecution(@Value("${bonita.tenant.work.straightThrough.processes:}") String processes,
+            @Value("${bonita.tenant.work.straightThrough.maxSteps:20}") int maxSteps,
+            @Value("${bonita.tenant.work.straightThrough.maxDuration:500}") long maxDurationInMillis,
+            ProcessDefinitionService processDefinitionService, WorkService workService, BPMWorkFactory workFactory,
+            MeterRegistry meterRegistry, @Value("${tenantId}") long tenantId) {
+        this.processNames = Arrays.stream(processes.split(",")).map(String::trim).filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+        this.maxSteps = maxSteps;
+        this.maxDurationInNanos = TimeUnit.MILLISECONDS.toNanos(maxDurationInMillis);
+        this.processDefinitionService = processDefinitionService;
+        this.workService = workService;
+        this.workFactory = workFactory;
+        Tags tags = Tags.of("tenant", String.valueOf(tenantId));
+        stepsPerWork = DistributionSummary.builder(STEPS_PER_WORK).tags(tags).baseUnit("steps")
+                .description("Flow node steps executed by works of processes executed straight-through")
+                .register(meterRegistry);
+        fallbacks = Counter.builder(FALLBACKS).tags(tags).baseUnit("works")
+                .description("Works executed again without chaining steps because a chained step failed")
+                .register(meterRegistry);
+    }
+
+    boolean isEnabled(long processDefinitionId) {
+        if (processNames.isEmpty() || maxSteps <= 1) {
+            return false;
+        }
+        if (processNames.contains(ALL_PROCESSES)) {
+            return true;
+        }
+        Boolean enabled = enabledByProcessDefinition.get(processDefinitionId);
+        if (enabled == null) {
+            try {
+                enabled = processNames
+                        .contains(processDefinitionService.getProcessDefinition(processDefinitionId).getName());
+            } catch (Exception e) {
+                log.debug("Unable to read the process definition {}, its flow nodes are not executed "
+                        + "straight-through", processDefinitionId, e);
+                return false;
+            }
+            enabledByProcessDefinition.put(processDefinitionId, enabled);
+        }
+        return enabled;
+    }
+
+    /**
+     * Execute a work holding the lock of the process instance, outside of its transaction. The steps chained by the
+     * work are executed in its transaction by {@link #executeChainedSteps(Map)}.
+     */
+    <T> T execute(long processDefinitionId, long processInstanceId, Callable<T> work) throws Exception {
+        if (currentChain.get() != null || !isEnabled(processDefinitionId)) {
+            return work.call();
+        }
+        Chain chain = new Chain(processInstanceId, System.nanoTime() + maxDurationInNanos);
+        currentChain.set(chain);
+        try {
+            return work.call();
+        } catch (Exception e) {
+            if (chain.steps <= 1) {
+                throw e;
+            }
+            log.debug("A step chained by the work failed after {} steps, executing the work again without chaining "
+                    + "steps", chain.steps, e);
+            fallbacks.increment();
+            currentChain.set(Chain.DISABLED);
+            return work.call();
+        } finally {
+            currentChain.remove();
+            stepsPerWork.record(chain.steps);
+        }
+    }
+
+    /**
+     * Chain the execution of a flow node to the current work, instead of registering a new work
+     *
+     * @param notifyFinish true to notify the parent of the flow node that it is finished, false to execute its state
+     * @return false when the flow node must be executed by a new work: no work executed straight-through, flow node
+     *         of another process instance or budget of the work exhausted
+     */
+    public boolean chain(SFlowNodeInstance flowNodeInstance, boolean notifyFinish) {
+        Chain chain = currentChain.get();
+        if (chain == null || chain == Chain.DISABLED
+                || chain.processInstanceId != flowNodeInstance.getParentProcessInstanceId()
+                || chain.steps + chain.pendingSteps.size() >= maxSteps || chain.isExpired()) {
+            return false;
+        }
+        // same checks as the work that would have been registered: the flow node must still be in the current state
+        if (notifyFinish) {
+            chain.pendingSteps.add(new Step(new NotifyChildFinishedWork(flowNodeInstance.getProcessDefinitionId(),
+                    flowNodeInstance.getId(), flowNodeInstance.getStateId(), flowNodeInstance.isStateExecuting(),
+                    flowNodeInstance.isAborting(), flowNodeInstance.isCanceling()),
+                    workFactory.createNotifyChildFinishedWorkDescriptor(flowNodeInstance)));
+        } else {
+            chain.pendingSteps.add(new Step(new ExecuteFlowNodeWork(flowNodeInstance.getId(),
+                    flowNodeInstance.getStateId(), flowNodeInstance.isStateExecuting(), flowNodeInstance.isAborting(),
+                    flowNodeInstance.isCanceling()),
+                    workFactory.createExecuteFlowNodeWorkDescriptor(flowNodeInstance)));
+        }
+        return true;
+    }
+
+    /**
+     * Execute the steps chained to the current work, in its transaction. Steps left when the budget of the work is
+     * exhausted are registered as new works.
+     */
+    void executeChainedSteps(Map<String, Object> context) throws Exception {
+        Chain chain = currentChain.get();
+        if (chain == null || chain == Chain.DISABLED || chain.executingSteps) {
+            return;
+        }
+        chain.executingSteps = true;
+        try {
+            Step step;
+            while ((step = chain.pendingSteps.poll()) != null) {
+                if (chain.isExpired()) {
+                    workService.registerWork(step.workDescriptor);
+                    continue;
+                }
+                chain.steps++;
+                try {
+                    step.work.work(context);
+                } catch (SWorkPreconditionException e) {
+                    log.debug("Chained step not executed because preconditions were not met: {}", e.getMessage());
+                }
+            }
+        } finally {
+            chain.executingSteps = false;
+        }
+    }
+
+    private static final class Chain {
+
+        private static final Chain DISABLED = new Chain(-1, 0);
+
+        private final long processInstanceId;
+        private final long deadline;
+        private final Deque<Step> pendingSteps = new ArrayDeque<>();
+        // the step of the work itself
+        private int steps = 1;
+        private boolean executingSteps;
+
+        private Chain(long processInstanceId, long deadline) {
+            this.processInstanceId = processInstanceId;
+            this.deadline = deadline;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - deadline > 0;
+        }
+    }
+
+    private static final class Step {
+
+        private final TenantAwareBonitaWork work;
+        // registered instead when the budget of the work is exhausted
+        private final WorkDescriptor workDescriptor;
+
+        private Step(TenantAwareBonitaWork work, WorkDescriptor workDescriptor) {
+            this.work = work;
+            this.workDescriptor = workDescriptor;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.execution.work;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.bonitasoft.engine.work.BonitaWork;
+
+/**
+ * Work that executes the wrapped work straight-through when its process is configured so, see
+ * {@link StraightThroughExecution}. It must wrap the transaction of the work and be wrapped by the lock of the process
+ * instance.
+ */
+public class StraightThroughWork extends WrappingBonitaWork {
+
+    private final long processDefinitionId;
+    private final long processInstanceId;
+
+    public StraightThroughWork(final BonitaWork wrappedWork, final long processDefinitionId,
+            final long processInstanceId) {
+        super(wrappedWork);
+        this.processDefinitionId = processDefinitionId;
+        this.processInstanceId = processInstanceId;
+    }
+
+    @Override
+    public CompletableFuture<Void> work(final Map<String, Object> context) throws Exception {
+        return getServiceAccessor(context).getStraightThroughExecution().execute(processDefinitionId,
+                processInstanceId, () -> getWrappedWork().work(context));
+    }
+
+}
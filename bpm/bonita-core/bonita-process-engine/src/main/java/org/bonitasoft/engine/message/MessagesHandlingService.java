@@ -14,18 +14,29 @@
 package org.bonitasoft.engine.message;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.bonitasoft.engine.api.utils.VisibleForTesting;
 import org.bonitasoft.engine.builder.BuilderFactory;
+import org.bonitasoft.engine.commons.CollectionUtil;
 import org.bonitasoft.engine.commons.TenantLifecycleService;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.core.process.instance.api.event.EventInstanceService;
@@ -56,12 +67,16 @@ import org.bonitasoft.engine.work.WorkService;
 @Slf4j
 public class MessagesHandlingService implements TenantLifecycleService {
 
-    private static final int MAX_COUPLES = 100;
+    private static final int DEFAULT_MAX_COUPLES = 100;
     private static final String LOCK_TYPE = "EVENTS";
     public static final String NUMBER_OF_MESSAGES_EXECUTED = "bonita.bpmengine.message.executed";
     public static final String NUMBER_OF_MESSAGES_POTENTIAL_MATCHED = "bonita.bpmengine.message.potential";
     public static final String NUMBER_OF_MESSAGES_MATCHING_RETRIGGERED_TASKS = "bonita.bpmengine.message.retriggeredtasks";
+    public static final String NUMBER_OF_MESSAGES_POTENTIAL_LAST = "bonita.bpmengine.message.potential.last";
+    public static final String MESSAGES_MATCHING_DURATION = "bonita.bpmengine.message.matching.duration";
     private ThreadPoolExecutor threadPoolExecutor;
+    // executes the couples of a batch in several transactions, null when they are executed by the matching thread
+    private ExecutorService couplesExecutor;
     private EventInstanceService eventInstanceService;
     private WorkService workService;
     private LockService lockService;
@@ -69,10 +84,16 @@ public class MessagesHandlingService implements TenantLifecycleService {
     private UserTransactionService userTransactionService;
     private SessionAccessor sessionAccessor;
     private BPMWorkFactory workFactory;
+    private int maxCouples = DEFAULT_MAX_COUPLES;
+    private int executionThreads = 1;
+    // true when a matching task is already waiting to be executed, following triggers are merged into it
+    private final AtomicBoolean matchingScheduled = new AtomicBoolean(false);
+    private final AtomicInteger lastPotentialMessagesCount = new AtomicInteger();
 
     private final Counter executedMessagesCounter;
     private final Counter matchedPotentialMessagesCounter;
     private final Counter retriggeredMatchingTasksCounter;
+    private final Timer matchingDuration;
 
     public MessagesHandlingService(EventInstanceService eventInstanceService, WorkService workService,
             LockService lockService, Long tenantId, UserTransactionService userTransactionService,
@@ -99,15 +120,47 @@ public class MessagesHandlingService implements TenantLifecycleService {
                 .baseUnit("messages matching tasks")
                 .description("BPMN message matching tasks retriggered")
                 .register(meterRegistry);
+        Gauge.builder(NUMBER_OF_MESSAGES_POTENTIAL_LAST, lastPotentialMessagesCount, AtomicInteger::get)
+                .tags(Tags.of("tenant", String.valueOf(tenantId)))
+                .baseUnit("messages")
+                .description("BPMN message couples potentially matched by the last matching round")
+                .register(meterRegistry);
+        matchingDuration = Timer.builder(MESSAGES_MATCHING_DURATION)
+                .tags(Tags.of("tenant", String.valueOf(tenantId)))
+                .description("Duration of a BPMN message matching round")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param maxCouples maximum number of message/event couples matched in a single transaction
+     */
+    public void setMaxCouples(int maxCouples) {
+        this.maxCouples = maxCouples;
+    }
+
+    /**
+     * @param executionThreads number of threads executing the couples of a batch, each thread executing its share of
+     *        the couples in its own transaction. With 1, the couples are executed in the transaction that matched them.
+     */
+    public void setExecutionThreads(int executionThreads) {
+        this.executionThreads = Math.max(1, executionThreads);
     }
 
     @Override
     public void start() {
         log.info("Starting BPMN messages matcher thread");
+        matchingScheduled.set(false);
         threadPoolExecutor = new ThreadPoolExecutor(1, 1, 1L, TimeUnit.HOURS,
                 new ArrayBlockingQueue<>(5),
                 r -> new Thread(r, "Bonita-Message-Matching"),
                 (r, executor) -> log.debug("Message matching queue capacity reached"));
+        if (executionThreads > 1) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            couplesExecutor = Executors.newFixedThreadPool(executionThreads, r -> new Thread(() -> {
+                sessionAccessor.setTenantId(tenantId);
+                r.run();
+            }, "Bonita-Message-Execution-" + threadNumber.incrementAndGet()));
+        }
         log.info("Thread that handle messages matching successfully started");
     }
 
@@ -128,6 +181,11 @@ public class MessagesHandlingService implements TenantLifecycleService {
         } catch (InterruptedException ignored) {
         }
         threadPoolExecutor = null;
+        if (couplesExecutor != null) {
+            // the matching thread is done, no more couples are submitted
+            couplesExecutor.shutdown();
+            couplesExecutor = null;
+        }
         log.info("BPMN messages matcher thread successfully stopped");
     }
 
@@ -149,37 +207,94 @@ public class MessagesHandlingService implements TenantLifecycleService {
         userTransactionService.registerBonitaSynchronization(new RegisterMessagesMatchingSynchronization());
     }
 
+    /**
+     * Match one batch of message/event couples and register the works executing them
+     *
+     * @return true when the batch was full, i.e. there might be more couples to match
+     */
     @VisibleForTesting
-    void matchEventCoupleAndTriggerExecution() throws Exception {
-        userTransactionService.executeInTransaction(() -> {
-            final List<SMessageEventCouple> potentialMessageCouples = eventInstanceService.getMessageEventCouples(0,
-                    MAX_COUPLES);
-            final int potentialMessagesCount = potentialMessageCouples.size();
-            log.info("Found {} potential message/event couples", potentialMessagesCount);
-            matchedPotentialMessagesCounter.increment(potentialMessagesCount);
-            final List<SMessageEventCouple> uniqueCouples = getMessageUniqueCouples(potentialMessageCouples);
-            if (!uniqueCouples.isEmpty()) {
-                log.info("Triggering execution of unique {} message/event couples", uniqueCouples.size());
-                executeUniqueMessageCouplesWork(uniqueCouples);
-                log.info("Execution of message/event couples triggered");
-            } else {
-                log.debug("No message/event couples to be executed");
-            }
-            if (potentialMessagesCount == MAX_COUPLES) {
-                log.debug("There are more than {} message/event couples to match. " +
-                        "Will trigger the execution again now, to match more couples", MAX_COUPLES);
-                triggerMatchingOfMessages();
-                retriggeredMatchingTasksCounter.increment();
+    boolean matchEventCoupleAndTriggerExecution() throws Exception {
+        ExecutorService executor = couplesExecutor;
+        return matchingDuration.recordCallable(() -> {
+            if (executor == null) {
+                return userTransactionService.executeInTransaction(() -> {
+                    final List<SMessageEventCouple> potentialMessageCouples = getPotentialMessageCouples();
+                    executeUniqueMessageCouplesWork(getMessageUniqueCouples(potentialMessageCouples));
+                    return hasMoreCouples(potentialMessageCouples.size());
+                });
             }
-            return null;
+            final List<SMessageEventCouple> potentialMessageCouples = userTransactionService
+                    .executeInTransaction(this::getPotentialMessageCouples);
+            executeUniqueMessageCouplesWork(executor, getMessageUniqueCouples(potentialMessageCouples));
+            return hasMoreCouples(potentialMessageCouples.size());
         });
     }
 
+    private List<SMessageEventCouple> getPotentialMessageCouples() throws SBonitaException {
+        final List<SMessageEventCouple> potentialMessageCouples = eventInstanceService.getMessageEventCouples(0,
+                maxCouples);
+        final int potentialMessagesCount = potentialMessageCouples.size();
+        log.info("Found {} potential message/event couples", potentialMessagesCount);
+        matchedPotentialMessagesCounter.increment(potentialMessagesCount);
+        lastPotentialMessagesCount.set(potentialMessagesCount);
+        return potentialMessageCouples;
+    }
+
+    private boolean hasMoreCouples(int potentialMessagesCount) {
+        if (potentialMessagesCount >= maxCouples) {
+            log.debug("There are more than {} message/event couples to match. " +
+                    "Will match again now, to match more couples", maxCouples);
+            retriggeredMatchingTasksCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
     private void executeUniqueMessageCouplesWork(final List<SMessageEventCouple> uniqueCouples)
             throws SBonitaException {
+        if (uniqueCouples.isEmpty()) {
+            log.debug("No message/event couples to be executed");
+            return;
+        }
+        log.info("Triggering execution of unique {} message/event couples", uniqueCouples.size());
         for (final SMessageEventCouple couple : uniqueCouples) {
             executeMessageCouple(couple.getMessageInstanceId(), couple.getWaitingMessageId());
         }
+        log.info("Execution of message/event couples triggered");
+    }
+
+    /**
+     * Execute the couples using the given executor, each thread executing its share of the couples in its own
+     * transaction. Unique couples do not share any message nor waiting event (except start events that are not
+     * modified) so these transactions do not conflict. Waits for all of them before the next batch is matched.
+     */
+    private void executeUniqueMessageCouplesWork(ExecutorService executor,
+            final List<SMessageEventCouple> uniqueCouples) throws Exception {
+        if (uniqueCouples.isEmpty()) {
+            log.debug("No message/event couples to be executed");
+            return;
+        }
+        int couplesPerThread = (uniqueCouples.size() + executionThreads - 1) / executionThreads;
+        List<Future<?>> executions = new ArrayList<>();
+        for (List<SMessageEventCouple> couples : CollectionUtil.split(uniqueCouples, couplesPerThread)) {
+            executions.add(executor.submit(() -> userTransactionService.executeInTransaction(() -> {
+                executeUniqueMessageCouplesWork(couples);
+                return null;
+            })));
+        }
+        Exception failure = null;
+        for (Future<?> execution : executions) {
+            try {
+                execution.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
     }
 
     @VisibleForTesting
@@ -215,8 +330,8 @@ public class MessagesHandlingService implements TenantLifecycleService {
      *         waiting message.
      */
     List<SMessageEventCouple> getMessageUniqueCouples(List<SMessageEventCouple> potentialMessageCouples) {
-        final List<Long> takenMessages = new ArrayList<>();
-        final List<Long> takenWaitings = new ArrayList<>();
+        final Set<Long> takenMessages = new HashSet<>();
+        final Set<Long> takenWaitings = new HashSet<>();
         final List<SMessageEventCouple> uniqueMessageCouples = new ArrayList<>();
         for (final SMessageEventCouple couple : potentialMessageCouples) {
             final long messageInstanceId = couple.getMessageInstanceId();
@@ -286,10 +401,17 @@ public class MessagesHandlingService implements TenantLifecycleService {
         eventInstanceService.updateWaitingMessage(waitingMsg, descriptor);
     }
 
+    private boolean isStopped() {
+        ThreadPoolExecutor executor = threadPoolExecutor;
+        return executor == null || executor.isShutdown();
+    }
+
     private class MessagesMatchingTask implements Callable<Void> {
 
         @Override
         public Void call() throws Exception {
+            // from now on, new triggers must schedule a new task: this one might not see their messages
+            matchingScheduled.set(false);
             try {
                 log.debug("Starting messages matching");
                 // we use a lock in order to have only one execution at a time even in cluster
@@ -303,7 +425,11 @@ public class MessagesHandlingService implements TenantLifecycleService {
                 }
                 try {
                     sessionAccessor.setTenantId(tenantId);
-                    matchEventCoupleAndTriggerExecution();
+                    // match batches until all couples are consumed instead of queuing a new task for each batch
+                    boolean hasMoreCouples;
+                    do {
+                        hasMoreCouples = matchEventCoupleAndTriggerExecution();
+                    } while (hasMoreCouples && !isStopped());
                 } finally {
                     lockService.unlock(eventLock, tenantId);
                 }
@@ -320,7 +446,15 @@ public class MessagesHandlingService implements TenantLifecycleService {
 
         @Override
         public void afterCompletion(final int txState) {
-            threadPoolExecutor.submit(new MessagesMatchingTask());
+            ThreadPoolExecutor executor = threadPoolExecutor;
+            if (executor == null) {
+                return;
+            }
+            if (!matchingScheduled.compareAndSet(false, true)) {
+                log.debug("Messages matching task already registered");
+                return;
+            }
+            executor.submit(new MessagesMatchingTask());
             log.debug("Messages matching task registered");
         }
     }
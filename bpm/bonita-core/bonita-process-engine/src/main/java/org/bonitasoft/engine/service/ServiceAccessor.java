@@ -64,6 +64,7 @@ import org.bonitasoft.engine.execution.archive.BPMArchiverService;
 import org.bonitasoft.engine.execution.event.EventsHandler;
 import org.bonitasoft.engine.execution.state.FlowNodeStateManager;
 import org.bonitasoft.engine.execution.work.BPMWorkFactory;
+import org.bonitasoft.engine.execution.work.StraightThroughExecution;
 import org.bonitasoft.engine.expression.ExpressionService;
 import org.bonitasoft.engine.external.identity.mapping.ExternalIdentityMappingService;
 import org.bonitasoft.engine.identity.IconService;
@@ -270,6 +271,8 @@ public interface ServiceAccessor {
 
     BPMWorkFactory getBPMWorkFactory();
 
+    StraightThroughExecution getStraightThroughExecution();
+
     TechnicalUser getTechnicalUser();
 
     TenantStateManager getTenantStateManager();
@@ -65,6 +65,7 @@ import org.bonitasoft.engine.execution.archive.BPMArchiverService;
 import org.bonitasoft.engine.execution.event.EventsHandler;
 import org.bonitasoft.engine.execution.state.FlowNodeStateManager;
 import org.bonitasoft.engine.execution.work.BPMWorkFactory;
+import org.bonitasoft.engine.execution.work.StraightThroughExecution;
 import org.bonitasoft.engine.expression.ExpressionService;
 import org.bonitasoft.engine.external.identity.mapping.ExternalIdentityMappingService;
 import org.bonitasoft.engine.identity.IconService;
@@ -543,6 +544,11 @@ public class SpringServiceAccessor
         return beanAccessor.getService(BPMWorkFactory.class);
     }
 
+    @Override
+    public StraightThroughExecution getStraightThroughExecution() {
+        return beanAccessor.getService(StraightThroughExecution.class);
+    }
+
     public TechnicalUser getTechnicalUser() {
         return beanAccessor.getService(TechnicalUser.class);
     }
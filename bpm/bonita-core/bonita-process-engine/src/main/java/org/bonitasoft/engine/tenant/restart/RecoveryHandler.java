@@ -13,29 +13,59 @@
  **/
 package org.bonitasoft.engine.tenant.restart;
 
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
 import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
+import lombok.extern.slf4j.Slf4j;
+import org.bonitasoft.engine.execution.work.BPMWorkFactory;
+import org.bonitasoft.engine.work.WorkJournal;
 import org.springframework.stereotype.Component;
 
 /**
  * The Recovery handler is responsible for recovering all candidate elements
  * at Engine startup.
  * It is called only once in a cluster startup (handled by TenantElementsRestartSupervisor)
+ * <p>
+ * Flow nodes executed by a work of the {@link WorkJournal} are not recovered: the {@link WorkJournalRestartHandler}
+ * executes that work again.
  */
+@Slf4j
 @Component
 public class RecoveryHandler implements TenantRestartHandler {
 
     private final RecoveryService recoveryService;
+    private final WorkJournal workJournal;
+    private final BPMWorkFactory workFactory;
     private List<ElementToRecover> allElementsToRecover;
 
-    public RecoveryHandler(RecoveryService recoveryService) {
+    public RecoveryHandler(RecoveryService recoveryService, WorkJournal workJournal, BPMWorkFactory workFactory) {
         this.recoveryService = recoveryService;
+        this.workJournal = workJournal;
+        this.workFactory = workFactory;
     }
 
     @Override
     public void beforeServicesStart() {
+        // read before the journal handler takes the works in afterServicesStart
+        Set<Long> journaledFlowNodes = workJournal.getRecoveredWorks().stream()
+                .map(workFactory::getExecutedFlowNodeInstanceId)
+                .filter(Objects::nonNull)
+                .collect(toSet());
         allElementsToRecover = recoveryService.getAllElementsToRecover(Duration.ZERO);
+        if (!journaledFlowNodes.isEmpty()) {
+            int elements = allElementsToRecover.size();
+            allElementsToRecover = allElementsToRecover.stream()
+                    .filter(element -> element.getType() != ElementToRecover.Type.FLOWNODE
+                            || !journaledFlowNodes.contains(element.getId()))
+                    .collect(toList());
+            log.info("{} flow nodes are not recovered, they are restarted from the work journal",
+                    elements - allElementsToRecover.size());
+        }
     }
 
     @Override
@@ -16,6 +16,8 @@ package org.bonitasoft.engine.tenant.restart;
 import static org.springframework.beans.factory.config.BeanDefinition.SCOPE_PROTOTYPE;
 
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Scope;
@@ -24,82 +26,123 @@ import org.springframework.stereotype.Component;
 /**
  * Responsible for monitoring the recovery mechanism.
  * It measures some recovery metrics and prints them in standard logger when the recovery triggers.
+ * Counters can be updated concurrently when the recovery is executed using several threads.
  */
 @Slf4j
 @Component
 @Scope(SCOPE_PROTOTYPE)
 class RecoveryMonitor {
 
-    private long finishing;
-    private long executing;
-    private long notExecutable;
-    private long notFound;
-    private long inError;
-    private long startTime;
-    private int numberOfElementsToProcess;
+    private final LongAdder finishing = new LongAdder();
+    private final LongAdder executing = new LongAdder();
+    private final LongAdder notExecutable = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder inError = new LongAdder();
+    private volatile long startTime;
+    private volatile long endTime;
+    private final AtomicInteger numberOfElementsToProcess = new AtomicInteger();
 
     public void startNow(int numberOfElementsToProcess) {
         if (startTime > 0) {
             throw new UnsupportedOperationException("Can't start the Recovery Monitor, it is already started");
         }
-        this.numberOfElementsToProcess = numberOfElementsToProcess;
+        this.numberOfElementsToProcess.set(numberOfElementsToProcess);
         startTime = System.currentTimeMillis();
     }
 
+    /**
+     * Add elements candidates to the ones to process, when they are discovered while the recovery is running
+     */
+    public void addElementsToProcess(int numberOfElementsToProcess) {
+        this.numberOfElementsToProcess.addAndGet(numberOfElementsToProcess);
+    }
+
+    public void finishNow() {
+        endTime = System.currentTimeMillis();
+    }
+
     public long getFinishing() {
-        return finishing;
+        return finishing.sum();
     }
 
     public long getExecuting() {
-        return executing;
+        return executing.sum();
     }
 
     public long getNumberOfElementRecovered() {
-        return executing + finishing;
+        return getExecuting() + getFinishing();
     }
 
     public long getNotExecutable() {
-        return notExecutable;
+        return notExecutable.sum();
     }
 
     public long getNotFound() {
-        return notFound;
+        return notFound.sum();
     }
 
     public long getInError() {
-        return inError;
+        return inError.sum();
+    }
+
+    public long getNumberOfElementsHandled() {
+        return getFinishing() + getExecuting() + getNotExecutable() + getNotFound() + getInError();
+    }
+
+    /**
+     * @return ratio, between 0 and 1, of elements candidates already handled
+     */
+    public double getProgress() {
+        int toProcess = numberOfElementsToProcess.get();
+        if (toProcess == 0) {
+            return startTime > 0 ? 1 : 0;
+        }
+        return Math.min(1, (double) getNumberOfElementsHandled() / toProcess);
+    }
+
+    /**
+     * Estimate the remaining time of the recovery using the throughput observed since it started
+     */
+    public Duration getEstimatedRemainingTime() {
+        long handled = getNumberOfElementsHandled();
+        if (startTime == 0 || endTime > 0 || handled == 0) {
+            return Duration.ZERO;
+        }
+        long elapsed = System.currentTimeMillis() - startTime;
+        long remaining = Math.max(0, numberOfElementsToProcess.get() - handled);
+        return Duration.ofMillis(elapsed * remaining / handled);
     }
 
     public void incrementFinishing() {
-        this.finishing++;
+        finishing.increment();
     }
 
     public void incrementExecuting() {
-        this.executing++;
+        executing.increment();
     }
 
     public void incrementNotExecutable() {
-        this.notExecutable++;
+        notExecutable.increment();
     }
 
     public void incrementInError() {
-        this.inError++;
+        inError.increment();
     }
 
     public void incrementNotFound() {
-        this.notFound++;
+        notFound.increment();
     }
 
     public void incrementNotFound(int add) {
-        this.notFound += add;
+        notFound.add(add);
     }
 
     public void printProgress() {
         //This will be called only when more than one "page" of element to restart are present
-        log.info("Restarting elements...Handled "
-                + (getFinishing() + getExecuting() + getNotExecutable() + getNotFound() + getInError()) + " of "
-                + numberOfElementsToProcess +
-                " elements candidates to be recovered in " + Duration.ofMillis(System.currentTimeMillis() - startTime));
+        log.info("Restarting elements...Handled " + getNumberOfElementsHandled() + " of "
+                + numberOfElementsToProcess.get() +
+                " elements candidates to be recovered in " + Duration.ofMillis(System.currentTimeMillis() - startTime)
+                + ", estimated remaining time: " + getEstimatedRemainingTime());
     }
 
     public void printSummary() {
@@ -111,8 +154,7 @@ class RecoveryMonitor {
             log.info("Recovery of elements executed, {} elements recovered.", numberOfElementRecovered);
         }
         // details in debug
-        log.debug("Handled {} elements candidates to be recovered in {}",
-                (getFinishing() + getExecuting() + getNotExecutable() + getNotFound() + getInError()),
+        log.debug("Handled {} elements candidates to be recovered in {}", getNumberOfElementsHandled(),
                 Duration.ofMillis(System.currentTimeMillis() - startTime));
         log.debug("Found {} elements recovered (Executing)", getExecuting());
         log.debug("Found {} elements recovered (Finishing)", getFinishing());
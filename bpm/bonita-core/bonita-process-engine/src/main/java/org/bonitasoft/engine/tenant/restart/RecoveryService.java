@@ -20,8 +20,12 @@ import static org.bonitasoft.engine.tenant.restart.ElementToRecover.Type.PROCESS
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.PostConstruct;
 
@@ -35,7 +39,6 @@ import org.bonitasoft.engine.api.utils.VisibleForTesting;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.core.process.instance.api.FlowNodeInstanceService;
 import org.bonitasoft.engine.core.process.instance.api.ProcessInstanceService;
-import org.bonitasoft.engine.persistence.QueryOptions;
 import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
 import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.springframework.beans.factory.ObjectFactory;
@@ -46,7 +49,10 @@ import org.springframework.stereotype.Component;
  * Responsible to recover from incidents like database or network outage.
  * It scans the database (on-demand) and reschedules the elements to recover.
  * It will recover these elements using multiple transaction using a batch size configured by the property
- * `bonita.tenant.work.batch_restart_size`
+ * `bonita.tenant.work.batch_restart_size`.
+ * The ids are read by pages of `bonita.tenant.recover.read_batch_size`, in id order, and each page is split in batches
+ * as soon as it is read, without keeping all ids in memory. Batches can be executed by several threads using the
+ * property `bonita.tenant.recover.threads`, the reading of the next page waiting when all threads are busy.
  */
 @Component
 @Slf4j
@@ -56,6 +62,8 @@ public class RecoveryService {
     public static final String NUMBER_OF_RECOVERY = "bonita.bpmengine.recovery.execution";
     public static final String NUMBER_OF_ELEMENTS_RECOVERED_LAST_RECOVERY = "bonita.bpmengine.recovery.recovered.last";
     public static final String NUMBER_OF_ELEMENTS_RECOVERED_TOTAL = "bonita.bpmengine.recovery.recovered.total";
+    public static final String PROGRESS_OF_RECOVERY = "bonita.bpmengine.recovery.progress";
+    public static final String ESTIMATED_REMAINING_TIME_OF_RECOVERY = "bonita.bpmengine.recovery.eta";
 
     private final FlowNodeInstanceService flowNodeInstanceService;
     private final ProcessInstanceService processInstanceService;
@@ -68,11 +76,13 @@ public class RecoveryService {
     private long tenantId;
     private int readBatchSize;
     private int batchRestartSize;
+    private int recoveryThreads = 1;
     private Duration considerElementsOlderThan;
     private LongTaskTimer longTaskTimer;
     private Counter numberOfElementsRecoveredTotal;
     private Counter numberOfRecoverExecuted;
     private final AtomicLong numberOfElementsRecoveredDuringTheLastRecover = new AtomicLong();
+    private final AtomicReference<RecoveryMonitor> currentRecovery = new AtomicReference<>();
 
     public RecoveryService(FlowNodeInstanceService flowNodeInstanceService,
             ProcessInstanceService processInstanceService,
@@ -109,6 +119,14 @@ public class RecoveryService {
         numberOfRecoverExecuted = Counter.builder(NUMBER_OF_RECOVERY)
                 .baseUnit("executions").description("Number of recovery executed").tags(tags)
                 .register(meterRegistry);
+        Gauge.builder(PROGRESS_OF_RECOVERY, currentRecovery,
+                r -> r.get() == null ? 0 : r.get().getProgress())
+                .description("ratio of elements handled by the current or last recovery").tags(tags)
+                .register(meterRegistry);
+        Gauge.builder(ESTIMATED_REMAINING_TIME_OF_RECOVERY, currentRecovery,
+                r -> r.get() == null ? 0 : r.get().getEstimatedRemainingTime().toSeconds())
+                .description("estimated remaining time of the current recovery").baseUnit("seconds").tags(tags)
+                .register(meterRegistry);
     }
 
     @Value("${bonita.tenant.recover.read_batch_size:5000}")
@@ -126,6 +144,11 @@ public class RecoveryService {
         this.batchRestartSize = batchRestartSize;
     }
 
+    @Value("${bonita.tenant.recover.threads:1}")
+    public void setRecoveryThreads(int recoveryThreads) {
+        this.recoveryThreads = Math.max(1, recoveryThreads);
+    }
+
     @Value("${tenantId}")
     public void setTenantId(long tenantId) {
         this.tenantId = tenantId;
@@ -146,33 +169,47 @@ public class RecoveryService {
     public List<ElementToRecover> getAllElementsToRecover(Duration considerElementsOlderThan) {
         List<ElementToRecover> elementsToRecover = new ArrayList<>();
         try {
-            elementsToRecover.addAll(getAllElementsToRecover(PROCESS,
-                    (q) -> processInstanceService.getProcessInstanceIdsToRecover(considerElementsOlderThan, q)));
-            elementsToRecover.addAll(getAllElementsToRecover(FLOWNODE,
-                    (q) -> flowNodeInstanceService.getFlowNodeInstanceIdsToRecover(considerElementsOlderThan, q)));
-            elementsToRecover.addAll(getAllElementsToRecover(FLOWNODE,
-                    (q) -> flowNodeInstanceService.getGatewayInstanceIdsToRecover(considerElementsOlderThan, q)));
+            readPageByPage(PROCESS, false, processIdsToRecover(considerElementsOlderThan),
+                    page -> addElements(elementsToRecover, page, PROCESS));
+            readPageByPage(FLOWNODE, false, flowNodeIdsToRecover(considerElementsOlderThan),
+                    page -> addElements(elementsToRecover, page, FLOWNODE));
+            readPageByPage(FLOWNODE, false, gatewayIdsToRecover(considerElementsOlderThan),
+                    page -> addElements(elementsToRecover, page, FLOWNODE));
             return elementsToRecover;
-        } catch (SBonitaException e) {
+        } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static void addElements(List<ElementToRecover> elements, List<Long> ids, ElementToRecover.Type type) {
+        for (Long id : ids) {
+            elements.add(ElementToRecover.builder().id(id).type(type).build());
+        }
+    }
+
     /**
      * Trigger works to execute elements ( ProcessInstance and Flow Nodes ) that needs to be recovered
      *
      * @param elementsToRecover elements needs to be recovered
      */
     public void recover(List<ElementToRecover> elementsToRecover) {
+        RecoveryMonitor recoveryMonitor = startRecovery(elementsToRecover.size());
+        executeInBatch(recoveryMonitor, elementsToRecover, FLOWNODE,
+                ids -> flowNodesRecover.execute(recoveryMonitor, ids));
+        executeInBatch(recoveryMonitor, elementsToRecover, PROCESS,
+                ids -> processesRecover.execute(recoveryMonitor, ids));
+        finishRecovery(recoveryMonitor);
+    }
+
+    private RecoveryMonitor startRecovery(int numberOfElementsToRecover) {
         RecoveryMonitor recoveryMonitor = recoveryMonitorProvider.getObject();
-        recoveryMonitor.startNow(elementsToRecover.size());
-        executeInBatch(recoveryMonitor, elementsToRecover.stream()
-                .filter(e1 -> e1.getType() == FLOWNODE)
-                .collect(Collectors.toList()), ids -> flowNodesRecover.execute(recoveryMonitor, ids));
-        executeInBatch(recoveryMonitor, elementsToRecover.stream()
-                .filter(e -> e.getType() == PROCESS)
-                .collect(Collectors.toList()), ids -> processesRecover.execute(recoveryMonitor, ids));
+        recoveryMonitor.startNow(numberOfElementsToRecover);
+        currentRecovery.set(recoveryMonitor);
+        return recoveryMonitor;
+    }
 
+    private void finishRecovery(RecoveryMonitor recoveryMonitor) {
+        recoveryMonitor.finishNow();
         recoveryMonitor.printSummary();
         long numberOfElementRecovered = recoveryMonitor.getNumberOfElementRecovered();
         numberOfElementsRecoveredTotal.increment(numberOfElementRecovered);
@@ -180,63 +217,175 @@ public class RecoveryService {
         numberOfRecoverExecuted.increment();
     }
 
-    protected void executeInBatch(RecoveryMonitor recoveryMonitor, List<ElementToRecover> elements,
-            BatchExecution execution) {
-        for (List<ElementToRecover> batchElementsIds : split(elements, batchRestartSize)) {
-            try {
-                userTransactionService.executeInTransaction(() -> {
-                    execution.execute(
-                            batchElementsIds.stream().map(ElementToRecover::getId).collect(Collectors.toList()));
-                    return null;
-                });
-            } catch (Exception e) {
-                log.warn(
-                        "Error processing batch of elements to recover, they will be recovered next time: {}, Cause: {}: {}",
-                        batchElementsIds, e.getClass().getName(), e.getMessage());
-                log.debug("Cause", e);
-            }
-            if (batchElementsIds.size() == batchRestartSize) {
-                // only print progress when there is more than one page
-                recoveryMonitor.printProgress();
+    private void executeInBatch(RecoveryMonitor recoveryMonitor, List<ElementToRecover> elementsToRecover,
+            ElementToRecover.Type type, BatchExecution execution) {
+        try (BatchDispatcher dispatcher = new BatchDispatcher(recoveryMonitor, execution)) {
+            List<Long> batch = new ArrayList<>(batchRestartSize);
+            for (ElementToRecover element : elementsToRecover) {
+                if (element.getType() != type) {
+                    continue;
+                }
+                batch.add(element.getId());
+                if (batch.size() == batchRestartSize) {
+                    dispatcher.dispatch(batch);
+                    batch = new ArrayList<>(batchRestartSize);
+                }
             }
+            dispatcher.dispatch(batch);
+        }
+    }
+
+    private void executeBatch(RecoveryMonitor recoveryMonitor, List<Long> batchElementsIds,
+            BatchExecution execution) {
+        try {
+            userTransactionService.executeInTransaction(() -> {
+                execution.execute(batchElementsIds);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn(
+                    "Error processing batch of elements to recover, they will be recovered next time: {}, Cause: {}: {}",
+                    batchElementsIds, e.getClass().getName(), e.getMessage());
+            log.debug("Cause", e);
+        }
+        if (batchElementsIds.size() == batchRestartSize) {
+            // only print progress when there is more than one page
+            recoveryMonitor.printProgress();
         }
     }
 
     /**
      * Recover all elements considered as "stuck".
      * Only recover elements older than a duration configured with {@link #setConsiderElementsOlderThan(String)}.
+     * Each page of ids is read in its own transaction and handed over to the recovery as soon as it is read.
      */
     public void recoverAllElements() {
         longTaskTimer.record(() -> {
             try {
                 sessionAccessor.setTenantId(tenantId);
-                List<ElementToRecover> allElementsToRecover = userTransactionService.executeInTransaction(
-                        () -> RecoveryService.this.getAllElementsToRecover(considerElementsOlderThan));
-                log.debug("Found {} that can potentially be recovered", allElementsToRecover.size());
-                recover(allElementsToRecover);
+                RecoveryMonitor recoveryMonitor = startRecovery(0);
+                recoverPageByPage(recoveryMonitor, FLOWNODE, flowNodeIdsToRecover(considerElementsOlderThan),
+                        ids -> flowNodesRecover.execute(recoveryMonitor, ids));
+                recoverPageByPage(recoveryMonitor, FLOWNODE, gatewayIdsToRecover(considerElementsOlderThan),
+                        ids -> flowNodesRecover.execute(recoveryMonitor, ids));
+                recoverPageByPage(recoveryMonitor, PROCESS, processIdsToRecover(considerElementsOlderThan),
+                        ids -> processesRecover.execute(recoveryMonitor, ids));
+                finishRecovery(recoveryMonitor);
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
         });
     }
 
-    private List<ElementToRecover> getAllElementsToRecover(ElementToRecover.Type type, IdsRetriever idsRetriever)
-            throws SBonitaException {
-        // using a too low page size (100) causes too many access to the database and causes timeout exception if there are lot of elements.
-        // As we retrieve only the id we can use a greater page size
-        QueryOptions queryOptions = new QueryOptions(0, readBatchSize);
-        final List<Long> ids = new ArrayList<>();
-        List<Long> elementsIds;
+    private void recoverPageByPage(RecoveryMonitor recoveryMonitor, ElementToRecover.Type type,
+            IdsRetriever idsRetriever, BatchExecution execution) throws Exception {
+        try (BatchDispatcher dispatcher = new BatchDispatcher(recoveryMonitor, execution)) {
+            readPageByPage(type, true, idsRetriever, page -> {
+                recoveryMonitor.addElementsToProcess(page.size());
+                for (List<Long> batch : split(page, batchRestartSize)) {
+                    dispatcher.dispatch(batch);
+                }
+            });
+        }
+    }
+
+    /**
+     * Read the ids by pages of readBatchSize, each page starting after the last id of the previous one, so that
+     * elements recovered in the meantime, that are not returned anymore, do not shift the next pages
+     */
+    private void readPageByPage(ElementToRecover.Type type, boolean transactionPerPage, IdsRetriever idsRetriever,
+            PageConsumer pageConsumer) throws Exception {
         log.debug("Start detecting {} to recover...", type);
+        long afterId = 0;
+        int numberOfElements = 0;
+        List<Long> page;
         do {
-            elementsIds = idsRetriever.getIds(queryOptions);
-            queryOptions = QueryOptions.getNextPage(queryOptions);
-            ids.addAll(elementsIds);
-        } while (elementsIds.size() == queryOptions.getNumberOfResults());
-        log.debug("Found {} {} to recover", elementsIds.size(), type);
-        return ids
-                .stream().map(id -> ElementToRecover.builder().id(id).type(type).build())
-                .collect(Collectors.toList());
+            long lastId = afterId;
+            page = transactionPerPage
+                    ? userTransactionService.executeInTransaction(() -> idsRetriever.getIds(lastId, readBatchSize))
+                    : idsRetriever.getIds(lastId, readBatchSize);
+            if (!page.isEmpty()) {
+                pageConsumer.accept(page);
+                numberOfElements += page.size();
+                afterId = page.get(page.size() - 1);
+            }
+        } while (page.size() == readBatchSize);
+        log.debug("Found {} {} to recover", numberOfElements, type);
+    }
+
+    // using a too low page size (100) causes too many access to the database and causes timeout exception if there
+    // are lot of elements. As we retrieve only the id we can use a greater page size
+    private IdsRetriever processIdsToRecover(Duration considerElementsOlderThan) {
+        return (afterId, maxResults) -> processInstanceService.getProcessInstanceIdsToRecover(
+                considerElementsOlderThan, afterId, maxResults);
+    }
+
+    private IdsRetriever flowNodeIdsToRecover(Duration considerElementsOlderThan) {
+        return (afterId, maxResults) -> flowNodeInstanceService.getFlowNodeInstanceIdsToRecover(
+                considerElementsOlderThan, afterId, maxResults);
+    }
+
+    private IdsRetriever gatewayIdsToRecover(Duration considerElementsOlderThan) {
+        return (afterId, maxResults) -> flowNodeInstanceService.getGatewayInstanceIdsToRecover(
+                considerElementsOlderThan, afterId, maxResults);
+    }
+
+    /**
+     * Executes the batches of one type of elements, in the calling thread or, when there are several recovery threads,
+     * in a pool whose queue is as small as the pool: the calling thread executes the batch itself when the queue is
+     * full, so that it does not read further pages before the previous ones are handled. Closing it waits for all
+     * batches to be executed.
+     */
+    private class BatchDispatcher implements AutoCloseable {
+
+        private final RecoveryMonitor recoveryMonitor;
+        private final BatchExecution execution;
+        private final ThreadPoolExecutor executor;
+
+        private BatchDispatcher(RecoveryMonitor recoveryMonitor, BatchExecution execution) {
+            this.recoveryMonitor = recoveryMonitor;
+            this.execution = execution;
+            this.executor = recoveryThreads > 1 ? newExecutor() : null;
+        }
+
+        private ThreadPoolExecutor newExecutor() {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return new ThreadPoolExecutor(recoveryThreads, recoveryThreads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(recoveryThreads),
+                    r -> new Thread(() -> {
+                        sessionAccessor.setTenantId(tenantId);
+                        r.run();
+                    }, "Bonita-Recovery-" + tenantId + "-" + threadNumber.incrementAndGet()),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+
+        private void dispatch(List<Long> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (executor == null) {
+                executeBatch(recoveryMonitor, batch, execution);
+            } else {
+                executor.execute(() -> executeBatch(recoveryMonitor, batch, execution));
+            }
+        }
+
+        @Override
+        public void close() {
+            if (executor == null) {
+                return;
+            }
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.debug("Waiting for the recovery threads to handle the remaining batches");
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                log.warn("Recovery interrupted, remaining elements will be recovered next time");
+            }
+        }
     }
 
     private interface BatchExecution {
@@ -246,6 +395,11 @@ public class RecoveryService {
 
     private interface IdsRetriever {
 
-        List<Long> getIds(QueryOptions queryOptions) throws SBonitaException;
+        List<Long> getIds(long afterId, int maxResults) throws SBonitaException;
+    }
+
+    private interface PageConsumer {
+
+        void accept(List<Long> page) throws Exception;
     }
 }
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tenant.restart;
+
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bonitasoft.engine.work.WorkDescriptor;
+import org.bonitasoft.engine.work.WorkExecutorService;
+import org.bonitasoft.engine.work.WorkJournal;
+import org.springframework.stereotype.Component;
+
+/**
+ * Execute again the works that were not completed when the node stopped, as read from the {@link WorkJournal}. The
+ * {@link RecoveryHandler} does not recover the flow nodes executed by these works, so that they are not executed twice.
+ */
+@Slf4j
+@Component
+public class WorkJournalRestartHandler implements TenantRestartHandler {
+
+    private final WorkJournal workJournal;
+    private final WorkExecutorService workExecutorService;
+
+    public WorkJournalRestartHandler(WorkJournal workJournal, WorkExecutorService workExecutorService) {
+        this.workJournal = workJournal;
+        this.workExecutorService = workExecutorService;
+    }
+
+    @Override
+    public void beforeServicesStart() {
+    }
+
+    @Override
+    public void afterServicesStart() {
+        List<WorkDescriptor> works = workJournal.takeRecoveredWorks();
+        if (works.isEmpty()) {
+            return;
+        }
+        log.info("Restarting {} works that were not completed when the node stopped", works.size());
+        works.forEach(workExecutorService::execute);
+    }
+}
@@ -26,6 +26,7 @@ import java.io.FileNotFoundException;
 import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 import javax.transaction.Synchronization;
 
@@ -1548,6 +1549,11 @@ public class ProcessAPIImplTest {
         public void registerBeforeCommitCallable(Callable<Void> callable) {
         }
 
+        @Override
+        public <T> T getTransactionResource(Object key, Supplier<T> resourceFactory) {
+            return resourceFactory.get();
+        }
+
         @Override
         public boolean isTransactionActive() {
             return false;
@@ -16,6 +16,8 @@ package org.bonitasoft.engine.authorization;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.authorization.properties.CompoundPermissionsMapping;
 import org.bonitasoft.engine.authorization.properties.CustomPermissionsMapping;
 import org.bonitasoft.engine.authorization.properties.DynamicPermissionsChecks;
@@ -93,5 +95,10 @@ public class PermissionServiceConfigurationTest {
         DynamicPermissionsChecks dynamicPermissionsChecks() {
             return mock(DynamicPermissionsChecks.class);
         }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
     }
 }
@@ -20,9 +20,14 @@ import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.anySet;
 import static org.mockito.Mockito.anyString;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.util.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.api.permission.APICallContext;
 import org.bonitasoft.engine.authorization.properties.CompoundPermissionsMapping;
 import org.bonitasoft.engine.authorization.properties.CustomPermissionsMapping;
@@ -44,6 +49,7 @@ import org.junit.Test;
 import org.junit.contrib.java.lang.system.EnvironmentVariables;
 import org.junit.contrib.java.lang.system.RestoreSystemProperties;
 import org.junit.contrib.java.lang.system.SystemOutRule;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -56,6 +62,11 @@ public class PermissionServiceImplTest {
     @Rule
     public final SystemOutRule systemOutRule = new SystemOutRule().enableLog().muteForSuccessfulTests();
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Mock
     private ClassLoaderService classLoaderService;
 
@@ -91,7 +102,7 @@ public class PermissionServiceImplTest {
         permissionService = spy(
                 new PermissionServiceImpl(classLoaderService, sessionAccessor, sessionService, TENANT_ID,
                         compoundPermissionsMapping, resourcesPermissionsMapping, customPermissionsMapping,
-                        dynamicPermissionsChecks, true));
+                        dynamicPermissionsChecks, true, 100, 60, meterRegistry));
         doReturn(session).when(sessionService).getSession(anyLong());
     }
 
@@ -614,6 +625,76 @@ public class PermissionServiceImplTest {
         assertThat(property).isFalse();
     }
 
+    @Test
+    public void isAuthorized_should_cache_static_decisions_per_session() throws Exception {
+        returnPermissionsFor("GET", "bpm", "case", null, List.of("CasePermission"));
+        returnUserPermissionsFromSession("CasePermission");
+        final APICallContext apiCallContext = new APICallContext("GET", "bpm", "case", null, "", "");
+        doReturn(1L).when(sessionAccessor).getSessionId();
+
+        assertThat(permissionService.isAuthorized(apiCallContext)).isTrue();
+        assertThat(permissionService.isAuthorized(apiCallContext)).isTrue();
+        doReturn(2L).when(sessionAccessor).getSessionId();
+        assertThat(permissionService.isAuthorized(apiCallContext)).isTrue();
+
+        verify(permissionService, times(2)).isAuthorizedByStaticPermissions(apiCallContext);
+        assertThat(meterRegistry.find(AuthorizationDecisionCache.HITS).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find(AuthorizationDecisionCache.MISSES).counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void isAuthorized_should_not_cache_decisions_of_permission_scripts() throws Exception {
+        returnDynamicPermissionsFor("GET", "bpm", "case", null, List.of("check|className"));
+        final APICallContext apiCallContext = new APICallContext("GET", "bpm", "case", null, "", "");
+        doReturn(true).when(permissionService).checkAPICallWithScript("className", apiCallContext);
+
+        permissionService.isAuthorized(apiCallContext);
+        permissionService.isAuthorized(apiCallContext);
+
+        verify(permissionService, times(2)).checkAPICallWithScript("className", apiCallContext);
+    }
+
+    @Test
+    public void isAuthorized_should_take_decisions_again_when_permissions_change() throws Exception {
+        doReturn(true).when(permissionService).isAuthorizedByStaticPermissions(any(APICallContext.class));
+        final APICallContext apiCallContext = new APICallContext("GET", "bdm", "businessData", null, "", "");
+
+        permissionService.isAuthorized(apiCallContext);
+        permissionService.removeCustomEntityPermissions("com.company.Invoice");
+        permissionService.isAuthorized(apiCallContext);
+
+        verify(permissionService, times(2)).isAuthorizedByStaticPermissions(apiCallContext);
+    }
+
+    @Test
+    public void getRuleClass_should_compile_the_script_again_only_when_its_file_changes() throws Exception {
+        File scriptsFolder = temporaryFolder.newFolder("scripts");
+        File script = new File(scriptsFolder, "org/acme/MyRule.groovy");
+        script.getParentFile().mkdirs();
+        Files.writeString(script.toPath(), "package org.acme\nclass MyRule { String version() { '1' } }");
+        doReturn(new URLClassLoader(new URL[] { scriptsFolder.toURI().toURL() },
+                Thread.currentThread().getContextClassLoader())).when(classLoaderService).getClassLoader(any());
+        permissionService.start();
+        try {
+            Class<?> ruleClass = permissionService.getRuleClass("org.acme.MyRule");
+            assertThat(permissionService.getRuleClass("org.acme.MyRule")).isSameAs(ruleClass);
+
+            Files.writeString(script.toPath(), "package org.acme\nclass MyRule { String version() { '2' } }");
+            Class<?> reloadedClass = ruleClass;
+            // the change is notified asynchronously by the file system
+            for (int i = 0; i < 100 && reloadedClass == ruleClass; i++) {
+                Thread.sleep(100);
+                reloadedClass = permissionService.getRuleClass("org.acme.MyRule");
+            }
+
+            assertThat(reloadedClass).isNotSameAs(ruleClass);
+            assertThat(reloadedClass.getMethod("version").invoke(reloadedClass.getConstructor().newInstance()))
+                    .isEqualTo("2");
+        } finally {
+            permissionService.stop();
+        }
+    }
+
     private void returnPermissionsFor(final String method, final String apiName, final String resourceName,
             final List<String> resourceQualifiers,
             final List<String> toBeReturned) {
@@ -24,6 +24,7 @@ import static org.mockito.Mockito.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.bonitasoft.engine.actor.mapping.ActorMappingService;
 import org.bonitasoft.engine.actor.mapping.model.SActor;
@@ -42,6 +43,7 @@ import org.bonitasoft.engine.core.process.instance.api.ActivityInstanceService;
 import org.bonitasoft.engine.core.process.instance.api.GatewayInstanceService;
 import org.bonitasoft.engine.core.process.instance.model.SConnectorInstance;
 import org.bonitasoft.engine.core.process.instance.model.SFlowElementsContainerType;
+import org.bonitasoft.engine.core.process.instance.model.SFlowNodeInstance;
 import org.bonitasoft.engine.core.process.instance.model.SGatewayInstance;
 import org.bonitasoft.engine.core.process.instance.model.SHumanTaskInstance;
 import org.bonitasoft.engine.core.process.instance.model.SManualTaskInstance;
@@ -169,6 +171,27 @@ public class BPMInstancesCreatorTest {
         assertThat(gatewayInstance.getLastUpdateDate()).isNotEqualTo(0L);
     }
 
+    @Test
+    public void createFlowNodeInstances_should_create_connector_instances_of_all_flow_nodes_in_one_batch()
+            throws Exception {
+        doReturn(new InitializingActivityState(null)).when(flowNodeStateManager)
+                .getFirstState(SFlowNodeType.GATEWAY);
+        final SGatewayDefinitionImpl gateway1 = spy(new SGatewayDefinitionImpl(222L, "gate1", SGatewayType.EXCLUSIVE));
+        doReturn(getConnectorList()).when(gateway1).getConnectors();
+        final SGatewayDefinitionImpl gateway2 = spy(new SGatewayDefinitionImpl(223L, "gate2", SGatewayType.PARALLEL));
+        doReturn(getConnectorList()).when(gateway2).getConnectors();
+
+        final List<SFlowNodeInstance> flowNodeInstances = bpmInstancesCreator.createFlowNodeInstances(2345L, 999L,
+                888L, Arrays.asList(gateway1, gateway2), 964854854L, 78L, SStateCategory.NORMAL);
+
+        assertThat(flowNodeInstances).extracting(SFlowNodeInstance::getName).containsExactly("gate1", "gate2");
+        verify(gatewayInstanceService, times(2)).createGatewayInstance(any(SGatewayInstance.class));
+        verify(connectorInstanceService).createConnectorInstances(argThat(connectorInstances -> connectorInstances
+                .stream().map(SConnectorInstance::getExecutionOrder).collect(Collectors.toList())
+                .equals(Arrays.asList(0, 1, 0, 1))));
+        verify(connectorInstanceService, never()).createConnectorInstance(any());
+    }
+
     @Test
     public void create_user_task_should_not_evaluate_setExpectedEndDate_expression() throws Exception {
         //given
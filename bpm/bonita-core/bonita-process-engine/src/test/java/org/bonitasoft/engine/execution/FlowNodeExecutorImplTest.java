@@ -27,6 +27,7 @@ import org.bonitasoft.engine.execution.archive.BPMArchiverService;
 import org.bonitasoft.engine.execution.state.FlowNodeStateManager;
 import org.bonitasoft.engine.execution.state.SkippedFlowNodeState;
 import org.bonitasoft.engine.execution.work.BPMWorkFactory;
+import org.bonitasoft.engine.execution.work.StraightThroughExecution;
 import org.bonitasoft.engine.work.WorkDescriptor;
 import org.bonitasoft.engine.work.WorkService;
 import org.junit.Before;
@@ -63,6 +64,8 @@ public class FlowNodeExecutorImplTest {
     private StateBehaviors stateBehaviors;
     @Mock
     BPMArchiverService bpmArchiverService;
+    @Mock
+    private StraightThroughExecution straightThroughExecution;
     @Captor
     private ArgumentCaptor<WorkDescriptor> workDescriptorArgumentCaptor;
     private FlowNodeExecutorImpl flowNodeExecutor;
@@ -72,7 +75,7 @@ public class FlowNodeExecutorImplTest {
     public void before() throws Exception {
         flowNodeExecutor = new FlowNodeExecutorImpl(flowNodeStateManager, activityInstanceService,
                 containerRegistry, processDefinitionService, null, null, workService, workFactory,
-                processInstanceInterruptor, bpmArchiverService);
+                processInstanceInterruptor, bpmArchiverService, straightThroughExecution);
         skippedFlowNodeState = new SkippedFlowNodeState();
         doReturn(skippedFlowNodeState).when(flowNodeStateManager).getState(SkippedFlowNodeState.ID);
         doReturn(stateBehaviors).when(flowNodeStateManager).getStateBehaviors();
@@ -59,6 +59,7 @@ import org.bonitasoft.engine.exception.BonitaHomeNotSetException;
 import org.bonitasoft.engine.execution.event.EventsHandler;
 import org.bonitasoft.engine.execution.handler.SProcessInstanceHandler;
 import org.bonitasoft.engine.execution.state.FlowNodeStateManager;
+import org.bonitasoft.engine.execution.work.StraightThroughExecution;
 import org.bonitasoft.engine.expression.ExpressionService;
 import org.bonitasoft.engine.expression.model.SExpression;
 import org.bonitasoft.engine.expression.model.impl.SExpressionImpl;
@@ -175,6 +176,8 @@ public class ProcessExecutorImplTest {
 
     @Mock
     private ProcessStarterVerifier processStarterVerifier;
+    @Mock
+    private StraightThroughExecution straightThroughExecution;
 
     @InjectMocks
     private ProcessExecutorImpl processExecutorImpl;
@@ -15,6 +15,7 @@ package org.bonitasoft.engine.execution;
 
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 import javax.transaction.Synchronization;
 
@@ -74,6 +75,11 @@ public class TransactionServiceMock implements TransactionService {
     public void registerBeforeCommitCallable(final Callable<Void> callable) {
     }
 
+    @Override
+    public <T> T getTransactionResource(final Object key, final Supplier<T> resourceFactory) {
+        return resourceFactory.get();
+    }
+
     @Override
     public long getNumberOfActiveTransactions() {
         return 0;
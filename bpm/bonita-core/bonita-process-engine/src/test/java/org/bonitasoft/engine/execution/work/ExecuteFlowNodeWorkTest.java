@@ -14,6 +14,7 @@
 package org.bonitasoft.engine.execution.work;
 
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
 
 import java.util.Collections;
@@ -46,6 +47,8 @@ public class ExecuteFlowNodeWorkTest {
     private ActivityInstanceService activityInstanceService;
     @Mock
     private FlowNodeExecutor flowNodeExecutor;
+    @Mock
+    private StraightThroughExecution straightThroughExecution;
     private SUserTaskInstance sHumanTaskInstance;
     private Map<String, Object> context;
 
@@ -57,6 +60,7 @@ public class ExecuteFlowNodeWorkTest {
         context = Collections.singletonMap(TenantAwareBonitaWork.SERVICE_ACCESSOR, serviceAccessor);
         doReturn(activityInstanceService).when(serviceAccessor).getActivityInstanceService();
         doReturn(flowNodeExecutor).when(serviceAccessor).getFlowNodeExecutor();
+        lenient().doReturn(straightThroughExecution).when(serviceAccessor).getStraightThroughExecution();
         sHumanTaskInstance = new SUserTaskInstance();
         sHumanTaskInstance.setId(FLOW_NODE_INSTANCE_ID);
         doReturn(sHumanTaskInstance).when(activityInstanceService).getFlowNodeInstance(FLOW_NODE_INSTANCE_ID);
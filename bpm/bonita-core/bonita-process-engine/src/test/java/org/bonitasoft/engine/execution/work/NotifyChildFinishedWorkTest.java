@@ -49,6 +49,8 @@ public class NotifyChildFinishedWorkTest {
     private ContainerRegistry containerRegistry;
     @Mock
     private ClassLoaderService classLoaderService;
+    @Mock
+    private StraightThroughExecution straightThroughExecution;
     private Map<String, Object> context;
     private NotifyChildFinishedWork notifyChildFinishedWork;
 
@@ -62,6 +64,7 @@ public class NotifyChildFinishedWorkTest {
 
         doReturn(classLoaderService).when(serviceAccessor).getClassLoaderService();
         doReturn(flowNodeInstanceService).when(serviceAccessor).getActivityInstanceService();
+        lenient().doReturn(straightThroughExecution).when(serviceAccessor).getStraightThroughExecution();
     }
 
     @Test
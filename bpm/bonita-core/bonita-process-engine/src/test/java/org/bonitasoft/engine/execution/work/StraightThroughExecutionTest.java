@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.execution.work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
+import org.bonitasoft.engine.core.process.definition.model.impl.SProcessDefinitionImpl;
+import org.bonitasoft.engine.core.process.instance.model.SAutomaticTaskInstance;
+import org.bonitasoft.engine.core.process.instance.model.SFlowNodeInstance;
+import org.bonitasoft.engine.work.WorkService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StraightThroughExecutionTest {
+
+    private static final long PROCESS_DEFINITION_ID = 12L;
+    private static final long PROCESS_INSTANCE_ID = 42L;
+
+    @Mock
+    private ProcessDefinitionService processDefinitionService;
+    @Mock
+    private WorkService workService;
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StraightThroughExecution straightThroughExecution(String processes, int maxSteps) {
+        return new StraightThroughExecution(processes, maxSteps, 60000, processDefinitionService, workService,
+                new BPMWorkFactory(), meterRegistry, 1L);
+    }
+
+    private SFlowNodeInstance flowNode(long id, long processInstanceId) {
+        SAutomaticTaskInstance flowNodeInstance = new SAutomaticTaskInstance();
+        flowNodeInstance.setId(id);
+        flowNodeInstance.setLogicalGroup(0, PROCESS_DEFINITION_ID);
+        flowNodeInstance.setLogicalGroup(3, processInstanceId);
+        return flowNodeInstance;
+    }
+
+    @Test
+    public void should_not_be_enabled_without_process_names() {
+        assertThat(straightThroughExecution("", 20).isEnabled(PROCESS_DEFINITION_ID)).isFalse();
+    }
+
+    @Test
+    public void should_be_enabled_for_all_processes() {
+        assertThat(straightThroughExecution("*", 20).isEnabled(PROCESS_DEFINITION_ID)).isTrue();
+    }
+
+    @Test
+    public void should_be_enabled_only_for_configured_process_names() throws Exception {
+        doReturn(new SProcessDefinitionImpl("Order", "1.0")).when(processDefinitionService)
+                .getProcessDefinition(PROCESS_DEFINITION_ID);
+        doReturn(new SProcessDefinitionImpl("Invoice", "1.0")).when(processDefinitionService)
+                .getProcessDefinition(13L);
+        StraightThroughExecution straightThroughExecution = straightThroughExecution("Order, Shipping", 20);
+
+        assertThat(straightThroughExecution.isEnabled(PROCESS_DEFINITION_ID)).isTrue();
+        assertThat(straightThroughExecution.isEnabled(PROCESS_DEFINITION_ID)).isTrue();
+        assertThat(straightThroughExecution.isEnabled(13L)).isFalse();
+        verify(processDefinitionService, times(1)).getProcessDefinition(PROCESS_DEFINITION_ID);
+    }
+
+    @Test
+    public void should_not_be_enabled_when_only_one_step_is_allowed() {
+        assertThat(straightThroughExecution("*", 1).isEnabled(PROCESS_DEFINITION_ID)).isFalse();
+    }
+
+    @Test
+    public void should_not_chain_outside_of_a_work_executed_straight_through() {
+        assertThat(straightThroughExecution("*", 20).chain(flowNode(1L, PROCESS_INSTANCE_ID), false)).isFalse();
+    }
+
+    @Test
+    public void should_not_chain_when_process_is_not_executed_straight_through() throws Exception {
+        StraightThroughExecution straightThroughExecution = straightThroughExecution("", 20);
+
+        boolean chained = straightThroughExecution.execute(PROCESS_DEFINITION_ID, PROCESS_INSTANCE_ID,
+                () -> straightThroughExecution.chain(flowNode(1L, PROCESS_INSTANCE_ID), false));
+
+        assertThat(chained).isFalse();
+    }
+
+    @Test
+    public void should_chain_flow_nodes_of_the_same_process_instance_only() throws Exception {
+        StraightThroughExecution straightThroughExecution = straightThroughExecution("*", 20);
+
+        boolean[] chained = straightThroughExecution.execute(PROCESS_DEFINITION_ID, PROCESS_INSTANCE_ID,
+                () -> new boolean[] {
+                        straightThroughExecution.chain(flowNode(1L, PROCESS_INSTANCE_ID), false),
+                        straightThroughExecution.chain(flowNode(2L, PROCESS_INSTANCE_ID), true),
+                        straightThroughExecution.chain(flowNode(3L, 43L), false) });
+
+        assertThat(chained).containsExactly(true, true, false);
+    }
+
+    @Test
+    public void should_not_chain_more_steps_than_the_maximum() throws Exception {
+        StraightThroughExecution straightThroughExecution = straightThroughExecution("*", 3);
+
+        boolean[] chained = straightThroughExecution.execute(PROCESS_DEFINITION_ID, PROCESS_INSTANCE_ID,
+                () -> new boolean[] {
+                        straightThroughExecution.chain(flowNode(1L, PROCESS_INSTANCE_ID), false),
+                        straightThroughExecution.chain(flowNode(2L, PROCESS_INSTANCE_ID), false),
+                        straightThroughExecution.chain(flowNode(3L, PROCESS_INSTANCE_ID), false) });
+
+        assertThat(chained).containsExactly(true, true, false);
+    }
+
+    @Test
+    public void should_record_the_steps_of_each_work() throws Exception {
+        StraightThroughExecution straightThroughExecution = straightThroughExecution("*", 20);
+
+        straightThroughExecution.execute(PROCESS_DEFINITION_ID, PROCESS_INSTANCE_ID, () -> null);
+        straightThroughExecution.execute(PROCESS_DEFINITION_ID, PROCESS_INSTANCE_ID, () -> null);
+
+        assertThat(meterRegistry.find(StraightThroughExecution.STEPS_PER_WORK).summary().count()).isEqualTo(2);
+        assertThat(meterRegistry.find(StraightThroughExecution.STEPS_PER_WORK).summary().totalAmount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void should_not_execute_the_work_again_when_it_fails_without_chained_steps() {
+        StraightThroughExecution straightThroughExecution = straightThroughExecution("*", 20);
+        AtomicInteger executions = new AtomicInteger();
+
+        assertThatThrownBy(() -> straightThroughExecution.execute(PROCESS_DEFINITION_ID, PROCESS_INSTANCE_ID,
+                () -> {
+                    executions.incrementAndGet();
+                    throw new IllegalStateException("failure");
+                })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(executions).hasValue(1);
+        assertThat(meterRegistry.find(StraightThroughExecution.FALLBACKS).counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_execute_the_work_again_without_chaining_when_it_fails_after_chained_steps() throws Exception {
+        StraightThroughExecution straightThroughExecution = straightThroughExecution("*", 20);
+        AtomicInteger executions = new AtomicInteger();
+
+        boolean chainedOnFallback = straightThroughExecution.execute(PROCESS_DEFINITION_ID, PROCESS_INSTANCE_ID,
+                () -> {
+                    if (executions.incrementAndGet() == 1) {
+                        straightThroughExecution.chain(flowNode(1L, PROCESS_INSTANCE_ID), false);
+                        // the chained step fails: there is no context to execute it
+                        straightThroughExecution.executeChainedSteps(null);
+                    }
+                    return straightThroughExecution.chain(flowNode(2L, PROCESS_INSTANCE_ID), false);
+                });
+
+        assertThat(executions).hasValue(2);
+        assertThat(chainedOnFallback).isFalse();
+        assertThat(meterRegistry.find(StraightThroughExecution.FALLBACKS).counter().count()).isEqualTo(1);
+    }
+}
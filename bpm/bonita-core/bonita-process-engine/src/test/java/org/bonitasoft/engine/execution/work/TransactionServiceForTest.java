@@ -15,6 +15,7 @@ package org.bonitasoft.engine.execution.work;
 
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 import javax.transaction.Synchronization;
 
@@ -38,6 +39,11 @@ public class TransactionServiceForTest implements UserTransactionService {
     public void registerBeforeCommitCallable(final Callable<Void> callable) {
     }
 
+    @Override
+    public <T> T getTransactionResource(final Object key, final Supplier<T> resourceFactory) {
+        return resourceFactory.get();
+    }
+
     @Override
     public boolean isTransactionActive() {
         return false;
@@ -213,11 +213,62 @@ public class MessagesHandlingServiceTest {
                 .collect(toList());
         doReturn(couples).when(eventInstanceService).getMessageEventCouples(anyInt(), anyInt());
 
-        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+        boolean hasMoreCouples = messagesHandlingService.matchEventCoupleAndTriggerExecution();
 
+        assertThat(hasMoreCouples).isTrue();
         assertThat(counterValue(NUMBER_OF_MESSAGES_MATCHING_RETRIGGERED_TASKS)).isEqualTo(1);
     }
 
+    @Test
+    public void should_match_couples_using_configured_batch_size() throws Exception {
+        doReturn(new SWaitingMessageEvent()).when(eventInstanceService).getWaitingMessage(anyLong());
+        doReturn(new SMessageInstance()).when(eventInstanceService).getMessageInstance(anyLong());
+        doReturn(asList(msgEventCouple(1L, 10L), msgEventCouple(2L, 20L)))
+                .when(eventInstanceService).getMessageEventCouples(0, 500);
+        messagesHandlingService.setMaxCouples(500);
+
+        boolean hasMoreCouples = messagesHandlingService.matchEventCoupleAndTriggerExecution();
+
+        assertThat(hasMoreCouples).isFalse();
+        assertThat(counterValue(NUMBER_OF_MESSAGES_MATCHING_RETRIGGERED_TASKS)).isZero();
+    }
+
+    @Test
+    public void should_record_couples_found_and_duration_of_matching_round() throws Exception {
+        doReturn(new SWaitingMessageEvent()).when(eventInstanceService).getWaitingMessage(anyLong());
+        doReturn(new SMessageInstance()).when(eventInstanceService).getMessageInstance(anyLong());
+        doReturn(asList(msgEventCouple(1L, 10L), msgEventCouple(2L, 20L), msgEventCouple(2L, 30L)))
+                .when(eventInstanceService).getMessageEventCouples(anyInt(), anyInt());
+
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+
+        assertThat(meterRegistry.find(NUMBER_OF_MESSAGES_POTENTIAL_LAST).gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.find(MESSAGES_MATCHING_DURATION).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_execute_couples_in_one_transaction_per_thread_when_using_several_threads() throws Exception {
+        doReturn(new SWaitingMessageEvent()).when(eventInstanceService).getWaitingMessage(anyLong());
+        doReturn(new SMessageInstance()).when(eventInstanceService).getMessageInstance(anyLong());
+        doReturn(asList(msgEventCouple(1L, 10L), msgEventCouple(2L, 20L), msgEventCouple(3L, 30L),
+                msgEventCouple(4L, 40L), msgEventCouple(4L, 50L)))
+                .when(eventInstanceService).getMessageEventCouples(anyInt(), anyInt());
+        messagesHandlingService.setExecutionThreads(2);
+        messagesHandlingService.start();
+
+        try {
+            messagesHandlingService.matchEventCoupleAndTriggerExecution();
+        } finally {
+            messagesHandlingService.stop();
+        }
+
+        // one transaction to match the couples, then one per thread to execute them
+        verify(userTransactionService, times(3)).executeInTransaction(any());
+        verify(messagesHandlingService, times(4)).executeMessageCouple(anyLong(), anyLong());
+        verify(sessionAccessor, times(2)).setTenantId(TENANT_ID);
+        assertThat(counterValue(NUMBER_OF_MESSAGES_EXECUTED)).isEqualTo(4);
+    }
+
     // =================================================================================================================
     // UTILS
     // =================================================================================================================
@@ -23,10 +23,16 @@ import static org.mockito.Mockito.verify;
 import java.time.Duration;
 import java.util.List;
 
+import org.bonitasoft.engine.core.process.instance.model.SFlowNodeInstance;
+import org.bonitasoft.engine.core.process.instance.model.SUserTaskInstance;
+import org.bonitasoft.engine.execution.work.BPMWorkFactory;
+import org.bonitasoft.engine.work.WorkDescriptor;
+import org.bonitasoft.engine.work.WorkJournal;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 /**
@@ -37,6 +43,10 @@ class RecoveryHandlerTest {
 
     @Mock
     private RecoveryService recoveryService;
+    @Mock
+    private WorkJournal workJournal;
+    @Spy
+    private BPMWorkFactory workFactory = new BPMWorkFactory();
 
     @InjectMocks
     private RecoveryHandler recoveryHandler;
@@ -53,4 +63,33 @@ class RecoveryHandlerTest {
 
         verify(recoveryService).recover(elementToRecovers);
     }
+
+    @Test
+    void should_not_recover_flow_nodes_restarted_from_the_work_journal() {
+        doReturn(asList(workFactory.createExecuteFlowNodeWorkDescriptor(flowNode(44L)),
+                workFactory.createNotifyChildFinishedWorkDescriptor(flowNode(45L)),
+                WorkDescriptor.create("OTHER").withParameter("flowNodeInstanceId", 46L)))
+                        .when(workJournal).getRecoveredWorks();
+        doReturn(asList(
+                builder().id(44L).type(PROCESS).build(),
+                builder().id(44L).type(FLOWNODE).build(),
+                builder().id(45L).type(FLOWNODE).build(),
+                builder().id(46L).type(FLOWNODE).build(),
+                builder().id(47L).type(FLOWNODE).build()))
+                        .when(recoveryService).getAllElementsToRecover(Duration.ZERO);
+
+        recoveryHandler.beforeServicesStart();
+        recoveryHandler.afterServicesStart();
+
+        verify(recoveryService).recover(asList(
+                builder().id(44L).type(PROCESS).build(),
+                builder().id(46L).type(FLOWNODE).build(),
+                builder().id(47L).type(FLOWNODE).build()));
+    }
+
+    private static SFlowNodeInstance flowNode(long id) {
+        SUserTaskInstance flowNode = new SUserTaskInstance();
+        flowNode.setId(id);
+        return flowNode;
+    }
 }
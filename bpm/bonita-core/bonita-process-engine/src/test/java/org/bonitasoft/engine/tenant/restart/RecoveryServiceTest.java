@@ -20,6 +20,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.bonitasoft.engine.tenant.restart.ElementToRecover.Type.FLOWNODE;
 import static org.bonitasoft.engine.tenant.restart.ElementToRecover.Type.PROCESS;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -91,11 +93,11 @@ class RecoveryServiceTest {
     @Test
     void should_return_list_of_elements_to_recover() throws Exception {
         doReturn(asList(1L, 2L)).doReturn(emptyList()).when(flowNodeInstanceService)
-                .getFlowNodeInstanceIdsToRecover(eq(Duration.ZERO), any());
+                .getFlowNodeInstanceIdsToRecover(eq(Duration.ZERO), anyLong(), anyInt());
         doReturn(asList(3L, 4L)).doReturn(emptyList()).when(flowNodeInstanceService)
-                .getGatewayInstanceIdsToRecover(eq(Duration.ZERO), any());
+                .getGatewayInstanceIdsToRecover(eq(Duration.ZERO), anyLong(), anyInt());
         doReturn(asList(1L, 2L)).doReturn(emptyList())
-                .when(processInstanceService).getProcessInstanceIdsToRecover(eq(Duration.ZERO), any());
+                .when(processInstanceService).getProcessInstanceIdsToRecover(eq(Duration.ZERO), anyLong(), anyInt());
 
         List<ElementToRecover> allElementsToRecover = recoveryService
                 .getAllElementsToRecover(Duration.ZERO);
@@ -110,10 +112,10 @@ class RecoveryServiceTest {
     void should_return_all_elements_even_if_over_page_size() throws SBonitaException {
         doReturn(asList(1L, 2L))
                 .doReturn(singletonList(4L))
-                .when(processInstanceService).getProcessInstanceIdsToRecover(eq(Duration.ZERO), any());
+                .when(processInstanceService).getProcessInstanceIdsToRecover(eq(Duration.ZERO), anyLong(), anyInt());
         doReturn(asList(7L, 9L))
                 .doReturn(singletonList(13L))
-                .when(flowNodeInstanceService).getFlowNodeInstanceIdsToRecover(eq(Duration.ZERO), any());
+                .when(flowNodeInstanceService).getFlowNodeInstanceIdsToRecover(eq(Duration.ZERO), anyLong(), anyInt());
 
         List<ElementToRecover> allElementsToRecover = recoveryService
                 .getAllElementsToRecover(Duration.ZERO);
@@ -144,22 +146,30 @@ class RecoveryServiceTest {
 
         doReturn(asList(1L, 2L))
                 .doReturn(singletonList(4L))
-                .when(processInstanceService).getProcessInstanceIdsToRecover(eq(considerElementsOlderThan), any());
+                .when(processInstanceService)
+                .getProcessInstanceIdsToRecover(eq(considerElementsOlderThan), anyLong(), anyInt());
         doReturn(asList(7L, 9L))
                 .doReturn(singletonList(13L))
-                .when(flowNodeInstanceService).getFlowNodeInstanceIdsToRecover(eq(considerElementsOlderThan), any());
+                .when(flowNodeInstanceService)
+                .getFlowNodeInstanceIdsToRecover(eq(considerElementsOlderThan), anyLong(), anyInt());
 
         recoveryService.recoverAllElements();
 
-        verify(flowNodesRecover).execute(any(), eq(asList(7L, 9L, 13L)));
-        verify(processesRecover).execute(any(), eq(asList(1L, 2L, 4L)));
+        verify(flowNodesRecover).execute(any(), eq(asList(7L, 9L)));
+        verify(flowNodesRecover).execute(any(), eq(singletonList(13L)));
+        verify(processesRecover).execute(any(), eq(asList(1L, 2L)));
+        verify(processesRecover).execute(any(), eq(singletonList(4L)));
+        verify(flowNodeInstanceService).getFlowNodeInstanceIdsToRecover(considerElementsOlderThan, 9L, 2);
+        verify(processInstanceService).getProcessInstanceIdsToRecover(considerElementsOlderThan, 2L, 2);
+        verify(recoveryMonitor, times(2)).addElementsToProcess(2);
+        verify(recoveryMonitor, times(2)).addElementsToProcess(1);
     }
 
     @Test
     void should_measure_duration_of_recovery() throws Exception {
         doReturn(singletonList(1L))
                 .doReturn(singletonList(4L))
-                .when(processInstanceService).getProcessInstanceIdsToRecover(any(), any());
+                .when(processInstanceService).getProcessInstanceIdsToRecover(any(), anyLong(), anyInt());
         LongTaskTimer longTaskTimer = meterRegistry.find(RecoveryService.DURATION_OF_RECOVERY_TASK).longTaskTimer();
         AtomicInteger activeTasks = new AtomicInteger();
         AtomicLong durationMillis = new AtomicLong();
@@ -305,6 +315,39 @@ class RecoveryServiceTest {
         verify(userTransactionService, times(3)).executeInTransaction(any());
     }
 
+    @Test
+    void should_restart_flownodes_in_batch_using_several_threads() throws Exception {
+        recoveryService.setBatchRestartSize(2);
+        recoveryService.setRecoveryThreads(2);
+
+        recoveryService.recover(asList(
+                elementToRecover(1L, FLOWNODE),
+                elementToRecover(2L, FLOWNODE),
+                elementToRecover(3L, FLOWNODE),
+                elementToRecover(4L, FLOWNODE),
+                elementToRecover(5L, FLOWNODE)));
+
+        verify(flowNodesRecover).execute(any(), eq(asList(1L, 2L)));
+        verify(flowNodesRecover).execute(any(), eq(asList(3L, 4L)));
+        verify(flowNodesRecover).execute(any(), eq(singletonList(5L)));
+        verify(sessionAccessor, times(2)).setTenantId(12);
+        verify(userTransactionService, times(3)).executeInTransaction(any());
+    }
+
+    @Test
+    void should_expose_progress_of_recovery() {
+        Gauge progress = meterRegistry.find(RecoveryService.PROGRESS_OF_RECOVERY).tag("tenant", "12").gauge();
+        Gauge eta = meterRegistry.find(RecoveryService.ESTIMATED_REMAINING_TIME_OF_RECOVERY).tag("tenant", "12")
+                .gauge();
+        doReturn(0.5).when(recoveryMonitor).getProgress();
+        doReturn(Duration.ofSeconds(42)).when(recoveryMonitor).getEstimatedRemainingTime();
+
+        recoveryService.recover(singletonList(elementToRecover(1L, FLOWNODE)));
+
+        assertThat(progress.value()).isEqualTo(0.5);
+        assertThat(eta.value()).isEqualTo(42);
+    }
+
     @Test
     void should_recover_elements_using_a_new_RecoveryMonitor() throws Exception {
         InOrder inOrder = inOrder(recoveryMonitor, flowNodesRecover, processesRecover);
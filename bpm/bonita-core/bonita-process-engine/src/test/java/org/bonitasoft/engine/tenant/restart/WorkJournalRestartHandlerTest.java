@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tenant.restart;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.bonitasoft.engine.work.WorkDescriptor;
+import org.bonitasoft.engine.work.WorkExecutorService;
+import org.bonitasoft.engine.work.WorkJournal;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WorkJournalRestartHandlerTest {
+
+    @Mock
+    private WorkJournal workJournal;
+    @Mock
+    private WorkExecutorService workExecutorService;
+    @InjectMocks
+    private WorkJournalRestartHandler workJournalRestartHandler;
+
+    @Test
+    public void should_execute_works_recovered_from_the_journal() {
+        WorkDescriptor work1 = WorkDescriptor.create("work1");
+        WorkDescriptor work2 = WorkDescriptor.create("work2");
+        doReturn(asList(work1, work2)).when(workJournal).takeRecoveredWorks();
+
+        workJournalRestartHandler.afterServicesStart();
+
+        verify(workExecutorService).execute(work1);
+        verify(workExecutorService).execute(work2);
+    }
+
+    @Test
+    public void should_do_nothing_when_no_work_was_recovered() {
+        doReturn(emptyList()).when(workJournal).takeRecoveredWorks();
+
+        workJournalRestartHandler.afterServicesStart();
+
+        verifyNoInteractions(workExecutorService);
+    }
+}
@@ -71,6 +71,18 @@ public interface ConnectorInstanceService {
      */
     void createConnectorInstance(SConnectorInstance connectorInstance) throws SConnectorInstanceCreationException;
 
+    /**
+     * Create the given connector instances in database in one batch, e.g. all connector instances of a flow node
+     *
+     * @param connectorInstances
+     *        Connector instances
+     * @throws SConnectorInstanceCreationException
+     *         Error thrown if has exceptions during the connector instances creation
+     * @since 10.3
+     */
+    void createConnectorInstances(List<SConnectorInstance> connectorInstances)
+            throws SConnectorInstanceCreationException;
+
     /**
      * Delete the given connector instance from the database
      *
@@ -15,6 +15,7 @@ package org.bonitasoft.engine.core.connector.impl;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -156,6 +157,23 @@ public class ConnectorInstanceServiceImpl implements ConnectorInstanceService {
         }
     }
 
+    @Override
+    public void createConnectorInstances(final List<SConnectorInstance> connectorInstances)
+            throws SConnectorInstanceCreationException {
+        if (connectorInstances.isEmpty()) {
+            return;
+        }
+        final List<InsertRecord> records = new ArrayList<>(connectorInstances.size());
+        for (final SConnectorInstance connectorInstance : connectorInstances) {
+            records.add(new InsertRecord(connectorInstance));
+        }
+        try {
+            recorder.recordInserts(records, CONNECTOR_INSTANCE);
+        } catch (final SRecorderException e) {
+            throw new SConnectorInstanceCreationException(e);
+        }
+    }
+
     @Override
     public List<SConnectorInstance> getConnectorInstances(final long containerId, final String containerType,
             final ConnectorEvent activationEvent,
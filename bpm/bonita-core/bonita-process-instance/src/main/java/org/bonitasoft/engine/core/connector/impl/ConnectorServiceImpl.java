@@ -28,6 +28,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
@@ -156,7 +157,9 @@ public class ConnectorServiceImpl implements ConnectorService {
             log.debug("Executing connector {} {}", buildConnectorContextMessage(sConnectorInstance),
                     buildConnectorInputMessage(inputParameters));
         }
-        return executeConnectorInClassloader(implementationClassName, classLoader, inputParameters)
+        return executeConnectorInClassloader(implementationClassName,
+                connectorImplementationDescriptor.getDefinitionId(),
+                connectorImplementationDescriptor.getDefinitionVersion(), classLoader, inputParameters)
                 .thenApply(result -> {
                     connectorExecutionTimeLogger.log(processDefinitionId, sConnectorInstance, result.getConnector(),
                             inputParameters, result.getExecutionTimeMillis());
@@ -185,7 +188,7 @@ public class ConnectorServiceImpl implements ConnectorService {
     public void executeOutputOperation(final List<SOperation> outputs, final SExpressionContext expressionContext,
             final ConnectorResult result)
             throws SConnectorException {
-        final long startTime = System.currentTimeMillis();
+        final long startTime = System.nanoTime();
         try {
             expressionContext.putAllInputValues(result.getResult());
             operationService.execute(outputs, expressionContext.getContainerId(), expressionContext.getContainerType(),
@@ -193,10 +196,12 @@ public class ConnectorServiceImpl implements ConnectorService {
         } catch (final SOperationExecutionException e) {
             throw new SConnectorException(e);
         } finally {
+            final long duration = System.nanoTime() - startTime;
+            timeTracker.recordDuration(TimeTrackerRecords.EXECUTE_CONNECTOR_OUTPUT_OPERATIONS, duration);
             if (timeTracker.isTrackable(TimeTrackerRecords.EXECUTE_CONNECTOR_OUTPUT_OPERATIONS)) {
-                final long endTime = System.currentTimeMillis();
                 String desc = "ConnectorResult: " + result;
-                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_OUTPUT_OPERATIONS, desc, endTime - startTime);
+                timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_OUTPUT_OPERATIONS, desc,
+                        TimeUnit.NANOSECONDS.toMillis(duration));
             }
             disconnect(result);
         }
@@ -204,19 +209,20 @@ public class ConnectorServiceImpl implements ConnectorService {
 
     @Override
     public void disconnect(final ConnectorResult result) throws SConnectorException {
-        final long startTime = System.currentTimeMillis();
+        final long startTime = System.nanoTime();
         try {
             connectorExecutor.disconnect(new SConnectorAdapter(result.getConnector()));
         } catch (final org.bonitasoft.engine.connector.exception.SConnectorException e) {
             throw new SConnectorException(e);
         } finally {
+            final long duration = System.nanoTime() - startTime;
+            timeTracker.recordDuration(TimeTrackerRecords.EXECUTE_CONNECTOR_DISCONNECT, duration);
             if (timeTracker.isTrackable(TimeTrackerRecords.EXECUTE_CONNECTOR_DISCONNECT)) {
-                final long endTime = System.currentTimeMillis();
                 final StringBuilder desc = new StringBuilder();
                 desc.append("ConnectorResult: ");
                 desc.append(result);
                 timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_DISCONNECT, desc.toString(),
-                        endTime - startTime);
+                        TimeUnit.NANOSECONDS.toMillis(duration));
             }
         }
     }
@@ -273,8 +279,8 @@ public class ConnectorServiceImpl implements ConnectorService {
         }
         final ConnectorResult connectorResult;
         try {
-            connectorResult = executeConnectorInClassloader(implementationClassName, classLoader, inputParameters)
-                    .get();
+            connectorResult = executeConnectorInClassloader(implementationClassName, connectorDefinitionId,
+                    connectorDefinitionVersion, classLoader, inputParameters).get();
         } catch (InterruptedException | ExecutionException e) {
             throw new SConnectorException(e);
         }
@@ -286,13 +292,14 @@ public class ConnectorServiceImpl implements ConnectorService {
     }
 
     private CompletableFuture<ConnectorResult> executeConnectorInClassloader(final String implementationClassName,
-            final ClassLoader classLoader,
+            final String definitionId, final String definitionVersion, final ClassLoader classLoader,
             final Map<String, Object> inputParameters) throws SConnectorException {
         final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
         try {
             Thread.currentThread().setContextClassLoader(classLoader);
             Connector connector = (Connector) classLoader.loadClass(implementationClassName).newInstance();
-            final SConnectorAdapter sConnectorAdapter = new SConnectorAdapter(connector);
+            final SConnectorAdapter sConnectorAdapter = new SConnectorAdapter(connector, definitionId,
+                    definitionVersion);
             return connectorExecutor.execute(sConnectorAdapter, inputParameters, classLoader)
                     .thenApply(result -> new ConnectorResult(connector, result.getOutputs(),
                             result.getExecutionTimeMillis()));
@@ -314,7 +321,7 @@ public class ConnectorServiceImpl implements ConnectorService {
             final Map<String, Map<String, Serializable>> inputValues)
             throws SExpressionTypeUnknownException, SExpressionEvaluationException,
             SExpressionDependencyMissingException, SInvalidExpressionException {
-        final long startTime = System.currentTimeMillis();
+        final long startTime = System.nanoTime();
         final Map<String, Object> inputParameters = new HashMap<>(parameters.size());
         try {
             for (final Entry<String, SExpression> input : parameters.entrySet()) {
@@ -330,11 +337,12 @@ public class ConnectorServiceImpl implements ConnectorService {
                 }
             }
         } finally {
+            final long duration = System.nanoTime() - startTime;
+            timeTracker.recordDuration(TimeTrackerRecords.EXECUTE_CONNECTOR_INPUT_EXPRESSIONS, duration);
             if (timeTracker.isTrackable(TimeTrackerRecords.EXECUTE_CONNECTOR_INPUT_EXPRESSIONS)) {
-                final long endTime = System.currentTimeMillis();
                 String desc = "Connector ID: " + connectorId + " - input parameters: " + inputParameters;
                 timeTracker.track(TimeTrackerRecords.EXECUTE_CONNECTOR_INPUT_EXPRESSIONS, desc,
-                        endTime - startTime);
+                        TimeUnit.NANOSECONDS.toMillis(duration));
             }
         }
         return inputParameters;
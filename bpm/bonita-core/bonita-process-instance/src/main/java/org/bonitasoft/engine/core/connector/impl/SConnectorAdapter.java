@@ -35,10 +35,18 @@ import org.bonitasoft.engine.connector.exception.SConnectorValidationException;
 public class SConnectorAdapter implements SConnector {
 
     private final Connector connector;
+    private final String definitionId;
+    private final String definitionVersion;
 
     public SConnectorAdapter(final Connector connector) {
+        this(connector, null, null);
+    }
+
+    public SConnectorAdapter(final Connector connector, final String definitionId, final String definitionVersion) {
         NullCheckingUtil.checkArgsNotNull(connector);
         this.connector = connector;
+        this.definitionId = definitionId;
+        this.definitionVersion = definitionVersion;
     }
 
     public Connector getConnector() {
@@ -95,4 +103,14 @@ public class SConnectorAdapter implements SConnector {
         }
     }
 
+    @Override
+    public String getDefinitionId() {
+        return definitionId;
+    }
+
+    @Override
+    public String getDefinitionVersion() {
+        return definitionVersion;
+    }
+
 }
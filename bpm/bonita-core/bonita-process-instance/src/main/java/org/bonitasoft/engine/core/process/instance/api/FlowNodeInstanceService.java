@@ -365,9 +365,10 @@ public interface FlowNodeInstanceService {
      * This does not retrieve SGatewayInstances
      *
      * @param considerElementsOlderThan consider elements older than that duration
-     * @param queryOptions used for pagination
+     * @param afterId only retrieve ids greater than this one, the last id of the previous page
+     * @param maxResults maximum number of ids to retrieve, in ascending order
      */
-    List<Long> getFlowNodeInstanceIdsToRecover(Duration considerElementsOlderThan, QueryOptions queryOptions)
+    List<Long> getFlowNodeInstanceIdsToRecover(Duration considerElementsOlderThan, long afterId, int maxResults)
             throws SBonitaReadException;
 
     List<SFlowNodeInstance> getFlowNodeInstancesByIds(List<Long> ids) throws SBonitaReadException;
@@ -375,11 +376,12 @@ public interface FlowNodeInstanceService {
     /**
      * Retrieve ids of SGatewayInstances that need to be recovered
      *
-     * @param queryOptions
+     * @param afterId only retrieve ids greater than this one, the last id of the previous page
+     * @param maxResults maximum number of ids to retrieve, in ascending order
      * @return
      * @throws SBonitaReadException
      */
-    List<Long> getGatewayInstanceIdsToRecover(Duration considerElementsOlderThan, QueryOptions queryOptions)
+    List<Long> getGatewayInstanceIdsToRecover(Duration considerElementsOlderThan, long afterId, int maxResults)
             throws SBonitaReadException;
 
     /**
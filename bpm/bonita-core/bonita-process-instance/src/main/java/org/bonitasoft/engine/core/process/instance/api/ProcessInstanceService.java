@@ -576,9 +576,10 @@ public interface ProcessInstanceService {
      * This is used by recover mechanism ProcessInstanceRecoveryService
      *
      * @param considerElementsOlderThan consider elements older than that duration
-     * @param queryOptions used for pagination
+     * @param afterId only retrieve ids greater than this one, the last id of the previous page
+     * @param maxResults maximum number of ids to retrieve, in ascending order
      */
-    List<Long> getProcessInstanceIdsToRecover(Duration considerElementsOlderThan, QueryOptions queryOptions)
+    List<Long> getProcessInstanceIdsToRecover(Duration considerElementsOlderThan, long afterId, int maxResults)
             throws SBonitaReadException;
 
 }
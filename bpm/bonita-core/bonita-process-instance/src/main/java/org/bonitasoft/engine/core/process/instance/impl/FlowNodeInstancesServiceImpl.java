@@ -504,26 +504,26 @@ public abstract class FlowNodeInstancesServiceImpl implements FlowNodeInstanceSe
     }
 
     @Override
-    public List<Long> getFlowNodeInstanceIdsToRecover(Duration considerElementsOlderThan, QueryOptions queryOptions)
-            throws SBonitaReadException {
+    public List<Long> getFlowNodeInstanceIdsToRecover(Duration considerElementsOlderThan, long afterId,
+            int maxResults) throws SBonitaReadException {
         final List<Long> selectList = getPersistenceService().selectList(
                 new SelectListDescriptor<>("getFlowNodeInstanceIdsToRecover",
-                        singletonMap("maxLastUpdate",
-                                System.currentTimeMillis() - considerElementsOlderThan.toMillis()),
+                        Map.of("maxLastUpdate", System.currentTimeMillis() - considerElementsOlderThan.toMillis(),
+                                "afterId", afterId),
                         SFlowNodeInstance.class,
-                        queryOptions));
+                        new QueryOptions(0, maxResults)));
         return getUnmodifiableList(selectList);
     }
 
     @Override
-    public List<Long> getGatewayInstanceIdsToRecover(Duration considerElementsOlderThan,
-            final QueryOptions queryOptions) throws SBonitaReadException {
+    public List<Long> getGatewayInstanceIdsToRecover(Duration considerElementsOlderThan, long afterId,
+            int maxResults) throws SBonitaReadException {
         final List<Long> selectList = getPersistenceService().selectList(
                 new SelectListDescriptor<>("getGatewayInstanceIdsToRecover",
-                        singletonMap("maxLastUpdate",
-                                System.currentTimeMillis() - considerElementsOlderThan.toMillis()),
+                        Map.of("maxLastUpdate", System.currentTimeMillis() - considerElementsOlderThan.toMillis(),
+                                "afterId", afterId),
                         SGatewayInstance.class,
-                        queryOptions));
+                        new QueryOptions(0, maxResults)));
         return getUnmodifiableList(selectList);
     }
 
@@ -945,13 +945,13 @@ public class ProcessInstanceServiceImpl implements ProcessInstanceService {
     }
 
     @Override
-    public List<Long> getProcessInstanceIdsToRecover(Duration considerElementsOlderThan, QueryOptions queryOptions)
-            throws SBonitaReadException {
+    public List<Long> getProcessInstanceIdsToRecover(Duration considerElementsOlderThan, long afterId,
+            int maxResults) throws SBonitaReadException {
         return persistenceRead.selectList(new SelectListDescriptor<>(
                 "getProcessInstanceIdsToRecover",
-                singletonMap("maxLastUpdate",
-                        System.currentTimeMillis() - considerElementsOlderThan.toMillis()),
-                SProcessInstance.class, queryOptions));
+                Map.of("maxLastUpdate", System.currentTimeMillis() - considerElementsOlderThan.toMillis(),
+                        "afterId", afterId),
+                SProcessInstance.class, new QueryOptions(0, maxResults)));
     }
 
     @Override
@@ -20,10 +20,13 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.bonitasoft.engine.core.connector.ConnectorInstanceService;
+import org.bonitasoft.engine.core.process.instance.model.SConnectorInstance;
 import org.bonitasoft.engine.core.process.instance.model.SConnectorInstanceWithFailureInfo;
 import org.bonitasoft.engine.events.EventService;
 import org.bonitasoft.engine.persistence.OrderByType;
@@ -215,4 +218,24 @@ public class ConnectorInstanceServiceImplTest {
         assertThat(retrievedConnectors).isEqualTo(connectors);
     }
 
+    @Test
+    public void should_create_connector_instances_in_one_batch() throws Exception {
+        SConnectorInstance connector1 = SConnectorInstance.builder().name("connector1").build();
+        SConnectorInstance connector2 = SConnectorInstance.builder().name("connector2").build();
+
+        connectorInstanceServiceImpl.createConnectorInstances(Arrays.asList(connector1, connector2));
+
+        verify(recorder).recordInserts(argThat(records -> records.size() == 2
+                && records.get(0).getEntity() == connector1 && records.get(1).getEntity() == connector2),
+                eq(ConnectorInstanceService.CONNECTOR_INSTANCE));
+        verify(recorder, never()).recordInsert(any(), any());
+    }
+
+    @Test
+    public void should_not_record_anything_when_creating_no_connector_instances() throws Exception {
+        connectorInstanceServiceImpl.createConnectorInstances(Collections.emptyList());
+
+        verifyNoInteractions(recorder);
+    }
+
 }
@@ -22,6 +22,8 @@ import org.bonitasoft.web.rest.model.bpm.cases.CaseDefinition;
 import org.bonitasoft.web.rest.model.bpm.cases.CaseItem;
 import org.bonitasoft.web.rest.model.bpm.flownode.FlowNodeItem;
 import org.bonitasoft.web.rest.server.api.ConsoleAPI;
+import org.bonitasoft.web.rest.server.api.deployer.GenericDeployer;
+import org.bonitasoft.web.rest.server.api.deployer.UserDeployer;
 import org.bonitasoft.web.rest.server.datastore.bpm.cases.CaseDatastore;
 import org.bonitasoft.web.rest.server.datastore.bpm.flownode.FlowNodeDatastore;
 import org.bonitasoft.web.rest.server.datastore.bpm.process.ProcessDatastore;
@@ -80,33 +82,22 @@ public class APICase extends ConsoleAPI<CaseItem>
 
     @Override
     protected void fillDeploys(final CaseItem item, final List<String> deploys) {
-        fillStartedBy(item, deploys);
-        fillStartedBySubstitute(item, deploys);
-        fillProcess(item, deploys);
-    }
-
-    private void fillStartedBy(final CaseItem item, final List<String> deploys) {
-        if (isDeployable(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID, deploys, item)) {
-            item.setDeploy(
-                    CaseItem.ATTRIBUTE_STARTED_BY_USER_ID,
-                    getUserDatastore().get(item.getStartedByUserId()));
-        }
-    }
-
-    private void fillStartedBySubstitute(final CaseItem item, final List<String> deploys) {
-        if (isDeployable(CaseItem.ATTRIBUTE_STARTED_BY_SUBSTITUTE_USER_ID, deploys, item)) {
-            item.setDeploy(
-                    CaseItem.ATTRIBUTE_STARTED_BY_SUBSTITUTE_USER_ID,
-                    getUserDatastore().get(item.getStartedBySubstituteUserId()));
-        }
-    }
-
-    private void fillProcess(final CaseItem item, final List<String> deploys) {
-        if (isDeployable(CaseItem.ATTRIBUTE_PROCESS_ID, deploys, item)) {
-            item.setDeploy(
-                    CaseItem.ATTRIBUTE_PROCESS_ID,
-                    getProcessDatastore().get(item.getProcessId()));
+        registerDeployers();
+        super.fillDeploys(item, deploys);
+    }
+
+    /**
+     * Deploys of the users and process of a case: when deploying a page of cases, each deployer gets all the items of
+     * the page at once.
+     * Registered there and not in constructor because the engine session is set after the construction.
+     */
+    private void registerDeployers() {
+        if (getDeployers().containsKey(CaseItem.ATTRIBUTE_PROCESS_ID)) {
+            return;
         }
+        addDeployer(new UserDeployer(getUserDatastore(), CaseItem.ATTRIBUTE_STARTED_BY_USER_ID));
+        addDeployer(new UserDeployer(getUserDatastore(), CaseItem.ATTRIBUTE_STARTED_BY_SUBSTITUTE_USER_ID));
+        addDeployer(new GenericDeployer<>(getProcessDatastore(), CaseItem.ATTRIBUTE_PROCESS_ID));
     }
 
     private void fillNumberOfFailedFlowNodesIfFailedCounterExists(final CaseItem item, final List<String> counters) {
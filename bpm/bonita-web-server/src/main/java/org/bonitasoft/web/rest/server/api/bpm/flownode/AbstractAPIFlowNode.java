@@ -15,6 +15,7 @@ package org.bonitasoft.web.rest.server.api.bpm.flownode;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,8 +28,10 @@ import org.bonitasoft.web.rest.model.bpm.flownode.FlowNodeDefinition;
 import org.bonitasoft.web.rest.model.bpm.flownode.FlowNodeItem;
 import org.bonitasoft.web.rest.model.bpm.flownode.HumanTaskItem;
 import org.bonitasoft.web.rest.model.bpm.flownode.IFlowNodeItem;
+import org.bonitasoft.web.rest.model.bpm.process.ProcessItem;
 import org.bonitasoft.web.rest.server.api.ConsoleAPI;
 import org.bonitasoft.web.rest.server.api.deployer.GenericDeployer;
+import org.bonitasoft.web.rest.server.api.deployer.UserDeployer;
 import org.bonitasoft.web.rest.server.datastore.bpm.cases.ArchivedCaseDatastore;
 import org.bonitasoft.web.rest.server.datastore.bpm.cases.CaseDatastore;
 import org.bonitasoft.web.rest.server.datastore.bpm.flownode.FlowNodeDatastore;
@@ -57,6 +60,9 @@ public class AbstractAPIFlowNode<ITEM extends IFlowNodeItem> extends ConsoleAPI<
         APIHasGet<ITEM>,
         APIHasSearch<ITEM> {
 
+    // the API is instantiated for each request
+    private final Map<String, ProcessItem> rootContainerProcesses = new HashMap<>();
+
     @Override
     protected FlowNodeDefinition defineItemDefinition() {
         return FlowNodeDefinition.get();
@@ -110,12 +116,9 @@ public class AbstractAPIFlowNode<ITEM extends IFlowNodeItem> extends ConsoleAPI<
 
     @Override
     protected void fillDeploys(final ITEM item, final List<String> deploys) {
-        /** TODO Refactor to an oriented object (cf. WEB-1637 ) */
-        if (isDeployable(FlowNodeItem.ATTRIBUTE_PROCESS_ID, deploys, item)) {
-            item.setDeploy(FlowNodeItem.ATTRIBUTE_PROCESS_ID,
-                    new ProcessDatastore(getEngineSession()).get(item.getProcessId()));
-        }
+        registerDeployers();
 
+        /** TODO Refactor to an oriented object (cf. WEB-1637 ) */
         if (isDeployable(FlowNodeItem.ATTRIBUTE_CASE_ID, deploys, item)
                 || isDeployable(FlowNodeItem.ATTRIBUTE_ROOT_CASE_ID, deploys, item)) {
             final CaseItem openedCaseItem = getCaseDatastore().get(item.getCaseId());
@@ -144,51 +147,71 @@ public class AbstractAPIFlowNode<ITEM extends IFlowNodeItem> extends ConsoleAPI<
         }
 
         if (isDeployable(FlowNodeItem.ATTRIBUTE_ROOT_CONTAINER_ID, deploys, item)) {
-            CaseItem rootContainerCase = getCaseDatastore().get(item
-                    .getAttributeValueAsAPIID(HumanTaskItem.ATTRIBUTE_ROOT_CONTAINER_ID));
-            if (rootContainerCase == null) {
-                rootContainerCase = getArchivedCase(item.getAttributeValue(HumanTaskItem.ATTRIBUTE_ROOT_CONTAINER_ID));
-            }
-            if (rootContainerCase != null) {
-                item.setDeploy(FlowNodeItem.ATTRIBUTE_ROOT_CONTAINER_ID,
-                        new ProcessDatastore(getEngineSession()).get(rootContainerCase.getProcessId()));
+            final ProcessItem rootContainerProcess = getRootContainerProcess(
+                    item.getAttributeValue(HumanTaskItem.ATTRIBUTE_ROOT_CONTAINER_ID));
+            if (rootContainerProcess != null) {
+                item.setDeploy(FlowNodeItem.ATTRIBUTE_ROOT_CONTAINER_ID, rootContainerProcess);
             }
         }
 
-        if (isDeployable(FlowNodeItem.ATTRIBUTE_EXECUTED_BY_USER_ID, deploys, item)) {
-            item.setDeploy(FlowNodeItem.ATTRIBUTE_EXECUTED_BY_USER_ID,
-                    new UserDatastore(getEngineSession()).get(item.getExecutedByUserId()));
-        }
-
-        if (isDeployable(FlowNodeItem.ATTRIBUTE_EXECUTED_BY_SUBSTITUTE_USER_ID, deploys, item)) {
-            item.setDeploy(FlowNodeItem.ATTRIBUTE_EXECUTED_BY_SUBSTITUTE_USER_ID,
-                    new UserDatastore(getEngineSession()).get(item.getExecutedBySubstituteUserId()));
-        }
-
-        if (isDeployable(HumanTaskItem.ATTRIBUTE_ACTOR_ID, deploys, item)) {
-            item.setDeploy(HumanTaskItem.ATTRIBUTE_ACTOR_ID,
-                    new ActorDatastore(getEngineSession())
-                            .get(item.getAttributeValueAsAPIID(HumanTaskItem.ATTRIBUTE_ACTOR_ID)));
-        }
+        super.fillDeploys(item, deploys);
+    }
 
-        if (isDeployable(HumanTaskItem.ATTRIBUTE_ASSIGNED_USER_ID, deploys, item)) {
-            item.setDeploy(HumanTaskItem.ATTRIBUTE_ASSIGNED_USER_ID,
-                    new UserDatastore(getEngineSession())
-                            .get(item.getAttributeValueAsAPIID(HumanTaskItem.ATTRIBUTE_ASSIGNED_USER_ID)));
+    /**
+     * Deploys of attributes referencing an item by its id: when deploying a page of flow nodes, each deployer gets
+     * all the items of the page at once.
+     * Registered there and not in constructor because the engine session is set after the construction.
+     */
+    private void registerDeployers() {
+        if (getDeployers().containsKey(FlowNodeItem.ATTRIBUTE_PROCESS_ID)) {
+            return;
         }
-
+        addDeployer(new GenericDeployer<>(getProcessDatastore(), FlowNodeItem.ATTRIBUTE_PROCESS_ID));
+        addDeployer(new UserDeployer(getUserDatastore(), FlowNodeItem.ATTRIBUTE_EXECUTED_BY_USER_ID));
+        addDeployer(new UserDeployer(getUserDatastore(), FlowNodeItem.ATTRIBUTE_EXECUTED_BY_SUBSTITUTE_USER_ID));
+        addDeployer(new GenericDeployer<>(getActorDatastore(), HumanTaskItem.ATTRIBUTE_ACTOR_ID));
+        addDeployer(new UserDeployer(getUserDatastore(), HumanTaskItem.ATTRIBUTE_ASSIGNED_USER_ID));
         addDeployer(new GenericDeployer<>(id -> new TaskFinder(
                 new TaskDatastore(getEngineSession()),
                 new ArchivedTaskDatastore(getEngineSession(), ArchivedTaskDefinition.TOKEN)).find(id),
                 HumanTaskItem.ATTRIBUTE_PARENT_TASK_ID));
+    }
 
-        super.fillDeploys(item, deploys);
+    /**
+     * Flow nodes of a page often share their root container: its process is only looked up once per request.
+     */
+    private ProcessItem getRootContainerProcess(final String rootContainerId) {
+        if (rootContainerProcesses.containsKey(rootContainerId)) {
+            return rootContainerProcesses.get(rootContainerId);
+        }
+        CaseItem rootContainerCase = getCaseDatastore().get(APIID.makeAPIID(rootContainerId));
+        if (rootContainerCase == null) {
+            rootContainerCase = getArchivedCase(rootContainerId);
+        }
+        ProcessItem rootContainerProcess = null;
+        if (rootContainerCase != null) {
+            rootContainerProcess = getProcessDatastore().get(rootContainerCase.getProcessId());
+        }
+        rootContainerProcesses.put(rootContainerId, rootContainerProcess);
+        return rootContainerProcess;
     }
 
     protected CaseDatastore getCaseDatastore() {
         return new CaseDatastore(getEngineSession());
     }
 
+    protected ProcessDatastore getProcessDatastore() {
+        return new ProcessDatastore(getEngineSession());
+    }
+
+    protected UserDatastore getUserDatastore() {
+        return new UserDatastore(getEngineSession());
+    }
+
+    protected ActorDatastore getActorDatastore() {
+        return new ActorDatastore(getEngineSession());
+    }
+
     private CaseItem getArchivedCase(final String id) {
         final List<ArchivedCaseItem> result = getArchivedCaseDatastore().search(
                 0, 1,
@@ -13,7 +13,15 @@
  **/
 package org.bonitasoft.web.rest.server.api.deployer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.bonitasoft.web.rest.server.framework.Deployer;
+import org.bonitasoft.web.rest.server.framework.api.DatastoreHasBulkGet;
 import org.bonitasoft.web.rest.server.framework.api.DatastoreHasGet;
 import org.bonitasoft.web.toolkit.client.data.APIID;
 import org.bonitasoft.web.toolkit.client.data.item.IItem;
@@ -44,6 +52,44 @@ public class GenericDeployer<I extends IItem> implements Deployer {
         }
     }
 
+    /**
+     * Get each distinct id once, with a single call when the getter supports it, then deploy it in all the items
+     * referencing it.
+     */
+    @Override
+    public void deployIn(List<? extends IItem> items) {
+        final Set<APIID> ids = new LinkedHashSet<>();
+        for (final IItem item : items) {
+            if (isDeployable(attribute, item)) {
+                ids.add(getItemId(item));
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        final Map<APIID, I> deployedItems = getItems(new ArrayList<>(ids));
+        for (final IItem item : items) {
+            if (isDeployable(attribute, item)) {
+                item.setDeploy(attribute, deployedItems.get(getItemId(item)));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<APIID, I> getItems(List<APIID> ids) {
+        final Map<APIID, I> items = new HashMap<>();
+        if (ids.size() > 1 && getter instanceof DatastoreHasBulkGet) {
+            items.putAll(((DatastoreHasBulkGet<I>) getter).getAll(ids));
+        }
+        // items not found by the bulk get are got one by one, so the getter can fail or fall back as usual
+        for (final APIID id : ids) {
+            if (!items.containsKey(id)) {
+                items.put(id, getItem(id));
+            }
+        }
+        return items;
+    }
+
     private APIID getItemId(IItem item) {
         return item.getAttributeValueAsAPIID(attribute);
     }
@@ -16,6 +16,7 @@ package org.bonitasoft.web.rest.server.datastore.bpm.process;
 import static org.bonitasoft.web.rest.model.bpm.process.ActorItem.ATTRIBUTE_DESCRIPTION;
 import static org.bonitasoft.web.toolkit.client.data.item.template.ItemHasDualName.ATTRIBUTE_DISPLAY_NAME;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +33,7 @@ import org.bonitasoft.engine.session.APISession;
 import org.bonitasoft.engine.session.InvalidSessionException;
 import org.bonitasoft.web.rest.model.bpm.process.ActorItem;
 import org.bonitasoft.web.rest.server.datastore.CommonDatastore;
+import org.bonitasoft.web.rest.server.framework.api.DatastoreHasBulkGet;
 import org.bonitasoft.web.rest.server.framework.api.DatastoreHasGet;
 import org.bonitasoft.web.rest.server.framework.api.DatastoreHasSearch;
 import org.bonitasoft.web.rest.server.framework.api.DatastoreHasUpdate;
@@ -47,6 +49,7 @@ import org.bonitasoft.web.toolkit.client.data.APIID;
  */
 public class ActorDatastore extends CommonDatastore<ActorItem, ActorInstance> implements
         DatastoreHasGet<ActorItem>,
+        DatastoreHasBulkGet<ActorItem>,
         DatastoreHasSearch<ActorItem>,
         DatastoreHasUpdate<ActorItem> {
 
@@ -95,6 +98,19 @@ public class ActorDatastore extends CommonDatastore<ActorItem, ActorInstance> im
         }
     }
 
+    @Override
+    public Map<APIID, ActorItem> getAll(final List<APIID> ids) {
+        try {
+            final Map<APIID, ActorItem> actors = new HashMap<>();
+            for (final ActorInstance actor : getProcessAPI().getActorsFromActorIds(APIID.toLongList(ids)).values()) {
+                actors.put(APIID.makeAPIID(actor.getId()), convertEngineToConsoleItem(actor));
+            }
+            return actors;
+        } catch (final BonitaException e) {
+            throw new APIException(e);
+        }
+    }
+
     @Override
     public ItemSearchResult<ActorItem> search(final int page, final int resultsByPage, final String search,
             final String orders,
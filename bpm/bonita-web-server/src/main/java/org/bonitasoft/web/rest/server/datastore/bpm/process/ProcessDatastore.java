@@ -15,6 +15,7 @@ package org.bonitasoft.web.rest.server.datastore.bpm.process;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -62,6 +63,7 @@ public class ProcessDatastore extends CommonDatastore<ProcessItem, ProcessDeploy
         DatastoreHasAdd<ProcessItem>,
         DatastoreHasUpdate<ProcessItem>,
         DatastoreHasGet<ProcessItem>,
+        DatastoreHasBulkGet<ProcessItem>,
         DatastoreHasSearch<ProcessItem>,
         DatastoreHasDelete {
 
@@ -179,6 +181,18 @@ public class ProcessDatastore extends CommonDatastore<ProcessItem, ProcessDeploy
         return convertEngineToConsoleItem(processDeploymentInfo);
     }
 
+    @Override
+    public Map<APIID, ProcessItem> getAll(final List<APIID> ids) {
+        final Map<APIID, ProcessItem> processes = new HashMap<>();
+        final Map<Long, ProcessDeploymentInfo> processDeploymentInfos = getProcessEngineClient().getProcessApi()
+                .getProcessDeploymentInfosFromIds(APIID.toLongList(ids));
+        for (final ProcessDeploymentInfo processDeploymentInfo : processDeploymentInfos.values()) {
+            processes.put(APIID.makeAPIID(processDeploymentInfo.getProcessId()),
+                    convertEngineToConsoleItem(processDeploymentInfo));
+        }
+        return processes;
+    }
+
     @Override
     public void delete(final List<APIID> ids) {
         for (final APIID id : ids) {
@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.web.rest.server.datastore.organization;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +45,7 @@ import org.bonitasoft.web.toolkit.client.data.APIID;
 public class UserDatastore extends CommonDatastore<UserItem, User>
         implements DatastoreHasAdd<UserItem>,
         DatastoreHasGet<UserItem>,
+        DatastoreHasBulkGet<UserItem>,
         DatastoreHasSearch<UserItem>,
         DatastoreHasUpdate<UserItem>,
         DatastoreHasDelete {
@@ -84,6 +86,15 @@ public class UserDatastore extends CommonDatastore<UserItem, User>
         return userItemConverter.convert(user);
     }
 
+    @Override
+    public Map<APIID, UserItem> getAll(final List<APIID> ids) {
+        final Map<APIID, UserItem> users = new HashMap<>();
+        for (final User user : getUserEngineClient().get(APIID.toLongList(ids)).values()) {
+            users.put(APIID.makeAPIID(user.getId()), userItemConverter.convert(user));
+        }
+        return users;
+    }
+
     /**
      * Search for users
      *
@@ -14,6 +14,7 @@
 package org.bonitasoft.web.rest.server.engineclient;
 
 import java.util.List;
+import java.util.Map;
 
 import org.bonitasoft.engine.api.IdentityAPI;
 import org.bonitasoft.engine.exception.AlreadyExistsException;
@@ -71,6 +72,10 @@ public class UserEngineClient {
         }
     }
 
+    public Map<Long, User> get(List<Long> userIds) {
+        return identityAPI.getUsers(userIds);
+    }
+
     public void delete(List<Long> userIds) {
         try {
             identityAPI.deleteUsers(userIds);
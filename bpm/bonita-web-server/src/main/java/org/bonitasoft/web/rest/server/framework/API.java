@@ -16,6 +16,7 @@ package org.bonitasoft.web.rest.server.framework;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -48,6 +49,11 @@ public abstract class API<ITEM extends IItem> {
 
     private final Map<String, Deployer> deployers = new HashMap<>();
 
+    /**
+     * Items to deploy by attribute, while deploying the items of a page. Null otherwise.
+     */
+    private Map<String, List<ITEM>> pendingDeploys = null;
+
     private static Logger LOGGER = LoggerFactory.getLogger(API.class.getName());
 
     // //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -214,8 +220,8 @@ public abstract class API<ITEM extends IItem> {
         final ItemSearchResult<ITEM> searchResult = search(page, resultsByPage, search, realOrders,
                 filters != null ? filters : new HashMap<>());
 
+        fillDeploys(searchResult.getResults(), deploys != null ? deploys : new ArrayList<>());
         for (final ITEM item : searchResult.getResults()) {
-            fillDeploys(item, deploys != null ? deploys : new ArrayList<>());
             fillCounters(item, counters != null ? counters : new ArrayList<>());
         }
 
@@ -290,14 +296,47 @@ public abstract class API<ITEM extends IItem> {
         return Collections.unmodifiableMap(deployers);
     }
 
+    /**
+     * Fill the deploys of all the items of a page. The attributes handled by a {@link Deployer} are deployed once all
+     * items went through {@link #fillDeploys(IItem, List)}, with a single call to each deployer, so it can get the
+     * deployed items in bulk instead of one by one.
+     */
+    protected void fillDeploys(final List<ITEM> items, final List<String> deploys) {
+        final Map<String, List<ITEM>> itemsByAttribute = new LinkedHashMap<>();
+        pendingDeploys = itemsByAttribute;
+        try {
+            for (final ITEM item : items) {
+                fillDeploys(item, deploys);
+            }
+        } finally {
+            pendingDeploys = null;
+        }
+        for (final Map.Entry<String, List<ITEM>> attributeItems : itemsByAttribute.entrySet()) {
+            deployAttribute(attributeItems.getKey(), attributeItems.getValue());
+        }
+    }
+
     protected void fillDeploys(final ITEM item, final List<String> deploys) {
         for (final String attribute : deploys) {
             deployAttribute(attribute, item);
         }
     }
 
+    private void deployAttribute(final String attribute, final List<ITEM> items) {
+        try {
+            deployers.get(attribute).deployIn(items);
+        } catch (final Exception e) {
+            LOGGER.debug("Could not deploy attribute '" + attribute + "' on all items at once, retrying item by item", e);
+            for (final ITEM item : items) {
+                deployAttribute(attribute, item);
+            }
+        }
+    }
+
     private void deployAttribute(final String attribute, final ITEM item) {
-        if (deployers.containsKey(attribute)) {
+        if (pendingDeploys != null && deployers.containsKey(attribute)) {
+            pendingDeploys.computeIfAbsent(attribute, a -> new ArrayList<>()).add(item);
+        } else if (deployers.containsKey(attribute)) {
             try {
                 deployers.get(attribute).deployIn(item);
             } catch (final Exception e) {
@@ -13,6 +13,8 @@
  **/
 package org.bonitasoft.web.rest.server.framework;
 
+import java.util.List;
+
 import org.bonitasoft.web.toolkit.client.data.item.IItem;
 
 /**
@@ -24,6 +26,16 @@ public interface Deployer {
 
     void deployIn(IItem item);
 
+    /**
+     * Deploy the attribute in all the items of a page. Deployers able to get the deployed items with a single call
+     * should override it instead of getting them item by item.
+     */
+    default void deployIn(List<? extends IItem> items) {
+        for (final IItem item : items) {
+            deployIn(item);
+        }
+    }
+
     default boolean isDeployable(final String attributeName, final IItem item) {
         final String attributeValue = item.getAttributeValue(attributeName);
 
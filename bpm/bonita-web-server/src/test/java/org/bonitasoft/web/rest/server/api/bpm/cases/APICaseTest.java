@@ -237,10 +237,8 @@ public class APICaseTest {
     public final void fillDeploys_should_fill_user_who_start_case_when_deploy_of_started_by_is_active() {
         // Given
         final APIID startedByUserID = APIID.makeAPIID(3L);
-        final CaseItem item = mock(CaseItem.class);
-        doReturn(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID).when(item)
-                .getAttributeValue(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID);
-        doReturn(startedByUserID).when(item).getStartedByUserId();
+        final CaseItem item = new CaseItem();
+        item.setStartedByUserId(startedByUserID);
 
         final List<String> deploys = Arrays.asList(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID);
 
@@ -251,7 +249,7 @@ public class APICaseTest {
         apiCase.fillDeploys(item, deploys);
 
         // Then
-        verify(item).setDeploy(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID, userItem);
+        assertSame(userItem, item.getDeploy(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID));
     }
 
     /**
@@ -279,10 +277,8 @@ public class APICaseTest {
     public final void fillDeploys_should_fill_substitute_user_who_start_case_when_deploy_of_started_by_substitute_is_active() {
         // Given
         final APIID startedBySubstituteUserID = APIID.makeAPIID(6L);
-        final CaseItem item = mock(CaseItem.class);
-        doReturn(CaseItem.ATTRIBUTE_STARTED_BY_SUBSTITUTE_USER_ID).when(item)
-                .getAttributeValue(CaseItem.ATTRIBUTE_STARTED_BY_SUBSTITUTE_USER_ID);
-        doReturn(startedBySubstituteUserID).when(item).getStartedBySubstituteUserId();
+        final CaseItem item = new CaseItem();
+        item.setStartedBySubstituteUserId(startedBySubstituteUserID);
 
         final List<String> deploys = Arrays.asList(CaseItem.ATTRIBUTE_STARTED_BY_SUBSTITUTE_USER_ID);
 
@@ -293,7 +289,7 @@ public class APICaseTest {
         apiCase.fillDeploys(item, deploys);
 
         // Then
-        verify(item).setDeploy(CaseItem.ATTRIBUTE_STARTED_BY_SUBSTITUTE_USER_ID, userItem);
+        assertSame(userItem, item.getDeploy(CaseItem.ATTRIBUTE_STARTED_BY_SUBSTITUTE_USER_ID));
     }
 
     /**
@@ -321,9 +317,8 @@ public class APICaseTest {
     public final void fillDeploys_should_fill_process_when_deploy_of_process_is_active() {
         // Given
         final APIID processId = APIID.makeAPIID(9L);
-        final CaseItem item = mock(CaseItem.class);
-        doReturn(CaseItem.ATTRIBUTE_PROCESS_ID).when(item).getAttributeValue(CaseItem.ATTRIBUTE_PROCESS_ID);
-        doReturn(processId).when(item).getProcessId();
+        final CaseItem item = new CaseItem();
+        item.setProcessId(processId);
 
         final List<String> deploys = Arrays.asList(CaseItem.ATTRIBUTE_PROCESS_ID);
 
@@ -334,7 +329,7 @@ public class APICaseTest {
         apiCase.fillDeploys(item, deploys);
 
         // Then
-        verify(item).setDeploy(CaseItem.ATTRIBUTE_PROCESS_ID, processItem);
+        assertSame(processItem, item.getDeploy(CaseItem.ATTRIBUTE_PROCESS_ID));
     }
 
     /**
@@ -365,7 +360,8 @@ public class APICaseTest {
         doReturn("0").when(item).getAttributeValue(CaseItem.ATTRIBUTE_PROCESS_ID);
         doReturn("-1").when(item).getAttributeValue(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID);
 
-        final List<String> deploys = Arrays.asList(CaseItem.ATTRIBUTE_PROCESS_ID);
+        final List<String> deploys = Arrays.asList(CaseItem.ATTRIBUTE_PROCESS_ID,
+                CaseItem.ATTRIBUTE_STARTED_BY_USER_ID);
 
         // When
         apiCase.fillDeploys(item, deploys);
@@ -374,6 +370,48 @@ public class APICaseTest {
         verify(item, never()).setDeploy(anyString(), any(Item.class));
     }
 
+    @Test
+    public final void runSearch_should_get_users_and_processes_of_the_page_at_once() {
+        // Given
+        final CaseItem case1 = aCase(1L, 3L, 9L);
+        final CaseItem case2 = aCase(2L, 4L, 9L);
+        final CaseItem case3 = aCase(3L, 3L, 9L);
+        final Map<String, String> filters = new HashMap<>();
+        doReturn(new ItemSearchResult<>(0, 10, 3, Arrays.asList(case1, case2, case3)))
+                .when(caseDatastore).search(0, 10, null, CaseItem.ATTRIBUTE_END_DATE, filters);
+        final UserItem user3 = new UserItem();
+        final UserItem user4 = new UserItem();
+        final Map<APIID, UserItem> users = new HashMap<>();
+        users.put(APIID.makeAPIID(3L), user3);
+        users.put(APIID.makeAPIID(4L), user4);
+        doReturn(users).when(userDatastore).getAll(Arrays.asList(APIID.makeAPIID(3L), APIID.makeAPIID(4L)));
+        final ProcessItem processItem = new ProcessItem();
+        doReturn(processItem).when(processDatastore).get(APIID.makeAPIID(9L));
+
+        // When
+        apiCase.runSearch(0, 10, null, CaseItem.ATTRIBUTE_END_DATE, filters,
+                Arrays.asList(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID, CaseItem.ATTRIBUTE_PROCESS_ID),
+                Collections.emptyList());
+
+        // Then
+        assertSame(user3, case1.getDeploy(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID));
+        assertSame(user4, case2.getDeploy(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID));
+        assertSame(user3, case3.getDeploy(CaseItem.ATTRIBUTE_STARTED_BY_USER_ID));
+        assertSame(processItem, case1.getDeploy(CaseItem.ATTRIBUTE_PROCESS_ID));
+        assertSame(processItem, case3.getDeploy(CaseItem.ATTRIBUTE_PROCESS_ID));
+        verify(userDatastore, never()).get(any(APIID.class));
+        // the process shared by all cases is got once
+        verify(processDatastore, times(1)).get(any(APIID.class));
+    }
+
+    private static CaseItem aCase(final long id, final long startedBy, final long processId) {
+        final CaseItem item = new CaseItem();
+        item.setId(id);
+        item.setStartedByUserId(startedBy);
+        item.setProcessId(processId);
+        return item;
+    }
+
     /**
      * Test method for
      * {@link org.bonitasoft.web.rest.server.api.bpm.cases.APICase#fillCounters(org.bonitasoft.web.rest.model.bpm.cases.CaseItem, java.util.List)}.
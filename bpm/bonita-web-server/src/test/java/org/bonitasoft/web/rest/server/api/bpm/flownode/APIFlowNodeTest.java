@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2022 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.web.rest.server.api.bpm.flownode;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.bonitasoft.web.rest.model.ModelFactory;
+import org.bonitasoft.web.rest.model.bpm.flownode.FlowNodeItem;
+import org.bonitasoft.web.rest.model.bpm.process.ProcessItem;
+import org.bonitasoft.web.rest.model.identity.UserItem;
+import org.bonitasoft.web.rest.server.APITestWithMock;
+import org.bonitasoft.web.rest.server.datastore.bpm.process.ActorDatastore;
+import org.bonitasoft.web.rest.server.datastore.bpm.process.ProcessDatastore;
+import org.bonitasoft.web.rest.server.datastore.organization.UserDatastore;
+import org.bonitasoft.web.rest.server.framework.search.ItemSearchResult;
+import org.bonitasoft.web.toolkit.client.ItemDefinitionFactory;
+import org.bonitasoft.web.toolkit.client.data.APIID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class APIFlowNodeTest extends APITestWithMock {
+
+    @Mock
+    private ProcessDatastore processDatastore;
+    @Mock
+    private UserDatastore userDatastore;
+    @Mock
+    private ActorDatastore actorDatastore;
+
+    private APIFlowNode apiFlowNode;
+
+    @Before
+    public void before() {
+        ItemDefinitionFactory.setDefaultFactory(new ModelFactory());
+        apiFlowNode = spy(new APIFlowNode());
+        doReturn(processDatastore).when(apiFlowNode).getProcessDatastore();
+        doReturn(userDatastore).when(apiFlowNode).getUserDatastore();
+        doReturn(actorDatastore).when(apiFlowNode).getActorDatastore();
+    }
+
+    @Test
+    public void runSearch_should_get_executors_and_processes_of_the_page_at_once() {
+        // Given
+        final FlowNodeItem flowNode1 = aFlowNode(1L, 3L, 9L);
+        final FlowNodeItem flowNode2 = aFlowNode(2L, 4L, 9L);
+        final FlowNodeItem flowNode3 = aFlowNode(3L, 3L, 9L);
+        final Map<String, String> filters = new HashMap<>();
+        final String order = apiFlowNode.defineDefaultSearchOrder();
+        doReturn(new ItemSearchResult<>(0, 10, 3, Arrays.asList(flowNode1, flowNode2, flowNode3)))
+                .when(apiFlowNode).search(0, 10, null, order, filters);
+        final UserItem user3 = new UserItem();
+        final UserItem user4 = new UserItem();
+        final Map<APIID, UserItem> users = new HashMap<>();
+        users.put(APIID.makeAPIID(3L), user3);
+        users.put(APIID.makeAPIID(4L), user4);
+        doReturn(users).when(userDatastore).getAll(Arrays.asList(APIID.makeAPIID(3L), APIID.makeAPIID(4L)));
+        final ProcessItem processItem = new ProcessItem();
+        doReturn(processItem).when(processDatastore).get(APIID.makeAPIID(9L));
+
+        // When
+        apiFlowNode.runSearch(0, 10, null, order, filters,
+                Arrays.asList(FlowNodeItem.ATTRIBUTE_EXECUTED_BY_USER_ID, FlowNodeItem.ATTRIBUTE_PROCESS_ID),
+                Collections.emptyList());
+
+        // Then
+        assertSame(user3, flowNode1.getDeploy(FlowNodeItem.ATTRIBUTE_EXECUTED_BY_USER_ID));
+        assertSame(user4, flowNode2.getDeploy(FlowNodeItem.ATTRIBUTE_EXECUTED_BY_USER_ID));
+        assertSame(user3, flowNode3.getDeploy(FlowNodeItem.ATTRIBUTE_EXECUTED_BY_USER_ID));
+        assertSame(processItem, flowNode1.getDeploy(FlowNodeItem.ATTRIBUTE_PROCESS_ID));
+        assertSame(processItem, flowNode3.getDeploy(FlowNodeItem.ATTRIBUTE_PROCESS_ID));
+        verify(userDatastore, never()).get(any(APIID.class));
+        // the process shared by all flow nodes is got once
+        verify(processDatastore, times(1)).get(any(APIID.class));
+        verifyNoInteractions(actorDatastore);
+    }
+
+    private static FlowNodeItem aFlowNode(final long id, final long executedBy, final long processId) {
+        final FlowNodeItem item = new FlowNodeItem();
+        item.setId(id);
+        item.setExecutedByUserId(executedBy);
+        item.setProcessId(processId);
+        return item;
+    }
+}
@@ -18,10 +18,16 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.bonitasoft.web.rest.model.ModelFactory;
 import org.bonitasoft.web.rest.model.identity.GroupItem;
 import org.bonitasoft.web.rest.model.identity.UserItem;
 import org.bonitasoft.web.rest.server.APITestWithMock;
+import org.bonitasoft.web.rest.server.framework.api.DatastoreHasBulkGet;
 import org.bonitasoft.web.rest.server.framework.api.DatastoreHasGet;
 import org.bonitasoft.web.toolkit.client.ItemDefinitionFactory;
 import org.bonitasoft.web.toolkit.client.data.APIID;
@@ -37,6 +43,12 @@ public class UserDeployerTest extends APITestWithMock {
     @Mock
     private DatastoreHasGet<UserItem> getter;
 
+    @Mock
+    private BulkUserGetter bulkGetter;
+
+    private interface BulkUserGetter extends DatastoreHasGet<UserItem>, DatastoreHasBulkGet<UserItem> {
+    }
+
     @Before
     public void setUp() {
         initMocks(this);
@@ -120,12 +132,68 @@ public class UserDeployerTest extends APITestWithMock {
         verify(group, never()).setDeploy(any(), any());
     }
 
+    @Test
+    public void testEachUserIsGotOnceWhenDeployingSeveralItems() {
+        UserItem user = prepareGetterToReturnAUser();
+        GroupItem group1 = aGroupInstalledBy(APIID.makeAPIID(6L));
+        GroupItem group2 = aGroupInstalledBy(APIID.makeAPIID(6L));
+
+        UserDeployer installedByDeployer = new UserDeployer(getter, GroupItem.ATTRIBUTE_CREATED_BY_USER_ID);
+        installedByDeployer.deployIn(Arrays.asList(group1, group2));
+
+        assertEquals(user, group1.getCreatedByUser());
+        assertEquals(user, group2.getCreatedByUser());
+        verify(getter, times(1)).get(APIID.makeAPIID(6L));
+    }
+
+    @Test
+    public void testUsersAreGotInBulkWhenTheGetterSupportsIt() {
+        UserItem user6 = aUser(6L);
+        UserItem user7 = aUser(7L);
+        UserItem user8 = aUser(8L);
+        Map<APIID, UserItem> users = new HashMap<>();
+        users.put(APIID.makeAPIID(6L), user6);
+        users.put(APIID.makeAPIID(7L), user7);
+        doReturn(users).when(bulkGetter).getAll(any());
+        // not returned by the bulk get: got on its own
+        doReturn(user8).when(bulkGetter).get(APIID.makeAPIID(8L));
+        GroupItem group6 = aGroupInstalledBy(APIID.makeAPIID(6L));
+        GroupItem group7 = aGroupInstalledBy(APIID.makeAPIID(7L));
+        GroupItem group8 = aGroupInstalledBy(APIID.makeAPIID(8L));
+        GroupItem groupWithoutUser = spy(aGroupInstalledBy(null));
+
+        UserDeployer installedByDeployer = new UserDeployer(bulkGetter, GroupItem.ATTRIBUTE_CREATED_BY_USER_ID);
+        installedByDeployer.deployIn(Arrays.asList(group6, group7, group8, groupWithoutUser));
+
+        assertEquals(user6, group6.getCreatedByUser());
+        assertEquals(user7, group7.getCreatedByUser());
+        assertEquals(user8, group8.getCreatedByUser());
+        verify(groupWithoutUser, never()).setDeploy(any(), any());
+        verify(bulkGetter, times(1)).getAll(
+                Arrays.asList(APIID.makeAPIID(6L), APIID.makeAPIID(7L), APIID.makeAPIID(8L)));
+        verify(bulkGetter, never()).get(APIID.makeAPIID(6L));
+    }
+
+    @Test
+    public void testNothingIsGotWhenNoItemIsDeployable() {
+        UserDeployer installedByDeployer = new UserDeployer(bulkGetter, GroupItem.ATTRIBUTE_CREATED_BY_USER_ID);
+        installedByDeployer.deployIn(Collections.singletonList(aGroupInstalledBy(null)));
+
+        verifyNoInteractions(bulkGetter);
+    }
+
     private UserItem prepareGetterToReturnAUser() {
         UserItem user = new UserItem();
         doReturn(user).when(getter).get(any(APIID.class));
         return user;
     }
 
+    private UserItem aUser(long id) {
+        UserItem user = new UserItem();
+        user.setId(id);
+        return user;
+    }
+
     private GroupItem aGroupInstalledBy(APIID userId) {
         GroupItem item = new GroupItem();
         item.setCreatedByUserId(userId);
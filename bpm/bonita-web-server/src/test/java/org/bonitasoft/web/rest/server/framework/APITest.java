@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2022 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.web.rest.server.framework;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.web.toolkit.client.data.item.IItem;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class APITest {
+
+    private static final String DEPLOYED_ATTRIBUTE = "deployed_attribute";
+
+    @Mock
+    private Deployer deployer;
+    @Mock
+    private IItem item1;
+    @Mock
+    private IItem item2;
+
+    private final API<IItem> api = new API<IItem>() {
+    };
+
+    @Before
+    public void setUp() {
+        when(deployer.getDeployedAttribute()).thenReturn(DEPLOYED_ATTRIBUTE);
+        api.addDeployer(deployer);
+    }
+
+    @Test
+    public void fillDeploys_should_call_the_deployer_once_with_all_the_items_of_the_page() {
+        api.fillDeploys(asList(item1, item2), singletonList(DEPLOYED_ATTRIBUTE));
+
+        verify(deployer).deployIn(asList(item1, item2));
+        verify(deployer, never()).deployIn(any(IItem.class));
+    }
+
+    @Test
+    public void fillDeploys_should_not_call_the_deployer_when_its_attribute_is_not_requested() {
+        api.fillDeploys(asList(item1, item2), Collections.emptyList());
+
+        verify(deployer, never()).deployIn(anyList());
+        verify(deployer, never()).deployIn(any(IItem.class));
+    }
+
+    @Test
+    public void fillDeploys_should_deploy_item_by_item_when_deploying_the_page_fails() {
+        final List<IItem> items = asList(item1, item2);
+        doThrow(new RuntimeException("bulk deploy failed")).when(deployer).deployIn(items);
+
+        api.fillDeploys(items, singletonList(DEPLOYED_ATTRIBUTE));
+
+        verify(deployer).deployIn(item1);
+        verify(deployer).deployIn(item2);
+    }
+
+    @Test
+    public void fillDeploys_should_go_on_with_the_other_items_when_deploying_one_item_fails() {
+        final List<IItem> items = asList(item1, item2);
+        doThrow(new RuntimeException("bulk deploy failed")).when(deployer).deployIn(items);
+        doThrow(new RuntimeException("deploy failed")).when(deployer).deployIn(item1);
+
+        api.fillDeploys(items, singletonList(DEPLOYED_ATTRIBUTE));
+
+        verify(deployer).deployIn(item2);
+    }
+}
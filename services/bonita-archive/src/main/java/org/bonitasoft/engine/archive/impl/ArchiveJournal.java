@@ -0,0 +1,408 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.archive.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.bonitasoft.engine.persistence.ArchivedPersistentObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local append-only journal of the archived objects of committed transactions that are not yet written in
+ * database.
+ * <p>
+ * The journal is made of segment files containing records: the archived objects of a transaction, then markers
+ * telling if that transaction was committed or rolled back, and when its objects were written in database. Segments
+ * are deleted from the oldest one, once all its transactions are either rolled back or written in database, so that
+ * the markers of a transaction are never deleted before its objects.
+ * <p>
+ * The archived objects of a transaction that can not be written in database are moved to a dead-letter file of the
+ * journal folder, so that they do not prevent the next ones from being written.
+ * <p>
+ * The journal locks its folder: two nodes can not share the same journal.
+ * <p>
+ * A record is {@code [length][crc32][type][transaction id][payload]}, a record that can not be fully read (e.g. the
+ * process crashed while writing it) ends the segment.
+ */
+class ArchiveJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveJournal.class);
+
+    static final String SEGMENT_PREFIX = "archive-journal-";
+    static final String SEGMENT_SUFFIX = ".log";
+    static final String DEAD_LETTER_PREFIX = "archive-dead-letter-";
+    private static final String LOCK_FILE = "archive-journal.lock";
+    private static final byte OBJECTS = 1;
+    private static final byte COMMITTED = 2;
+    private static final byte ROLLED_BACK = 3;
+    private static final byte WRITTEN = 4;
+    private static final int HEADER_SIZE = 4 + 4;
+    private static final int RECORD_PREFIX_SIZE = 1 + 8;
+
+    private final Path folder;
+    private final long maxSegmentSize;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private Segment currentSegment;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private long nextSegmentNumber;
+    private long nextTransactionId;
+
+    ArchiveJournal(Path folder, long maxSegmentSize) {
+        this.folder = folder;
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    /**
+     * Open the journal and read the segments left by a previous execution.
+     *
+     * @return the entries of committed transactions that are not yet written in database, in the order they were
+     *         journaled. Entries of transactions that were not marked as committed are not returned: the process
+     *         stopped before the end of the transaction, that can have been rolled back.
+     * @throws IOException when the journal can not be read, or is already used by another node
+     */
+    synchronized List<Entry> open() throws IOException {
+        Files.createDirectories(folder);
+        lock();
+        Map<Long, Entry> entries = new LinkedHashMap<>();
+        for (Path path : listSegments()) {
+            Segment segment = new Segment(path);
+            segments.add(segment);
+            nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(path) + 1);
+            readSegment(segment, entries);
+        }
+        List<Entry> toReplay = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (!entry.committed || entry.rolledBack || entry.written) {
+                if (!entry.committed && !entry.rolledBack) {
+                    log.warn("Archives of transaction {} of journal {} have no outcome, they will not be written in "
+                            + "database", entry.transactionId, folder);
+                }
+                entry.segment.pendingEntries--;
+                continue;
+            }
+            toReplay.add(entry);
+        }
+        currentSegment = openNewSegment();
+        deleteResolvedSegments();
+        return toReplay;
+    }
+
+    /**
+     * Durably append the archived objects of a transaction that is about to be committed
+     */
+    synchronized Entry append(List<ArchivedPersistentObject> archivedObjects) throws IOException {
+        byte[] payload = serialize(archivedObjects);
+        Entry entry = new Entry(nextTransactionId++, archivedObjects, currentSegment, System.currentTimeMillis());
+        write(OBJECTS, entry.transactionId, payload);
+        currentSegment.channel.force(false);
+        currentSegment.pendingEntries++;
+        if (currentSegment.size >= maxSegmentSize) {
+            rollSegment();
+        }
+        return entry;
+    }
+
+    /**
+     * Durably mark the transaction as committed: only the objects of committed transactions are written in database
+     * when the journal is opened again.
+     */
+    synchronized void committed(Entry entry) throws IOException {
+        entry.committed = true;
+        write(COMMITTED, entry.transactionId, new byte[0]);
+        currentSegment.channel.force(false);
+    }
+
+    /**
+     * The transaction was rolled back. This marker is not forced on disk: a transaction without outcome is not
+     * written in database when the journal is opened.
+     */
+    synchronized void rolledBack(Entry entry) throws IOException {
+        entry.rolledBack = true;
+        write(ROLLED_BACK, entry.transactionId, new byte[0]);
+        release(entry);
+    }
+
+    /**
+     * Durably move the objects of this entry, that can not be written in database, to a dead-letter file, and mark
+     * them as written
+     *
+     * @return the dead-letter file
+     */
+    synchronized Path deadLetter(Entry entry) throws IOException {
+        Path deadLetter = folder.resolve(String.format("%s%020d%s", DEAD_LETTER_PREFIX, entry.transactionId,
+                SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(deadLetter, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer payload = ByteBuffer.wrap(serialize(entry.archivedObjects));
+            while (payload.hasRemaining()) {
+                channel.write(payload);
+            }
+            channel.force(true);
+        }
+        written(Collections.singletonList(entry));
+        return deadLetter;
+    }
+
+    /**
+     * The objects of these entries were written in database
+     */
+    synchronized void written(List<Entry> entries) throws IOException {
+        for (Entry entry : entries) {
+            entry.written = true;
+            write(WRITTEN, entry.transactionId, new byte[0]);
+        }
+        for (Entry entry : entries) {
+            release(entry);
+        }
+    }
+
+    synchronized void close() throws IOException {
+        if (currentSegment != null) {
+            currentSegment.channel.close();
+            currentSegment = null;
+        }
+        if (lockChannel != null) {
+            // also releases the lock
+            lockChannel.close();
+            lockChannel = null;
+            lock = null;
+        }
+    }
+
+    private void lock() throws IOException {
+        lockChannel = FileChannel.open(folder.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (final OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            lockChannel = null;
+            throw new IOException("Archive journal " + folder + " is already used by another node, each node must "
+                    + "have its own journal folder");
+        }
+    }
+
+    private void release(Entry entry) throws IOException {
+        entry.segment.pendingEntries--;
+        deleteResolvedSegments();
+    }
+
+    private void deleteResolvedSegments() throws IOException {
+        Segment oldest = segments.peekFirst();
+        while (oldest != null && oldest != currentSegment && oldest.pendingEntries == 0) {
+            Files.deleteIfExists(oldest.path);
+            segments.pollFirst();
+            oldest = segments.peekFirst();
+        }
+    }
+
+    private void write(byte type, long transactionId, byte[] payload) throws IOException {
+        if (currentSegment == null) {
+            throw new IOException("Archive journal " + folder + " is closed");
+        }
+        ByteBuffer body = ByteBuffer.allocate(RECORD_PREFIX_SIZE + payload.length);
+        body.put(type).putLong(transactionId).put(payload).flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(body.remaining()).putInt((int) crc.getValue()).flip();
+        FileChannel channel = currentSegment.channel;
+        while (header.hasRemaining() || body.hasRemaining()) {
+            channel.write(new ByteBuffer[] { header, body });
+        }
+        currentSegment.size += HEADER_SIZE + RECORD_PREFIX_SIZE + payload.length;
+    }
+
+    private void rollSegment() throws IOException {
+        Segment previous = currentSegment;
+        previous.channel.close();
+        currentSegment = openNewSegment();
+        deleteResolvedSegments();
+    }
+
+    private Segment openNewSegment() throws IOException {
+        Path path = folder.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+        Segment segment = new Segment(path);
+        segment.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segments.add(segment);
+        return segment;
+    }
+
+    private void readSegment(Segment segment, Map<Long, Entry> entries) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (readFully(channel, header)) {
+                header.flip();
+                int length = header.getInt();
+                int expectedCrc = header.getInt();
+                header.clear();
+                if (length < RECORD_PREFIX_SIZE || length > channel.size() - channel.position()) {
+                    log.warn("Truncated record in archive journal segment {}, ignoring the end of the segment",
+                            segment.path);
+                    return;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length);
+                readFully(channel, body);
+                body.flip();
+                CRC32 crc = new CRC32();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != expectedCrc) {
+                    log.warn("Corrupted record in archive journal segment {}, ignoring the end of the segment",
+                            segment.path);
+                    return;
+                }
+                readRecord(segment, body, entries);
+            }
+        }
+    }
+
+    private void readRecord(Segment segment, ByteBuffer body, Map<Long, Entry> entries) throws IOException {
+        byte type = body.get();
+        long transactionId = body.getLong();
+        nextTransactionId = Math.max(nextTransactionId, transactionId + 1);
+        if (type == OBJECTS) {
+            byte[] payload = new byte[body.remaining()];
+            body.get(payload);
+            entries.put(transactionId, new Entry(transactionId, deserialize(payload), segment,
+                    Files.getLastModifiedTime(segment.path).toMillis()));
+            segment.pendingEntries++;
+            return;
+        }
+        Entry entry = entries.get(transactionId);
+        if (entry == null) {
+            return;
+        }
+        switch (type) {
+            case COMMITTED:
+                entry.committed = true;
+                break;
+            case ROLLED_BACK:
+                entry.rolledBack = true;
+                break;
+            case WRITTEN:
+                entry.written = true;
+                break;
+            default:
+                log.warn("Unknown record type {} in archive journal segment {}", type, segment.path);
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] serialize(List<ArchivedPersistentObject> archivedObjects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new ArrayList<>(archivedObjects));
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ArchivedPersistentObject> deserialize(byte[] payload) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (List<ArchivedPersistentObject>) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unable to read archived objects from the journal", e);
+        }
+    }
+
+    /**
+     * Archived objects of one transaction
+     */
+    static final class Entry {
+
+        private final long transactionId;
+        private final List<ArchivedPersistentObject> archivedObjects;
+        private final Segment segment;
+        private final long journaledAt;
+        private boolean committed;
+        private boolean rolledBack;
+        private boolean written;
+
+        private Entry(long transactionId, List<ArchivedPersistentObject> archivedObjects, Segment segment,
+                long journaledAt) {
+            this.transactionId = transactionId;
+            this.archivedObjects = Collections.unmodifiableList(archivedObjects);
+            this.segment = segment;
+            this.journaledAt = journaledAt;
+        }
+
+        List<ArchivedPersistentObject> getArchivedObjects() {
+            return archivedObjects;
+        }
+
+        long getJournaledAt() {
+            return journaledAt;
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private FileChannel channel;
+        private long size;
+        private int pendingEntries;
+
+        private Segment(Path path) {
+            this.path = path;
+        }
+    }
+}
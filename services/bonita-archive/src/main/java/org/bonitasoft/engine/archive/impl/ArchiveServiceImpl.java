@@ -13,12 +13,14 @@
  **/
 package org.bonitasoft.engine.archive.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
 import org.bonitasoft.engine.archive.ArchiveService;
 import org.bonitasoft.engine.archive.ArchivingStrategy;
-import org.bonitasoft.engine.commons.ClassReflector;
+import org.bonitasoft.engine.commons.PropertyAccessors;
 import org.bonitasoft.engine.commons.LogUtil;
 import org.bonitasoft.engine.persistence.ArchivedPersistentObject;
 import org.bonitasoft.engine.persistence.PersistentObject;
@@ -47,6 +49,8 @@ public class ArchiveServiceImpl implements ArchiveService {
 
     private ArchivingStrategy archivingStrategy;
 
+    private WriteBehindArchiver writeBehindArchiver;
+
     public ArchiveServiceImpl(final PersistenceService definitiveArchivePersistenceService,
             final ArchivingStrategy archivingStrategy, final UserTransactionService transactionService) {
         super();
@@ -68,10 +72,12 @@ public class ArchiveServiceImpl implements ArchiveService {
         logBeforeMethod(methodName);
         if (records != null) {
             assignArchiveDate(time, records);
-            final BatchArchiveCallable callable = buildBatchArchiveCallable(records);
-
             try {
-                transactionService.registerBeforeCommitCallable(callable);
+                final boolean writtenBehind = writeBehindArchiver != null && writeBehindArchiver.isActive()
+                        && writeBehindArchiver.archive(getEntities(records));
+                if (!writtenBehind) {
+                    transactionService.registerBeforeCommitCallable(buildBatchArchiveCallable(records));
+                }
             } catch (final STransactionNotFoundException e) {
                 if (log.isTraceEnabled()) {
                     log.error(
@@ -84,6 +90,23 @@ public class ArchiveServiceImpl implements ArchiveService {
         logAfterMethod(methodName);
     }
 
+    private static List<ArchivedPersistentObject> getEntities(final ArchiveInsertRecord... records) {
+        final List<ArchivedPersistentObject> entities = new ArrayList<>(records.length);
+        for (final ArchiveInsertRecord record : records) {
+            if (record != null) {
+                entities.add(record.getEntity());
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * @param writeBehindArchiver when active, archived objects are written in database after the transaction
+     */
+    public void setWriteBehindArchiver(final WriteBehindArchiver writeBehindArchiver) {
+        this.writeBehindArchiver = writeBehindArchiver;
+    }
+
     // As a protected method for test purposes.
     protected BatchArchiveCallable buildBatchArchiveCallable(final ArchiveInsertRecord... records)
             throws SRecorderException {
@@ -101,7 +124,7 @@ public class ArchiveServiceImpl implements ArchiveService {
     private void setArchiveDate(final ArchivedPersistentObject entity, final long time) throws SRecorderException {
         if (entity.getArchiveDate() <= 0) {
             try {
-                ClassReflector.invokeSetter(entity, "setArchiveDate", long.class, time);
+                PropertyAccessors.setLong(entity, "archiveDate", time);
             } catch (final Exception e) {
                 throw new SRecorderException(e);
             }
@@ -0,0 +1,445 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.archive.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.bonitasoft.engine.commons.TenantLifecycleService;
+import org.bonitasoft.engine.commons.exceptions.SBonitaRuntimeException;
+import org.bonitasoft.engine.commons.exceptions.SLifecycleException;
+import org.bonitasoft.engine.persistence.ArchivedPersistentObject;
+import org.bonitasoft.engine.persistence.PersistentObject;
+import org.bonitasoft.engine.services.PersistenceService;
+import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write archived objects in database after the transaction that archived them, instead of inside it.
+ * <p>
+ * When the transaction commits, its archived objects are durably appended to a local {@link ArchiveJournal}, once
+ * per transaction. A dedicated thread then writes them in the archive tables in large batches and marks them as
+ * written in the journal. Archived objects of committed transactions that were not written when the node stopped are
+ * written when it starts again.
+ * <p>
+ * When a batch can not be written, its transactions are written one by one, and the archived objects of a
+ * transaction that still can not be written after {@code maxAttempts} attempts are moved to a dead-letter file of
+ * the journal folder, so that they do not block the following ones.
+ * <p>
+ * Archived objects are visible in database only once written: reading archives right after the end of a process
+ * instance can miss them. The journal folder must be set, on a persistent disk, and specific to the node.
+ * <p>
+ * Enabled using {@code bonita.tenant.archive.writeBehind.enabled=true}
+ */
+@Component
+public class WriteBehindArchiver implements TenantLifecycleService {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindArchiver.class);
+
+    public static final String NUMBER_OF_ARCHIVES_PENDING = "bonita.bpmengine.archive.writebehind.pending";
+    public static final String NUMBER_OF_ARCHIVES_WRITTEN = "bonita.bpmengine.archive.writebehind.written";
+    public static final String NUMBER_OF_ARCHIVES_DEAD_LETTERED = "bonita.bpmengine.archive.writebehind.deadletter";
+    public static final String ARCHIVES_WRITE_LAG = "bonita.bpmengine.archive.writebehind.lag";
+    private static final String ARCHIVES_UNIT = "archives";
+    private static final long MAX_SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final long STOP_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final PersistenceService persistenceService;
+    private final UserTransactionService transactionService;
+    private final SessionAccessor sessionAccessor;
+    private final long tenantId;
+    private final boolean enabled;
+    private final String journalFolderProperty;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final MeterRegistry meterRegistry;
+
+    private final LinkedBlockingQueue<ArchiveJournal.Entry> committedEntries = new LinkedBlockingQueue<>();
+    private final AtomicLong pendingArchives = new AtomicLong();
+    // transactions that gave archived objects to this archiver and are not completed yet
+    private final AtomicInteger transactionsInFlight = new AtomicInteger();
+    private final ReadWriteLock acceptanceLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting;
+    private volatile boolean started;
+    private Path journalFolder;
+    private ArchiveJournal journal;
+    private Thread writerThread;
+    private Gauge pendingArchivesGauge;
+    private Counter writtenArchivesCounter;
+    private Counter deadLetteredArchivesCounter;
+    private Timer writeLagTimer;
+
+    public WriteBehindArchiver(PersistenceService persistenceService, UserTransactionService transactionService,
+            SessionAccessor sessionAccessor, @Value("${tenantId}") long tenantId,
+            @Value("${bonita.tenant.archive.writeBehind.enabled:false}") boolean enabled,
+            @Value("${bonita.tenant.archive.writeBehind.folder:}") String journalFolder,
+            @Value("${bonita.tenant.archive.writeBehind.batchSize:1000}") int batchSize,
+            @Value("${bonita.tenant.archive.writeBehind.maxAttempts:10}") int maxAttempts,
+            MeterRegistry meterRegistry) {
+        this.persistenceService = persistenceService;
+        this.transactionService = transactionService;
+        this.sessionAccessor = sessionAccessor;
+        this.tenantId = tenantId;
+        this.enabled = enabled;
+        this.journalFolderProperty = journalFolder;
+        this.batchSize = batchSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return true when archived objects must be given to this archiver instead of being written in the transaction
+     */
+    public boolean isActive() {
+        return enabled && accepting;
+    }
+
+    /**
+     * Journal these archived objects when the current transaction commits, they will be written in database later.
+     * All archived objects of a transaction are journaled together.
+     *
+     * @return false when the archiver is stopping and did not take the archived objects, they must then be written in
+     *         the transaction
+     */
+    public boolean archive(List<ArchivedPersistentObject> archivedObjects) throws STransactionNotFoundException {
+        if (archivedObjects.isEmpty()) {
+            return true;
+        }
+        acceptanceLock.readLock().lock();
+        try {
+            if (!accepting) {
+                return false;
+            }
+            JournalingSynchronization synchronization = transactionService.getTransactionResource(this,
+                    JournalingSynchronization::new);
+            if (!synchronization.registered) {
+                transactionsInFlight.incrementAndGet();
+                try {
+                    transactionService.registerBonitaSynchronization(synchronization);
+                } catch (STransactionNotFoundException | RuntimeException e) {
+                    transactionsInFlight.decrementAndGet();
+                    throw e;
+                }
+                synchronization.registered = true;
+            }
+            synchronization.archivedObjects.addAll(archivedObjects);
+            return true;
+        } finally {
+            acceptanceLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public synchronized void start() throws SLifecycleException {
+        if (!enabled || started) {
+            return;
+        }
+        if (journalFolderProperty == null || journalFolderProperty.isBlank()) {
+            throw new SLifecycleException("Write-behind archiving is enabled but "
+                    + "bonita.tenant.archive.writeBehind.folder is not set. It must be a folder on a persistent "
+                    + "disk, specific to this node.");
+        }
+        journalFolder = Paths.get(journalFolderProperty, "tenant-" + tenantId);
+        journal = new ArchiveJournal(journalFolder, MAX_SEGMENT_SIZE);
+        List<ArchiveJournal.Entry> toReplay;
+        try {
+            toReplay = journal.open();
+        } catch (IOException e) {
+            throw new SLifecycleException("Unable to open the archive journal " + journalFolder, e);
+        }
+        if (!toReplay.isEmpty()) {
+            log.info("{} transactions of archived objects from the journal {} will be written in database",
+                    toReplay.size(), journalFolder);
+        }
+        toReplay.forEach(this::enqueue);
+        Iterable<Tag> tags = Tags.of("tenant", String.valueOf(tenantId));
+        pendingArchivesGauge = Gauge.builder(NUMBER_OF_ARCHIVES_PENDING, pendingArchives, AtomicLong::get)
+                .tags(tags).baseUnit(ARCHIVES_UNIT)
+                .description("Archived objects journaled but not yet written in database")
+                .register(meterRegistry);
+        writtenArchivesCounter = Counter.builder(NUMBER_OF_ARCHIVES_WRITTEN)
+                .tags(tags).baseUnit(ARCHIVES_UNIT).description("Archived objects written in database")
+                .register(meterRegistry);
+        deadLetteredArchivesCounter = Counter.builder(NUMBER_OF_ARCHIVES_DEAD_LETTERED)
+                .tags(tags).baseUnit(ARCHIVES_UNIT)
+                .description("Archived objects that could not be written in database, moved to a dead-letter file")
+                .register(meterRegistry);
+        writeLagTimer = Timer.builder(ARCHIVES_WRITE_LAG)
+                .tags(tags).description("Time elapsed between the journaling of archived objects and their writing "
+                        + "in database")
+                .register(meterRegistry);
+        started = true;
+        accepting = true;
+        writerThread = new Thread(this::writeArchives, "Bonita-Archive-Writer-" + tenantId);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stop accepting new archived objects, wait for the transactions that already gave archived objects to complete,
+     * and write the ones already journaled before stopping
+     */
+    @Override
+    public synchronized void stop() throws SLifecycleException {
+        if (!started) {
+            return;
+        }
+        acceptanceLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptanceLock.writeLock().unlock();
+        }
+        if (!waitForTransactionsInFlight()) {
+            log.warn("{} transactions archiving objects are still running, they will fail",
+                    transactionsInFlight.get());
+        }
+        started = false;
+        try {
+            writerThread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            log.warn("Archived objects are still being written, the remaining ones will be written at next start");
+            writerThread.interrupt();
+        }
+        writerThread = null;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            throw new SLifecycleException("Unable to close the archive journal " + journalFolder, e);
+        }
+        committedEntries.clear();
+        pendingArchives.set(0);
+        meterRegistry.remove(pendingArchivesGauge);
+        meterRegistry.remove(writtenArchivesCounter);
+        meterRegistry.remove(deadLetteredArchivesCounter);
+        meterRegistry.remove(writeLagTimer);
+    }
+
+    @Override
+    public void pause() throws SLifecycleException {
+        stop();
+    }
+
+    @Override
+    public void resume() throws SLifecycleException {
+        start();
+    }
+
+    private boolean waitForTransactionsInFlight() {
+        long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+        while (transactionsInFlight.get() > 0) {
+            if (System.currentTimeMillis() > deadline || !sleep(10)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void enqueue(ArchiveJournal.Entry entry) {
+        pendingArchives.addAndGet(entry.getArchivedObjects().size());
+        committedEntries.add(entry);
+    }
+
+    private void writeArchives() {
+        sessionAccessor.setTenantId(tenantId);
+        List<ArchiveJournal.Entry> batch = new ArrayList<>();
+        while (started || (!committedEntries.isEmpty() && !Thread.currentThread().isInterrupted())) {
+            try {
+                if (!nextBatch(batch)) {
+                    continue;
+                }
+                try {
+                    write(batch);
+                } catch (Exception e) {
+                    log.warn("Unable to write {} archived objects in database, writing them transaction by "
+                            + "transaction: {}", countArchives(batch), e.getMessage());
+                    log.debug("Cause:", e);
+                    for (ArchiveJournal.Entry entry : batch) {
+                        writeWithRetries(entry);
+                    }
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                // not written entries are written at next start
+                return;
+            }
+        }
+    }
+
+    private void writeWithRetries(ArchiveJournal.Entry entry) throws InterruptedException {
+        long retryDelay = 0;
+        for (int attempt = 1;; attempt++) {
+            try {
+                write(Collections.singletonList(entry));
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    deadLetter(entry, e);
+                    return;
+                }
+                retryDelay = Math.min(Math.max(retryDelay * 2, 100), MAX_RETRY_DELAY_MILLIS);
+                log.error("Unable to write {} archived objects in database (attempt {}/{}), will retry in {} ms: {}",
+                        entry.getArchivedObjects().size(), attempt, maxAttempts, retryDelay, e.getMessage());
+                log.debug("Cause:", e);
+                Thread.sleep(retryDelay);
+            }
+        }
+    }
+
+    private void deadLetter(ArchiveJournal.Entry entry, Exception cause) {
+        int size = entry.getArchivedObjects().size();
+        try {
+            Path deadLetter = journal.deadLetter(entry);
+            log.error("Unable to write {} archived objects in database after {} attempts, they were moved to {}",
+                    size, maxAttempts, deadLetter, cause);
+        } catch (IOException e) {
+            log.error("Unable to write {} archived objects in database after {} attempts nor to move them to a "
+                    + "dead-letter file, they will be written at next start", size, maxAttempts, cause);
+        }
+        deadLetteredArchivesCounter.increment(size);
+        pendingArchives.addAndGet(-size);
+    }
+
+    private boolean nextBatch(List<ArchiveJournal.Entry> batch) throws InterruptedException {
+        ArchiveJournal.Entry first = committedEntries.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+        int size = first.getArchivedObjects().size();
+        ArchiveJournal.Entry next;
+        while (size < batchSize && (next = committedEntries.peek()) != null
+                && size + next.getArchivedObjects().size() <= batchSize) {
+            batch.add(committedEntries.poll());
+            size += next.getArchivedObjects().size();
+        }
+        return true;
+    }
+
+    private void write(List<ArchiveJournal.Entry> batch) throws Exception {
+        List<PersistentObject> archivedObjects = new ArrayList<>();
+        for (ArchiveJournal.Entry entry : batch) {
+            archivedObjects.addAll(entry.getArchivedObjects());
+        }
+        transactionService.executeInTransaction(() -> {
+            persistenceService.insertInBatch(archivedObjects);
+            return null;
+        });
+        journal.written(batch);
+        long now = System.currentTimeMillis();
+        for (ArchiveJournal.Entry entry : batch) {
+            writeLagTimer.record(now - entry.getJournaledAt(), TimeUnit.MILLISECONDS);
+        }
+        pendingArchives.addAndGet(-archivedObjects.size());
+        writtenArchivesCounter.increment(archivedObjects.size());
+    }
+
+    private static int countArchives(List<ArchiveJournal.Entry> batch) {
+        return batch.stream().mapToInt(e -> e.getArchivedObjects().size()).sum();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Journal all archived objects of a transaction when it is about to commit, with a single write forced on disk,
+     * and give them to the writer thread once it is committed
+     */
+    private class JournalingSynchronization implements Synchronization {
+
+        private final List<ArchivedPersistentObject> archivedObjects = new ArrayList<>();
+        private boolean registered;
+        private ArchiveJournal.Entry entry;
+
+        @Override
+        public void beforeCompletion() {
+            try {
+                entry = journal.append(archivedObjects);
+            } catch (IOException e) {
+                // fails the transaction, archived objects must not be lost
+                throw new SBonitaRuntimeException("Unable to journal archived objects in " + journalFolder, e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (entry == null) {
+                    return;
+                }
+                if (status == Status.STATUS_COMMITTED) {
+                    markCommitted();
+                    enqueue(entry);
+                } else {
+                    markRolledBack();
+                }
+            } finally {
+                transactionsInFlight.decrementAndGet();
+            }
+        }
+
+        private void markCommitted() {
+            try {
+                journal.committed(entry);
+            } catch (IOException e) {
+                log.error("Unable to mark archived objects of a transaction as committed in the journal {}. They "
+                        + "will be lost if the node stops before they are written in database.", journalFolder, e);
+            }
+        }
+
+        private void markRolledBack() {
+            try {
+                journal.rolledBack(entry);
+            } catch (IOException e) {
+                log.error("Unable to mark archived objects of a transaction as rolled back in the journal {}",
+                        journalFolder, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.archive.impl;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bonitasoft.engine.persistence.ArchivedPersistentObject;
+import org.bonitasoft.engine.persistence.PersistentObject;
+import org.bonitasoft.engine.persistence.SAPersistenceObjectImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveJournalTest {
+
+    private static final long LARGE_SEGMENT = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_replay_committed_entries_that_were_not_written() throws Exception {
+        Path folder = temporaryFolder.getRoot().toPath();
+        ArchiveJournal journal = new ArchiveJournal(folder, LARGE_SEGMENT);
+        journal.open();
+        ArchiveJournal.Entry first = journal.append(archives(1));
+        journal.committed(first);
+        journal.committed(journal.append(archives(2)));
+        journal.written(singletonList(first));
+        journal.close();
+
+        List<ArchiveJournal.Entry> toReplay = new ArchiveJournal(folder, LARGE_SEGMENT).open();
+
+        assertEquals(singletonList(2L), sourceObjectIds(toReplay));
+    }
+
+    @Test
+    public void should_not_replay_rolled_back_entries_nor_entries_without_outcome() throws Exception {
+        Path folder = temporaryFolder.getRoot().toPath();
+        ArchiveJournal journal = new ArchiveJournal(folder, LARGE_SEGMENT);
+        journal.open();
+        journal.rolledBack(journal.append(archives(1)));
+        // the node stopped before the end of the transaction
+        journal.append(archives(2));
+        journal.committed(journal.append(archives(3)));
+        journal.close();
+
+        List<ArchiveJournal.Entry> toReplay = new ArchiveJournal(folder, LARGE_SEGMENT).open();
+
+        assertEquals(singletonList(3L), sourceObjectIds(toReplay));
+    }
+
+    @Test
+    public void should_move_dead_lettered_entries_to_their_own_file_and_not_replay_them() throws Exception {
+        Path folder = temporaryFolder.getRoot().toPath();
+        ArchiveJournal journal = new ArchiveJournal(folder, LARGE_SEGMENT);
+        journal.open();
+        ArchiveJournal.Entry entry = journal.append(archives(1));
+        journal.committed(entry);
+
+        Path deadLetter = journal.deadLetter(entry);
+        journal.close();
+
+        assertTrue(Files.size(deadLetter) > 0);
+        assertTrue(deadLetter.getFileName().toString().startsWith(ArchiveJournal.DEAD_LETTER_PREFIX));
+        assertTrue(new ArchiveJournal(folder, LARGE_SEGMENT).open().isEmpty());
+    }
+
+    @Test
+    public void should_not_open_a_journal_already_used_by_another_node() throws Exception {
+        Path folder = temporaryFolder.getRoot().toPath();
+        ArchiveJournal journal = new ArchiveJournal(folder, LARGE_SEGMENT);
+        journal.open();
+        try {
+            new ArchiveJournal(folder, LARGE_SEGMENT).open();
+            fail("the journal is locked by the first node");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("already used by another node"));
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void should_delete_oldest_segments_once_all_their_entries_are_written() throws Exception {
+        Path folder = temporaryFolder.getRoot().toPath();
+        // each segment contains a single transaction
+        ArchiveJournal journal = new ArchiveJournal(folder, 1);
+        journal.open();
+        ArchiveJournal.Entry first = journal.append(archives(1));
+        journal.committed(first);
+        ArchiveJournal.Entry second = journal.append(archives(2));
+        journal.committed(second);
+        assertEquals(3, segments(folder).size());
+
+        journal.written(singletonList(first));
+        assertEquals(2, segments(folder).size());
+
+        journal.written(singletonList(second));
+        assertEquals(1, segments(folder).size());
+        journal.close();
+        assertTrue(new ArchiveJournal(folder, 1).open().isEmpty());
+    }
+
+    @Test
+    public void should_ignore_record_partially_written() throws Exception {
+        Path folder = temporaryFolder.getRoot().toPath();
+        ArchiveJournal journal = new ArchiveJournal(folder, LARGE_SEGMENT);
+        journal.open();
+        journal.committed(journal.append(archives(1)));
+        journal.close();
+        Files.write(segments(folder).get(0), new byte[] { 0, 0, 1, 0, 42, 42 }, StandardOpenOption.APPEND);
+
+        List<ArchiveJournal.Entry> toReplay = new ArchiveJournal(folder, LARGE_SEGMENT).open();
+
+        assertEquals(singletonList(1L), sourceObjectIds(toReplay));
+    }
+
+    private static List<ArchivedPersistentObject> archives(long sourceObjectId) {
+        return singletonList(new SATestObject(sourceObjectId));
+    }
+
+    private static List<Long> sourceObjectIds(List<ArchiveJournal.Entry> entries) {
+        return entries.stream().flatMap(e -> e.getArchivedObjects().stream())
+                .map(ArchivedPersistentObject::getSourceObjectId).collect(Collectors.toList());
+    }
+
+    private static List<Path> segments(Path folder) {
+        return Arrays.stream(folder.toFile().listFiles()).map(File::toPath)
+                .filter(p -> p.getFileName().toString().startsWith(ArchiveJournal.SEGMENT_PREFIX))
+                .sorted().collect(Collectors.toList());
+    }
+
+    static class SATestObject extends SAPersistenceObjectImpl {
+
+        SATestObject(long sourceObjectId) {
+            super(sourceObjectId);
+        }
+
+        @Override
+        public Class<? extends PersistentObject> getPersistentObjectInterface() {
+            return PersistentObject.class;
+        }
+    }
+}
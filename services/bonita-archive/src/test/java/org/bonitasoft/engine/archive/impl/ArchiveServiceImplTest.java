@@ -17,6 +17,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import java.util.Collections;
+
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
 import org.bonitasoft.engine.archive.ArchivingStrategy;
 import org.bonitasoft.engine.persistence.ArchivedPersistentObject;
@@ -51,6 +53,38 @@ public class ArchiveServiceImplTest {
         verify(transactionService, times(1)).registerBeforeCommitCallable(eq(mockBatchArchiveCallable));
     }
 
+    @Test
+    public void should_recordInserts_give_archived_objects_to_write_behind_archiver_when_active() throws Exception {
+        final UserTransactionService transactionService = mock(UserTransactionService.class);
+        final WriteBehindArchiver writeBehindArchiver = mock(WriteBehindArchiver.class);
+        when(writeBehindArchiver.isActive()).thenReturn(true);
+        when(writeBehindArchiver.archive(any())).thenReturn(true);
+        ArchiveServiceImpl archiveService = new ArchiveServiceImpl(null, null, transactionService);
+        archiveService.setWriteBehindArchiver(writeBehindArchiver);
+        final ArchivedPersistentObjectWithSetter archivedObject = mock(ArchivedPersistentObjectWithSetter.class);
+
+        archiveService.recordInserts(3L, new ArchiveInsertRecord(archivedObject));
+
+        verify(writeBehindArchiver).archive(Collections.singletonList(archivedObject));
+        verify(transactionService, never()).registerBeforeCommitCallable(any());
+    }
+
+    @Test
+    public void should_recordInserts_archive_in_the_transaction_when_write_behind_archiver_is_stopping()
+            throws Exception {
+        final UserTransactionService transactionService = mock(UserTransactionService.class);
+        final WriteBehindArchiver writeBehindArchiver = mock(WriteBehindArchiver.class);
+        when(writeBehindArchiver.isActive()).thenReturn(true);
+        when(writeBehindArchiver.archive(any())).thenReturn(false);
+        ArchiveServiceImpl archiveService = new ArchiveServiceImpl(null, null, transactionService);
+        archiveService.setWriteBehindArchiver(writeBehindArchiver);
+
+        archiveService.recordInserts(3L,
+                new ArchiveInsertRecord(mock(ArchivedPersistentObjectWithSetter.class)));
+
+        verify(transactionService).registerBeforeCommitCallable(any());
+    }
+
     // Test with exception on TxService
 
     // Seen with Nicolas C. for this "interface extension" :)
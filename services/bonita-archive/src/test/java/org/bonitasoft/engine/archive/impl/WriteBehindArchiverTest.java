@@ -0,0 +1,235 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.archive.impl;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.commons.exceptions.SLifecycleException;
+import org.bonitasoft.engine.persistence.ArchivedPersistentObject;
+import org.bonitasoft.engine.persistence.PersistentObject;
+import org.bonitasoft.engine.persistence.SPersistenceException;
+import org.bonitasoft.engine.services.PersistenceService;
+import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WriteBehindArchiverTest {
+
+    private static final long TENANT_ID = 1L;
+    private static final long LARGE_SEGMENT = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final PersistenceService persistenceService = mock(PersistenceService.class);
+    private final UserTransactionService transactionService = mock(UserTransactionService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // archived objects written in database, by insertInBatch call
+    private final List<List<Long>> writtenBatches = new CopyOnWriteArrayList<>();
+    // resources and synchronizations of the current transaction
+    private final Map<Object, Object> transactionResources = new HashMap<>();
+    private final List<Synchronization> synchronizations = new CopyOnWriteArrayList<>();
+    private WriteBehindArchiver archiver;
+
+    @Before
+    public void before() throws Exception {
+        doAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call()).when(transactionService)
+                .executeInTransaction(any());
+        doAnswer(invocation -> transactionResources.computeIfAbsent(invocation.getArgument(0),
+                key -> ((Supplier<?>) invocation.getArgument(1)).get())).when(transactionService)
+                .getTransactionResource(any(), any());
+        doAnswer(invocation -> synchronizations.add(invocation.getArgument(0))).when(transactionService)
+                .registerBonitaSynchronization(any());
+        doAnswer(invocation -> {
+            List<PersistentObject> archivedObjects = invocation.getArgument(0);
+            writtenBatches.add(archivedObjects.stream().map(o -> ((ArchivedPersistentObject) o).getSourceObjectId())
+                    .collect(Collectors.toList()));
+            return null;
+        }).when(persistenceService).insertInBatch(any());
+        archiver = createArchiver(temporaryFolder.getRoot().getAbsolutePath(), 3);
+    }
+
+    @After
+    public void after() throws Exception {
+        archiver.stop();
+    }
+
+    private WriteBehindArchiver createArchiver(String folder, int maxAttempts) {
+        return new WriteBehindArchiver(persistenceService, transactionService, mock(SessionAccessor.class),
+                TENANT_ID, true, folder, 1000, maxAttempts, meterRegistry);
+    }
+
+    private Path journalFolder() {
+        return temporaryFolder.getRoot().toPath().resolve("tenant-" + TENANT_ID);
+    }
+
+    private void completeTransaction(int status) {
+        synchronizations.forEach(Synchronization::beforeCompletion);
+        synchronizations.forEach(s -> s.afterCompletion(status));
+        synchronizations.clear();
+        transactionResources.clear();
+    }
+
+    private static List<ArchivedPersistentObject> archives(long... sourceObjectIds) {
+        return Arrays.stream(sourceObjectIds)
+                .<ArchivedPersistentObject> mapToObj(ArchiveJournalTest.SATestObject::new)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> written() {
+        return writtenBatches.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    @Test
+    public void should_journal_all_archives_of_a_transaction_once_and_write_them_after_commit() throws Exception {
+        archiver.start();
+
+        assertThat(archiver.archive(archives(1))).isTrue();
+        assertThat(archiver.archive(archives(2, 3))).isTrue();
+        assertThat(synchronizations).hasSize(1);
+        completeTransaction(Status.STATUS_COMMITTED);
+
+        await().until(() -> written().size() == 3);
+        assertThat(written()).containsExactly(1L, 2L, 3L);
+        assertThat(meterRegistry.find(WriteBehindArchiver.NUMBER_OF_ARCHIVES_WRITTEN).counter().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    public void should_not_write_archives_of_rolled_back_transactions() throws Exception {
+        archiver.start();
+
+        archiver.archive(archives(1));
+        completeTransaction(Status.STATUS_ROLLEDBACK);
+        archiver.archive(archives(2));
+        completeTransaction(Status.STATUS_COMMITTED);
+
+        await().until(() -> !written().isEmpty());
+        archiver.stop();
+        assertThat(written()).containsExactly(2L);
+    }
+
+    @Test
+    public void should_write_at_start_only_archives_of_committed_transactions_left_in_the_journal()
+            throws Exception {
+        ArchiveJournal journal = new ArchiveJournal(journalFolder(), LARGE_SEGMENT);
+        journal.open();
+        journal.committed(journal.append(archives(1)));
+        journal.rolledBack(journal.append(archives(2)));
+        // the node crashed before the end of this transaction
+        journal.append(archives(3));
+        journal.committed(journal.append(archives(4)));
+        journal.close();
+
+        archiver.start();
+
+        await().until(() -> written().size() == 2);
+        archiver.stop();
+        assertThat(written()).containsExactly(1L, 4L);
+    }
+
+    @Test
+    public void should_write_transactions_one_by_one_and_dead_letter_the_one_that_can_not_be_written()
+            throws Exception {
+        ArchiveJournal journal = new ArchiveJournal(journalFolder(), LARGE_SEGMENT);
+        journal.open();
+        journal.committed(journal.append(archives(1)));
+        journal.committed(journal.append(archives(2)));
+        journal.committed(journal.append(archives(3)));
+        journal.close();
+        doAnswer(invocation -> {
+            List<PersistentObject> archivedObjects = invocation.getArgument(0);
+            if (archivedObjects.stream().anyMatch(o -> ((ArchivedPersistentObject) o).getSourceObjectId() == 2)) {
+                throw new SPersistenceException("constraint violation");
+            }
+            writtenBatches.add(archivedObjects.stream()
+                    .map(o -> ((ArchivedPersistentObject) o).getSourceObjectId()).collect(Collectors.toList()));
+            return null;
+        }).when(persistenceService).insertInBatch(any());
+        archiver = createArchiver(temporaryFolder.getRoot().getAbsolutePath(), 2);
+
+        archiver.start();
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> written().size() == 2);
+        assertThat(written()).containsExactly(1L, 3L);
+        assertThat(meterRegistry.find(WriteBehindArchiver.NUMBER_OF_ARCHIVES_DEAD_LETTERED).counter().count())
+                .isEqualTo(1);
+        // the first batch, then each transaction, the failing one twice
+        verify(persistenceService, times(5)).insertInBatch(any());
+        File[] deadLetters = journalFolder().toFile()
+                .listFiles((dir, name) -> name.startsWith(ArchiveJournal.DEAD_LETTER_PREFIX));
+        assertThat(deadLetters).hasSize(1);
+        archiver.stop();
+        assertThat(new ArchiveJournal(journalFolder(), LARGE_SEGMENT).open()).isEmpty();
+    }
+
+    @Test
+    public void should_wait_for_transactions_in_flight_and_refuse_new_archives_when_stopping() throws Exception {
+        archiver.start();
+        archiver.archive(archives(1));
+        CountDownLatch stopped = new CountDownLatch(1);
+        Thread stopping = new Thread(() -> {
+            try {
+                archiver.stop();
+            } catch (SLifecycleException e) {
+                throw new IllegalStateException(e);
+            }
+            stopped.countDown();
+        });
+        stopping.start();
+
+        await().until(() -> !archiver.isActive());
+        assertThat(archiver.archive(singletonList(new ArchiveJournalTest.SATestObject(2)))).isFalse();
+        assertThat(stopped.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        completeTransaction(Status.STATUS_COMMITTED);
+
+        assertThat(stopped.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(written()).containsExactly(1L);
+    }
+
+    @Test
+    public void should_not_start_when_the_journal_folder_is_not_set() {
+        WriteBehindArchiver withoutFolder = createArchiver("", 3);
+
+        assertThatThrownBy(withoutFolder::start).isInstanceOf(SLifecycleException.class)
+                .hasMessageContaining("bonita.tenant.archive.writeBehind.folder");
+    }
+}
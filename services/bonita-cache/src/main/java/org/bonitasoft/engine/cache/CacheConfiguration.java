@@ -26,6 +26,8 @@ public class CacheConfiguration {
 
     private int maxElementsOnDisk = 20000;
 
+    private long maxBytesOffHeap = 64L * 1024 * 1024;
+
     private boolean inMemoryOnly = false;
 
     private boolean eternal = false;
@@ -102,6 +104,24 @@ public class CacheConfiguration {
         return maxElementsOnDisk;
     }
 
+    /**
+     * the maximum number of bytes used by the elements the cache keeps off-heap, when the implementation has an
+     * off-heap tier
+     *
+     * @return the maxBytesOffHeap
+     */
+    public long getMaxBytesOffHeap() {
+        return maxBytesOffHeap;
+    }
+
+    /**
+     * @param maxBytesOffHeap
+     *        the maxBytesOffHeap to set
+     */
+    public void setMaxBytesOffHeap(final long maxBytesOffHeap) {
+        this.maxBytesOffHeap = maxBytesOffHeap;
+    }
+
     /**
      * if true nothing is stored on disk
      *
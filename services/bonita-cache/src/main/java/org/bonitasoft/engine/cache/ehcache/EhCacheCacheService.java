@@ -29,6 +29,7 @@ import org.bonitasoft.engine.commons.PlatformLifecycleService;
 import org.bonitasoft.engine.commons.exceptions.SBonitaRuntimeException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnSingleCandidate;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
@@ -40,6 +41,7 @@ import org.springframework.stereotype.Component;
 @Order(2)
 @Component
 @ConditionalOnSingleCandidate(CacheService.class)
+@ConditionalOnProperty(name = "bonita.platform.cache.implementation", havingValue = "ehcache", matchIfMissing = true)
 @Slf4j
 public class EhCacheCacheService implements CacheService, PlatformLifecycleService {
 
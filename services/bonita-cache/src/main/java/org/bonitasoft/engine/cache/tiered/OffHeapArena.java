@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.cache.tiered;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Direct memory of an {@link OffHeapStore}. It is allocated by pages of {@link #PAGE_SIZE} bytes, only when needed and
+ * up to a maximum number of bytes, and reused afterwards instead of allocating a direct buffer per value.
+ * <p>
+ * Pages are cut into blocks of {@link #BLOCK_SIZE} bytes, a value being written in as many free blocks as needed, not
+ * necessarily contiguous, so that freed blocks are always reusable. Not thread safe, {@link TieredCache} guards it.
+ */
+class OffHeapArena {
+
+    static final int BLOCK_SIZE = 256;
+    static final int PAGE_SIZE = 1024 * 1024;
+    private static final int BLOCKS_PER_PAGE = PAGE_SIZE / BLOCK_SIZE;
+
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    private final int maxBlocks;
+    // stack of the free blocks of the allocated pages
+    private int[] freeBlocks = new int[0];
+    private int freeCount;
+    private int allocatedBlocks;
+
+    OffHeapArena(long maxBytes) {
+        this.maxBlocks = (int) Math.min(Integer.MAX_VALUE, Math.max(0, maxBytes) / BLOCK_SIZE);
+    }
+
+    static int blocksFor(int length) {
+        return (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    int getMaxBlocks() {
+        return maxBlocks;
+    }
+
+    int getUsedBlocks() {
+        return allocatedBlocks - freeCount;
+    }
+
+    /**
+     * @return the blocks the value was written in, or null if there are not enough free blocks
+     */
+    int[] write(byte[] value) {
+        int needed = blocksFor(value.length);
+        while (freeCount < needed && allocatedBlocks < maxBlocks) {
+            allocatePage();
+        }
+        if (freeCount < needed) {
+            return null;
+        }
+        int[] blocks = new int[needed];
+        for (int i = 0; i < needed; i++) {
+            int block = freeBlocks[--freeCount];
+            int offset = i * BLOCK_SIZE;
+            pageOf(block).put(value, offset, Math.min(BLOCK_SIZE, value.length - offset));
+            blocks[i] = block;
+        }
+        return blocks;
+    }
+
+    byte[] read(int[] blocks, int length) {
+        byte[] value = new byte[length];
+        for (int i = 0; i < blocks.length; i++) {
+            int offset = i * BLOCK_SIZE;
+            pageOf(blocks[i]).get(value, offset, Math.min(BLOCK_SIZE, length - offset));
+        }
+        return value;
+    }
+
+    void free(int[] blocks) {
+        for (int block : blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    /**
+     * Free all blocks, the pages are kept to be reused
+     */
+    void clear() {
+        for (int block = 0; block < allocatedBlocks; block++) {
+            freeBlocks[block] = block;
+        }
+        freeCount = allocatedBlocks;
+    }
+
+    /**
+     * @return the page of the block, positioned at the start of the block
+     */
+    private ByteBuffer pageOf(int block) {
+        ByteBuffer page = pages.get(block / BLOCKS_PER_PAGE);
+        page.position((block % BLOCKS_PER_PAGE) * BLOCK_SIZE);
+        return page;
+    }
+
+    private void allocatePage() {
+        int blocks = Math.min(BLOCKS_PER_PAGE, maxBlocks - allocatedBlocks);
+        pages.add(ByteBuffer.allocateDirect(blocks * BLOCK_SIZE));
+        freeBlocks = Arrays.copyOf(freeBlocks, allocatedBlocks + blocks);
+        for (int block = allocatedBlocks + blocks - 1; block >= allocatedBlocks; block--) {
+            freeBlocks[freeCount++] = block;
+        }
+        allocatedBlocks += blocks;
+    }
+}
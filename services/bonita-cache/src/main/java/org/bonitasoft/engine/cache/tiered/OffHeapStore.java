@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.cache.tiered;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Second tier of a {@link TieredCache}: entries evicted from the heap are serialized into the direct memory of an
+ * {@link OffHeapArena}, outside of the garbage collected heap, and are deserialized back when accessed.
+ * <p>
+ * Bounded both by a number of entries and by a number of bytes, the least recently used entries being evicted first.
+ * The bytes are counted in blocks of the arena. Serialized forms larger than {@link #COMPRESSION_THRESHOLD} bytes are
+ * deflated. Not thread safe, {@link TieredCache} guards it.
+ */
+class OffHeapStore {
+
+    static final int COMPRESSION_THRESHOLD = 512;
+    private static final byte RAW = 0;
+    private static final byte DEFLATED = 1;
+
+    private final Map<Object, Slot> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final OffHeapArena arena;
+    private final int maxEntries;
+
+    OffHeapStore(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.arena = new OffHeapArena(maxBytes);
+    }
+
+    /**
+     * @return the number of entries evicted to make room for this one, or -1 if the value could not be stored
+     */
+    int put(Object key, Serializable value, long expiresAt) {
+        remove(key);
+        byte[] serialized;
+        try {
+            serialized = serialize(value);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+        int neededBlocks = OffHeapArena.blocksFor(serialized.length);
+        if (maxEntries <= 0 || neededBlocks > arena.getMaxBlocks()) {
+            return -1;
+        }
+        int evicted = 0;
+        Iterator<Slot> eldest = entries.values().iterator();
+        while (eldest.hasNext()
+                && (entries.size() >= maxEntries || arena.getUsedBlocks() + neededBlocks > arena.getMaxBlocks())) {
+            arena.free(eldest.next().blocks);
+            eldest.remove();
+            evicted++;
+        }
+        int[] blocks = arena.write(serialized);
+        if (blocks == null) {
+            return -1;
+        }
+        entries.put(key, new Slot(blocks, serialized.length, expiresAt));
+        return evicted;
+    }
+
+    /**
+     * @return true if the store contained the entry
+     */
+    boolean remove(Object key) {
+        Slot slot = entries.remove(key);
+        if (slot != null) {
+            arena.free(slot.blocks);
+        }
+        return slot != null;
+    }
+
+    /**
+     * Remove the entry from the store and return it, read back on the heap, so that it can be promoted to the heap
+     * tier
+     */
+    Entry take(Object key) {
+        Slot slot = entries.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        Entry entry = new Entry(arena.read(slot.blocks, slot.length), slot.expiresAt);
+        arena.free(slot.blocks);
+        return entry;
+    }
+
+    boolean contains(Object key) {
+        return entries.containsKey(key);
+    }
+
+    List<Object> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long bytes() {
+        return (long) arena.getUsedBlocks() * OffHeapArena.BLOCK_SIZE;
+    }
+
+    void clear() {
+        entries.clear();
+        arena.clear();
+    }
+
+    static byte[] serialize(Serializable value) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        raw.write(RAW);
+        try (ObjectOutputStream out = new ObjectOutputStream(raw)) {
+            out.writeObject(value);
+        }
+        byte[] serialized = raw.toByteArray();
+        if (serialized.length <= COMPRESSION_THRESHOLD) {
+            return serialized;
+        }
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(serialized.length / 2);
+        deflated.write(DEFLATED);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (OutputStream out = new DeflaterOutputStream(deflated, deflater)) {
+            out.write(serialized, 1, serialized.length - 1);
+        } finally {
+            deflater.end();
+        }
+        return deflated.size() < serialized.length ? deflated.toByteArray() : serialized;
+    }
+
+    static Object deserialize(byte[] serialized) throws IOException, ClassNotFoundException {
+        InputStream in = new ByteArrayInputStream(serialized, 1, serialized.length - 1);
+        if (serialized[0] == DEFLATED) {
+            in = new InflaterInputStream(in);
+        }
+        try (ObjectInputStream objectInputStream = new ContextClassLoaderObjectInputStream(in)) {
+            return objectInputStream.readObject();
+        }
+    }
+
+    private static final class Slot {
+
+        private final int[] blocks;
+        private final int length;
+        private final long expiresAt;
+
+        private Slot(int[] blocks, int length, long expiresAt) {
+            this.blocks = blocks;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    static final class Entry {
+
+        private final byte[] serialized;
+        private final long expiresAt;
+
+        private Entry(byte[] serialized, long expiresAt) {
+            this.serialized = serialized;
+            this.expiresAt = expiresAt;
+        }
+
+        long getExpiresAt() {
+            return expiresAt;
+        }
+
+        Object read() throws IOException, ClassNotFoundException {
+            return deserialize(serialized);
+        }
+    }
+
+    /**
+     * Cached values can be instances of classes of tenant or process class loaders
+     */
+    private static final class ContextClassLoaderObjectInputStream extends ObjectInputStream {
+
+        private ContextClassLoaderObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    // fall back on the default resolution
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.cache.tiered;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded buffer of the accesses made to a {@link TieredCache} without taking its lock. Threads record accesses
+ * without lock, the owner of the lock replays them on the eviction policy later.
+ * <p>
+ * Lossy: an access is dropped when the buffer is full, the eviction policy being approximate anyway. Many threads may
+ * {@link #offer} concurrently, only the owner of the cache lock may {@link #drain}.
+ */
+class ReadBuffer<E> {
+
+    static final int SIZE = 64;
+    private static final int MASK = SIZE - 1;
+
+    private final AtomicReferenceArray<E> slots = new AtomicReferenceArray<>(SIZE);
+    private final AtomicLong writes = new AtomicLong();
+    private volatile long reads;
+
+    /**
+     * @return true when the buffer is at least half full and should be drained
+     */
+    boolean offer(E element) {
+        long write = writes.get();
+        long pending = write - reads;
+        if (pending < SIZE && writes.compareAndSet(write, write + 1)) {
+            slots.lazySet((int) (write & MASK), element);
+            pending++;
+        }
+        return pending >= SIZE / 2;
+    }
+
+    void drain(Consumer<E> consumer) {
+        long read = reads;
+        long write = writes.get();
+        while (read < write) {
+            int index = (int) (read & MASK);
+            E element = slots.get(index);
+            if (element == null) {
+                // the slot was claimed but its element is not published yet, it will be read on the next drain
+                break;
+            }
+            slots.lazySet(index, null);
+            consumer.accept(element);
+            read++;
+        }
+        reads = read;
+    }
+}
@@ -0,0 +1,452 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.cache.tiered;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.bonitasoft.engine.cache.CacheConfiguration;
+
+/**
+ * A named cache made of a bounded heap tier and an optional off-heap tier.
+ * <p>
+ * The heap tier follows the W-TinyLFU policy: new entries go in a small LRU window, entries leaving the window are
+ * admitted in the main segmented LRU (probation then protected on second access) only if they were accessed more
+ * often than the entry they would replace, according to a {@link FrequencySketch}. Entries leaving the heap tier
+ * (including entries not admitted) are moved to the {@link OffHeapStore}, unless the cache is in memory only or the
+ * value is not serializable.
+ * <p>
+ * Reads of entries on the heap do not take the lock of the cache: entries are looked up in a concurrent map and the
+ * access is recorded in {@link ReadBuffer}s, striped by thread, that are replayed on the eviction policy by the
+ * thread holding the lock, when a buffer is half full or before a write. Writes, removals and reads falling back on
+ * the off-heap tier hold the lock, as they move entries between segments and tiers.
+ */
+@Slf4j
+class TieredCache {
+
+    static final String HITS = "bonita.cache.hits";
+    static final String MISSES = "bonita.cache.misses";
+    static final String EVICTIONS = "bonita.cache.evictions";
+    static final String SIZE = "bonita.cache.size";
+    static final String SIZE_IN_BYTES = "bonita.cache.offheap.bytes";
+    static final String HIT_RATIO = "bonita.cache.hit.ratio";
+
+    // a power of two, so that the read buffer of a thread is selected with a mask
+    private static final int READ_BUFFERS = Integer.highestOneBit(
+            Math.max(1, Math.min(64, Runtime.getRuntime().availableProcessors() * 2) - 1)) << 1;
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    private final CacheConfiguration configuration;
+    private final LongSupplier clock;
+    private final Map<Object, Entry> data = new ConcurrentHashMap<>();
+    // guards the segments, the sketch and the off-heap tier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReadBuffer<Entry>[] readBuffers;
+    private final LinkedHashMap<Object, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Object, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Object, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private final OffHeapStore offHeapStore;
+    private final int maxWindowSize;
+    private final int maxMainSize;
+    private final int maxProtectedSize;
+
+    private final MeterRegistry meterRegistry;
+    private final List<Meter> meters = new ArrayList<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter heapEvictions;
+    private final Counter offHeapEvictions;
+
+    TieredCache(String name, CacheConfiguration configuration, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.configuration = configuration;
+        this.clock = clock;
+        this.readBuffers = newReadBuffers();
+        int maxHeapSize = Math.max(1, configuration.getMaxElementsInMemory());
+        this.maxWindowSize = Math.max(1, maxHeapSize / 100);
+        this.maxMainSize = maxHeapSize - maxWindowSize;
+        this.maxProtectedSize = maxMainSize * 80 / 100;
+        this.sketch = new FrequencySketch(maxHeapSize);
+        this.offHeapStore = configuration.isInMemoryOnly() ? null
+                : new OffHeapStore(configuration.getMaxElementsOnDisk(), configuration.getMaxBytesOffHeap());
+
+        this.meterRegistry = meterRegistry;
+        Tags tags = Tags.of("cache", name);
+        hits = register(Counter.builder(HITS).tags(tags).description("Cache lookups returning a value"));
+        misses = register(Counter.builder(MISSES).tags(tags).description("Cache lookups returning no value"));
+        heapEvictions = register(Counter.builder(EVICTIONS).tags(tags).tag("tier", "heap")
+                .description("Entries evicted from the tier"));
+        offHeapEvictions = register(Counter.builder(EVICTIONS).tags(tags).tag("tier", "offheap")
+                .description("Entries evicted from the tier"));
+        register(Gauge.builder(SIZE, this, TieredCache::heapSize).tags(tags).tag("tier", "heap")
+                .description("Entries in the tier"));
+        register(Gauge.builder(SIZE, this, TieredCache::offHeapSize).tags(tags).tag("tier", "offheap")
+                .description("Entries in the tier"));
+        register(Gauge.builder(SIZE_IN_BYTES, this, TieredCache::offHeapBytes).tags(tags).baseUnit("bytes")
+                .description("Size of the serialized entries stored off-heap"));
+        register(Gauge.builder(HIT_RATIO, this, TieredCache::hitRatio).tags(tags)
+                .description("Ratio of cache lookups returning a value"));
+    }
+
+    private Counter register(Counter.Builder builder) {
+        Counter counter = builder.register(meterRegistry);
+        meters.add(counter);
+        return counter;
+    }
+
+    private <T> void register(Gauge.Builder<T> builder) {
+        meters.add(builder.register(meterRegistry));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ReadBuffer<Entry>[] newReadBuffers() {
+        ReadBuffer<Entry>[] buffers = new ReadBuffer[READ_BUFFERS];
+        for (int i = 0; i < READ_BUFFERS; i++) {
+            buffers[i] = new ReadBuffer<>();
+        }
+        return buffers;
+    }
+
+    void put(Object key, Object value) {
+        long expiresAt = configuration.isEternal() ? Long.MAX_VALUE
+                : clock.getAsLong() + configuration.getTimeToLiveSeconds() * 1000;
+        Object stored = configuration.isCopyOnWrite() ? copy(value) : value;
+        lock.lock();
+        try {
+            drainReadBuffers();
+            sketch.increment(key);
+            if (offHeapStore != null) {
+                offHeapStore.remove(key);
+            }
+            Entry entry = data.get(key);
+            if (entry != null) {
+                entry.value = stored;
+                entry.expiresAt = expiresAt;
+                onAccess(entry);
+                return;
+            }
+            addToWindow(new Entry(key, stored, expiresAt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Object get(Object key) {
+        Entry entry = data.get(key);
+        if (entry != null) {
+            Object value = entry.value;
+            if (!isExpired(entry.expiresAt)) {
+                afterRead(entry);
+                hits.increment();
+                return configuration.isCopyOnRead() ? copy(value) : value;
+            }
+            removeExpired(entry);
+        } else if (offHeapStore != null) {
+            Object value = getFromOffHeap(key);
+            if (value != null) {
+                hits.increment();
+                return configuration.isCopyOnRead() ? copy(value) : value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    private void afterRead(Entry entry) {
+        ReadBuffer<Entry> readBuffer = readBuffers[readBufferIndex(Thread.currentThread().getId())];
+        if (readBuffer.offer(entry) && lock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static int readBufferIndex(long threadId) {
+        // thread ids are often consecutive: spread them over the buffers
+        return (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32) & (READ_BUFFERS - 1);
+    }
+
+    private void drainReadBuffers() {
+        for (ReadBuffer<Entry> readBuffer : readBuffers) {
+            readBuffer.drain(entry -> {
+                // the entry may have been removed or replaced since it was read
+                if (data.get(entry.key) == entry) {
+                    sketch.increment(entry.key);
+                    onAccess(entry);
+                }
+            });
+        }
+    }
+
+    private void removeExpired(Entry entry) {
+        lock.lock();
+        try {
+            if (data.get(entry.key) == entry && isExpired(entry.expiresAt)) {
+                removeFromHeap(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Object getFromOffHeap(Object key) {
+        lock.lock();
+        try {
+            Entry entry = data.get(key);
+            if (entry != null) {
+                // promoted by another thread in the meantime
+                return isExpired(entry.expiresAt) ? null : entry.value;
+            }
+            OffHeapStore.Entry offHeapEntry = offHeapStore.take(key);
+            if (offHeapEntry == null || isExpired(offHeapEntry.getExpiresAt())) {
+                return null;
+            }
+            Object value;
+            try {
+                value = offHeapEntry.read();
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                log.debug("Unable to read the off-heap entry {}, it is discarded", key, e);
+                return null;
+            }
+            // accessed again: the entry is promoted back to the heap tier
+            drainReadBuffers();
+            sketch.increment(key);
+            addToWindow(new Entry(key, value, offHeapEntry.getExpiresAt()));
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean remove(Object key) {
+        lock.lock();
+        try {
+            Entry entry = data.get(key);
+            if (entry != null) {
+                removeFromHeap(entry);
+                return true;
+            }
+            return offHeapStore != null && offHeapStore.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    List<Object> getKeys() {
+        List<Object> keys = new ArrayList<>(data.keySet());
+        if (offHeapStore != null) {
+            lock.lock();
+            try {
+                keys.addAll(offHeapStore.keys());
+            } finally {
+                lock.unlock();
+            }
+        }
+        return keys;
+    }
+
+    int size() {
+        return heapSize() + offHeapSize();
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+            if (offHeapStore != null) {
+                offHeapStore.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void removeMeters() {
+        meters.forEach(meterRegistry::remove);
+        meters.clear();
+    }
+
+    private void onAccess(Entry entry) {
+        switch (entry.segment) {
+            case WINDOW:
+                window.get(entry.key);
+                break;
+            case PROBATION:
+                probation.remove(entry.key);
+                entry.segment = Segment.PROTECTED;
+                protectedSegment.put(entry.key, entry);
+                if (protectedSegment.size() > maxProtectedSize) {
+                    // demote the least recently used protected entry, it gets a new chance in probation
+                    Entry demoted = removeEldest(protectedSegment);
+                    demoted.segment = Segment.PROBATION;
+                    probation.put(demoted.key, demoted);
+                }
+                break;
+            case PROTECTED:
+                protectedSegment.get(entry.key);
+                break;
+        }
+    }
+
+    private void addToWindow(Entry entry) {
+        entry.segment = Segment.WINDOW;
+        data.put(entry.key, entry);
+        window.put(entry.key, entry);
+        if (window.size() > maxWindowSize) {
+            admitToMain(removeEldest(window));
+        }
+    }
+
+    private void admitToMain(Entry candidate) {
+        if (probation.size() + protectedSegment.size() < maxMainSize) {
+            candidate.segment = Segment.PROBATION;
+            probation.put(candidate.key, candidate);
+            return;
+        }
+        LinkedHashMap<Object, Entry> victims = probation.isEmpty() ? protectedSegment : probation;
+        if (victims.isEmpty()) {
+            evictFromHeap(candidate);
+            return;
+        }
+        Entry victim = victims.values().iterator().next();
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            victims.remove(victim.key);
+            evictFromHeap(victim);
+            candidate.segment = Segment.PROBATION;
+            probation.put(candidate.key, candidate);
+        } else {
+            evictFromHeap(candidate);
+        }
+    }
+
+    private void evictFromHeap(Entry entry) {
+        data.remove(entry.key);
+        heapEvictions.increment();
+        if (offHeapStore == null || !(entry.value instanceof Serializable) || isExpired(entry.expiresAt)) {
+            return;
+        }
+        int evicted = offHeapStore.put(entry.key, (Serializable) entry.value, entry.expiresAt);
+        if (evicted > 0) {
+            offHeapEvictions.increment(evicted);
+        }
+    }
+
+    private void removeFromHeap(Entry entry) {
+        data.remove(entry.key);
+        segmentOf(entry).remove(entry.key);
+    }
+
+    private LinkedHashMap<Object, Entry> segmentOf(Entry entry) {
+        switch (entry.segment) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            default:
+                return protectedSegment;
+        }
+    }
+
+    private static Entry removeEldest(LinkedHashMap<Object, Entry> segment) {
+        Iterator<Entry> iterator = segment.values().iterator();
+        Entry eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    private boolean isExpired(long expiresAt) {
+        return expiresAt != Long.MAX_VALUE && clock.getAsLong() >= expiresAt;
+    }
+
+    private static Object copy(Object value) {
+        if (!(value instanceof Serializable)) {
+            return value;
+        }
+        try {
+            return OffHeapStore.deserialize(OffHeapStore.serialize((Serializable) value));
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Unable to copy the cached value " + value, e);
+        }
+    }
+
+    private int heapSize() {
+        return data.size();
+    }
+
+    private int offHeapSize() {
+        if (offHeapStore == null) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            return offHeapStore.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long offHeapBytes() {
+        if (offHeapStore == null) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            return offHeapStore.bytes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private static final class Entry {
+
+        private final Object key;
+        private volatile Object value;
+        private volatile long expiresAt;
+        // guarded by the lock of the cache
+        private Segment segment;
+
+        private Entry(Object key, Object value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.cache.tiered;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bonitasoft.engine.cache.CacheConfiguration;
+import org.bonitasoft.engine.cache.CacheService;
+import org.bonitasoft.engine.cache.SCacheException;
+import org.bonitasoft.engine.commons.PlatformLifecycleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link CacheService} keeping a bounded number of elements on the heap, with W-TinyLFU admission and eviction, and
+ * moving the elements evicted from the heap to an off-heap tier where they are stored serialized. See
+ * {@link TieredCache}.
+ * <p>
+ * Each cache is configured by the {@link CacheConfiguration} having its name:
+ * <ul>
+ * <li>{@code maxElementsInMemory}: size of the heap tier</li>
+ * <li>{@code maxElementsOnDisk} and {@code maxBytesOffHeap}: size of the off-heap tier</li>
+ * <li>{@code inMemoryOnly}: no off-heap tier</li>
+ * <li>{@code eternal}, {@code timeToLiveSeconds}, {@code copyOnRead} and {@code copyOnWrite}: same meaning as
+ * for the EhCache implementation</li>
+ * </ul>
+ * Hits, misses, evictions and sizes of each cache are published as {@code bonita.cache.*} meters.
+ * Enabled using {@code bonita.platform.cache.implementation=tiered}
+ */
+// Must be started before the work service so it has a "higher" priority
+@Order(2)
+@Component
+@ConditionalOnProperty(name = "bonita.platform.cache.implementation", havingValue = "tiered")
+@Slf4j
+public class TieredCacheService implements CacheService, PlatformLifecycleService {
+
+    private final Map<String, CacheConfiguration> cacheConfigurations;
+    private final CacheConfiguration defaultCacheConfiguration;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final Map<String, TieredCache> caches = new ConcurrentHashMap<>();
+    private volatile boolean started;
+
+    @Autowired
+    public TieredCacheService(List<CacheConfiguration> cacheConfigurations,
+            @Qualifier("defaultCacheConfiguration") CacheConfiguration defaultCacheConfiguration,
+            MeterRegistry meterRegistry) {
+        this(cacheConfigurations, defaultCacheConfiguration, meterRegistry, System::currentTimeMillis);
+    }
+
+    TieredCacheService(List<CacheConfiguration> cacheConfigurations, CacheConfiguration defaultCacheConfiguration,
+            MeterRegistry meterRegistry, LongSupplier clock) {
+        this.defaultCacheConfiguration = defaultCacheConfiguration;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.cacheConfigurations = new HashMap<>();
+        if (cacheConfigurations != null) {
+            for (CacheConfiguration cacheConfiguration : cacheConfigurations) {
+                this.cacheConfigurations.put(cacheConfiguration.getName(), cacheConfiguration);
+            }
+        }
+    }
+
+    private TieredCache getOrCreateCache(String cacheName) {
+        return caches.computeIfAbsent(cacheName, name -> {
+            CacheConfiguration cacheConfiguration = cacheConfigurations.get(name);
+            if (cacheConfiguration == null) {
+                log.warn("No specific cache configuration found for cache '{}'. Using default configuration", name);
+                cacheConfiguration = defaultCacheConfiguration;
+            }
+            return new TieredCache(name, cacheConfiguration, meterRegistry, clock);
+        });
+    }
+
+    @Override
+    public void store(String cacheName, Serializable key, Object value) throws SCacheException {
+        if (!started) {
+            throw new SCacheException("The cache is not started, call start() on the cache service");
+        }
+        getOrCreateCache(cacheName).put(key, value);
+    }
+
+    @Override
+    public boolean remove(String cacheName, Object key) {
+        TieredCache cache = caches.get(cacheName);
+        return cache != null && cache.remove(key);
+    }
+
+    @Override
+    public Object get(String cacheName, Object key) {
+        TieredCache cache = caches.get(cacheName);
+        if (cache == null) {
+            // the cache does not exist = the key was not stored
+            return null;
+        }
+        return cache.get(key);
+    }
+
+    @Override
+    public List<Object> getKeys(String cacheName) {
+        TieredCache cache = caches.get(cacheName);
+        if (cache == null) {
+            return Collections.emptyList();
+        }
+        return cache.getKeys();
+    }
+
+    @Override
+    public boolean clear(String cacheName) {
+        TieredCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+        return cache == null;
+    }
+
+    @Override
+    public void clearAll() {
+        caches.values().forEach(TieredCache::clear);
+    }
+
+    @Override
+    public int getCacheSize(String cacheName) {
+        TieredCache cache = caches.get(cacheName);
+        return cache == null ? 0 : cache.size();
+    }
+
+    @Override
+    public List<String> getCachesNames() {
+        return new ArrayList<>(caches.keySet());
+    }
+
+    @Override
+    public boolean isStopped() {
+        return !started;
+    }
+
+    @Override
+    public synchronized void start() {
+        started = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        started = false;
+        caches.values().forEach(cache -> {
+            cache.clear();
+            cache.removeMeters();
+        });
+        caches.clear();
+    }
+
+    @Override
+    public void pause() {
+        clearAll();
+    }
+
+    @Override
+    public void resume() {
+        if (!started) {
+            start();
+        }
+    }
+}
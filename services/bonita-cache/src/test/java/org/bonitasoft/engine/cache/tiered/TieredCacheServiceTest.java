@@ -0,0 +1,242 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.cache.tiered;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.cache.CacheConfiguration;
+import org.bonitasoft.engine.cache.SCacheException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TieredCacheServiceTest {
+
+    private static final String CACHE = "myCache";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong(1000);
+    private final CacheConfiguration cacheConfiguration = new CacheConfiguration();
+    private TieredCacheService cacheService;
+
+    @Before
+    public void setup() {
+        cacheConfiguration.setName(CACHE);
+        cacheConfiguration.setMaxElementsInMemory(100);
+        cacheConfiguration.setMaxElementsOnDisk(1000);
+        cacheConfiguration.setInMemoryOnly(true);
+        cacheConfiguration.setEternal(true);
+        List<CacheConfiguration> configurations = new ArrayList<>();
+        configurations.add(cacheConfiguration);
+        cacheService = new TieredCacheService(configurations, new CacheConfiguration(), meterRegistry, now::get);
+        cacheService.start();
+    }
+
+    @Test(expected = SCacheException.class)
+    public void should_not_store_when_not_started() throws Exception {
+        cacheService.stop();
+
+        cacheService.store(CACHE, "key", "value");
+    }
+
+    @Test
+    public void should_get_stored_value_and_count_hits_and_misses() throws Exception {
+        cacheService.store(CACHE, "key", "value");
+
+        assertEquals("value", cacheService.get(CACHE, "key"));
+        assertNull(cacheService.get(CACHE, "unknown"));
+        assertNull(cacheService.get("unknownCache", "key"));
+        assertEquals(1, meterRegistry.find(TieredCache.HITS).tag("cache", CACHE).counter().count(), 0);
+        assertEquals(1, meterRegistry.find(TieredCache.MISSES).tag("cache", CACHE).counter().count(), 0);
+        assertEquals(0.5, meterRegistry.find(TieredCache.HIT_RATIO).tag("cache", CACHE).gauge().value(), 0);
+    }
+
+    @Test
+    public void should_bound_the_heap_tier_when_in_memory_only() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            cacheService.store(CACHE, i, "value" + i);
+        }
+
+        assertEquals(100, cacheService.getCacheSize(CACHE));
+        assertEquals(400, meterRegistry.find(TieredCache.EVICTIONS).tag("cache", CACHE).tag("tier", "heap")
+                .counter().count(), 0);
+    }
+
+    @Test
+    public void should_keep_frequently_used_entries_when_scanning_new_ones() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            cacheService.store(CACHE, "hot" + i, "value");
+            for (int access = 0; access < 5; access++) {
+                cacheService.get(CACHE, "hot" + i);
+            }
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            cacheService.store(CACHE, "cold" + i, "value");
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("hot" + i + " should still be cached", "value", cacheService.get(CACHE, "hot" + i));
+        }
+    }
+
+    @Test
+    public void should_move_entries_evicted_from_heap_off_heap() throws Exception {
+        cacheConfiguration.setInMemoryOnly(false);
+        for (int i = 0; i < 500; i++) {
+            cacheService.store(CACHE, i, "value" + i);
+        }
+
+        assertEquals(500, cacheService.getCacheSize(CACHE));
+        assertEquals(500, cacheService.getKeys(CACHE).size());
+        assertEquals(400, meterRegistry.find(TieredCache.SIZE).tag("cache", CACHE).tag("tier", "offheap")
+                .gauge().value(), 0);
+        assertTrue(meterRegistry.find(TieredCache.SIZE_IN_BYTES).tag("cache", CACHE).gauge().value() > 0);
+        for (int i = 0; i < 500; i++) {
+            assertEquals("value" + i, cacheService.get(CACHE, i));
+        }
+    }
+
+    @Test
+    public void should_bound_the_off_heap_tier_in_bytes() throws Exception {
+        cacheConfiguration.setInMemoryOnly(false);
+        cacheConfiguration.setMaxBytesOffHeap(10_000);
+        for (int i = 0; i < 2000; i++) {
+            cacheService.store(CACHE, i, "value" + i);
+        }
+
+        assertTrue(meterRegistry.find(TieredCache.SIZE_IN_BYTES).tag("cache", CACHE).gauge().value() <= 10_000);
+        assertTrue(meterRegistry.find(TieredCache.EVICTIONS).tag("cache", CACHE).tag("tier", "offheap")
+                .counter().count() > 0);
+    }
+
+    @Test
+    public void should_compress_large_values_off_heap() throws Exception {
+        String largeValue = "a".repeat(10_000);
+
+        byte[] serialized = OffHeapStore.serialize(largeValue);
+
+        assertTrue(serialized.length < 1000);
+        assertEquals(largeValue, OffHeapStore.deserialize(serialized));
+    }
+
+    @Test
+    public void should_reuse_the_off_heap_memory_of_removed_entries() throws Exception {
+        OffHeapStore offHeapStore = new OffHeapStore(1000, 10 * OffHeapArena.BLOCK_SIZE);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, offHeapStore.put(i, "value" + i, Long.MAX_VALUE));
+            assertEquals("value" + i, offHeapStore.take(i).read());
+        }
+
+        assertEquals(0, offHeapStore.size());
+        assertEquals(0, offHeapStore.bytes());
+        byte[] tooLarge = new byte[20 * OffHeapArena.BLOCK_SIZE];
+        new Random(0).nextBytes(tooLarge);
+        assertEquals(-1, offHeapStore.put("tooLarge", tooLarge, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void should_read_entries_concurrently_with_writes() throws Exception {
+        cacheConfiguration.setInMemoryOnly(false);
+        for (int i = 0; i < 100; i++) {
+            cacheService.store(CACHE, i, "value" + i);
+        }
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10_000; i++) {
+                        int key = (i + offset) % 200;
+                        if (i < 200 || i % 10 == 0) {
+                            cacheService.store(CACHE, key, "value" + key);
+                        }
+                        Object value = cacheService.get(CACHE, key);
+                        if (value != null && !value.equals("value" + key)) {
+                            throw new AssertionError(key + " has value " + value);
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(200, cacheService.getCacheSize(CACHE));
+    }
+
+    @Test
+    public void should_expire_entries_after_time_to_live() throws Exception {
+        cacheConfiguration.setEternal(false);
+        cacheConfiguration.setTimeToLiveSeconds(10);
+        cacheService.store(CACHE, "key", "value");
+
+        now.addAndGet(9_000);
+        assertEquals("value", cacheService.get(CACHE, "key"));
+        now.addAndGet(1_000);
+        assertNull(cacheService.get(CACHE, "key"));
+    }
+
+    @Test
+    public void should_copy_values_on_write_and_on_read() throws Exception {
+        cacheConfiguration.setCopyOnWrite(true);
+        cacheConfiguration.setCopyOnRead(true);
+        ArrayList<String> value = new ArrayList<>(List.of("a"));
+
+        cacheService.store(CACHE, "key", value);
+        value.add("b");
+
+        Object cached = cacheService.get(CACHE, "key");
+        assertEquals(List.of("a"), cached);
+        assertNotSame(cached, cacheService.get(CACHE, "key"));
+    }
+
+    @Test
+    public void should_remove_and_clear_entries() throws Exception {
+        cacheService.store(CACHE, "key1", "value");
+        cacheService.store(CACHE, "key2", "value");
+
+        assertTrue(cacheService.remove(CACHE, "key1"));
+        assertNull(cacheService.get(CACHE, "key1"));
+        cacheService.clear(CACHE);
+        assertEquals(0, cacheService.getCacheSize(CACHE));
+    }
+
+    @Test
+    public void should_remove_meters_on_stop() throws Exception {
+        cacheService.store(CACHE, "key", "value");
+
+        cacheService.stop();
+
+        assertNull(meterRegistry.find(TieredCache.HITS).tag("cache", CACHE).counter());
+        assertTrue(cacheService.getCachesNames().isEmpty());
+    }
+}
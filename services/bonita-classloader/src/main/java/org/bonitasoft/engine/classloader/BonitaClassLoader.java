@@ -54,6 +54,11 @@ public class BonitaClassLoader extends URLClassLoader {
     private final String uuid = generateUUID();
     private final Set<BonitaClassLoader> children = new HashSet<>();
 
+    static {
+        // classes are loaded under a lock per class name instead of a lock on the whole class loader
+        registerAsParallelCapable();
+    }
+
     BonitaClassLoader(ClassLoaderIdentifier id, ClassLoader parent, Set<File> jars, Map<String, File> nonJarResources,
             File temporaryDirectory) {
         super(id.getType().name() + "__" + id.getId(), jars.stream().map(BonitaClassLoader::toURL).toArray(URL[]::new),
@@ -109,29 +114,41 @@ public class BonitaClassLoader extends URLClassLoader {
 
     @Override
     protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
-        Class<?> c = null;
-        c = findLoadedClass(name);
-        if (c == null) {
-            try {
-                c = findClass(name);
-            } catch (final ClassNotFoundException e) {
-                // ignore
-            } catch (final LinkageError le) {
-                // might be because of a duplicate loading (concurrency loading), retry to find it one time See BS-2483
-                c = findLoadedClass(name);
-                if (c == null) {
-                    // was not because of duplicate loading: throw the exception
-                    throw le;
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> c = findLoadedClass(name);
+            if (c == null) {
+                try {
+                    c = findLocalClass(name);
+                } catch (final LinkageError le) {
+                    // might be because of a duplicate loading (concurrency loading), retry to find it one time See BS-2483
+                    c = findLoadedClass(name);
+                    if (c == null) {
+                        // was not because of duplicate loading: throw the exception
+                        throw le;
+                    }
                 }
             }
+            if (c == null) {
+                c = getParent().loadClass(name);
+            }
+            if (resolve) {
+                resolveClass(c);
+            }
+            return c;
         }
-        if (c == null) {
-            c = getParent().loadClass(name);
-        }
-        if (resolve) {
-            resolveClass(c);
+    }
+
+    /**
+     * Find the class in the jars of this class loader only
+     *
+     * @return the class or null if it is not in the jars of this class loader
+     */
+    protected Class<?> findLocalClass(final String name) {
+        try {
+            return findClass(name);
+        } catch (final ClassNotFoundException e) {
+            return null;
         }
-        return c;
     }
 
     public void destroy() {
@@ -36,6 +36,16 @@ public class BonitaClassLoaderFactory {
     static BonitaClassLoader createClassLoader(Stream<BonitaResource> resources, ClassLoaderIdentifier id,
             URI temporaryDirectoryUri,
             ClassLoader parent) throws IOException {
+        return createClassLoader(resources, id, temporaryDirectoryUri, parent, false);
+    }
+
+    /**
+     * @param indexed when true, the classes are looked up using an index of the packages of the jars (see
+     *        {@link IndexedBonitaClassLoader})
+     */
+    static BonitaClassLoader createClassLoader(Stream<BonitaResource> resources, ClassLoaderIdentifier id,
+            URI temporaryDirectoryUri,
+            ClassLoader parent, boolean indexed) throws IOException {
         File temporaryDirectory = createTemporaryDirectory(temporaryDirectoryUri);
         Map<String, File> allFiles = writeResourcesOnFileSystem(resources, temporaryDirectory);
         Set<File> jars = allFiles.entrySet().stream().filter(u -> jarMatcher.matcher(u.getKey()).matches())
@@ -43,6 +53,9 @@ public class BonitaClassLoaderFactory {
         Map<String, File> nonJarResources = allFiles.entrySet().stream()
                 .filter(u -> !jarMatcher.matcher(u.getKey()).matches())
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        if (indexed) {
+            return new IndexedBonitaClassLoader(id, parent, jars, nonJarResources, temporaryDirectory);
+        }
         return new BonitaClassLoader(id, parent, jars, nonJarResources, temporaryDirectory);
     }
 
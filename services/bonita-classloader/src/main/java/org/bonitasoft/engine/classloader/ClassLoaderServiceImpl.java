@@ -43,6 +43,7 @@ import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
 import org.bonitasoft.engine.transaction.STransactionNotFoundException;
 import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -69,6 +70,7 @@ public class ClassLoaderServiceImpl implements ClassLoaderService {
     private final UserTransactionService userTransactionService;
     private final BroadcastService broadcastService;
     private final ClassLoaderUpdater classLoaderUpdater;
+    private boolean indexed = false;
 
     public ClassLoaderServiceImpl(final ParentClassLoaderResolver parentClassLoaderResolver,
             @Qualifier("platformEventService") EventService eventService,
@@ -86,6 +88,11 @@ public class ClassLoaderServiceImpl implements ClassLoaderService {
         this.platformClassLoaderListeners.addAll(platformClassLoaderListeners);
     }
 
+    @Value("${bonita.platform.classloader.indexed:false}")
+    public void setIndexed(boolean indexed) {
+        this.indexed = indexed;
+    }
+
     @Override
     public void registerDependencyServiceOfTenant(Long tenantId, TenantDependencyService tenantDependencyService) {
         dependencyServicesByTenant.put(tenantId, tenantDependencyService);
@@ -181,7 +188,7 @@ public class ClassLoaderServiceImpl implements ClassLoaderService {
         log.debug("Creating classloader {}", id);
         BonitaClassLoader classLoader = BonitaClassLoaderFactory.createClassLoader(getDependencies(id), id,
                 getLocalTemporaryFolder(id),
-                getParentClassLoader(id));
+                getParentClassLoader(id), indexed);
         log.info("Created classloader {}: {}", id, classLoader);
         return classLoader;
     }
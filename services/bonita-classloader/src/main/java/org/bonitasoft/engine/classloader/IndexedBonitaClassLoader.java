@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.classloader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.CodeSource;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.Manifest;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link BonitaClassLoader} using a {@link JarPackageIndex} to find its classes: a class whose package is not in any
+ * of the jars is directly loaded from the parent, without scanning the jars, and a class is only read from the jars
+ * containing its package.
+ * <p>
+ * Names of classes that were looked up in an indexed package but not found are remembered, so the jars are not
+ * scanned again for them.
+ */
+@Slf4j
+public class IndexedBonitaClassLoader extends BonitaClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final JarPackageIndex index;
+    private final Set<String> notFound = ConcurrentHashMap.newKeySet();
+
+    IndexedBonitaClassLoader(ClassLoaderIdentifier id, ClassLoader parent, Set<File> jars,
+            Map<String, File> nonJarResources, File temporaryDirectory) throws IOException {
+        super(id, parent, jars, nonJarResources, temporaryDirectory);
+        this.index = JarPackageIndex.create(jars);
+    }
+
+    @Override
+    protected Class<?> findLocalClass(String name) {
+        String packageName = packageOf(name);
+        if (index.getJars(packageName).isEmpty() || notFound.contains(name)) {
+            return null;
+        }
+        String entryName = name.replace('.', '/') + ".class";
+        try {
+            for (JarPackageIndex.IndexedJar jar : index.getJars(packageName)) {
+                JarEntry entry = jar.getFile().getJarEntry(entryName);
+                if (entry != null) {
+                    return defineClass(name, packageName, jar, entry);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Unable to read the class {} using the jar index of {}, looking it up in all jars", name,
+                    getIdentifier(), e);
+            return super.findLocalClass(name);
+        }
+        notFound.add(name);
+        return null;
+    }
+
+    private Class<?> defineClass(String name, String packageName, JarPackageIndex.IndexedJar jar, JarEntry entry)
+            throws IOException {
+        byte[] bytes;
+        try (InputStream in = jar.getFile().getInputStream(entry)) {
+            bytes = in.readAllBytes();
+        }
+        if (!packageName.isEmpty() && getDefinedPackage(packageName) == null) {
+            definePackage(packageName, jar);
+        }
+        return defineClass(name, bytes, 0, bytes.length, new CodeSource(jar.getUrl(), entry.getCodeSigners()));
+    }
+
+    private void definePackage(String packageName, JarPackageIndex.IndexedJar jar) throws IOException {
+        Manifest manifest = jar.getFile().getManifest();
+        try {
+            if (manifest != null) {
+                definePackage(packageName, manifest, jar.getUrl());
+            } else {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            }
+        } catch (IllegalArgumentException e) {
+            // the package was defined concurrently by another class of that package
+            if (getDefinedPackage(packageName) == null) {
+                throw e;
+            }
+        }
+    }
+
+    private static String packageOf(String className) {
+        int lastDot = className.lastIndexOf('.');
+        return lastDot < 0 ? JarPackageIndex.DEFAULT_PACKAGE : className.substring(0, lastDot);
+    }
+
+    @Override
+    public void destroy() {
+        index.close();
+        super.destroy();
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.classloader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index of the packages containing classes in a set of jars, used by {@link IndexedBonitaClassLoader} to look up a
+ * class only in the jars that contain its package.
+ * <p>
+ * The packages are listed from the central directory of each jar, read once when the jar is opened, the same
+ * {@link JarFile} being then used to read the classes. Nothing is stored: the jars of a class loader are written to
+ * new temporary files each time it is created, so an index kept on disk would never be found again.
+ */
+@Slf4j
+class JarPackageIndex implements Closeable {
+
+    static final String DEFAULT_PACKAGE = "";
+
+    private final List<IndexedJar> jars = new ArrayList<>();
+    private final Map<String, List<IndexedJar>> jarsByPackage = new HashMap<>();
+
+    private JarPackageIndex() {
+    }
+
+    static JarPackageIndex create(Collection<File> jarFiles) throws IOException {
+        JarPackageIndex index = new JarPackageIndex();
+        try {
+            for (File jarFile : jarFiles) {
+                JarFile file;
+                try {
+                    file = new JarFile(jarFile);
+                } catch (IOException e) {
+                    // same as the URLClassLoader: no class can be loaded from an invalid jar
+                    log.warn("Unable to index {}, it is not a valid jar: {}", jarFile, e.getMessage());
+                    continue;
+                }
+                IndexedJar jar = new IndexedJar(file, jarFile.toURI().toURL());
+                index.jars.add(jar);
+                for (String packageName : scan(file)) {
+                    index.jarsByPackage.computeIfAbsent(packageName, p -> new ArrayList<>(1)).add(jar);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            index.close();
+            throw e;
+        }
+        return index;
+    }
+
+    List<IndexedJar> getJars(String packageName) {
+        return jarsByPackage.getOrDefault(packageName, Collections.emptyList());
+    }
+
+    static Set<String> scan(JarFile jarFile) {
+        Set<String> packages = new LinkedHashSet<>();
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+                int lastSlash = name.lastIndexOf('/');
+                packages.add(lastSlash < 0 ? DEFAULT_PACKAGE : name.substring(0, lastSlash).replace('/', '.'));
+            }
+        }
+        return packages;
+    }
+
+    @Override
+    public void close() {
+        for (IndexedJar jar : jars) {
+            try {
+                jar.getFile().close();
+            } catch (IOException e) {
+                log.debug("Unable to close jar {}", jar.getUrl(), e);
+            }
+        }
+    }
+
+    static final class IndexedJar {
+
+        private final JarFile file;
+        private final URL url;
+
+        private IndexedJar(JarFile file, URL url) {
+            this.file = file;
+            this.url = url;
+        }
+
+        JarFile getFile() {
+            return file;
+        }
+
+        URL getUrl() {
+            return url;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.classloader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.bonitasoft.engine.classloader.ClassLoaderIdentifier.identifier;
+import static org.bonitasoft.engine.dependency.model.ScopeType.PROCESS;
+import static org.bonitasoft.engine.home.BonitaResource.resource;
+import static org.bonitasoft.engine.io.IOUtil.generateJar;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.bonitasoft.engine.home.BonitaResource;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IndexedBonitaClassLoaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private final List<BonitaClassLoader> classLoaders = new ArrayList<>();
+    private int idCounter = 1;
+
+    @After
+    public void after() {
+        classLoaders.forEach(BonitaClassLoader::destroy);
+    }
+
+    @Test
+    public void should_load_classes_of_indexed_packages() throws Exception {
+        BonitaClassLoader classLoader = createClassloader(getClass().getClassLoader(),
+                resource("lib.jar", generateJar("org.acme.lib.Lib",
+                        "package org.acme.lib;",
+                        "public class Lib {",
+                        "   public String getVersion(){",
+                        "       return \"1.0\";",
+                        "   }",
+                        "}")));
+
+        Class<?> libClass = classLoader.loadClass("org.acme.lib.Lib");
+
+        assertThat(classLoader).isInstanceOf(IndexedBonitaClassLoader.class);
+        assertThat(libClass.getClassLoader()).isSameAs(classLoader);
+        assertThat(libClass.getPackage().getName()).isEqualTo("org.acme.lib");
+        assertThat(libClass.getProtectionDomain().getCodeSource().getLocation().getPath()).endsWith(".jar");
+        assertThat(libClass.getMethod("getVersion").invoke(libClass.getConstructor().newInstance()))
+                .isEqualTo("1.0");
+    }
+
+    @Test
+    public void should_load_classes_of_other_packages_from_the_parent() throws Exception {
+        BonitaClassLoader classLoader = createClassloader(getClass().getClassLoader(),
+                resource("lib.jar", generateJar("org.acme.lib.Lib",
+                        "package org.acme.lib;",
+                        "public class Lib {",
+                        "}")));
+
+        assertThat(classLoader.loadClass(IndexedBonitaClassLoaderTest.class.getName()))
+                .isSameAs(IndexedBonitaClassLoaderTest.class);
+        assertThat(classLoader.loadClass("java.lang.String")).isSameAs(String.class);
+        assertThatThrownBy(() -> classLoader.loadClass("org.acme.lib.Unknown"))
+                .isInstanceOf(ClassNotFoundException.class);
+        // not found twice: the second lookup is answered by the negative cache
+        assertThatThrownBy(() -> classLoader.loadClass("org.acme.lib.Unknown"))
+                .isInstanceOf(ClassNotFoundException.class);
+    }
+
+    @Test
+    public void should_load_classes_of_the_parent_bonita_classloader() throws Exception {
+        BonitaClassLoader parent = createClassloader(getClass().getClassLoader(),
+                resource("lib.jar", generateJar("org.acme.lib.Lib",
+                        "package org.acme.lib;",
+                        "public class Lib {",
+                        "   public String getVersion(){",
+                        "       return \"1.0\";",
+                        "   }",
+                        "}")));
+        BonitaClassLoader child = createClassloader(parent, resource("child.jar", generateJar("org.acme.app.Child",
+                "package org.acme.app;",
+                "public class Child {",
+                "   public String getVersion() throws Exception {",
+                "       Class libClass = Class.forName(\"org.acme.lib.Lib\");",
+                "       return (String) libClass.getMethod(\"getVersion\").invoke(libClass.newInstance());",
+                "   }",
+                "}")));
+
+        Class<?> childClass = child.loadClass("org.acme.app.Child");
+
+        assertThat(child.loadClass("org.acme.lib.Lib").getClassLoader()).isSameAs(parent);
+        assertThat(childClass.getMethod("getVersion").invoke(childClass.getConstructor().newInstance()))
+                .isEqualTo("1.0");
+    }
+
+    @Test
+    public void should_index_classes_of_the_default_package() throws Exception {
+        byte[] jar = generateJar("Hello",
+                "public class Hello {",
+                "}");
+        BonitaClassLoader classLoader = createClassloader(getClass().getClassLoader(), resource("hello.jar", jar));
+
+        assertThat(classLoader.loadClass("Hello").getClassLoader()).isSameAs(classLoader);
+    }
+
+    @Test
+    public void should_ignore_invalid_jars() throws Exception {
+        BonitaClassLoader classLoader = createClassloader(getClass().getClassLoader(),
+                resource("myJar.jar", "Salut le monde".getBytes()));
+
+        assertThat(classLoader.loadClass("java.lang.String")).isSameAs(String.class);
+    }
+
+    @Test
+    public void should_load_the_same_class_concurrently() throws Exception {
+        BonitaClassLoader classLoader = createClassloader(getClass().getClassLoader(),
+                resource("lib.jar", generateJar("org.acme.lib.Lib",
+                        "package org.acme.lib;",
+                        "public class Lib {",
+                        "}")));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Class<?>>> tasks = Stream.<Callable<Class<?>>> generate(
+                    () -> () -> classLoader.loadClass("org.acme.lib.Lib"))
+                    .limit(32).collect(Collectors.toList());
+
+            List<Class<?>> loaded = new ArrayList<>();
+            for (Future<Class<?>> future : executor.invokeAll(tasks)) {
+                loaded.add(future.get());
+            }
+
+            assertThat(loaded).containsOnly(classLoader.loadClass("org.acme.lib.Lib"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private BonitaClassLoader createClassloader(ClassLoader parent, BonitaResource... resources) throws IOException {
+        File temporaryDirectory = temporaryFolder.newFolder();
+        BonitaClassLoader classLoader = BonitaClassLoaderFactory.createClassLoader(Stream.of(resources),
+                identifier(PROCESS, idCounter++), temporaryDirectory.toURI(), parent, true);
+        classLoaders.add(0, classLoader);
+        return classLoader;
+    }
+}
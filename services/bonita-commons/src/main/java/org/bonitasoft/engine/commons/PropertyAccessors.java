@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.commons;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.bonitasoft.engine.commons.exceptions.SReflectException;
+
+/**
+ * Accessors of the properties of entities, replacing {@link ClassReflector#setField(Object, String, Object)},
+ * {@link ClassReflector#invokeSetter(Object, String, Class, Object)} and
+ * {@link ClassReflector#invokeGetter(Object, String)} on hot paths such as the updates of persistent objects or the
+ * archive date and tenant id of entities.
+ * <p>
+ * All setters of a class are resolved into {@link MethodHandle}s the first time a property of the class is accessed,
+ * so that setting a property neither builds the name of its setter nor looks it up by reflection. Setters and getters
+ * of {@code long} properties are also adapted to a primitive signature, so that {@link #setLong(Object, String, long)}
+ * and {@link #getLong(Object, String)} do not box the value. Nested properties ({@code child.name}), setters not
+ * following the naming convention and values needing a conversion (e.g. an {@code Integer} for a {@code long}) are
+ * still set by {@link ClassReflector#setField(Object, String, Object)}.
+ */
+public final class PropertyAccessors {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final MethodType LONG_SETTER_TYPE = MethodType.methodType(void.class, Object.class, long.class);
+
+    private static final MethodType LONG_GETTER_TYPE = MethodType.methodType(long.class, Object.class);
+
+    private static final ClassValue<Map<String, Setter>> SETTERS = new ClassValue<>() {
+
+        @Override
+        protected Map<String, Setter> computeValue(Class<?> type) {
+            return resolveSetters(type);
+        }
+    };
+
+    private static final ClassValue<Map<String, MethodHandle>> LONG_GETTERS = new ClassValue<>() {
+
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            return resolveLongGetters(type);
+        }
+    };
+
+    private PropertyAccessors() {
+    }
+
+    /**
+     * Resolve the setters of the class now instead of the first time one of its properties is set
+     */
+    public static void prepare(final Class<?> clazz) {
+        SETTERS.get(clazz);
+    }
+
+    public static void setProperty(final Object entity, final String propertyName, final Object value)
+            throws SReflectException {
+        final Setter setter = SETTERS.get(entity.getClass()).get(propertyName);
+        if (setter == null || value != null && !setter.valueType.isInstance(value)) {
+            ClassReflector.setField(entity, propertyName, value);
+            return;
+        }
+        try {
+            setter.handle.invokeExact(entity, value);
+        } catch (final Throwable e) {
+            throw new SReflectException("Unable to set " + propertyName + " on " + entity.getClass().getName(), e);
+        }
+    }
+
+    public static void setLong(final Object entity, final String propertyName, final long value)
+            throws SReflectException {
+        final Setter setter = SETTERS.get(entity.getClass()).get(propertyName);
+        if (setter == null || setter.longHandle == null) {
+            throw new SReflectException("No accessible setter of the long property " + propertyName + " on "
+                    + entity.getClass().getName());
+        }
+        try {
+            setter.longHandle.invokeExact(entity, value);
+        } catch (final Throwable e) {
+            throw new SReflectException("Unable to set " + propertyName + " on " + entity.getClass().getName(), e);
+        }
+    }
+
+    public static long getLong(final Object entity, final String propertyName) throws SReflectException {
+        final MethodHandle getter = LONG_GETTERS.get(entity.getClass()).get(propertyName);
+        if (getter == null) {
+            throw new SReflectException("No accessible getter of the long property " + propertyName + " on "
+                    + entity.getClass().getName());
+        }
+        try {
+            return (long) getter.invokeExact(entity);
+        } catch (final Throwable e) {
+            throw new SReflectException("Unable to get " + propertyName + " on " + entity.getClass().getName(), e);
+        }
+    }
+
+    private static Map<String, Setter> resolveSetters(final Class<?> clazz) {
+        final Map<String, Setter> setters = new HashMap<>();
+        for (final Method method : clazz.getMethods()) {
+            final String name = method.getName();
+            if (!name.startsWith("set") || name.length() == 3 || method.getParameterCount() != 1
+                    || method.isBridge()) {
+                continue;
+            }
+            // the name used by ClassReflector#setField once capitalized
+            final String propertyName = Character.toLowerCase(name.charAt(3)) + name.substring(4);
+            if (setters.containsKey(propertyName)) {
+                continue;
+            }
+            try {
+                final MethodHandle handle = unreflect(method);
+                final Class<?> valueType = ClassUtils.primitiveToWrapper(method.getParameterTypes()[0]);
+                setters.put(propertyName, new Setter(handle.asType(SETTER_TYPE), valueType,
+                        valueType == Long.class ? handle.asType(LONG_SETTER_TYPE) : null));
+            } catch (final IllegalAccessException | RuntimeException ignored) {
+                // set by reflection
+            }
+        }
+        return Collections.unmodifiableMap(setters);
+    }
+
+    private static Map<String, MethodHandle> resolveLongGetters(final Class<?> clazz) {
+        final Map<String, MethodHandle> getters = new HashMap<>();
+        for (final Method method : clazz.getMethods()) {
+            final String name = method.getName();
+            if (!name.startsWith("get") || name.length() == 3 || method.getParameterCount() != 0
+                    || method.isBridge() || ClassUtils.primitiveToWrapper(method.getReturnType()) != Long.class) {
+                continue;
+            }
+            try {
+                getters.put(Character.toLowerCase(name.charAt(3)) + name.substring(4),
+                        unreflect(method).asType(LONG_GETTER_TYPE));
+            } catch (final IllegalAccessException | RuntimeException ignored) {
+                // not accessible
+            }
+        }
+        return Collections.unmodifiableMap(getters);
+    }
+
+    private static MethodHandle unreflect(final Method method) throws IllegalAccessException {
+        try {
+            // the declaring class is not necessarily public (e.g. proxies and test classes)
+            method.setAccessible(true);
+        } catch (final RuntimeException ignored) {
+            // fall back on the public lookup
+        }
+        return MethodHandles.lookup().unreflect(method);
+    }
+
+    private static final class Setter {
+
+        private final MethodHandle handle;
+        // values of other types are converted by reflection
+        private final Class<?> valueType;
+        // null when the property is not a long
+        private final MethodHandle longHandle;
+
+        private Setter(final MethodHandle handle, final Class<?> valueType, final MethodHandle longHandle) {
+            this.handle = handle;
+            this.valueType = valueType;
+            this.longHandle = longHandle;
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.commons;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Date;
+
+import org.bonitasoft.engine.commons.exceptions.SReflectException;
+import org.junit.jupiter.api.Test;
+
+class PropertyAccessorsTest {
+
+    @Test
+    void should_set_object_property() throws Exception {
+        final Pojo pojo = new Pojo();
+        final Date date = new Date();
+
+        PropertyAccessors.setProperty(pojo, "date", date);
+
+        assertThat(pojo.getDate()).isEqualTo(date);
+    }
+
+    @Test
+    void should_set_null_object_property() throws Exception {
+        final Pojo pojo = new Pojo();
+        pojo.setDate(new Date());
+
+        PropertyAccessors.setProperty(pojo, "date", null);
+
+        assertThat(pojo.getDate()).isNull();
+    }
+
+    @Test
+    void should_set_primitive_property() throws Exception {
+        final Entity entity = new Entity();
+
+        PropertyAccessors.setProperty(entity, "stateId", 3);
+        PropertyAccessors.setProperty(entity, "stable", true);
+        PropertyAccessors.setProperty(entity, "lastUpdateDate", 12L);
+
+        assertThat(entity.getStateId()).isEqualTo(3);
+        assertThat(entity.isStable()).isTrue();
+        assertThat(entity.getLastUpdateDate()).isEqualTo(12L);
+    }
+
+    @Test
+    void should_convert_value_of_another_type_like_ClassReflector() throws Exception {
+        final Entity entity = new Entity();
+
+        PropertyAccessors.setProperty(entity, "lastUpdateDate", 12);
+
+        assertThat(entity.getLastUpdateDate()).isEqualTo(12L);
+    }
+
+    @Test
+    void should_set_nested_property() throws Exception {
+        final Pojo pojo = new Pojo();
+        pojo.setChild(new Pojo());
+
+        PropertyAccessors.setProperty(pojo, "child.choice", true);
+
+        assertThat(pojo.getChild().isChoice()).isTrue();
+    }
+
+    @Test
+    void should_use_setter_of_the_concrete_class() throws Exception {
+        final Entity entity = new SubEntity();
+
+        PropertyAccessors.setProperty(entity, "stateId", 3);
+
+        assertThat(entity.getStateId()).isEqualTo(6);
+    }
+
+    @Test
+    void should_throw_SReflectException_when_setter_does_not_exist() {
+        assertThrows(SReflectException.class, () -> PropertyAccessors.setProperty(new Pojo(), "unknown", 1L));
+    }
+
+    @Test
+    void should_throw_SReflectException_when_setting_null_in_primitive_property() {
+        assertThrows(SReflectException.class, () -> PropertyAccessors.setProperty(new Entity(), "stateId", null));
+    }
+
+    @Test
+    void should_set_and_get_primitive_long_property() throws Exception {
+        final Entity entity = new Entity();
+
+        PropertyAccessors.setLong(entity, "lastUpdateDate", 123L);
+
+        assertThat(entity.getLastUpdateDate()).isEqualTo(123L);
+        assertThat(PropertyAccessors.getLong(entity, "lastUpdateDate")).isEqualTo(123L);
+    }
+
+    @Test
+    void should_set_and_get_boxed_long_property() throws Exception {
+        final Entity entity = new Entity();
+
+        PropertyAccessors.setLong(entity, "tenantId", 12L);
+
+        assertThat(entity.getTenantId()).isEqualTo(12L);
+        assertThat(PropertyAccessors.getLong(entity, "tenantId")).isEqualTo(12L);
+    }
+
+    @Test
+    void should_throw_SReflectException_when_getting_null_boxed_long_property() {
+        assertThrows(SReflectException.class, () -> PropertyAccessors.getLong(new Entity(), "tenantId"));
+    }
+
+    @Test
+    void should_throw_SReflectException_when_long_setter_does_not_exist() {
+        assertThrows(SReflectException.class, () -> PropertyAccessors.setLong(new Pojo(), "lastUpdateDate", 1L));
+        assertThrows(SReflectException.class, () -> PropertyAccessors.setLong(new Entity(), "stateId", 1L));
+    }
+
+    @Test
+    void should_use_long_setter_of_the_concrete_class() throws Exception {
+        final Entity entity = new SubEntity();
+
+        PropertyAccessors.setLong(entity, "lastUpdateDate", 5L);
+
+        assertThat(entity.getLastUpdateDate()).isEqualTo(10L);
+    }
+
+    public static class Entity {
+
+        private int stateId;
+
+        private boolean stable;
+
+        private long lastUpdateDate;
+
+        private Long tenantId;
+
+        public int getStateId() {
+            return stateId;
+        }
+
+        public void setStateId(final int stateId) {
+            this.stateId = stateId;
+        }
+
+        public boolean isStable() {
+            return stable;
+        }
+
+        public void setStable(final boolean stable) {
+            this.stable = stable;
+        }
+
+        public long getLastUpdateDate() {
+            return lastUpdateDate;
+        }
+
+        public void setLastUpdateDate(final long lastUpdateDate) {
+            this.lastUpdateDate = lastUpdateDate;
+        }
+
+        public Long getTenantId() {
+            return tenantId;
+        }
+
+        public void setTenantId(final Long tenantId) {
+            this.tenantId = tenantId;
+        }
+    }
+
+    public static class SubEntity extends Entity {
+
+        @Override
+        public void setStateId(final int stateId) {
+            super.setStateId(stateId * 2);
+        }
+
+        @Override
+        public void setLastUpdateDate(final long lastUpdateDate) {
+            super.setLastUpdateDate(lastUpdateDate * 2);
+        }
+    }
+
+}
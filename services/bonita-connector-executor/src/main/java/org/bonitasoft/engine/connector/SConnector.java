@@ -63,4 +63,19 @@ public interface SConnector {
      * @throws SConnectorException
      */
     void disconnect() throws SConnectorException;
+
+    /**
+     * @return the id of the definition implemented by this connector, null when it is not known. Used to execute the
+     *         connector in the bulkhead configured for its definition
+     */
+    default String getDefinitionId() {
+        return null;
+    }
+
+    /**
+     * @return the version of the definition implemented by this connector, null when it is not known
+     */
+    default String getDefinitionVersion() {
+        return null;
+    }
 }
@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.connector.impl;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bonitasoft.engine.monitoring.ExecutorServiceMetricsProvider;
+
+/**
+ * Thread pool and queue dedicated to the connectors of some definitions, so that slow connectors of one definition
+ * cannot use all the threads executing the connectors of the other definitions.
+ * <p>
+ * A bulkhead rejects connectors when its queue is full, and can interrupt connectors that are not finished after a
+ * timeout, counted from the submission of the connector.
+ */
+@Slf4j
+class ConnectorBulkhead {
+
+    static final String DEFAULT = "default";
+    private static final String EXECUTOR_NAME = "bonita-connector-executor";
+
+    private final String name;
+    private final long timeoutInMillis;
+    private final ExecutorService executorService;
+    private final ExecutorServiceMetricsProvider executorServiceMetricsProvider;
+    private final MeterRegistry meterRegistry;
+    private final long tenantId;
+    private final AtomicLong running = new AtomicLong();
+    private final Counter executed;
+    private final Counter rejected;
+    private final Timer latency;
+    private final Meter[] meters;
+
+    ConnectorBulkhead(String name, ThreadPoolExecutor threadPoolExecutor, long timeoutInMillis,
+            ExecutorServiceMetricsProvider executorServiceMetricsProvider, MeterRegistry meterRegistry,
+            long tenantId) {
+        this.name = name;
+        this.timeoutInMillis = timeoutInMillis;
+        this.executorServiceMetricsProvider = executorServiceMetricsProvider;
+        this.meterRegistry = meterRegistry;
+        this.tenantId = tenantId;
+        this.executorService = executorServiceMetricsProvider.bind(meterRegistry, threadPoolExecutor,
+                executorName(), tenantId);
+        Tags tags = Tags.of("tenant", String.valueOf(tenantId), "bulkhead", name);
+        Gauge pending = Gauge.builder(ConnectorExecutorImpl.NUMBER_OF_CONNECTORS_PENDING,
+                threadPoolExecutor.getQueue(), Collection::size)
+                .tags(tags).baseUnit(ConnectorExecutorImpl.CONNECTORS_UNIT)
+                .description("Connectors pending in the execution queue")
+                .register(meterRegistry);
+        Gauge runningGauge = Gauge.builder(ConnectorExecutorImpl.NUMBER_OF_CONNECTORS_RUNNING, running,
+                AtomicLong::get)
+                .tags(tags).baseUnit(ConnectorExecutorImpl.CONNECTORS_UNIT)
+                .description("Connectors currently executing")
+                .register(meterRegistry);
+        executed = Counter.builder(ConnectorExecutorImpl.NUMBER_OF_CONNECTORS_EXECUTED)
+                .tags(tags).baseUnit(ConnectorExecutorImpl.CONNECTORS_UNIT)
+                .description("Total connectors executed since last server start")
+                .register(meterRegistry);
+        rejected = Counter.builder(ConnectorExecutorImpl.NUMBER_OF_CONNECTORS_REJECTED)
+                .tags(tags).baseUnit(ConnectorExecutorImpl.CONNECTORS_UNIT)
+                .description("Connectors rejected because the execution queue was full")
+                .register(meterRegistry);
+        latency = Timer.builder(ConnectorExecutorImpl.CONNECTORS_LATENCY)
+                .tags(tags).description("Time from the submission of connectors to the end of their execution")
+                .register(meterRegistry);
+        meters = new Meter[] { pending, runningGauge, executed, rejected, latency };
+    }
+
+    /**
+     * Bulkhead of the connectors of a definition, rejecting connectors when its queue is full.
+     */
+    static ConnectorBulkhead create(String name, Configuration configuration,
+            ExecutorServiceMetricsProvider executorServiceMetricsProvider, MeterRegistry meterRegistry,
+            long tenantId) {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(configuration.maxConcurrency,
+                configuration.maxConcurrency, 0L, MILLISECONDS, new ArrayBlockingQueue<>(configuration.queueCapacity),
+                new ConnectorExecutorThreadFactory("ConnectorExecutor-" + name),
+                new ThreadPoolExecutor.AbortPolicy());
+        return new ConnectorBulkhead(name, threadPoolExecutor, configuration.timeoutInMillis,
+                executorServiceMetricsProvider, meterRegistry, tenantId);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    long getTimeoutInMillis() {
+        return timeoutInMillis;
+    }
+
+    void started() {
+        running.incrementAndGet();
+    }
+
+    void finished(boolean success) {
+        running.decrementAndGet();
+        if (success) {
+            executed.increment();
+        }
+    }
+
+    void completed(long submissionTimeInNanos) {
+        latency.record(System.nanoTime() - submissionTimeInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void rejected() {
+        rejected.increment();
+    }
+
+    void shutdown() {
+        for (Meter meter : meters) {
+            meterRegistry.remove(meter);
+        }
+        executorServiceMetricsProvider.unbind(meterRegistry, executorName(), tenantId);
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(5000, TimeUnit.MILLISECONDS)) {
+                log.warn("Timeout (5s) trying to stop the connector executor thread pool {}.", name);
+            }
+        } catch (final InterruptedException e) {
+            log.warn("Error while stopping the connector executor thread pool {}.", name, e);
+        }
+    }
+
+    private String executorName() {
+        return DEFAULT.equals(name) ? EXECUTOR_NAME : EXECUTOR_NAME + "-" + name;
+    }
+
+    /**
+     * Parse the configuration of the bulkheads: bulkheads are separated by {@code ;} and each one is written
+     * {@code <definition id>[:<definition version>]=<max concurrency>,<queue capacity>[,<timeout in milliseconds>]}
+     *
+     * @return the configuration of the bulkheads by definition id or definition id and version
+     */
+    static Map<String, Configuration> parse(String bulkheads) {
+        Map<String, Configuration> configurations = new LinkedHashMap<>();
+        if (bulkheads == null || bulkheads.isBlank()) {
+            return configurations;
+        }
+        for (String bulkhead : bulkheads.split(";")) {
+            if (bulkhead.isBlank()) {
+                continue;
+            }
+            String[] keyAndValue = bulkhead.split("=");
+            String[] values = keyAndValue.length == 2 ? keyAndValue[1].split(",") : new String[0];
+            if (keyAndValue[0].isBlank() || values.length < 2 || values.length > 3) {
+                throw new IllegalArgumentException("Invalid connector bulkhead configuration: '" + bulkhead
+                        + "', expected <definition id>[:<definition version>]=<max concurrency>,<queue capacity>"
+                        + "[,<timeout in milliseconds>]");
+            }
+            try {
+                configurations.put(keyAndValue[0].trim(), new Configuration(Integer.parseInt(values[0].trim()),
+                        Integer.parseInt(values[1].trim()),
+                        values.length == 3 ? Long.parseLong(values[2].trim()) : 0));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid connector bulkhead configuration: '" + bulkhead + "'", e);
+            }
+        }
+        return configurations;
+    }
+
+    static String key(String definitionId, String definitionVersion) {
+        return definitionVersion == null ? definitionId : definitionId + ":" + definitionVersion;
+    }
+
+    static final class Configuration {
+
+        private final int maxConcurrency;
+        private final int queueCapacity;
+        private final long timeoutInMillis;
+
+        Configuration(int maxConcurrency, int queueCapacity, long timeoutInMillis) {
+            if (maxConcurrency <= 0 || queueCapacity <= 0 || timeoutInMillis < 0) {
+                throw new IllegalArgumentException("Invalid connector bulkhead configuration: max concurrency ("
+                        + maxConcurrency + ") and queue capacity (" + queueCapacity
+                        + ") must be positive, timeout (" + timeoutInMillis + ") can not be negative");
+            }
+            this.maxConcurrency = maxConcurrency;
+            this.queueCapacity = queueCapacity;
+            this.timeoutInMillis = timeoutInMillis;
+        }
+    }
+}
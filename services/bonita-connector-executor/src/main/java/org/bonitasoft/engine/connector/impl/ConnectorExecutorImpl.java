@@ -16,19 +16,17 @@ package org.bonitasoft.engine.connector.impl;
 import static org.bonitasoft.engine.connector.ConnectorExecutionResult.result;
 
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Tags;
 import lombok.extern.slf4j.Slf4j;
 import org.bonitasoft.engine.commons.exceptions.SBonitaRuntimeException;
 import org.bonitasoft.engine.connector.BonitaConnectorExecutorFactory;
@@ -49,6 +47,9 @@ import org.springframework.stereotype.Component;
 
 /**
  * Execute connectors directly
+ * <p>
+ * Connectors of the definitions configured in {@code bonita.tenant.connector.bulkheads} are executed in their own
+ * {@link ConnectorBulkhead}, the other ones share the default thread pool.
  *
  * @author Baptiste Mesta
  * @author Celine Souchet
@@ -62,9 +63,13 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
     public static final String NUMBER_OF_CONNECTORS_PENDING = "bonita.bpmengine.connector.pending";
     public static final String NUMBER_OF_CONNECTORS_RUNNING = "bonita.bpmengine.connector.running";
     public static final String NUMBER_OF_CONNECTORS_EXECUTED = "bonita.bpmengine.connector.executed";
+    public static final String NUMBER_OF_CONNECTORS_REJECTED = "bonita.bpmengine.connector.rejected";
+    public static final String CONNECTORS_LATENCY = "bonita.bpmengine.connector.latency";
     public static final String CONNECTORS_UNIT = "connectors";
 
-    private ExecutorService executorService;
+    private ConnectorBulkhead defaultBulkhead;
+    private final Map<String, ConnectorBulkhead> bulkheads = new HashMap<>();
+    private final Map<String, ConnectorBulkhead.Configuration> bulkheadConfigurations;
     private final BonitaConnectorExecutorFactory bonitaConnectorExecutorFactory;
     private final SessionAccessor sessionAccessor;
     private final SessionService sessionService;
@@ -74,18 +79,14 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
     private final long tenantId;
     private final ExecutorServiceMetricsProvider executorServiceMetricsProvider;
 
-    private final AtomicLong runningWorks = new AtomicLong();
-    private Counter executedWorkCounter;
-    private Gauge numberOfConnectorsPending;
-    private Gauge numberOfConnectorsRunning;
-
     public ConnectorExecutorImpl(final SessionAccessor sessionAccessor,
             final SessionService sessionService,
             final TimeTracker timeTracker,
             final MeterRegistry meterRegistry,
             @Value("${tenantId}") long tenantId,
             ExecutorServiceMetricsProvider executorServiceMetricsProvider,
-            BonitaConnectorExecutorFactory bonitaConnectorExecutorFactory) {
+            BonitaConnectorExecutorFactory bonitaConnectorExecutorFactory,
+            @Value("${bonita.tenant.connector.bulkheads:}") String bulkheads) {
         this.sessionAccessor = sessionAccessor;
         this.sessionService = sessionService;
         this.timeTracker = timeTracker;
@@ -93,12 +94,13 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
         this.tenantId = tenantId;
         this.executorServiceMetricsProvider = executorServiceMetricsProvider;
         this.bonitaConnectorExecutorFactory = bonitaConnectorExecutorFactory;
+        this.bulkheadConfigurations = ConnectorBulkhead.parse(bulkheads);
     }
 
     @Override
     public CompletableFuture<ConnectorExecutionResult> execute(final SConnector sConnector,
             final Map<String, Object> inputParameters, final ClassLoader classLoader) throws SConnectorException {
-        if (executorService == null) {
+        if (defaultBulkhead == null) {
             throw new SConnectorException("Unable to execute a connector, if the node is not started. Start it first");
         }
 
@@ -116,41 +118,78 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
 
     protected CompletableFuture<ConnectorExecutionResult> execute(SConnector sConnector,
             InterruptibleCallable<Map<String, Object>> task) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return wrapForStats(task).call();
-            } catch (Throwable e) {
-                disconnectSilently(sConnector);
-                throw new SBonitaRuntimeException(e);
-            }
-        }, executorService);
+        ConnectorBulkhead bulkhead = getBulkhead(sConnector);
+        long submissionTime = System.nanoTime();
+        CompletableFuture<ConnectorExecutionResult> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return wrapForStats(bulkhead, task).call();
+                } catch (Throwable e) {
+                    disconnectSilently(sConnector);
+                    throw new SBonitaRuntimeException(e);
+                }
+            }, bulkhead.getExecutorService());
+        } catch (RejectedExecutionException e) {
+            bulkhead.rejected();
+            return CompletableFuture.failedFuture(new SBonitaRuntimeException(new SConnectorException(
+                    "Connector " + sConnector + " rejected, the queue of the connector bulkhead " + bulkhead.getName()
+                            + " is full",
+                    e)));
+        }
+        if (bulkhead.getTimeoutInMillis() > 0) {
+            future = future.orTimeout(bulkhead.getTimeoutInMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((result, throwable) -> {
+                        if (throwable instanceof TimeoutException) {
+                            log.warn("Connector {} not finished after {} ms in the connector bulkhead {}", sConnector,
+                                    bulkhead.getTimeoutInMillis(), bulkhead.getName());
+                            task.interrupt();
+                        }
+                    });
+        }
+        return future.whenComplete((result, throwable) -> bulkhead.completed(submissionTime));
     }
 
-    private Callable<ConnectorExecutionResult> wrapForStats(final Callable<Map<String, Object>> task) {
+    private ConnectorBulkhead getBulkhead(SConnector sConnector) {
+        if (bulkheads.isEmpty() || sConnector.getDefinitionId() == null) {
+            return defaultBulkhead;
+        }
+        ConnectorBulkhead bulkhead = bulkheads.get(
+                ConnectorBulkhead.key(sConnector.getDefinitionId(), sConnector.getDefinitionVersion()));
+        if (bulkhead == null) {
+            bulkhead = bulkheads.get(sConnector.getDefinitionId());
+        }
+        return bulkhead != null ? bulkhead : defaultBulkhead;
+    }
+
+    private Callable<ConnectorExecutionResult> wrapForStats(final ConnectorBulkhead bulkhead,
+            final Callable<Map<String, Object>> task) {
         return () -> {
-            runningWorks.incrementAndGet();
+            bulkhead.started();
+            boolean success = false;
             try {
                 long startTime = System.currentTimeMillis();
                 Map<String, Object> call = task.call();
-                executedWorkCounter.increment();
+                success = true;
                 return result(call).tookMillis(System.currentTimeMillis() - startTime);
             } finally {
-                runningWorks.decrementAndGet();
+                bulkhead.finished(success);
             }
         };
     }
 
     private void track(final TimeTrackerRecords recordName, final long startTime, final SConnector sConnector,
             final Map<String, Object> inputParameters) {
+        final long duration = System.nanoTime() - startTime;
+        timeTracker.recordDuration(recordName, duration);
         if (timeTracker.isTrackable(recordName)) {
-            final long endTime = System.currentTimeMillis();
             final StringBuilder desc = new StringBuilder();
             desc.append("Connector: ");
             desc.append(sConnector);
             desc.append(" - ");
             desc.append("inputParameters: ");
             desc.append(inputParameters);
-            timeTracker.track(recordName, desc.toString(), endTime - startTime);
+            timeTracker.track(recordName, desc.toString(), TimeUnit.NANOSECONDS.toMillis(duration));
         }
     }
 
@@ -204,7 +243,7 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
             if (interrupted) {
                 throw new InterruptedException();
             }
-            final long startTime = System.currentTimeMillis();
+            final long startTime = System.nanoTime();
 
             //Fix Classloading issue with ThreadLocal implementation of SessionAccessor
             sessionAccessor.setTenantId(tenantId);
@@ -256,50 +295,26 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
 
     @Override
     public void start() {
-        if (executorService == null) {
-            var threadPoolExecutor = bonitaConnectorExecutorFactory.create();
-            executorService = executorServiceMetricsProvider
-                    .bind(meterRegistry,
-                            threadPoolExecutor,
-                            "bonita-connector-executor",
-                            tenantId);
-            Tags tags = Tags.of("tenant", String.valueOf(tenantId));
-            numberOfConnectorsPending = Gauge
-                    .builder(NUMBER_OF_CONNECTORS_PENDING, threadPoolExecutor.getQueue(), Collection::size)
-                    .tags(tags).baseUnit(CONNECTORS_UNIT).description("Connectors pending in the execution queue")
-                    .register(meterRegistry);
-            numberOfConnectorsRunning = Gauge.builder(NUMBER_OF_CONNECTORS_RUNNING, runningWorks, AtomicLong::get)
-                    .tags(tags).baseUnit(CONNECTORS_UNIT).description("Connectors currently executing")
-                    .register(meterRegistry);
-            executedWorkCounter = Counter.builder(NUMBER_OF_CONNECTORS_EXECUTED)
-                    .tags(tags).baseUnit(CONNECTORS_UNIT)
-                    .description("Total connectors executed since last server start")
-                    .register(meterRegistry);
+        if (defaultBulkhead == null) {
+            defaultBulkhead = new ConnectorBulkhead(ConnectorBulkhead.DEFAULT, bonitaConnectorExecutorFactory.create(),
+                    0, executorServiceMetricsProvider, meterRegistry, tenantId);
+            bulkheadConfigurations.forEach((key, configuration) -> bulkheads.put(key, ConnectorBulkhead.create(key,
+                    configuration, executorServiceMetricsProvider, meterRegistry, tenantId)));
         }
     }
 
     // For unit tests
     ExecutorService getExecutorService() {
-        return executorService;
+        return defaultBulkhead != null ? defaultBulkhead.getExecutorService() : null;
     }
 
     @Override
     public void stop() {
-        if (executorService != null) {
-            meterRegistry.remove(executedWorkCounter);
-            meterRegistry.remove(numberOfConnectorsRunning);
-            meterRegistry.remove(numberOfConnectorsPending);
-            executorServiceMetricsProvider.unbind(meterRegistry, "bonita-connector-executor", tenantId);
-
-            executorService.shutdown();
-            try {
-                if (!executorService.awaitTermination(5000, TimeUnit.MILLISECONDS)) {
-                    log.warn("Timeout (5s) trying to stop the connector executor thread pool.");
-                }
-            } catch (final InterruptedException e) {
-                log.warn("Error while stopping the connector executor thread pool.", e);
-            }
-            executorService = null;
+        if (defaultBulkhead != null) {
+            bulkheads.values().forEach(ConnectorBulkhead::shutdown);
+            bulkheads.clear();
+            defaultBulkhead.shutdown();
+            defaultBulkhead = null;
         }
     }
 
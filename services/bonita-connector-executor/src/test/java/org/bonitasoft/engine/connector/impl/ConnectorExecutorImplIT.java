@@ -62,7 +62,8 @@ public class ConnectorExecutorImplIT {
                 new SimpleMeterRegistry(),
                 12L,
                 new DefaultExecutorServiceMetricsProvider(),
-                new ConnectorSingleThreadExecutorFactory(10));
+                new ConnectorSingleThreadExecutorFactory(10),
+                "");
         connectorExecutor.start();
     }
 
@@ -14,6 +14,7 @@
 package org.bonitasoft.engine.connector.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
@@ -22,8 +23,12 @@ import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import io.micrometer.core.instrument.Clock;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
@@ -78,7 +83,8 @@ public class ConnectorExecutorImplTest {
                 meterRegistry,
                 TENANT_ID,
                 new DefaultExecutorServiceMetricsProvider(),
-                new ConnectorSingleThreadExecutorFactory(1));
+                new ConnectorSingleThreadExecutorFactory(1),
+                "");
 
         connectorExecutorImpl.start();
     }
@@ -276,6 +282,81 @@ public class ConnectorExecutorImplTest {
                 .isNotNull();
     }
 
+    @Test
+    public void should_execute_connectors_of_a_definition_in_their_bulkhead() throws Exception {
+        SimpleMeterRegistry bulkheadMeterRegistry = new SimpleMeterRegistry();
+        ConnectorExecutorImpl executor = createExecutorWithBulkheads(bulkheadMeterRegistry, "slow:1.0=1,1");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<ConnectorExecutionResult> running = executeBlockingConnector(executor, "slow", "1.0",
+                    release);
+            CompletableFuture<ConnectorExecutionResult> queued = executeBlockingConnector(executor, "slow", "1.0",
+                    release);
+            CompletableFuture<ConnectorExecutionResult> rejected = executeBlockingConnector(executor, "slow", "1.0",
+                    release);
+
+            // other connectors are not blocked by the ones of the bulkhead
+            executor.execute(new LocalSConnector(-1), new HashMap<>(), Thread.currentThread().getContextClassLoader())
+                    .get(1, TimeUnit.SECONDS);
+            assertThatThrownBy(rejected::get).isInstanceOf(ExecutionException.class)
+                    .hasRootCauseInstanceOf(java.util.concurrent.RejectedExecutionException.class);
+            assertThat(bulkheadMeterRegistry.find(ConnectorExecutorImpl.NUMBER_OF_CONNECTORS_REJECTED)
+                    .tag("bulkhead", "slow:1.0").counter().count()).isEqualTo(1);
+            assertThat(bulkheadMeterRegistry.find(ConnectorExecutorImpl.NUMBER_OF_CONNECTORS_PENDING)
+                    .tag("bulkhead", "slow:1.0").gauge().value()).isEqualTo(1);
+
+            release.countDown();
+            running.get(1, TimeUnit.SECONDS);
+            queued.get(1, TimeUnit.SECONDS);
+            assertThat(bulkheadMeterRegistry.find(ConnectorExecutorImpl.NUMBER_OF_CONNECTORS_EXECUTED)
+                    .tag("bulkhead", "slow:1.0").counter().count()).isEqualTo(2);
+            assertThat(bulkheadMeterRegistry.find(ConnectorExecutorImpl.CONNECTORS_LATENCY)
+                    .tag("bulkhead", "slow:1.0").timer().count()).isEqualTo(2);
+        } finally {
+            release.countDown();
+            executor.stop();
+        }
+        assertThat(bulkheadMeterRegistry.getMeters()).isEmpty();
+    }
+
+    @Test
+    public void should_interrupt_connectors_not_finished_after_the_timeout_of_their_bulkhead() throws Exception {
+        ConnectorExecutorImpl executor = createExecutorWithBulkheads(new SimpleMeterRegistry(), "slow=1,10,100");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<ConnectorExecutionResult> future = executeBlockingConnector(executor, "slow", "2.0",
+                    release);
+
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(TimeoutException.class);
+        } finally {
+            executor.stop();
+        }
+    }
+
+    @Test
+    public void should_fail_on_invalid_bulkhead_configuration() {
+        assertThatThrownBy(() -> ConnectorBulkhead.parse("slow=1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConnectorBulkhead.parse("slow=a,1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConnectorBulkhead.parse("slow=0,1")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(ConnectorBulkhead.parse(" ")).isEmpty();
+        assertThat(ConnectorBulkhead.parse("slow:1.0=1,2;other=3,4,5000")).containsOnlyKeys("slow:1.0", "other");
+    }
+
+    private ConnectorExecutorImpl createExecutorWithBulkheads(SimpleMeterRegistry meterRegistry, String bulkheads) {
+        ConnectorExecutorImpl executor = new ConnectorExecutorImpl(sessionAccessor, sessionService, timeTracker,
+                meterRegistry, TENANT_ID, new DefaultExecutorServiceMetricsProvider(),
+                new ConnectorSingleThreadExecutorFactory(1), bulkheads);
+        executor.start();
+        return executor;
+    }
+
+    private CompletableFuture<ConnectorExecutionResult> executeBlockingConnector(ConnectorExecutorImpl executor,
+            String definitionId, String definitionVersion, CountDownLatch release) throws SConnectorException {
+        return executor.execute(new BlockingSConnector(definitionId, definitionVersion, release), new HashMap<>(),
+                Thread.currentThread().getContextClassLoader());
+    }
+
     // =================================================================================================================
     // UTILS
     // =================================================================================================================
@@ -316,6 +397,40 @@ public class ConnectorExecutorImplTest {
         }
     }
 
+    private static class BlockingSConnector extends LocalSConnector {
+
+        private final String definitionId;
+        private final String definitionVersion;
+        private final CountDownLatch release;
+
+        private BlockingSConnector(String definitionId, String definitionVersion, CountDownLatch release) {
+            super(-1);
+            this.definitionId = definitionId;
+            this.definitionVersion = definitionVersion;
+            this.release = release;
+        }
+
+        @Override
+        public Map<String, Object> execute() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return new HashMap<>();
+        }
+
+        @Override
+        public String getDefinitionId() {
+            return definitionId;
+        }
+
+        @Override
+        public String getDefinitionVersion() {
+            return definitionVersion;
+        }
+    }
+
     @Test
     public void should_have_tenant_id_in_all_meters() {
         assertThat(meterRegistry.find(ConnectorExecutorImpl.NUMBER_OF_CONNECTORS_EXECUTED)
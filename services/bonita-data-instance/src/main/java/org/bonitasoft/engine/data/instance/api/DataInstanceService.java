@@ -39,6 +39,16 @@ public interface DataInstanceService {
      */
     void createDataInstance(final SDataInstance dataInstance) throws SDataInstanceException;
 
+    /**
+     * Create the given dataInstances in DB in one batch, e.g. all data instances of a process instance when it starts
+     *
+     * @param dataInstances
+     *        SDataInstance objects, none of them being transient
+     * @throws SDataInstanceException
+     * @since 10.3
+     */
+    void createDataInstances(final List<SDataInstance> dataInstances) throws SDataInstanceException;
+
     /**
      * Update the specific dataInstance according to the given descriptor
      *
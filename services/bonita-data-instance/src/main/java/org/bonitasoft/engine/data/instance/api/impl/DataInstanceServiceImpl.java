@@ -22,7 +22,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
 import org.bonitasoft.engine.archive.ArchiveService;
@@ -57,11 +60,17 @@ import org.bonitasoft.engine.recorder.model.DeleteRecord;
 import org.bonitasoft.engine.recorder.model.EntityUpdateDescriptor;
 import org.bonitasoft.engine.recorder.model.InsertRecord;
 import org.bonitasoft.engine.recorder.model.UpdateRecord;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 
 /**
  * General mechanism for lookup is to look in specific flow node to search a data instance. When referring to "local"
  * data instance, it means the lookup is
  * performed only on the specific element, and not on inherited data for parent containers.
+ * <p>
+ * When the transaction context is enabled, the hierarchy of a container and the data instances visible from it are
+ * loaded once per transaction, see {@link DataInstanceTransactionContext}.
  *
  * @author Zhao Na
  * @author Elias Ricken de Medeiros
@@ -74,6 +83,7 @@ import org.bonitasoft.engine.recorder.model.UpdateRecord;
 public class DataInstanceServiceImpl implements DataInstanceService {
 
     private static final String DATA_INSTANCE = "DATA_INSTANCE";
+    static final String SAVED_QUERIES = "bonita.bpmengine.data.transaction.queries.saved";
 
     protected final Recorder recorder;
 
@@ -81,11 +91,69 @@ public class DataInstanceServiceImpl implements DataInstanceService {
 
     protected final ArchiveService archiveService;
 
+    private final UserTransactionService transactionService;
+
+    private final DistributionSummary savedQueries;
+
+    private boolean transactionContextEnabled = false;
+
     public DataInstanceServiceImpl(final Recorder recorder, final ReadPersistenceService persistenceService,
             final ArchiveService archiveService) {
+        this(recorder, persistenceService, archiveService, null, null);
+    }
+
+    public DataInstanceServiceImpl(final Recorder recorder, final ReadPersistenceService persistenceService,
+            final ArchiveService archiveService, final UserTransactionService transactionService,
+            final MeterRegistry meterRegistry) {
         this.recorder = recorder;
         this.persistenceService = persistenceService;
         this.archiveService = archiveService;
+        this.transactionService = transactionService;
+        this.savedQueries = meterRegistry == null ? null
+                : DistributionSummary.builder(SAVED_QUERIES).baseUnit("queries")
+                        .description("Data instance queries answered by the data loaded in the transaction")
+                        .register(meterRegistry);
+    }
+
+    public void setTransactionContextEnabled(final boolean transactionContextEnabled) {
+        this.transactionContextEnabled = transactionContextEnabled;
+    }
+
+    /**
+     * @return the data context of the current transaction, null if it is disabled or if there is no transaction. The
+     *         context is bound to the transaction itself, it is released when the transaction completes, whatever the
+     *         thread completing it.
+     */
+    DataInstanceTransactionContext getTransactionContext() {
+        if (!transactionContextEnabled || transactionService == null || !transactionService.isTransactionActive()) {
+            return null;
+        }
+        try {
+            return transactionService.getTransactionResource(this, this::newTransactionContext);
+        } catch (final STransactionNotFoundException e) {
+            log.debug("Unable to use a data context for the current transaction", e);
+            return null;
+        }
+    }
+
+    private DataInstanceTransactionContext newTransactionContext() {
+        final DataInstanceTransactionContext context = new DataInstanceTransactionContext();
+        if (savedQueries != null) {
+            try {
+                transactionService.registerBonitaSynchronization(
+                        (BonitaTransactionSynchronization) status -> savedQueries.record(context.getSavedQueries()));
+            } catch (final STransactionNotFoundException e) {
+                log.debug("Unable to record the queries saved by the data context of the current transaction", e);
+            }
+        }
+        return context;
+    }
+
+    private void dataInstancesChanged() {
+        DataInstanceTransactionContext context = getTransactionContext();
+        if (context != null) {
+            context.dataInstancesChanged();
+        }
     }
 
     private void archiveDataInstance(final SDataInstance sDataInstance) throws SDataInstanceException {
@@ -101,16 +169,46 @@ public class DataInstanceServiceImpl implements DataInstanceService {
         }
     }
 
+    private void archiveDataInstances(final List<SDataInstance> dataInstances) throws SDataInstanceException {
+        final List<ArchiveInsertRecord> archiveInsertRecords = new ArrayList<>(dataInstances.size());
+        for (final SDataInstance dataInstance : dataInstances) {
+            if (!dataInstance.isTransientData()) {
+                final SADataInstance saDataInstance = new SADataInstanceBuilder().createNewInstance(dataInstance);
+                if (archiveService.isArchivable(saDataInstance.getPersistentObjectInterface())) {
+                    archiveInsertRecords.add(new ArchiveInsertRecord(saDataInstance));
+                }
+            }
+        }
+        if (archiveInsertRecords.isEmpty()) {
+            return;
+        }
+        try {
+            archiveService.recordInserts(System.currentTimeMillis(),
+                    archiveInsertRecords.toArray(new ArchiveInsertRecord[0]));
+        } catch (final SRecorderException e) {
+            logOnExceptionMethod("createDataInstances", e);
+            throw new SDataInstanceException("Unable to create SADataInstance", e);
+        }
+    }
+
     @Override
     public SDataInstance getDataInstance(final String dataName, final long containerId, final String containerType,
             final ParentContainerResolver parentContainerResolver) throws SDataInstanceException {
         NullCheckingUtil.checkArgsNotNull(dataName, containerType);
 
-        final String queryName = "getDataInstancesWithNames";
-        final Map<String, Object> inputParameters = new HashMap<String, Object>();
-        inputParameters.put("dataNames", Collections.singletonList(dataName));
-        final List<SDataInstance> dataInstances = getSDatainstanceOfContainers(containerId, containerType,
-                parentContainerResolver, queryName, inputParameters);
+        final List<SDataInstance> dataInstances;
+        final DataInstanceTransactionContext context = getTransactionContext();
+        if (context != null) {
+            dataInstances = filterByNames(
+                    getVisibleDataInstances(containerId, containerType, parentContainerResolver, context),
+                    Collections.singletonList(dataName));
+        } else {
+            final String queryName = "getDataInstancesWithNames";
+            final Map<String, Object> inputParameters = new HashMap<String, Object>();
+            inputParameters.put("dataNames", Collections.singletonList(dataName));
+            dataInstances = getSDatainstanceOfContainers(containerId, containerType,
+                    parentContainerResolver, queryName, inputParameters, null);
+        }
         if (dataInstances.size() == 0) {
             throw new SDataInstanceNotFoundException(
                     "DataInstance with name not found: [name: " + dataName + ", container type: " + containerType
@@ -131,10 +229,17 @@ public class DataInstanceServiceImpl implements DataInstanceService {
             throws SDataInstanceException {
         NullCheckingUtil.checkArgsNotNull(containerType);
 
-        final String queryName = "getDataInstances";
-        final Map<String, Object> inputParameters = new HashMap<String, Object>();
-        final List<SDataInstance> dataInstances = getSDatainstanceOfContainers(containerId, containerType,
-                parentContainerResolver, queryName, inputParameters);
+        final List<SDataInstance> dataInstances;
+        final DataInstanceTransactionContext context = getTransactionContext();
+        if (context != null) {
+            dataInstances = new ArrayList<>(
+                    getVisibleDataInstances(containerId, containerType, parentContainerResolver, context));
+        } else {
+            final String queryName = "getDataInstances";
+            final Map<String, Object> inputParameters = new HashMap<String, Object>();
+            dataInstances = getSDatainstanceOfContainers(containerId, containerType,
+                    parentContainerResolver, queryName, inputParameters, null);
+        }
 
         //apply pagination here because we could not do the request only in database cause of a post data's processing to remove duplicate variable
         final int startIndex = Math.max(0, fromIndex);
@@ -161,18 +266,53 @@ public class DataInstanceServiceImpl implements DataInstanceService {
         return containers;
     }
 
-    private List<SDataInstance> getSDatainstanceOfContainers(long containerId, String containerType,
-            ParentContainerResolver parentContainerResolver,
-            String queryName, Map<String, Object> inputParameters)
+    private List<SDataInstance> getVisibleDataInstances(long containerId, String containerType,
+            ParentContainerResolver parentContainerResolver, DataInstanceTransactionContext context)
             throws SDataInstanceNotFoundException, SDataInstanceReadException {
-        //getAllContainers from me to root
-        final List<DataContainer> containerHierarchy;
+        final DataContainer container = new DataContainer(containerId, containerType);
+        List<SDataInstance> dataInstances = context.getVisibleDataInstances(container);
+        if (dataInstances != null) {
+            context.querySaved();
+            return dataInstances;
+        }
+        //load all data visible from the container at once, next reads in this transaction use them
+        dataInstances = Collections.unmodifiableList(getSDatainstanceOfContainers(containerId, containerType,
+                parentContainerResolver, "getDataInstances", new HashMap<>(), context));
+        context.putVisibleDataInstances(container, dataInstances);
+        return dataInstances;
+    }
+
+    private static List<SDataInstance> filterByNames(List<SDataInstance> dataInstances, List<String> dataNames) {
+        return dataInstances.stream().filter(dataInstance -> dataNames.contains(dataInstance.getName()))
+                .collect(Collectors.toList());
+    }
+
+    private List<DataContainer> getContainerHierarchy(DataContainer container,
+            ParentContainerResolver parentContainerResolver, DataInstanceTransactionContext context)
+            throws SDataInstanceNotFoundException {
+        List<DataContainer> containerHierarchy = context != null ? context.getHierarchy(container) : null;
+        if (containerHierarchy != null) {
+            context.querySaved();
+            return containerHierarchy;
+        }
         try {
-            containerHierarchy = parentContainerResolver
-                    .getContainerHierarchy(new DataContainer(containerId, containerType));
+            containerHierarchy = parentContainerResolver.getContainerHierarchy(container);
         } catch (SObjectNotFoundException | SObjectReadException e) {
             throw new SDataInstanceNotFoundException(e);
         }
+        if (context != null) {
+            context.putHierarchy(container, containerHierarchy);
+        }
+        return containerHierarchy;
+    }
+
+    private List<SDataInstance> getSDatainstanceOfContainers(long containerId, String containerType,
+            ParentContainerResolver parentContainerResolver,
+            String queryName, Map<String, Object> inputParameters, DataInstanceTransactionContext context)
+            throws SDataInstanceNotFoundException, SDataInstanceReadException {
+        //getAllContainers from me to root
+        final List<DataContainer> containerHierarchy = getContainerHierarchy(
+                new DataContainer(containerId, containerType), parentContainerResolver, context);
 
         final Map<String, List<Long>> containers = buildContainersMap(containerHierarchy, inputParameters);
 
@@ -420,11 +560,17 @@ public class DataInstanceServiceImpl implements DataInstanceService {
             return Collections.emptyList();
         }
 
+        final DataInstanceTransactionContext context = getTransactionContext();
+        if (context != null) {
+            return filterByNames(
+                    getVisibleDataInstances(containerId, containerType, parentContainerResolver, context),
+                    dataNames);
+        }
         final String queryName = "getDataInstancesWithNames";
         final Map<String, Object> inputParameters = new HashMap<String, Object>();
         inputParameters.put("dataNames", dataNames);
         return getSDatainstanceOfContainers(containerId, containerType, parentContainerResolver, queryName,
-                inputParameters);
+                inputParameters, null);
     }
 
     @Override
@@ -518,9 +664,28 @@ public class DataInstanceServiceImpl implements DataInstanceService {
         } catch (final SRecorderException e) {
             throw new SCreateDataInstanceException("Impossible to create data instance.", e);
         }
+        dataInstancesChanged();
         archiveDataInstance(dataInstance);
     }
 
+    @Override
+    public void createDataInstances(final List<SDataInstance> dataInstances) throws SDataInstanceException {
+        if (dataInstances.isEmpty()) {
+            return;
+        }
+        final List<InsertRecord> records = new ArrayList<>(dataInstances.size());
+        for (final SDataInstance dataInstance : dataInstances) {
+            records.add(new InsertRecord(dataInstance));
+        }
+        try {
+            recorder.recordInserts(records, DATA_INSTANCE);
+        } catch (final SRecorderException e) {
+            throw new SCreateDataInstanceException("Impossible to create data instances.", e);
+        }
+        dataInstancesChanged();
+        archiveDataInstances(dataInstances);
+    }
+
     @Override
     public void updateDataInstance(final SDataInstance dataInstance, final EntityUpdateDescriptor descriptor)
             throws SDataInstanceException {
@@ -542,6 +707,7 @@ public class DataInstanceServiceImpl implements DataInstanceService {
         } catch (final SRecorderException e) {
             throw new SDeleteDataInstanceException("Impossible to delete data instance", e);
         }
+        dataInstancesChanged();
     }
 
     @Override
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.data.instance.api.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bonitasoft.engine.data.instance.api.DataContainer;
+import org.bonitasoft.engine.data.instance.model.SDataInstance;
+
+/**
+ * Data instances read during a transaction: for each container, its hierarchy and the data instances visible from it
+ * (ordered by container level, without the data hidden by a data of the same name in a lower level).
+ * <p>
+ * The data instances are the entities attached to the persistence session of the transaction: updates done on them
+ * are visible in this context and written when the transaction is committed. Visible data instances are forgotten when
+ * a data instance is created or deleted.
+ */
+class DataInstanceTransactionContext {
+
+    private final Map<DataContainer, List<DataContainer>> hierarchies = new HashMap<>();
+    private final Map<DataContainer, List<SDataInstance>> visibleDataInstances = new HashMap<>();
+    private int savedQueries;
+
+    List<DataContainer> getHierarchy(DataContainer container) {
+        return hierarchies.get(container);
+    }
+
+    void putHierarchy(DataContainer container, List<DataContainer> hierarchy) {
+        hierarchies.put(container, hierarchy);
+    }
+
+    List<SDataInstance> getVisibleDataInstances(DataContainer container) {
+        return visibleDataInstances.get(container);
+    }
+
+    void putVisibleDataInstances(DataContainer container, List<SDataInstance> dataInstances) {
+        visibleDataInstances.put(container, dataInstances);
+    }
+
+    void dataInstancesChanged() {
+        visibleDataInstances.clear();
+    }
+
+    void querySaved() {
+        savedQueries++;
+    }
+
+    int getSavedQueries() {
+        return savedQueries;
+    }
+}
@@ -20,8 +20,14 @@ import static org.mockito.Mockito.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
+import javax.transaction.Status;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
 import org.bonitasoft.engine.archive.ArchiveService;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
@@ -39,6 +45,8 @@ import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.persistence.SelectListDescriptor;
 import org.bonitasoft.engine.recorder.Recorder;
 import org.bonitasoft.engine.recorder.model.EntityUpdateDescriptor;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -61,6 +69,11 @@ public class DataInstanceServiceImplTest {
 
     @Mock
     private ParentContainerResolver parentContainerResolver;
+    @Mock
+    private UserTransactionService transactionService;
+
+    private final Map<Object, Object> transactionResources = new HashMap<>();
+
     @Captor
     private ArgumentCaptor<ArchiveInsertRecord> archiveInsertRecordArgumentCaptor;
     @InjectMocks
@@ -122,6 +135,34 @@ public class DataInstanceServiceImplTest {
         assertThat(entity.getValue()).isEqualTo("theValue");
     }
 
+    @Test
+    public final void should_create_data_instances_in_one_batch_and_archive_their_first_value() throws Exception {
+        //given
+        SShortTextDataInstance dataInstance1 = new SShortTextDataInstance();
+        dataInstance1.setValue("value1");
+        SShortTextDataInstance dataInstance2 = new SShortTextDataInstance();
+        dataInstance2.setValue("value2");
+        doReturn(true).when(archiveService).isArchivable(SDataInstance.class);
+        //when
+        dataInstanceServiceImpl.createDataInstances(Arrays.asList(dataInstance1, dataInstance2));
+        //then
+        verify(recorder).recordInserts(argThat(records -> records.size() == 2
+                && records.get(0).getEntity() == dataInstance1 && records.get(1).getEntity() == dataInstance2),
+                eq("DATA_INSTANCE"));
+        verify(recorder, never()).recordInsert(any(), any());
+        verify(archiveService).recordInserts(anyLong(), archiveInsertRecordArgumentCaptor.capture());
+        assertThat(archiveInsertRecordArgumentCaptor.getAllValues())
+                .extracting(record -> ((SAShortTextDataInstance) record.getEntity()).getValue())
+                .containsExactly("value1", "value2");
+    }
+
+    @Test
+    public final void should_not_record_anything_when_creating_no_data_instances() throws Exception {
+        dataInstanceServiceImpl.createDataInstances(Collections.emptyList());
+
+        verifyNoInteractions(recorder, archiveService);
+    }
+
     @Test
     public final void should_archive_new_value_on_data_value_update() throws Exception {
         //given
@@ -226,4 +267,100 @@ public class DataInstanceServiceImplTest {
         //then
         assertThat(dataInstance.getValue()).isEqualTo("SUBTASK_VALUE");
     }
+
+    @Test
+    public void should_load_visible_data_once_per_transaction_when_transaction_context_is_enabled() throws Exception {
+        //given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DataInstanceServiceImpl dataInstanceService = createServiceWithTransactionContext(meterRegistry);
+        List<SDataInstance> dataInstances = Arrays.asList(
+                createNamedDataInstance(1, 66L, "PROC", "data1", "PROC_VALUE"),
+                createNamedDataInstance(2, 67L, "TASK", "data1", "TASK_VALUE"),
+                createNamedDataInstance(3, 66L, "PROC", "data2", "PROC_VALUE2"));
+        doAnswer(invocation -> new ArrayList<>(dataInstances)).when(persistenceService)
+                .selectList(any(SelectListDescriptor.class));
+        doReturn(Arrays.asList(new DataContainer(67L, "TASK"), new DataContainer(66L, "PROC")))
+                .when(parentContainerResolver).getContainerHierarchy(new DataContainer(67L, "TASK"));
+        //when
+        SDataInstance data1 = dataInstanceService.getDataInstance("data1", 67L, "TASK", parentContainerResolver);
+        SDataInstance data2 = dataInstanceService.getDataInstance("data2", 67L, "TASK", parentContainerResolver);
+        List<SDataInstance> both = dataInstanceService.getDataInstances(Arrays.asList("data1", "data2"), 67L,
+                "TASK", parentContainerResolver);
+        completeTransaction();
+        //then
+        assertThat(data1.getValue()).isEqualTo("TASK_VALUE");
+        assertThat(data2.getValue()).isEqualTo("PROC_VALUE2");
+        assertThat(both).containsExactly(data1, data2);
+        verify(persistenceService, times(1)).selectList(any(SelectListDescriptor.class));
+        verify(parentContainerResolver, times(1)).getContainerHierarchy(any());
+        assertThat(meterRegistry.find(DataInstanceServiceImpl.SAVED_QUERIES).summary().totalAmount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void should_load_visible_data_again_when_a_data_is_created_in_the_transaction() throws Exception {
+        //given
+        DataInstanceServiceImpl dataInstanceService = createServiceWithTransactionContext(new SimpleMeterRegistry());
+        List<SDataInstance> dataInstances = new ArrayList<>();
+        dataInstances.add(createNamedDataInstance(1, 67L, "TASK", "data1", "VALUE1"));
+        doAnswer(invocation -> new ArrayList<>(dataInstances)).when(persistenceService)
+                .selectList(any(SelectListDescriptor.class));
+        doReturn(Collections.singletonList(new DataContainer(67L, "TASK")))
+                .when(parentContainerResolver).getContainerHierarchy(new DataContainer(67L, "TASK"));
+        dataInstanceService.getDataInstance("data1", 67L, "TASK", parentContainerResolver);
+        SLongTextDataInstance data2 = createNamedDataInstance(2, 67L, "TASK", "data2", "VALUE2");
+        //when
+        dataInstanceService.createDataInstance(data2);
+        dataInstances.add(data2);
+        //then
+        assertThat(dataInstanceService.getDataInstance("data2", 67L, "TASK", parentContainerResolver))
+                .isSameAs(data2);
+        verify(persistenceService, times(2)).selectList(any(SelectListDescriptor.class));
+        verify(parentContainerResolver, times(1)).getContainerHierarchy(any());
+    }
+
+    @Test
+    public void should_not_keep_visible_data_after_the_transaction() throws Exception {
+        //given
+        DataInstanceServiceImpl dataInstanceService = createServiceWithTransactionContext(new SimpleMeterRegistry());
+        List<SDataInstance> dataInstances = Collections
+                .singletonList(createNamedDataInstance(1, 67L, "TASK", "data1", "VALUE1"));
+        doAnswer(invocation -> new ArrayList<>(dataInstances)).when(persistenceService)
+                .selectList(any(SelectListDescriptor.class));
+        doReturn(Collections.singletonList(new DataContainer(67L, "TASK")))
+                .when(parentContainerResolver).getContainerHierarchy(new DataContainer(67L, "TASK"));
+        dataInstanceService.getDataInstance("data1", 67L, "TASK", parentContainerResolver);
+        //when
+        completeTransaction();
+        dataInstanceService.getDataInstance("data1", 67L, "TASK", parentContainerResolver);
+        //then
+        verify(persistenceService, times(2)).selectList(any(SelectListDescriptor.class));
+        verify(parentContainerResolver, times(2)).getContainerHierarchy(any());
+    }
+
+    private DataInstanceServiceImpl createServiceWithTransactionContext(SimpleMeterRegistry meterRegistry) {
+        DataInstanceServiceImpl dataInstanceService = new DataInstanceServiceImpl(recorder, persistenceService,
+                archiveService, transactionService, meterRegistry);
+        dataInstanceService.setTransactionContextEnabled(true);
+        doReturn(true).when(transactionService).isTransactionActive();
+        doAnswer(invocation -> transactionResources.computeIfAbsent(invocation.getArgument(0),
+                key -> invocation.<Supplier<?>> getArgument(1).get()))
+                        .when(transactionService).getTransactionResource(any(), any());
+        return dataInstanceService;
+    }
+
+    private void completeTransaction() throws Exception {
+        transactionResources.clear();
+        ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor
+                .forClass(BonitaTransactionSynchronization.class);
+        verify(transactionService, atLeastOnce()).registerBonitaSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+    }
+
+    private SLongTextDataInstance createNamedDataInstance(long id, long containerId, String containerType,
+            String name, String value) {
+        SLongTextDataInstance dataInstance = createDataInstance(id, containerId, containerType, value);
+        dataInstance.setName(name);
+        return dataInstance;
+    }
 }
@@ -50,6 +50,16 @@ public interface EventService {
      */
     boolean hasHandlers(final String eventType, EventActionType actionType);
 
+    /**
+     * Allows to check if an handler is listening to this event type, without building the event when nobody listens
+     *
+     * @param eventType
+     *        the full type of the event, including its action, e.g. {@code type + SEvent.CREATED}
+     * @return
+     *         true if an handler is interested by the event having type eventType
+     */
+    boolean hasHandlers(final String eventType);
+
     /**
      * Add the given handler to the Event Manager's handlers list.
      *
@@ -45,11 +45,9 @@ public abstract class AbstractEventServiceImpl implements EventService {
         if (event == null) {
             throw new SFireEventException("Event is null");
         }
-        // if at least 1 eventFilter contains a group of handlers for the given event type
-        if (containsHandlerFor(event.getType())) {
-            // retrieve the handler list concerned by the given event
-            final Collection<SHandler<SEvent>> handlers = getHandlersFor(event.getType());
-
+        // retrieve the handler list concerned by the given event, looked up only once
+        final Collection<SHandler<SEvent>> handlers = getHandlersFor(event.getType());
+        if (handlers != null) {
             if (handlers.size() > 0) {
                 if (getLogger().isTraceEnabled()) {
                     getLogger().trace(
@@ -158,4 +156,9 @@ public abstract class AbstractEventServiceImpl implements EventService {
         return containsHandlerFor(key);
     }
 
+    @Override
+    public final boolean hasHandlers(final String eventType) {
+        return containsHandlerFor(eventType);
+    }
+
 }
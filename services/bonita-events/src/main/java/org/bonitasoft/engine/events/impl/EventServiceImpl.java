@@ -88,7 +88,8 @@ public class EventServiceImpl extends AbstractEventServiceImpl {
 
     @Override
     protected void removeAllHandlersFor(final SHandler<SEvent> handler) {
-        for (final String eventType : registeredHandlers.keySet()) {
+        // event types without handlers are removed while iterating
+        for (final String eventType : new ArrayList<>(registeredHandlers.keySet())) {
             try {
                 removeHandler(eventType, handler);
             } catch (HandlerUnregistrationException e) {
@@ -111,6 +112,10 @@ public class EventServiceImpl extends AbstractEventServiceImpl {
                     removed = true;
                 }
             }
+            if (handlers.isEmpty()) {
+                // so that events of this type are not built anymore, see hasHandlers
+                registeredHandlers.remove(eventType);
+            }
         }
         if (!removed) {
             throw new HandlerUnregistrationException("Handler did not exists");
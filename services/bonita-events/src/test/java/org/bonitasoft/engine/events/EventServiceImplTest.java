@@ -149,4 +149,29 @@ public class EventServiceImplTest {
         eventSvc.removeHandler(EVT_INTERESTING, h2);
     }
 
+    @Test
+    public void hasNoHandlersOnceAllHandlersOfTheEventTypeAreRemoved() throws Exception {
+        final TestHandler h = new TestHandler();
+        eventSvc.addHandler(EVT_INTERESTING, h);
+        assertTrue(eventSvc.hasHandlers(EVT_INTERESTING));
+        assertFalse(eventSvc.hasHandlers(EVT_IRRELEVANT));
+
+        eventSvc.removeHandler(EVT_INTERESTING, h);
+
+        assertFalse(eventSvc.hasHandlers(EVT_INTERESTING));
+        assertFalse(eventSvc.hasHandlers(EVT_INTERESTING, null));
+    }
+
+    @Test
+    public void hasNoHandlersOnceHandlerIsRemovedFromAllEventTypes() throws Exception {
+        final TestHandler h = new TestHandler();
+        eventSvc.addHandler(EVT_INTERESTING, h);
+        eventSvc.addHandler(EVT_IRRELEVANT, h);
+
+        eventSvc.removeAllHandlers(h);
+
+        assertFalse(eventSvc.hasHandlers(EVT_INTERESTING));
+        assertFalse(eventSvc.hasHandlers(EVT_IRRELEVANT));
+    }
+
 }
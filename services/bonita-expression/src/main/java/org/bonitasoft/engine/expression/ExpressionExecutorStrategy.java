@@ -170,4 +170,16 @@ public interface ExpressionExecutorStrategy {
      */
     boolean mustPutEvaluatedExpressionInContext();
 
+    /**
+     * Prepare the expressions of a definition before their first evaluation, e.g. by compiling scripts.
+     * Does nothing by default.
+     *
+     * @param expressions
+     *        the expressions of this strategy kind to prepare
+     * @param definitionId
+     *        the definition containing the expressions
+     */
+    default void compile(List<SExpression> expressions, long definitionId) {
+    }
+
 }
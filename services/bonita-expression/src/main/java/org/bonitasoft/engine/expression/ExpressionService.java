@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.expression;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -102,4 +103,15 @@ public interface ExpressionService {
     boolean mustPutEvaluatedExpressionInContext(ExpressionKind expressionKind);
 
     void setExpressionExecutorStrategy(List<ExpressionExecutorStrategy> expressionStrategies);
+
+    /**
+     * Prepare the expressions of a definition, and their dependencies, before their first evaluation, e.g. by
+     * compiling scripts. Expressions that cannot be prepared are prepared when evaluated.
+     *
+     * @param expressions
+     *        the expressions of the definition
+     * @param definitionId
+     *        the definition containing the expressions
+     */
+    void compile(Collection<SExpression> expressions, long definitionId);
 }
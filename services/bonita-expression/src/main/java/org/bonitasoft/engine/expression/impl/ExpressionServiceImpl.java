@@ -13,9 +13,12 @@
  **/
 package org.bonitasoft.engine.expression.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.bonitasoft.engine.commons.LogUtil;
 import org.bonitasoft.engine.expression.ContainerState;
@@ -81,16 +84,17 @@ public class ExpressionServiceImpl implements ExpressionService {
         validateExpression(expressionExecutorStrategy, expression);
 
         Object expressionResult = null;
-        final long startTime = System.currentTimeMillis();
+        final long startTime = System.nanoTime();
         try {
             expressionResult = expressionExecutorStrategy.evaluate(expression, dependencyValues, resolvedExpressions,
                     containerState);
         } finally {
+            final long duration = System.nanoTime() - startTime;
+            timeTracker.recordDuration(TimeTrackerRecords.EVALUATE_EXPRESSION, duration);
             if (timeTracker.isTrackable(TimeTrackerRecords.EVALUATE_EXPRESSION)) {
-                final long endTime = System.currentTimeMillis();
                 timeTracker.track(TimeTrackerRecords.EVALUATE_EXPRESSION, "Expression: " + expression + " - "
                         + "dependencyValues: " + dependencyValues + " - " + "strategy: " + expressionExecutorStrategy,
-                        endTime - startTime);
+                        TimeUnit.NANOSECONDS.toMillis(duration));
             }
         }
         if (mustCheckExpressionReturnType()) {
@@ -142,16 +146,17 @@ public class ExpressionServiceImpl implements ExpressionService {
         final ExpressionExecutorStrategy expressionExecutorStrategy = getStrategy(expressionKind);
 
         List<Object> list = null;
-        final long startTime = System.currentTimeMillis();
+        final long startTime = System.nanoTime();
         try {
             list = expressionExecutorStrategy.evaluate(expressions, dependencyValues, resolvedExpressions,
                     containerState);
         } finally {
+            final long duration = System.nanoTime() - startTime;
+            timeTracker.recordDuration(TimeTrackerRecords.EVALUATE_EXPRESSIONS, duration);
             if (timeTracker.isTrackable(TimeTrackerRecords.EVALUATE_EXPRESSIONS)) {
-                final long endTime = System.currentTimeMillis();
                 timeTracker.track(TimeTrackerRecords.EVALUATE_EXPRESSIONS, "Expressions: " + expressions + " - "
                         + "dependencyValues: " + dependencyValues + " - " + "strategy: " + expressionExecutorStrategy,
-                        endTime - startTime);
+                        TimeUnit.NANOSECONDS.toMillis(duration));
             }
         }
         if (list == null || list.size() != expressions.size()) {
@@ -175,6 +180,31 @@ public class ExpressionServiceImpl implements ExpressionService {
         return list;
     }
 
+    @Override
+    public void compile(final Collection<SExpression> expressions, final long definitionId) {
+        final Map<ExpressionKind, List<SExpression>> expressionsByKind = new HashMap<>();
+        addByKind(expressions, expressionsByKind);
+        expressionsByKind.forEach((expressionKind, expressionsOfKind) -> {
+            final ExpressionExecutorStrategy expressionExecutorStrategy = expressionExecutorsMap.get(expressionKind);
+            if (expressionExecutorStrategy != null) {
+                expressionExecutorStrategy.compile(expressionsOfKind, definitionId);
+            }
+        });
+    }
+
+    private void addByKind(final Collection<SExpression> expressions,
+            final Map<ExpressionKind, List<SExpression>> expressionsByKind) {
+        for (final SExpression expression : expressions) {
+            if (expression == null) {
+                continue;
+            }
+            expressionsByKind.computeIfAbsent(expression.getExpressionKind(), k -> new ArrayList<>()).add(expression);
+            if (expression.getDependencies() != null) {
+                addByKind(expression.getDependencies(), expressionsByKind);
+            }
+        }
+    }
+
     @Override
     public boolean mustCheckExpressionReturnType() {
         return checkExpressionReturnType;
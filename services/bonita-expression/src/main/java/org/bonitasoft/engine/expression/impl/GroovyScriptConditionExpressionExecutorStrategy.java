@@ -15,18 +15,21 @@ package org.bonitasoft.engine.expression.impl;
 
 import java.util.Map;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.bonitasoft.engine.cache.CacheService;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.expression.ContainerState;
 import org.bonitasoft.engine.expression.exception.SExpressionEvaluationException;
 import org.bonitasoft.engine.expression.model.ExpressionKind;
 import org.bonitasoft.engine.expression.model.SExpression;
+import org.springframework.beans.factory.annotation.Value;
 
 public class GroovyScriptConditionExpressionExecutorStrategy extends GroovyScriptExpressionExecutorCacheStrategy {
 
     public GroovyScriptConditionExpressionExecutorStrategy(CacheService cacheService,
-            ClassLoaderService classLoaderService) {
-        super(cacheService, classLoaderService);
+            ClassLoaderService classLoaderService, MeterRegistry meterRegistry,
+            @Value("${bonita.tenant.expression.groovy.maxScriptsPerDefinition:1000}") int maxScriptsPerDefinition) {
+        super(cacheService, classLoaderService, meterRegistry, maxScriptsPerDefinition);
     }
 
     @Override
@@ -18,9 +18,15 @@ import static org.bonitasoft.engine.classloader.ClassLoaderIdentifier.identifier
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import groovy.lang.Binding;
@@ -29,8 +35,12 @@ import groovy.lang.GroovyRuntimeException;
 import groovy.lang.GroovyShell;
 import groovy.lang.MissingPropertyException;
 import groovy.lang.Script;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.bonitasoft.engine.cache.CacheService;
 import org.bonitasoft.engine.cache.SCacheException;
+import org.bonitasoft.engine.classloader.ClassLoaderIdentifier;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.classloader.SClassLoaderException;
 import org.bonitasoft.engine.classloader.SingleClassLoaderListener;
@@ -46,26 +56,58 @@ import org.codehaus.groovy.runtime.InvokerHelper;
 import org.codehaus.groovy.runtime.typehandling.GroovyCastException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 
-public class GroovyScriptExpressionExecutorCacheStrategy extends NonEmptyContentExpressionExecutorStrategy
-        implements SingleClassLoaderListener {
+/**
+ * Evaluates Groovy scripts using, for each definition, a Groovy shell on the class loader of the definition and the
+ * classes already compiled from the scripts of the definition, keyed on their full content.
+ * <p>
+ * The scripts of a definition can be compiled ahead of their first evaluation using
+ * {@link #compile(List, long)}. When the class loader of a definition is refreshed, it is first destroyed then updated:
+ * the scripts of that definition only are dropped with the old class loader and compiled again on the new one.
+ * <p>
+ * At most {@code maxScriptsPerDefinition} classes are kept for each definition, so that scripts evaluated on the fly
+ * (e.g. through the API) can not grow the cache without bound: beyond that, an existing script is evicted and will be
+ * compiled again when evaluated.
+ */
+public class GroovyScriptExpressionExecutorCacheStrategy extends NonEmptyContentExpressionExecutorStrategy {
 
     private static final Logger log = LoggerFactory.getLogger(GroovyScriptExpressionExecutorCacheStrategy.class);
     public static final String GROOVY_SCRIPT_CACHE_NAME = "GROOVY_SCRIPT_CACHE_NAME";
 
-    public static final String SCRIPT_KEY = "SCRIPT_";
-    public static final String COERCION_SCRIPT_KEY = "COERCION_SCRIPT_";
-    public static final String SHELL_KEY = "SHELL_";
+    public static final String SCRIPTS_KEY = "SCRIPTS_";
+
+    public static final String COMPILATION_TIME = "bonita.bpmengine.expression.groovy.compilation";
+    public static final String EVALUATIONS = "bonita.bpmengine.expression.groovy.evaluations";
+    public static final String EVICTIONS = "bonita.bpmengine.expression.groovy.evictions";
 
     private final CacheService cacheService;
 
     private final ClassLoaderService classLoaderService;
     private static final AtomicLong counter = new AtomicLong();
 
+    private final Timer compilationTime;
+    private final Counter precompiledEvaluations;
+    private final Counter compiledOnDemandEvaluations;
+    private final Counter evictions;
+    private final int maxScriptsPerDefinition;
+
     public GroovyScriptExpressionExecutorCacheStrategy(final CacheService cacheService,
-            final ClassLoaderService classLoaderService) {
+            final ClassLoaderService classLoaderService, final MeterRegistry meterRegistry,
+            @Value("${bonita.tenant.expression.groovy.maxScriptsPerDefinition:1000}")
+            final int maxScriptsPerDefinition) {
         this.cacheService = cacheService;
         this.classLoaderService = classLoaderService;
+        this.maxScriptsPerDefinition = maxScriptsPerDefinition;
+        compilationTime = Timer.builder(COMPILATION_TIME)
+                .description("Compilation time of Groovy scripts").register(meterRegistry);
+        precompiledEvaluations = Counter.builder(EVALUATIONS).tag("precompiled", "true")
+                .description("Groovy scripts evaluations").register(meterRegistry);
+        compiledOnDemandEvaluations = Counter.builder(EVALUATIONS).tag("precompiled", "false")
+                .description("Groovy scripts evaluations").register(meterRegistry);
+        evictions = Counter.builder(EVICTIONS)
+                .description("Compiled Groovy scripts evicted from the cache of their definition")
+                .register(meterRegistry);
     }
 
     private String generateScriptName() {
@@ -77,54 +119,61 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends NonEmptyContent
         if (definitionId == null) {
             throw new SBonitaRuntimeException("Unable to evaluate expression without a definitionId");
         }
-        final GroovyShell shell = getShell(definitionId);
-
-        GroovyCodeSource gcs = getOrCreateGroovyCodeSource(SCRIPT_KEY + expressionContent.hashCode(),
-                expressionContent);
-        // parse the groovy source code with cache set to true
-        return shell.getClassLoader().parseClass(gcs, true);
+        final DefinitionScripts scripts = getScripts(definitionId);
+        final Class<?> scriptClass = scripts.get(expressionContent);
+        if (scriptClass != null) {
+            precompiledEvaluations.increment();
+            return scriptClass;
+        }
+        compiledOnDemandEvaluations.increment();
+        return scripts.compile(expressionContent);
     }
 
-    private GroovyCodeSource getOrCreateGroovyCodeSource(String key, String scriptContent) throws SCacheException {
-        GroovyCodeSource gcs = (GroovyCodeSource) cacheService.get(GROOVY_SCRIPT_CACHE_NAME, key);
-
-        if (gcs == null) {
-            gcs = AccessController
-                    .doPrivileged((PrivilegedAction<GroovyCodeSource>) () -> new GroovyCodeSource(scriptContent,
-                            generateScriptName(), GroovyShell.DEFAULT_CODE_BASE));
-            cacheService.store(GROOVY_SCRIPT_CACHE_NAME, key, gcs);
-        }
-        return gcs;
+    GroovyShell getShell(final long definitionId) throws SClassLoaderException, SCacheException {
+        return getScripts(definitionId).shell;
     }
 
-    GroovyShell getShell(final Long definitionId) throws SClassLoaderException, SCacheException {
-        String key = SHELL_KEY + definitionId;
-        GroovyShell shell = (GroovyShell) cacheService.get(GROOVY_SCRIPT_CACHE_NAME, key);
-        if (shell == null) {
-            ClassLoader classLoader = getClassLoaderForShell(definitionId);
+    private DefinitionScripts getScripts(final long definitionId) throws SClassLoaderException, SCacheException {
+        final String key = SCRIPTS_KEY + definitionId;
+        DefinitionScripts scripts = (DefinitionScripts) cacheService.get(GROOVY_SCRIPT_CACHE_NAME, key);
+        if (scripts == null) {
+            final ClassLoaderIdentifier identifier = identifier(ScopeType.PROCESS, definitionId);
+            final ClassLoader classLoader = classLoaderService.getClassLoader(identifier);
+            classLoaderService.addListener(identifier, new DefinitionClassLoaderListener(definitionId));
             log.debug("Create a new groovy classloader for {} {}", definitionId, classLoader);
 
-            shell = new GroovyShell(classLoader);
-            cacheService.store(GROOVY_SCRIPT_CACHE_NAME, key, shell);
+            scripts = new DefinitionScripts(new GroovyShell(classLoader));
+            cacheService.store(GROOVY_SCRIPT_CACHE_NAME, key, scripts);
         }
-        return shell;
+        return scripts;
     }
 
-    private ClassLoader getClassLoaderForShell(Long definitionId) throws SClassLoaderException {
-        ClassLoader classLoader;
-        if (definitionId == null) {
-            classLoader = Thread.currentThread().getContextClassLoader();
-            //do not has listener, should not happen...
-            if (log.isDebugEnabled()) {
-                IllegalStateException illegalStateException = new IllegalStateException();
-                log.debug("Creating a shell without definition id, might cause issue when reloading classes {}",
-                        illegalStateException.getMessage());
+    /**
+     * Compile the Groovy scripts of the definition, so that they are not compiled on their first evaluation.
+     * Scripts that do not compile are ignored, the error is raised when they are evaluated.
+     */
+    @Override
+    public void compile(final List<SExpression> expressions, final long definitionId) {
+        final DefinitionScripts scripts;
+        try {
+            scripts = getScripts(definitionId);
+        } catch (final SClassLoaderException | SCacheException e) {
+            log.warn("Unable to compile the Groovy scripts of definition {}, they will be compiled when evaluated",
+                    definitionId, e);
+            return;
+        }
+        for (final SExpression expression : expressions) {
+            final String content = expression.getContent();
+            if (content == null || content.isEmpty()) {
+                continue;
+            }
+            try {
+                scripts.compile(content);
+            } catch (final RuntimeException | LinkageError e) {
+                log.debug("Unable to compile the Groovy script of expression {} of definition {}",
+                        expression.getName(), definitionId, e);
             }
-        } else {
-            classLoader = classLoaderService.getClassLoader(identifier(ScopeType.PROCESS, definitionId));
-            classLoaderService.addListener(identifier(ScopeType.PROCESS, definitionId), this);
         }
-        return classLoader;
     }
 
     @Override
@@ -139,7 +188,7 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends NonEmptyContent
             final Script script = InvokerHelper
                     .createScript(getScriptFromCache(expressionContent, definitionId), binding);
             script.setBinding(binding);
-            return coerceResult(getShell(definitionId), script.run(), expression.getReturnType());
+            return coerceResult(definitionId, script.run(), expression.getReturnType());
         } catch (final MissingPropertyException e) {
             final String property = e.getProperty();
             throw new SExpressionEvaluationException("Expression " + expressionName + " with content = <"
@@ -168,25 +217,52 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends NonEmptyContent
         }
     }
 
-    @Override
-    public void onUpdate(ClassLoader newClassLoader) {
-        log.debug("Groovy cache cleared after update on {}", newClassLoader);
-        clearCache();
-    }
-
-    @Override
-    public void onDestroy(ClassLoader oldClassLoader) {
-        log.debug("Groovy cache cleared after destroy of {}", oldClassLoader);
-        clearCache();
+    private void compileAgain(final long definitionId, final ClassLoader newClassLoader,
+            final Set<String> destroyedContents) {
+        final String key = SCRIPTS_KEY + definitionId;
+        try {
+            final Set<String> contents = new HashSet<>(destroyedContents);
+            // scripts compiled on the new class loader between its destroy and update notifications, if any
+            final DefinitionScripts current = (DefinitionScripts) cacheService.get(GROOVY_SCRIPT_CACHE_NAME, key);
+            if (current != null) {
+                contents.addAll(current.contents());
+            }
+            if (contents.isEmpty() || newClassLoader == null) {
+                cacheService.remove(GROOVY_SCRIPT_CACHE_NAME, key);
+                return;
+            }
+            log.debug("Compiling again {} Groovy scripts of definition {} after update of its classloader",
+                    contents.size(), definitionId);
+            final DefinitionScripts scripts = new DefinitionScripts(new GroovyShell(newClassLoader));
+            for (final String content : contents) {
+                try {
+                    scripts.compile(content);
+                } catch (final RuntimeException | LinkageError e) {
+                    log.debug("Unable to compile again a Groovy script of definition {}", definitionId, e);
+                }
+            }
+            cacheService.store(GROOVY_SCRIPT_CACHE_NAME, key, scripts);
+        } catch (final SCacheException e) {
+            log.error(
+                    "error while updating the cache of the groovy script executor strategy, you might have classloading issue, restart the server if it's the case",
+                    e);
+        }
     }
 
-    private void clearCache() {
+    /**
+     * @return the contents of the removed scripts
+     */
+    private Set<String> removeScripts(final long definitionId) {
+        final String key = SCRIPTS_KEY + definitionId;
         try {
-            cacheService.clear(GROOVY_SCRIPT_CACHE_NAME);
-        } catch (SCacheException e) {
+            final DefinitionScripts removed = (DefinitionScripts) cacheService.get(GROOVY_SCRIPT_CACHE_NAME, key);
+            cacheService.remove(GROOVY_SCRIPT_CACHE_NAME, key);
+            return removed != null ? new HashSet<>(removed.contents()) : Collections.emptySet();
+        } catch (final SCacheException e) {
             log.error(
                     "error while clearing the cache of the groovy script executor strategy, you might have classloading issue, restart the server if it's the case",
                     e);
+            return Collections.emptySet();
         }
     }
 
@@ -210,14 +286,14 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends NonEmptyContent
     /**
      * Execute a Groovy expression that coerce the result into the returnType
      *
-     * @param shell, the Groovy shell use for script evaluation
+     * @param definitionId, the definition in which the script is evaluated
      * @param result, the evaluation result
      * @param returnType, expected expression return type
      * @return the result with the expected type or a {@link GroovyCastException} if the coercion fails
      * @throws ClassNotFoundException
      */
-    protected Object coerceResult(GroovyShell shell, Object result, String returnType)
-            throws ClassNotFoundException, SCacheException {
+    protected Object coerceResult(long definitionId, Object result, String returnType)
+            throws ClassNotFoundException, SCacheException, SClassLoaderException {
         if (result == null) {
             return null;
         }
@@ -229,11 +305,9 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends NonEmptyContent
         String scriptContent = String.format("result as %s",
                 returnType.startsWith("[") ? canonicalClassName(returnType) : returnType);
 
-        GroovyCodeSource gcs = getOrCreateGroovyCodeSource(COERCION_SCRIPT_KEY + returnType, scriptContent);
         Binding binding = new Binding();
         binding.setVariable("result", result);
-        Script script = InvokerHelper
-                .createScript(shell.getClassLoader().parseClass(gcs, true), binding);
+        Script script = InvokerHelper.createScript(getScripts(definitionId).compile(scriptContent), binding);
         return script.run();
     }
 
@@ -245,4 +319,112 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends NonEmptyContent
     public boolean mustPutEvaluatedExpressionInContext() {
         return false;
     }
+
+    /**
+     * Groovy shell of a definition and classes compiled from the scripts of this definition, keyed on their content.
+     * Beyond {@link #maxScriptsPerDefinition} classes, the first ones found are evicted.
+     */
+    private final class DefinitionScripts {
+
+        private final GroovyShell shell;
+        private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+        private DefinitionScripts(GroovyShell shell) {
+            this.shell = shell;
+        }
+
+        private Class<?> get(String content) {
+            return classes.get(content);
+        }
+
+        private Class<?> compile(String content) {
+            final Class<?> scriptClass = classes.computeIfAbsent(content, this::parse);
+            if (classes.size() > maxScriptsPerDefinition) {
+                evictExcept(content);
+            }
+            return scriptClass;
+        }
+
+        private void evictExcept(String content) {
+            final Iterator<String> iterator = classes.keySet().iterator();
+            while (classes.size() > maxScriptsPerDefinition && iterator.hasNext()) {
+                if (!iterator.next().equals(content)) {
+                    iterator.remove();
+                    evictions.increment();
+                }
+            }
+        }
+
+        private Class<?> parse(String content) {
+            final GroovyCodeSource gcs = AccessController
+                    .doPrivileged((PrivilegedAction<GroovyCodeSource>) () -> new GroovyCodeSource(content,
+                            generateScriptName(), GroovyShell.DEFAULT_CODE_BASE));
+            final long start = System.nanoTime();
+            try {
+                // classes are kept here, no need for the groovy class loader to keep the source
+                return shell.getClassLoader().parseClass(gcs, false);
+            } finally {
+                compilationTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Set<String> contents() {
+            return classes.keySet();
+        }
+    }
+
+    /**
+     * Updates the scripts of a single definition when its class loader changes.
+     * <p>
+     * A refresh notifies the destroy of the old class loader before the update: the contents of the scripts dropped on
+     * destroy are kept until the update, to compile them again on the new class loader.
+     * <p>
+     * Strategies using the same cache share the scripts of a definition: listeners are equal when they update the same
+     * cache entry, so that a single one is registered for a definition and its scripts are compiled again only once.
+     */
+    private final class DefinitionClassLoaderListener implements SingleClassLoaderListener {
+
+        private final long definitionId;
+        private volatile Set<String> destroyedContents = Collections.emptySet();
+
+        private DefinitionClassLoaderListener(long definitionId) {
+            this.definitionId = definitionId;
+        }
+
+        @Override
+        public void onUpdate(ClassLoader newClassLoader) {
+            final Set<String> contents = destroyedContents;
+            destroyedContents = Collections.emptySet();
+            compileAgain(definitionId, newClassLoader, contents);
+        }
+
+        @Override
+        public void onDestroy(ClassLoader oldClassLoader) {
+            log.debug("Groovy scripts of definition {} removed after destroy of {}", definitionId, oldClassLoader);
+            destroyedContents = removeScripts(definitionId);
+        }
+
+        private CacheService cache() {
+            return cacheService;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DefinitionClassLoaderListener)) {
+                return false;
+            }
+            DefinitionClassLoaderListener that = (DefinitionClassLoaderListener) o;
+            return definitionId == that.definitionId && cache() == that.cache();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(definitionId, System.identityHashCode(cache()));
+        }
+
+        @Override
+        public String toString() {
+            return "GroovyScripts(" + definitionId + ")";
+        }
+    }
 }
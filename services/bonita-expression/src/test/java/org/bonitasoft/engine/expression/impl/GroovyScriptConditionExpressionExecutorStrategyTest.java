@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.cache.CacheConfiguration;
 import org.bonitasoft.engine.cache.ehcache.EhCacheCacheService;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
@@ -66,7 +67,8 @@ public class GroovyScriptConditionExpressionExecutorStrategyTest {
         final List<CacheConfiguration> cacheConfigurations = Collections.singletonList(cacheConfiguration);
         cacheService = new EhCacheCacheService(cacheConfigurations, defaultCacheConfiguration, diskStorePath);
         cacheService.start();
-        executorStrategy = new GroovyScriptConditionExpressionExecutorStrategy(cacheService, classLoaderService);
+        executorStrategy = new GroovyScriptConditionExpressionExecutorStrategy(cacheService, classLoaderService,
+                new SimpleMeterRegistry(), 1000);
         doReturn(GroovyScriptExpressionExecutorCacheStrategyTest.class.getClassLoader()).when(classLoaderService)
                 .getClassLoader(any());
         context = new HashMap<>();
@@ -19,17 +19,26 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.bonitasoft.engine.expression.ExpressionExecutorStrategy.DEFINITION_ID;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.bonitasoft.engine.classloader.ClassLoaderIdentifier.identifier;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import groovy.lang.GroovyShell;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.bpm.contract.FileInputValue;
 import org.bonitasoft.engine.bpm.document.Document;
 import org.bonitasoft.engine.bpm.document.DocumentValue;
@@ -38,8 +47,10 @@ import org.bonitasoft.engine.cache.SCacheException;
 import org.bonitasoft.engine.cache.ehcache.EhCacheCacheService;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.classloader.SClassLoaderException;
+import org.bonitasoft.engine.classloader.SingleClassLoaderListener;
 import org.bonitasoft.engine.commons.exceptions.SBonitaRuntimeException;
 import org.bonitasoft.engine.commons.io.IOUtil;
+import org.bonitasoft.engine.dependency.model.ScopeType;
 import org.bonitasoft.engine.expression.ContainerState;
 import org.bonitasoft.engine.expression.exception.SExpressionEvaluationException;
 import org.bonitasoft.engine.expression.exception.SInvalidExpressionException;
@@ -56,6 +67,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -73,6 +85,8 @@ public class GroovyScriptExpressionExecutorCacheStrategyTest {
 
     private EhCacheCacheService cacheService;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private GroovyScriptExpressionExecutorCacheStrategy groovyScriptExpressionExecutorCacheStrategy;
 
     private final static String diskStorePath = IOUtil.TMP_DIRECTORY + File.separator
@@ -88,7 +102,7 @@ public class GroovyScriptExpressionExecutorCacheStrategyTest {
         cacheService = new EhCacheCacheService(cacheConfigurations, defaultCacheConfiguration, diskStorePath);
         cacheService.start();
         groovyScriptExpressionExecutorCacheStrategy = new GroovyScriptExpressionExecutorCacheStrategy(cacheService,
-                classLoaderService);
+                classLoaderService, meterRegistry, 1000);
         doReturn(GroovyScriptExpressionExecutorCacheStrategyTest.class.getClassLoader()).when(classLoaderService)
                 .getClassLoader(any());
         context = new HashMap<>();
@@ -120,33 +134,158 @@ public class GroovyScriptExpressionExecutorCacheStrategyTest {
     }
 
     @Test
-    public void should_update_on_classloader_listener_clear_shell_cache() throws Exception {
+    public void should_refresh_on_classloader_listener_recompile_scripts_of_the_definition_only() throws Exception {
         // given
+        final Class script12 = groovyScriptExpressionExecutorCacheStrategy.getScriptFromCache("MyScriptContent", 12L);
+        final GroovyShell shell12 = groovyScriptExpressionExecutorCacheStrategy.getShell(12L);
+        final GroovyShell shell13 = groovyScriptExpressionExecutorCacheStrategy.getShell(13L);
+
+        // when: a refresh notifies the destroy of the old class loader, then the update
+        final SingleClassLoaderListener listener = listenerOf(12L);
+        listener.onDestroy(null);
+        listener.onUpdate(GroovyScriptExpressionExecutorCacheStrategyTest.class.getClassLoader());
+
+        // then
+        assertThat(groovyScriptExpressionExecutorCacheStrategy.getShell(12L)).isNotEqualTo(shell12);
+        assertThat(groovyScriptExpressionExecutorCacheStrategy.getShell(13L)).isEqualTo(shell13);
+        final Class recompiledScript12 = groovyScriptExpressionExecutorCacheStrategy
+                .getScriptFromCache("MyScriptContent", 12L);
+        assertThat(recompiledScript12).isNotEqualTo(script12);
+        // compiled again on update, not on evaluation
+        assertThat(meterRegistry.find(GroovyScriptExpressionExecutorCacheStrategy.EVALUATIONS)
+                .tag("precompiled", "true").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_destroy_on_classloader_listener_clear_shell_of_the_definition_only() throws Exception {
+        // given
+        final GroovyShell shell12 = groovyScriptExpressionExecutorCacheStrategy.getShell(12L);
+        final GroovyShell shell13 = groovyScriptExpressionExecutorCacheStrategy.getShell(13L);
 
         // when
-        final GroovyShell shell1 = groovyScriptExpressionExecutorCacheStrategy.getShell(12l);
-        groovyScriptExpressionExecutorCacheStrategy.onUpdate(null);
-        final GroovyShell shell2 = groovyScriptExpressionExecutorCacheStrategy.getShell(12l);
+        listenerOf(12L).onDestroy(null);
 
         // then
-        assertThat(shell1).isNotNull();
-        assertThat(shell2).isNotNull();
-        assertThat(shell1).isNotEqualTo(shell2);
+        assertThat(groovyScriptExpressionExecutorCacheStrategy.getShell(12L)).isNotEqualTo(shell12);
+        assertThat(groovyScriptExpressionExecutorCacheStrategy.getShell(13L)).isEqualTo(shell13);
     }
 
     @Test
-    public void should_destroy_on_classloader_listener_clear_shell_cache() throws Exception {
+    public void should_compile_scripts_before_their_evaluation() throws Exception {
         // given
+        final SExpression expression = expressionBuilder().setContent("'precompiled'")
+                .setReturnType(String.class.getName()).done();
 
         // when
-        final GroovyShell shell1 = groovyScriptExpressionExecutorCacheStrategy.getShell(12l);
-        groovyScriptExpressionExecutorCacheStrategy.onDestroy(null);
-        final GroovyShell shell2 = groovyScriptExpressionExecutorCacheStrategy.getShell(12l);
+        groovyScriptExpressionExecutorCacheStrategy.compile(Collections.singletonList(expression), 42L);
+        final Object value = groovyScriptExpressionExecutorCacheStrategy.evaluate(expression,
+                singletonMap(DEFINITION_ID, 42L), emptyMap(), null);
 
         // then
-        assertThat(shell1).isNotNull();
-        assertThat(shell2).isNotNull();
-        assertThat(shell1).isNotEqualTo(shell2);
+        assertThat(value).isEqualTo("precompiled");
+        assertThat(meterRegistry.find(GroovyScriptExpressionExecutorCacheStrategy.EVALUATIONS)
+                .tag("precompiled", "true").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find(GroovyScriptExpressionExecutorCacheStrategy.EVALUATIONS)
+                .tag("precompiled", "false").counter().count()).isEqualTo(0);
+        assertThat(meterRegistry.find(GroovyScriptExpressionExecutorCacheStrategy.COMPILATION_TIME).timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_ignore_scripts_that_do_not_compile_when_compiling_ahead_of_time() throws Exception {
+        // given
+        final SExpression invalid = expressionBuilder().setContent("this is not groovy {")
+                .setReturnType(String.class.getName()).done();
+        final SExpression valid = expressionBuilder().setContent("'valid'")
+                .setReturnType(String.class.getName()).done();
+
+        // when
+        groovyScriptExpressionExecutorCacheStrategy.compile(Arrays.asList(invalid, valid), 42L);
+
+        // then
+        assertThat(groovyScriptExpressionExecutorCacheStrategy.evaluate(valid, singletonMap(DEFINITION_ID, 42L),
+                emptyMap(), null)).isEqualTo("valid");
+        assertThat(meterRegistry.find(GroovyScriptExpressionExecutorCacheStrategy.EVALUATIONS)
+                .tag("precompiled", "true").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_keep_scripts_compiled_ahead_of_time_when_the_classloader_is_refreshed() throws Exception {
+        // given
+        final SExpression expression = expressionBuilder().setContent("'deployed'")
+                .setReturnType(String.class.getName()).done();
+        groovyScriptExpressionExecutorCacheStrategy.compile(Collections.singletonList(expression), 42L);
+
+        // when: the classloader is refreshed after the deployment is committed
+        final SingleClassLoaderListener listener = listenerOf(42L);
+        listener.onDestroy(null);
+        listener.onUpdate(GroovyScriptExpressionExecutorCacheStrategyTest.class.getClassLoader());
+        groovyScriptExpressionExecutorCacheStrategy.evaluate(expression, singletonMap(DEFINITION_ID, 42L),
+                emptyMap(), null);
+
+        // then
+        assertThat(meterRegistry.find(GroovyScriptExpressionExecutorCacheStrategy.EVALUATIONS)
+                .tag("precompiled", "true").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find(GroovyScriptExpressionExecutorCacheStrategy.EVALUATIONS)
+                .tag("precompiled", "false").counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_evict_scripts_beyond_the_maximum_number_of_scripts_per_definition() throws Exception {
+        // given
+        final GroovyScriptExpressionExecutorCacheStrategy strategy = new GroovyScriptExpressionExecutorCacheStrategy(
+                cacheService, classLoaderService, meterRegistry, 2);
+
+        // when
+        strategy.getScriptFromCache("'script1'", 12L);
+        strategy.getScriptFromCache("'script2'", 12L);
+        final Class script3 = strategy.getScriptFromCache("'script3'", 12L);
+
+        // then
+        assertThat(meterRegistry.find(GroovyScriptExpressionExecutorCacheStrategy.EVICTIONS).counter().count())
+                .isEqualTo(1);
+        assertThat(strategy.getScriptFromCache("'script3'", 12L)).isSameAs(script3);
+        assertThat(meterRegistry.find(GroovyScriptExpressionExecutorCacheStrategy.EVALUATIONS)
+                .tag("precompiled", "true").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_compile_each_script_once_when_the_classloader_is_refreshed() throws Exception {
+        // given: the condition strategy shares the cached scripts of the definition
+        final Set<SingleClassLoaderListener> listeners = new HashSet<>();
+        doAnswer(invocation -> listeners.add(invocation.getArgument(1))).when(classLoaderService)
+                .addListener(eq(identifier(ScopeType.PROCESS, 12L)), any());
+        final GroovyScriptExpressionExecutorCacheStrategy conditionStrategy;
+        conditionStrategy = new GroovyScriptConditionExpressionExecutorStrategy(cacheService, classLoaderService,
+                meterRegistry, 1000);
+        groovyScriptExpressionExecutorCacheStrategy.getScriptFromCache("'script1'", 12L);
+        // the entry of the definition is evicted from the cache, then created again by the other strategy
+        cacheService.remove(GroovyScriptExpressionExecutorCacheStrategy.GROOVY_SCRIPT_CACHE_NAME,
+                GroovyScriptExpressionExecutorCacheStrategy.SCRIPTS_KEY + 12L);
+        conditionStrategy.getScriptFromCache("'script1'", 12L);
+        conditionStrategy.getScriptFromCache("'script2'", 12L);
+        final long compilations = compilationCount();
+
+        // when
+        listeners.forEach(listener -> listener.onDestroy(null));
+        listeners.forEach(listener -> listener
+                .onUpdate(GroovyScriptExpressionExecutorCacheStrategyTest.class.getClassLoader()));
+
+        // then
+        assertThat(listeners).hasSize(1);
+        assertThat(compilationCount()).isEqualTo(compilations + 2);
+    }
+
+    private long compilationCount() {
+        return meterRegistry.find(GroovyScriptExpressionExecutorCacheStrategy.COMPILATION_TIME).timer().count();
+    }
+
+    private SingleClassLoaderListener listenerOf(long definitionId) {
+        final ArgumentCaptor<SingleClassLoaderListener> listener = ArgumentCaptor
+                .forClass(SingleClassLoaderListener.class);
+        verify(classLoaderService, atLeastOnce()).addListener(eq(identifier(ScopeType.PROCESS, definitionId)),
+                listener.capture());
+        return listener.getValue();
     }
 
     @Test
@@ -24,11 +24,13 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnSingleCandidate;
 import org.springframework.stereotype.Component;
 
 @Component
 @ConditionalOnSingleCandidate(LockService.class)
+@ConditionalOnProperty(name = "bonita.platform.lock.memory.implementation", havingValue = "default", matchIfMissing = true)
 public class MemoryLockService implements LockService {
 
     private Logger logger = LoggerFactory.getLogger(MemoryLockService.class);
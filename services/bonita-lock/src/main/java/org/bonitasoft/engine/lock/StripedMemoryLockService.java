@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.lock;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnSingleCandidate;
+import org.springframework.stereotype.Component;
+
+/**
+ * In memory {@link LockService} having the same semantic as {@link MemoryLockService} but designed for large work
+ * pools:
+ * <ul>
+ * <li>locks are identified by a primitive key (type ordinal, object id, tenant id), no key is built to lock or
+ * unlock</li>
+ * <li>locks are spread on independent stripes, each one having its own monitor, instead of a single synchronized
+ * map</li>
+ * </ul>
+ * Enabled using {@code bonita.platform.lock.memory.implementation=striped}
+ */
+@Component
+@ConditionalOnSingleCandidate(LockService.class)
+@ConditionalOnProperty(name = "bonita.platform.lock.memory.implementation", havingValue = "striped")
+public class StripedMemoryLockService implements LockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedMemoryLockService.class);
+
+    private final Map<String, Integer> typeOrdinals = new ConcurrentHashMap<>();
+    private final AtomicInteger nextTypeOrdinal = new AtomicInteger();
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int lockTimeoutSeconds;
+
+    public StripedMemoryLockService(@Value("${bonita.platform.lock.memory.timeout}") int lockTimeoutSeconds,
+            @Value("${bonita.platform.lock.memory.stripes:64}") int numberOfStripes) {
+        this.lockTimeoutSeconds = lockTimeoutSeconds;
+        // rounded up to a power of two, so that the stripe of a hash is found with a mask
+        int size = numberOfStripes <= 1 ? 1 : Integer.highestOneBit(numberOfStripes - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = size - 1;
+    }
+
+    int getNumberOfStripes() {
+        return stripes.length;
+    }
+
+    @Override
+    public void unlock(BonitaLock lock, long tenantId) throws SLockException {
+        int type = typeOrdinal(lock.getObjectType());
+        long id = lock.getObjectToLockId();
+        int hash = hash(type, id, tenantId);
+        stripeOf(hash).release(hash, type, id, tenantId);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Lock released {}", lock);
+        }
+    }
+
+    @Override
+    public BonitaLock lock(long objectToLockId, String objectType, long tenantId)
+            throws SLockException, SLockTimeoutException {
+        BonitaLock bonitaLock = tryLock(objectToLockId, objectType, lockTimeoutSeconds, SECONDS, tenantId);
+        if (bonitaLock == null) {
+            throw new SLockTimeoutException(String.format("Unable to acquire lock %s,%s,%s in %s seconds",
+                    objectToLockId, objectType, tenantId, lockTimeoutSeconds));
+        }
+        return bonitaLock;
+    }
+
+    @Override
+    public BonitaLock tryLock(long objectToLockId, String objectType, long timeout, TimeUnit timeUnit, long tenantId)
+            throws SLockException {
+        int type = typeOrdinal(objectType);
+        int hash = hash(type, objectToLockId, tenantId);
+        Stripe stripe = stripeOf(hash);
+        try {
+            while (true) {
+                LockEntry lock = stripe.getOrCreate(hash, type, objectToLockId, tenantId);
+                if (!lock.tryLock(timeout, timeUnit)) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Locked was not acquired for {}:{}", objectType, objectToLockId);
+                    }
+                    return null;
+                }
+                if (stripe.contains(hash, lock)) {
+                    return new BonitaLock(objectType, objectToLockId);
+                }
+                // lock was removed from the stripe between `getOrCreate` and `tryLock`, retry with the new one
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Lock for {}:{} was acquired but it was replaced due to a race condition. " +
+                            "We will retry.", objectType, objectToLockId);
+                }
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            throw new SLockException("interrupted while trying to get the lock", e);
+        }
+    }
+
+    private int typeOrdinal(String objectType) {
+        Integer ordinal = typeOrdinals.get(objectType);
+        if (ordinal == null) {
+            ordinal = typeOrdinals.computeIfAbsent(objectType, t -> nextTypeOrdinal.getAndIncrement());
+        }
+        return ordinal;
+    }
+
+    private Stripe stripeOf(int hash) {
+        return stripes[(hash >>> 16) & stripeMask];
+    }
+
+    static int hash(int type, long id, long tenantId) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        h ^= tenantId * 0xC2B2AE3D27D4EB4FL;
+        h ^= type * 0x165667B19E3779F9L;
+        h ^= (h >>> 32);
+        int result = (int) h;
+        return result ^ (result >>> 16);
+    }
+
+    /**
+     * A lock and its primitive key, chained in the hash table of its stripe
+     */
+    private static final class LockEntry extends ReentrantLock {
+
+        private final int hash;
+        private final int type;
+        private final long id;
+        private final long tenantId;
+        private LockEntry next;
+
+        private LockEntry(int hash, int type, long id, long tenantId, LockEntry next) {
+            this.hash = hash;
+            this.type = type;
+            this.id = id;
+            this.tenantId = tenantId;
+            this.next = next;
+        }
+
+        private boolean matches(int hash, int type, long id, long tenantId) {
+            return this.hash == hash && this.id == id && this.type == type && this.tenantId == tenantId;
+        }
+    }
+
+    /**
+     * Chained hash table of locks, all accesses are guarded by the stripe monitor
+     */
+    private static final class Stripe {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private LockEntry[] table = new LockEntry[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized LockEntry getOrCreate(int hash, int type, long id, long tenantId) {
+            int index = hash & (table.length - 1);
+            for (LockEntry entry = table[index]; entry != null; entry = entry.next) {
+                if (entry.matches(hash, type, id, tenantId)) {
+                    return entry;
+                }
+            }
+            LockEntry created = new LockEntry(hash, type, id, tenantId, table[index]);
+            table[index] = created;
+            if (++size > table.length * 3 / 4) {
+                resize();
+            }
+            return created;
+        }
+
+        synchronized boolean contains(int hash, LockEntry lock) {
+            for (LockEntry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+                if (entry == lock) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void release(int hash, int type, long id, long tenantId) {
+            int index = hash & (table.length - 1);
+            LockEntry previous = null;
+            for (LockEntry entry = table[index]; entry != null; previous = entry, entry = entry.next) {
+                if (entry.matches(hash, type, id, tenantId)) {
+                    boolean keep = entry.hasQueuedThreads() || entry.getHoldCount() > 1;
+                    entry.unlock();
+                    if (!keep) {
+                        if (previous == null) {
+                            table[index] = entry.next;
+                        } else {
+                            previous.next = entry.next;
+                        }
+                        size--;
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void resize() {
+            LockEntry[] newTable = new LockEntry[table.length << 1];
+            for (LockEntry head : table) {
+                LockEntry entry = head;
+                while (entry != null) {
+                    LockEntry next = entry.next;
+                    int index = entry.hash & (newTable.length - 1);
+                    entry.next = newTable[index];
+                    newTable[index] = entry;
+                    entry = next;
+                }
+            }
+            table = newTable;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StripedMemoryLockServiceTest {
+
+    private static final long TENANT_ID = 1L;
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private StripedMemoryLockService lockService;
+
+    @Before
+    public void before() {
+        lockService = new StripedMemoryLockService(1, 4);
+    }
+
+    @After
+    public void after() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void should_not_be_able_to_lock_an_object_locked_by_another_thread() throws Exception {
+        lockService.lock(2, "a", TENANT_ID);
+
+        assertThat(tryLockInAnOtherThread(2, "a", TENANT_ID)).isNull();
+        assertThatThrownBy(() -> executorService.submit(() -> lockService.lock(2, "a", TENANT_ID)).get())
+                .hasCauseInstanceOf(SLockTimeoutException.class);
+    }
+
+    @Test
+    public void should_lock_different_objects_independently() throws Exception {
+        lockService.lock(3, "a", TENANT_ID);
+
+        assertThat(tryLockInAnOtherThread(4, "a", TENANT_ID)).isEqualTo(new BonitaLock("a", 4));
+        assertThat(tryLockInAnOtherThread(3, "b", TENANT_ID)).isEqualTo(new BonitaLock("b", 3));
+        assertThat(tryLockInAnOtherThread(3, "a", 2L)).isEqualTo(new BonitaLock("a", 3));
+    }
+
+    @Test
+    public void should_lock_multiple_times_on_the_same_thread() throws Exception {
+        BonitaLock bonitaLock = lockService.lock(123, "abc", TENANT_ID);
+        lockService.lock(123, "abc", TENANT_ID);
+
+        lockService.unlock(bonitaLock, TENANT_ID);
+        assertThat(tryLockInAnOtherThread(123, "abc", TENANT_ID)).isNull();
+
+        lockService.unlock(bonitaLock, TENANT_ID);
+        assertThat(tryLockInAnOtherThread(123, "abc", TENANT_ID)).isNotNull();
+    }
+
+    @Test
+    public void should_give_the_lock_to_waiting_thread_on_unlock() throws Exception {
+        BonitaLock lock = lockService.lock(5, "a", TENANT_ID);
+        Future<BonitaLock> waiting = executorService
+                .submit(() -> lockService.tryLock(5, "a", 5, TimeUnit.SECONDS, TENANT_ID));
+        Thread.sleep(50);
+
+        lockService.unlock(lock, TENANT_ID);
+
+        assertThat(waiting.get(1, TimeUnit.SECONDS)).isEqualTo(new BonitaLock("a", 5));
+    }
+
+    @Test
+    public void should_ignore_unlock_of_unknown_lock() throws Exception {
+        lockService.unlock(new BonitaLock("unknown", 42), TENANT_ID);
+
+        assertThat(lockService.tryLock(42, "unknown", 10, TimeUnit.MILLISECONDS, TENANT_ID)).isNotNull();
+    }
+
+    @Test
+    public void should_guarantee_mutual_exclusion_under_contention() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        int[] counters = new int[8];
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    int id = i % counters.length;
+                    try {
+                        BonitaLock lock = lockService.lock(id, "flowNode", TENANT_ID);
+                        counters[id]++;
+                        lockService.unlock(lock, TENANT_ID);
+                    } catch (SLockException | SLockTimeoutException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(failures).hasValue(0);
+        assertThat(counters).containsOnly(16 * 2000 / counters.length);
+    }
+
+    @Test
+    public void should_round_the_number_of_stripes_up_to_a_power_of_two() {
+        assertThat(new StripedMemoryLockService(1, 0).getNumberOfStripes()).isEqualTo(1);
+        assertThat(new StripedMemoryLockService(1, 1).getNumberOfStripes()).isEqualTo(1);
+        assertThat(new StripedMemoryLockService(1, 2).getNumberOfStripes()).isEqualTo(2);
+        assertThat(new StripedMemoryLockService(1, 3).getNumberOfStripes()).isEqualTo(4);
+        assertThat(new StripedMemoryLockService(1, 64).getNumberOfStripes()).isEqualTo(64);
+        assertThat(new StripedMemoryLockService(1, 65).getNumberOfStripes()).isEqualTo(128);
+    }
+
+    private BonitaLock tryLockInAnOtherThread(long objectToLockId, String type, long tenantId) throws Exception {
+        return executorService
+                .submit(() -> lockService.tryLock(objectToLockId, type, 10, TimeUnit.MILLISECONDS, tenantId))
+                .get();
+    }
+}
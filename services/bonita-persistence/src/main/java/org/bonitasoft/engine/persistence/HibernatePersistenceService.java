@@ -14,12 +14,15 @@
 package org.bonitasoft.engine.persistence;
 
 import java.io.Serializable;
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -27,8 +30,7 @@ import javax.annotation.PreDestroy;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.bonitasoft.engine.commons.ClassReflector;
-import org.bonitasoft.engine.commons.exceptions.SReflectException;
+import org.bonitasoft.engine.commons.PropertyAccessors;
 import org.bonitasoft.engine.commons.exceptions.SRetryableException;
 import org.bonitasoft.engine.persistence.search.FilterOperationType;
 import org.bonitasoft.engine.sequence.SequenceManager;
@@ -71,7 +73,7 @@ public class HibernatePersistenceService implements PersistenceService {
     @Getter // for testing purposes
     private final Map<String, String> cacheQueries;
 
-    private final List<Class<? extends PersistentObject>> classMapping;
+    private final Set<Class<? extends PersistentObject>> classMapping;
 
     private final List<String> mappingExclusions;
     private final Statistics statistics;
@@ -90,7 +92,9 @@ public class HibernatePersistenceService implements PersistenceService {
 
         this.queryBuilderFactory = queryBuilderFactory;
         statistics = sessionFactory.getStatistics();
-        classMapping = hbmConfigurationProvider.getMappedClasses();
+        // looked up on each insert and update
+        classMapping = new HashSet<>(hbmConfigurationProvider.getMappedClasses());
+        classMapping.forEach(PropertyAccessors::prepare);
         classAliasMappings = hbmConfigurationProvider.getClassAliasMappings();
         mappingExclusions = hbmConfigurationProvider.getMappingExclusions();
         cacheQueries = hbmConfigurationProvider.getCacheQueries();
@@ -254,7 +258,7 @@ public class HibernatePersistenceService implements PersistenceService {
         Long id = null;
         try {
             id = entity.getId();
-            ClassReflector.setField(entity, fieldName, parameterValue);
+            PropertyAccessors.setProperty(entity, fieldName, parameterValue);
         } catch (final Exception e) {
             throw new SPersistenceException("Problem while updating entity: " + entity + " with id: " + id, e);
         }
@@ -464,6 +468,12 @@ public class HibernatePersistenceService implements PersistenceService {
 
     @PreDestroy
     public void destroy() {
+        try {
+            // stops the threads reserving sequence ranges in advance
+            sequenceManager.close();
+        } catch (final SQLException e) {
+            getLogger().warn("Unable to close the sequence manager: {}", e.getMessage());
+        }
         getLogger().info(
                 "Closing Hibernate session factory of " + getClass().getName());
         sessionFactory.close();
@@ -555,7 +565,7 @@ public class HibernatePersistenceService implements PersistenceService {
             try {
                 final long tenantId = entity instanceof PlatformPersistentObject ? -1 : getTenantId();
                 id = getSequenceManager().getNextId(entity.getClass().getName(), tenantId);
-                ClassReflector.invokeSetter(entity, "setId", long.class, id);
+                entity.setId(id);
             } catch (final Exception e) {
                 throw new SPersistenceException("Problem while saving entity: " + entity + " with id: " + id, e);
             }
@@ -577,20 +587,20 @@ public class HibernatePersistenceService implements PersistenceService {
         // if this entity has no id, set it
         Long tenantId = null;
         try {
-            tenantId = ClassReflector.invokeGetter(entity, "getTenantId");
+            tenantId = PropertyAccessors.getLong(entity, "tenantId");
         } catch (final Exception e) {
             // this is a new object to save
         }
         if (tenantId == null || tenantId == -1 || tenantId == 0) {
-            setTenantByClassReflector(entity, tenantId);
+            assignTenantId(entity, tenantId);
         }
     }
 
-    private void setTenantByClassReflector(final PersistentObject entity, Long tenantId) throws SPersistenceException {
+    private void assignTenantId(final PersistentObject entity, Long tenantId) throws SPersistenceException {
         try {
             tenantId = getTenantId();
-            ClassReflector.invokeSetter(entity, "setTenantId", long.class, tenantId);
-        } catch (final SReflectException | STenantIdNotSetException e) {
+            entity.setTenantId(tenantId);
+        } catch (final STenantIdNotSetException e) {
             throw new SPersistenceException("Can't set tenantId = <" + tenantId + "> on entity." + entity, e);
         }
     }
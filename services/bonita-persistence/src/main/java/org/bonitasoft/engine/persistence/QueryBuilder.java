@@ -38,6 +38,9 @@ abstract class QueryBuilder<T> {
     private Session session;
     private boolean cacheEnabled;
     private Map<String, Object> parameters = new HashMap<>();
+    private final String likeEscapeCharacter;
+    private QueryShapeCache queryShapeCache;
+    private int numberOfSearchedFields;
 
     QueryBuilder(Session session, Query baseQuery, OrderByBuilder orderByBuilder,
             Map<String, String> classAliasMappings,
@@ -49,6 +52,7 @@ abstract class QueryBuilder<T> {
         this.baseQuery = baseQuery;
         this.orderByCheckingMode = orderByCheckingMode;
         this.selectDescriptor = selectDescriptor;
+        this.likeEscapeCharacter = String.valueOf(likeEscapeCharacter);
         this.queryGeneratorForFilters = new QueryGeneratorForFilters(classAliasMappings,
                 likeEscapeCharacter);
         this.queryGeneratorForSearchTerm = new QueryGeneratorForSearchTerm(likeEscapeCharacter);
@@ -118,6 +122,7 @@ abstract class QueryBuilder<T> {
         fields.removeAll(specificFilters);
 
         if (!fields.isEmpty()) {
+            numberOfSearchedFields = fields.size();
             final List<String> terms = multipleFilter.getTerms();
             applyFiltersOnQuery(builder, fields, terms);
         }
@@ -169,6 +174,35 @@ abstract class QueryBuilder<T> {
         return this;
     }
 
+    QueryBuilder queryShapeCache(QueryShapeCache queryShapeCache) {
+        this.queryShapeCache = queryShapeCache;
+        return this;
+    }
+
+    /**
+     * Reuse the query generated for a previous search having the same shape, or generate it and keep it for the next
+     * ones
+     */
+    private void manageFiltersAndParametersUsingCache(AbstractSelectDescriptor<T> selectDescriptor)
+            throws SBonitaReadException {
+        QueryShapeCache.QueryShape shape = QueryShapeCache.QueryShape.of(getClass(), selectDescriptor);
+        QueryShapeCache.CompiledQuery compiledQuery = queryShapeCache.get(shape);
+        if (compiledQuery != null) {
+            stringQueryBuilder = new StringBuilder(compiledQuery.getQuery());
+            parameters = compiledQuery.bindParameters(selectDescriptor.getQueryOptions(), likeEscapeCharacter);
+            return;
+        }
+        manageFiltersAndParameters(selectDescriptor);
+        compiledQuery = new QueryShapeCache.CompiledQuery(getQuery(), numberOfSearchedFields);
+        if (compiledQuery.bindParameters(selectDescriptor.getQueryOptions(), likeEscapeCharacter)
+                .equals(parameters)) {
+            queryShapeCache.put(shape, compiledQuery);
+        } else {
+            log.debug("Parameters of query {} can not be bound from its shape, it will not be cached",
+                    selectDescriptor.getQueryName());
+        }
+    }
+
     private void setParameters(final Query query, final Map<String, Object> inputParameters) {
         for (final Map.Entry<String, Object> entry : inputParameters.entrySet()) {
             final Object value = entry.getValue();
@@ -181,7 +215,12 @@ abstract class QueryBuilder<T> {
     }
 
     public Query build() throws SBonitaReadException {
-        manageFiltersAndParameters(selectDescriptor);
+        if (queryShapeCache != null
+                && (selectDescriptor.hasAFilter() || selectDescriptor.hasOrderByParameters())) {
+            manageFiltersAndParametersUsingCache(selectDescriptor);
+        } else {
+            manageFiltersAndParameters(selectDescriptor);
+        }
         Query query = baseQuery;
         if (hasChanged()) {
             query = rebuildQuery(selectDescriptor, session, baseQuery);
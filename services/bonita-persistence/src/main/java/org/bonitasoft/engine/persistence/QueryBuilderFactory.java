@@ -15,6 +15,7 @@ package org.bonitasoft.engine.persistence;
 
 import java.util.Map;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.Session;
 import org.hibernate.query.NativeQuery;
@@ -30,6 +31,7 @@ public class QueryBuilderFactory {
     private OrderByBuilder orderByBuilder = new DefaultOrderByBuilder();
     private Map<String, String> classAliasMappings;
     private char likeEscapeCharacter;
+    private QueryShapeCache queryShapeCache;
 
     public QueryBuilderFactory(OrderByCheckingMode orderByCheckingMode, Map<String, String> classAliasMappings,
             char likeEscapeCharacter)
@@ -39,20 +41,36 @@ public class QueryBuilderFactory {
         this.likeEscapeCharacter = likeEscapeCharacter;
     }
 
+    /**
+     * @param queryShapeCacheSize maximum number of generated search queries kept in cache, 0 to disable the cache
+     */
+    public QueryBuilderFactory(OrderByCheckingMode orderByCheckingMode, Map<String, String> classAliasMappings,
+            char likeEscapeCharacter, int queryShapeCacheSize, MeterRegistry meterRegistry)
+            throws Exception {
+        this(orderByCheckingMode, classAliasMappings, likeEscapeCharacter);
+        if (queryShapeCacheSize > 0) {
+            this.queryShapeCache = new QueryShapeCache(queryShapeCacheSize, meterRegistry);
+        }
+    }
+
     public <T> QueryBuilder createQueryBuilderFor(Session session,
             SelectListDescriptor<T> selectDescriptor) {
         Query query = session.getNamedQuery(selectDescriptor.getQueryName());
         if (query instanceof NativeQuery) {
             return new SQLQueryBuilder<>(session, query, orderByBuilder, classAliasMappings,
                     likeEscapeCharacter,
-                    orderByCheckingMode, selectDescriptor);
+                    orderByCheckingMode, selectDescriptor).queryShapeCache(queryShapeCache);
         } else {
             return new HQLQueryBuilder<>(session, query, orderByBuilder, classAliasMappings, likeEscapeCharacter,
-                    orderByCheckingMode, selectDescriptor);
+                    orderByCheckingMode, selectDescriptor).queryShapeCache(queryShapeCache);
         }
     }
 
     public void setOrderByBuilder(OrderByBuilder orderByBuilder) {
         this.orderByBuilder = orderByBuilder;
+        if (queryShapeCache != null) {
+            // cached queries were generated using the previous order by builder
+            queryShapeCache.clear();
+        }
     }
 }
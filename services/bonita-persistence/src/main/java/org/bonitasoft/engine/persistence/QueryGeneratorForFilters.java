@@ -18,6 +18,7 @@ import static org.bonitasoft.engine.persistence.search.FilterOperationType.L_PAR
 import static org.bonitasoft.engine.persistence.search.FilterOperationType.R_PARENTHESIS;
 import static org.bonitasoft.engine.persistence.search.FilterOperationType.isNormalOperator;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -112,6 +113,41 @@ class QueryGeneratorForFilters {
         return ":" + parameterName;
     }
 
+    /**
+     * Values of the parameters created when generating the condition of these filters, in the order they are
+     * created. It must stay consistent with {@link #appendFilterClause(StringBuilder, FilterOption)}.
+     */
+    static List<Object> getParameterValues(List<FilterOption> filters, String likeEscapeCharacter) {
+        List<Object> values = new ArrayList<>();
+        for (FilterOption filterOption : filters) {
+            Object fieldValue = filterOption.getValue();
+            switch (filterOption.getFilterOperationType()) {
+                case EQUALS:
+                case DIFFERENT:
+                    if (fieldValue != null) {
+                        values.add(fieldValue);
+                    }
+                    break;
+                case GREATER:
+                case GREATER_OR_EQUALS:
+                case LESS:
+                case LESS_OR_EQUALS:
+                    values.add(fieldValue);
+                    break;
+                case BETWEEN:
+                    values.add(filterOption.getFrom());
+                    values.add(filterOption.getTo());
+                    break;
+                case LIKE:
+                    values.add("%" + escapeTerm((String) fieldValue, likeEscapeCharacter) + "%");
+                    break;
+                default:
+                    break;
+            }
+        }
+        return values;
+    }
+
     /**
      * generate a HQL/SQL condition given the filters
      *
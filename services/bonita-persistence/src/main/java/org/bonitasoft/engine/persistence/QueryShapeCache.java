@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.persistence;
+
+import static org.bonitasoft.engine.persistence.QueryBuilder.escapeTerm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.bonitasoft.engine.persistence.search.FilterOperationType;
+
+/**
+ * Cache of the queries generated for the filters, search terms and order by of a search.
+ * <p>
+ * Searches having the same shape (same named query, same filtered fields and operators, same searched fields, same
+ * number of search terms and same order by) generate the same query, only the values of their parameters differ.
+ * The generated query is kept in a LRU cache and only the values of the parameters are extracted from the
+ * {@link QueryOptions} of the next searches having that shape.
+ */
+class QueryShapeCache {
+
+    static final String QUERY_SHAPE_CACHE_HIT = "bonita.persistence.query.shape.cache.hit";
+    static final String QUERY_SHAPE_CACHE_MISS = "bonita.persistence.query.shape.cache.miss";
+    static final String QUERY_SHAPE_CACHE_EVICTION = "bonita.persistence.query.shape.cache.eviction";
+    static final String QUERY_SHAPE_CACHE_SIZE = "bonita.persistence.query.shape.cache.size";
+
+    private final Map<QueryShape, CompiledQuery> compiledQueries;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    QueryShapeCache(int maxSize, MeterRegistry meterRegistry) {
+        this.evictionCounter = Counter.builder(QUERY_SHAPE_CACHE_EVICTION)
+                .baseUnit("queries").description("Generated queries evicted from the query shape cache")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder(QUERY_SHAPE_CACHE_HIT)
+                .baseUnit("queries").description("Searches that reused a generated query")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder(QUERY_SHAPE_CACHE_MISS)
+                .baseUnit("queries").description("Searches that had to generate their query")
+                .register(meterRegistry);
+        this.compiledQueries = new LinkedHashMap<QueryShape, CompiledQuery>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QueryShape, CompiledQuery> eldest) {
+                if (size() > maxSize) {
+                    evictionCounter.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder(QUERY_SHAPE_CACHE_SIZE, this, QueryShapeCache::size)
+                .baseUnit("queries").description("Generated queries in the query shape cache")
+                .register(meterRegistry);
+    }
+
+    CompiledQuery get(QueryShape shape) {
+        CompiledQuery compiledQuery;
+        synchronized (compiledQueries) {
+            compiledQuery = compiledQueries.get(shape);
+        }
+        if (compiledQuery == null) {
+            missCounter.increment();
+        } else {
+            hitCounter.increment();
+        }
+        return compiledQuery;
+    }
+
+    void put(QueryShape shape, CompiledQuery compiledQuery) {
+        synchronized (compiledQueries) {
+            compiledQueries.put(shape, compiledQuery);
+        }
+    }
+
+    void clear() {
+        synchronized (compiledQueries) {
+            compiledQueries.clear();
+        }
+    }
+
+    int size() {
+        synchronized (compiledQueries) {
+            return compiledQueries.size();
+        }
+    }
+
+    /**
+     * Everything in a search that changes the generated query, but not the values of its parameters
+     */
+    @Value
+    static class QueryShape {
+
+        Class<?> queryBuilderType;
+        String queryName;
+        Class<? extends PersistentObject> entityType;
+        List<FilterShape> filters;
+        Map<Class<? extends PersistentObject>, Set<String>> searchedFields;
+        int numberOfSearchTerms;
+        List<OrderByOption> orderByOptions;
+
+        static QueryShape of(Class<?> queryBuilderType, AbstractSelectDescriptor<?> selectDescriptor) {
+            QueryOptions queryOptions = selectDescriptor.getQueryOptions();
+            List<FilterShape> filters = Collections.emptyList();
+            Map<Class<? extends PersistentObject>, Set<String>> searchedFields = Collections.emptyMap();
+            int numberOfSearchTerms = 0;
+            if (selectDescriptor.hasAFilter()) {
+                filters = new ArrayList<>(queryOptions.getFilters().size());
+                for (FilterOption filter : queryOptions.getFilters()) {
+                    filters.add(new FilterShape(filter.getPersistentClass(), filter.getFieldName(),
+                            filter.getFilterOperationType(), filter.getValue() == null));
+                }
+                SearchFields multipleFilter = queryOptions.getMultipleFilter();
+                if (multipleFilter != null && multipleFilter.getTerms() != null
+                        && !multipleFilter.getTerms().isEmpty()) {
+                    searchedFields = new HashMap<>();
+                    for (Map.Entry<Class<? extends PersistentObject>, Set<String>> entry : multipleFilter.getFields()
+                            .entrySet()) {
+                        searchedFields.put(entry.getKey(), new HashSet<>(entry.getValue()));
+                    }
+                    numberOfSearchTerms = multipleFilter.getTerms().size();
+                }
+            }
+            List<OrderByOption> orderByOptions = selectDescriptor.hasOrderByParameters()
+                    ? new ArrayList<>(queryOptions.getOrderByOptions())
+                    : Collections.emptyList();
+            return new QueryShape(queryBuilderType, selectDescriptor.getQueryName(), selectDescriptor.getEntityType(),
+                    filters, searchedFields, numberOfSearchTerms, orderByOptions);
+        }
+    }
+
+    @Value
+    static class FilterShape {
+
+        Class<? extends PersistentObject> persistentClass;
+        String fieldName;
+        FilterOperationType operationType;
+        // filters on null values generate IS NULL / IS NOT NULL clauses without parameter
+        boolean nullValue;
+    }
+
+    /**
+     * A generated query and how to bind the values of its parameters
+     */
+    @Value
+    static class CompiledQuery {
+
+        String query;
+        int numberOfSearchedFields;
+
+        Map<String, Object> bindParameters(QueryOptions queryOptions, String likeEscapeCharacter) {
+            Map<String, Object> parameters = new HashMap<>();
+            if (queryOptions.getFilters() != null) {
+                List<Object> filterValues = QueryGeneratorForFilters.getParameterValues(queryOptions.getFilters(),
+                        likeEscapeCharacter);
+                for (int i = 0; i < filterValues.size(); i++) {
+                    parameters.put("f" + (i + 1), filterValues.get(i));
+                }
+            }
+            if (numberOfSearchedFields > 0) {
+                // search terms are generated field by field, each field being compared to all terms
+                List<String> terms = queryOptions.getMultipleFilter().getTerms();
+                int parameterCounter = 1;
+                for (int field = 0; field < numberOfSearchedFields; field++) {
+                    for (String term : terms) {
+                        parameters.put("s" + parameterCounter++,
+                                "%" + escapeTerm(term, likeEscapeCharacter) + "%");
+                    }
+                }
+            }
+            return parameters;
+        }
+    }
+}
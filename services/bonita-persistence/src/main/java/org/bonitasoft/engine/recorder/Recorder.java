@@ -13,6 +13,8 @@
  **/
 package org.bonitasoft.engine.recorder;
 
+import java.util.List;
+
 import org.bonitasoft.engine.recorder.model.DeleteAllRecord;
 import org.bonitasoft.engine.recorder.model.DeleteRecord;
 import org.bonitasoft.engine.recorder.model.InsertRecord;
@@ -31,6 +33,17 @@ public interface Recorder {
      */
     void recordInsert(InsertRecord record, String type) throws SRecorderException;
 
+    /**
+     * Add records of the same type to database in a batch
+     *
+     * @param records
+     *        the records to insert
+     * @param type
+     * @throws SRecorderException
+     * @since 10.3
+     */
+    void recordInserts(List<InsertRecord> records, String type) throws SRecorderException;
+
     /**
      * Delete a record from database
      *
@@ -13,8 +13,10 @@
  **/
 package org.bonitasoft.engine.recorder.impl;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
 import org.bonitasoft.engine.commons.ExceptionUtils;
@@ -46,6 +48,9 @@ public class RecorderImpl implements Recorder {
 
     private final EventService eventService;
 
+    // types of the events of each record type, so that they are not concatenated on each record
+    private final Map<String, EventTypes> eventTypes = new ConcurrentHashMap<>();
+
     public RecorderImpl(final PersistenceService persistenceService,
             final EventService eventService) {
         this.persistenceService = persistenceService;
@@ -56,27 +61,59 @@ public class RecorderImpl implements Recorder {
     public void recordInsert(final InsertRecord record, String type) throws SRecorderException {
         try {
             persistenceService.insert(record.getEntity());
-            eventService.fireEvent(createInsertEvent(record.getEntity(), type));
+            String eventType = eventTypes(type).created;
+            // events are only built when an handler listens to them
+            if (eventService.hasHandlers(eventType)) {
+                eventService.fireEvent(createInsertEvent(record.getEntity(), eventType));
+            }
+        } catch (final Exception e) {
+            logExceptionsFromHandlers(e);
+            throw new SRecorderException(e);
+        }
+    }
+
+    @Override
+    public void recordInserts(final List<InsertRecord> records, String type) throws SRecorderException {
+        if (records.isEmpty()) {
+            return;
+        }
+        final List<PersistentObject> entities = new ArrayList<>(records.size());
+        for (InsertRecord record : records) {
+            entities.add(record.getEntity());
+        }
+        try {
+            persistenceService.insertInBatch(entities);
+            String eventType = eventTypes(type).created;
+            if (eventService.hasHandlers(eventType)) {
+                for (PersistentObject entity : entities) {
+                    eventService.fireEvent(createInsertEvent(entity, eventType));
+                }
+            }
         } catch (final Exception e) {
             logExceptionsFromHandlers(e);
             throw new SRecorderException(e);
         }
     }
 
-    private SInsertEvent createInsertEvent(PersistentObject entity, String type) {
-        SInsertEvent sInsertEvent = new SInsertEvent(type + SEvent.CREATED);
+    private EventTypes eventTypes(String type) {
+        return eventTypes.computeIfAbsent(type, EventTypes::new);
+    }
+
+    private SInsertEvent createInsertEvent(PersistentObject entity, String eventType) {
+        SInsertEvent sInsertEvent = new SInsertEvent(eventType);
         sInsertEvent.setObject(entity);
         return sInsertEvent;
     }
 
-    private SDeleteEvent createDeleteEvent(PersistentObject entity, String type) {
-        SDeleteEvent sDeleteEvent = new SDeleteEvent(type + SEvent.DELETED);
+    private SDeleteEvent createDeleteEvent(PersistentObject entity, String eventType) {
+        SDeleteEvent sDeleteEvent = new SDeleteEvent(eventType);
         sDeleteEvent.setObject(entity);
         return sDeleteEvent;
     }
 
-    private SUpdateEvent createUpdateEvent(PersistentObject entity, Map<String, Object> updatedFields, String type) {
-        SUpdateEvent sUpdateEvent = new SUpdateEvent(type + SEvent.UPDATED);
+    private SUpdateEvent createUpdateEvent(PersistentObject entity, Map<String, Object> updatedFields,
+            String eventType) {
+        SUpdateEvent sUpdateEvent = new SUpdateEvent(eventType);
         sUpdateEvent.setObject(entity);
         sUpdateEvent.setUpdatedFields(updatedFields);
         return sUpdateEvent;
@@ -86,7 +123,10 @@ public class RecorderImpl implements Recorder {
     public void recordDelete(final DeleteRecord record, String type) throws SRecorderException {
         try {
             persistenceService.delete(record.getEntity());
-            eventService.fireEvent(createDeleteEvent(record.getEntity(), type));
+            String eventType = eventTypes(type).deleted;
+            if (eventService.hasHandlers(eventType)) {
+                eventService.fireEvent(createDeleteEvent(record.getEntity(), eventType));
+            }
         } catch (final Exception e) {
             logExceptionsFromHandlers(e);
             throw new SRecorderException(e);
@@ -108,7 +148,10 @@ public class RecorderImpl implements Recorder {
         final UpdateDescriptor desc = UpdateDescriptor.buildSetFields(record.getEntity(), record.getFields());
         try {
             persistenceService.update(desc);
-            eventService.fireEvent(createUpdateEvent(record.getEntity(), record.getFields(), type));
+            String eventType = eventTypes(type).updated;
+            if (eventService.hasHandlers(eventType)) {
+                eventService.fireEvent(createUpdateEvent(record.getEntity(), record.getFields(), eventType));
+            }
         } catch (final Exception e) {
             logExceptionsFromHandlers(e);
             throw new SRecorderException(e);
@@ -120,8 +163,10 @@ public class RecorderImpl implements Recorder {
 
         try {
             int updateCount = persistenceService.update(query, record.getFields());
-            if (updateCount > 0)
-                eventService.fireEvent(createUpdateEvent(record.getEntity(), record.getFields(), type));
+            String eventType = eventTypes(type).updated;
+            if (updateCount > 0 && eventService.hasHandlers(eventType)) {
+                eventService.fireEvent(createUpdateEvent(record.getEntity(), record.getFields(), eventType));
+            }
             return updateCount;
         } catch (final Exception e) {
             logExceptionsFromHandlers(e);
@@ -141,4 +186,17 @@ public class RecorderImpl implements Recorder {
         }
     }
 
+    private static final class EventTypes {
+
+        private final String created;
+        private final String updated;
+        private final String deleted;
+
+        private EventTypes(String type) {
+            created = type + SEvent.CREATED;
+            updated = type + SEvent.UPDATED;
+            deleted = type + SEvent.DELETED;
+        }
+    }
+
 }
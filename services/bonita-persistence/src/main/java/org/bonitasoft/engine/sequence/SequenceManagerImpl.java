@@ -15,6 +15,9 @@ package org.bonitasoft.engine.sequence;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.sql.DataSource;
 
@@ -40,7 +43,15 @@ public class SequenceManagerImpl implements SequenceManager {
 
     private final LockService lockService;
 
-    private final Map<Long, TenantSequenceManagerImpl> sequenceManagers = new HashMap<>();
+    private final Map<Long, TenantSequenceManagerImpl> sequenceManagers = new ConcurrentHashMap<>();
+
+    private boolean prefetchEnabled;
+
+    private int lowWaterMarkPercent = 25;
+
+    private int maxRangeSizeFactor = 1;
+
+    private ExecutorService prefetchExecutor;
 
     public SequenceManagerImpl(final LockService lockService,
             final SequenceMappingProvider sequenceMappingProvider,
@@ -64,20 +75,51 @@ public class SequenceManagerImpl implements SequenceManager {
     }
 
     private TenantSequenceManagerImpl getTenantSequenceManager(long tenantId) {
-        if (sequenceManagers.get(tenantId) == null) {
-            synchronized (this) {
-                if (sequenceManagers.get(tenantId) == null) {
-                    this.sequenceManagers.put(tenantId, createTenantSequenceManager(tenantId));
-                }
-            }
+        TenantSequenceManagerImpl tenantSequenceManager = sequenceManagers.get(tenantId);
+        if (tenantSequenceManager == null) {
+            tenantSequenceManager = sequenceManagers.computeIfAbsent(tenantId, this::createTenantSequenceManager);
         }
-        return sequenceManagers.get(tenantId);
+        return tenantSequenceManager;
     }
 
     TenantSequenceManagerImpl createTenantSequenceManager(long tenantId) {
         return new TenantSequenceManagerImpl(tenantId, lockService, getSequenceIdToRangeSizeMap(),
                 getClassNameToSequenceIdMap(), datasource, retries, delay,
-                delayFactor);
+                delayFactor, prefetchEnabled ? getPrefetchExecutor() : null, lowWaterMarkPercent,
+                maxRangeSizeFactor);
+    }
+
+    private synchronized ExecutorService getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "Bonita-Sequence-Prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return prefetchExecutor;
+    }
+
+    /**
+     * @param prefetchEnabled reserve in background the next range of a sequence before the current one is exhausted
+     */
+    public void setPrefetchEnabled(boolean prefetchEnabled) {
+        this.prefetchEnabled = prefetchEnabled;
+    }
+
+    /**
+     * @param lowWaterMarkPercent percentage of the current range remaining below which the next range is reserved
+     */
+    public void setLowWaterMarkPercent(int lowWaterMarkPercent) {
+        this.lowWaterMarkPercent = lowWaterMarkPercent;
+    }
+
+    /**
+     * @param maxRangeSizeFactor maximum factor applied to the range size of sequences consumed quickly, 1 to always
+     *        use the configured range size
+     */
+    public void setMaxRangeSizeFactor(int maxRangeSizeFactor) {
+        this.maxRangeSizeFactor = maxRangeSizeFactor;
     }
 
     @Override
@@ -86,8 +128,11 @@ public class SequenceManagerImpl implements SequenceManager {
     }
 
     @Override
-    public void close() {
-        // Do nothing
+    public synchronized void close() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+            prefetchExecutor = null;
+        }
     }
 
     @Override
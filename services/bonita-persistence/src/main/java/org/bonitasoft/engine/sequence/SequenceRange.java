@@ -14,38 +14,142 @@
 package org.bonitasoft.engine.sequence;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Ids of a sequence reserved in database and not yet given.
+ * Ids are given without locking by incrementing the current range. The next range can be fetched in advance and
+ * kept until the current one is exhausted.
+ */
 public class SequenceRange {
 
-    private AtomicLong nextAvailableId;
-    private long lastIdInRange;
     private final int rangeSize;
+    private volatile Range current;
+    private final AtomicReference<CompletableFuture<Range>> prefetchedRange = new AtomicReference<>();
+    // adaptive range sizing: size of the last range requested and time when it was requested
+    private final Object sizingLock = new Object();
+    private int lastRangeSize;
+    private long lastRefillNanos = -1;
 
     public SequenceRange(int rangeSize) {
         this.rangeSize = rangeSize;
+        this.lastRangeSize = rangeSize;
     }
 
     public Optional<Long> getNextAvailableId() {
-        if (nextAvailableId == null) {
-            // Range is not initialized yet:
-            return Optional.empty();
-        }
-        long nextId = nextAvailableId.getAndUpdate(current -> {
-            if (current == -1 || current >= lastIdInRange) {
-                return -1; // -1 means no more Id available
-            } else {
-                return current + 1;
-            }
-        });
+        long nextId = nextId();
         if (nextId < 0) {
             return Optional.empty();
         }
         return Optional.of(nextId);
     }
 
+    /**
+     * @return the next id of the current range or -1 when the range is not initialized or exhausted
+     */
+    long nextId() {
+        Range range = current;
+        if (range == null) {
+            // Range is not initialized yet:
+            return -1;
+        }
+        long nextId = range.nextAvailableId.getAndIncrement();
+        return nextId <= range.lastIdInRange ? nextId : -1;
+    }
+
+    /**
+     * @return the number of ids that can still be given by the current range
+     */
+    long remaining() {
+        Range range = current;
+        if (range == null) {
+            return 0;
+        }
+        return Math.max(0, range.lastIdInRange - range.nextAvailableId.get() + 1);
+    }
+
     public void updateToNextRange(long nextAvailableIdFromDatabase) {
-        nextAvailableId = new AtomicLong(nextAvailableIdFromDatabase);
-        lastIdInRange = nextAvailableIdFromDatabase + rangeSize - 1;
+        updateToNextRange(nextAvailableIdFromDatabase, rangeSize);
+    }
+
+    void updateToNextRange(long nextAvailableIdFromDatabase, int size) {
+        current = new Range(nextAvailableIdFromDatabase, size);
+    }
+
+    int getRangeSize() {
+        return rangeSize;
+    }
+
+    /**
+     * @return the size of the current range, that can be bigger than the configured one when ranges are grown
+     */
+    int getCurrentRangeSize() {
+        Range range = current;
+        return range == null ? rangeSize : range.size;
+    }
+
+    /**
+     * Compute the size of the next range to reserve: it doubles (up to {@code maxRangeSize}) when the previous range
+     * was consumed faster than {@code targetRefillIntervalNanos} and halves (down to the configured size) when it
+     * lasted more than ten times that interval.
+     */
+    int nextRangeSize(long nowNanos, long targetRefillIntervalNanos, int maxRangeSize) {
+        synchronized (sizingLock) {
+            int size = lastRangeSize;
+            if (lastRefillNanos >= 0) {
+                long elapsed = nowNanos - lastRefillNanos;
+                if (elapsed < targetRefillIntervalNanos) {
+                    size = (int) Math.min((long) size * 2, maxRangeSize);
+                } else if (elapsed > targetRefillIntervalNanos * 10) {
+                    size = Math.max(size / 2, rangeSize);
+                }
+            }
+            lastRefillNanos = nowNanos;
+            lastRangeSize = size;
+            return size;
+        }
+    }
+
+    /**
+     * Register a fetch of the next range, only one fetch can be pending at a time
+     *
+     * @return true if the given fetch was registered, false if an other one is already pending
+     */
+    boolean startPrefetch(CompletableFuture<Range> prefetch) {
+        return prefetchedRange.compareAndSet(null, prefetch);
+    }
+
+    /**
+     * Take the range fetched in advance, waiting for it if its fetch is still running
+     *
+     * @return true if the current range was replaced by the range fetched in advance
+     */
+    boolean switchToPrefetchedRange() {
+        CompletableFuture<Range> prefetch = prefetchedRange.getAndSet(null);
+        if (prefetch == null) {
+            return false;
+        }
+        try {
+            current = prefetch.join();
+            return true;
+        } catch (RuntimeException e) {
+            // the fetch already logged its failure, the caller will get the range itself
+            return false;
+        }
+    }
+
+    static final class Range {
+
+        private final AtomicLong nextAvailableId;
+        private final long lastIdInRange;
+        private final int size;
+
+        Range(long nextAvailableId, int size) {
+            this.size = size;
+            this.nextAvailableId = new AtomicLong(nextAvailableId);
+            this.lastIdInRange = nextAvailableId + size - 1;
+        }
     }
 }
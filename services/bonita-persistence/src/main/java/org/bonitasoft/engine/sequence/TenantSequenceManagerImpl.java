@@ -15,9 +15,11 @@ package org.bonitasoft.engine.sequence;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -31,6 +33,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Give ids of the sequences of a tenant.
+ * <p>
+ * Ids are given from ranges reserved in database without locking. When an executor is given, the next range of a
+ * sequence is reserved in background as soon as less than {@code lowWaterMarkPercent} of the current range remains,
+ * so that callers do not wait for the database when the current range is exhausted. When
+ * {@code maxRangeSizeFactor} is greater than 1, sequences consumed quickly reserve bigger ranges, up to that factor
+ * of their configured range size.
+ *
  * @author Charles Souillard
  * @author Matthieu Chaffotte
  * @author Baptiste Mesta
@@ -40,9 +50,13 @@ public class TenantSequenceManagerImpl {
     private static Logger logger = LoggerFactory.getLogger(TenantSequenceManagerImpl.class);
 
     static final String SEQUENCE = "SEQUENCE";
+    /**
+     * ranges consumed in less than this interval are grown, ranges lasting ten times this interval are shrunk
+     */
+    static final long TARGET_REFILL_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
 
     private final Long tenantId;
-    private final Map<Long, SequenceRange> sequences = new HashMap<>();
+    private final Map<Long, SequenceRange> sequences = new ConcurrentHashMap<>();
     private final Map<Long, Integer> sequenceIdToRangeSize;
     private final Map<String, Long> classNameToSequenceId;
 
@@ -56,10 +70,25 @@ public class TenantSequenceManagerImpl {
 
     private final LockService lockService;
 
+    private final Executor prefetchExecutor;
+
+    private final int lowWaterMarkPercent;
+
+    private final int maxRangeSizeFactor;
+
     public TenantSequenceManagerImpl(final long tenantId, final LockService lockService,
             final Map<Long, Integer> sequenceIdToRangeSize,
             final Map<String, Long> classNameToSequenceId,
             final DataSource datasource, final int retries, final int delay, final int delayFactor) {
+        this(tenantId, lockService, sequenceIdToRangeSize, classNameToSequenceId, datasource, retries, delay,
+                delayFactor, null, 0, 1);
+    }
+
+    public TenantSequenceManagerImpl(final long tenantId, final LockService lockService,
+            final Map<Long, Integer> sequenceIdToRangeSize,
+            final Map<String, Long> classNameToSequenceId,
+            final DataSource datasource, final int retries, final int delay, final int delayFactor,
+            final Executor prefetchExecutor, final int lowWaterMarkPercent, final int maxRangeSizeFactor) {
         this.tenantId = tenantId;
         this.lockService = lockService;
         this.sequenceIdToRangeSize = sequenceIdToRangeSize;
@@ -68,42 +97,88 @@ public class TenantSequenceManagerImpl {
         this.delay = delay;
         this.delayFactor = delayFactor;
         this.datasource = datasource;
+        this.prefetchExecutor = prefetchExecutor;
+        this.lowWaterMarkPercent = lowWaterMarkPercent;
+        this.maxRangeSizeFactor = Math.max(1, maxRangeSizeFactor);
     }
 
     public long getNextId(final String entityName) throws SObjectNotFoundException {
         final Long sequenceId = getSequenceId(entityName);
         SequenceRange sequence = getSequence(sequenceId);
-        Optional<Long> nextAvailableId = sequence.getNextAvailableId();
-        if (nextAvailableId.isPresent()) {
-            return nextAvailableId.get();
+        long nextAvailableId = sequence.nextId();
+        if (nextAvailableId >= 0) {
+            prefetchIfNeeded(sequenceId, sequence);
+            return nextAvailableId;
         }
         //synchronize on the sequence object itself (we will read/update only on this one)
         synchronized (sequence) {
-            nextAvailableId = sequence.getNextAvailableId();
+            nextAvailableId = sequence.nextId();
             int loopCounter = 0;
             // set a max number of retries to 100:
-            while (!nextAvailableId.isPresent() && loopCounter < 100) {
+            while (nextAvailableId < 0 && loopCounter < 100) {
                 if (loopCounter > 0) {
                     logger.debug("Could not get an Id after updating to next range. Retrying...");
                 }
-                sequence.updateToNextRange(setNewRange(sequenceId));
-                nextAvailableId = sequence.getNextAvailableId();
+                if (!sequence.switchToPrefetchedRange()) {
+                    int rangeSize = nextRangeSize(sequence);
+                    sequence.updateToNextRange(setNewRange(sequenceId, rangeSize), rangeSize);
+                }
+                nextAvailableId = sequence.nextId();
                 loopCounter++;
             }
-            return nextAvailableId.orElseThrow(
-                    () -> new IllegalStateException("No new available id found for sequence " + entityName));
+            if (nextAvailableId < 0) {
+                throw new IllegalStateException("No new available id found for sequence " + entityName);
+            }
+            return nextAvailableId;
         }
     }
 
-    private SequenceRange getSequence(Long sequenceId) {
-        if (!sequences.containsKey(sequenceId)) {
-            synchronized (this) {
-                if (!sequences.containsKey(sequenceId)) {
-                    sequences.put(sequenceId, new SequenceRange(sequenceIdToRangeSize.get(sequenceId)));
+    private void prefetchIfNeeded(long sequenceId, SequenceRange sequence) {
+        if (prefetchExecutor == null
+                || sequence.remaining() * 100 > (long) sequence.getCurrentRangeSize() * lowWaterMarkPercent) {
+            return;
+        }
+        CompletableFuture<SequenceRange.Range> prefetch = new CompletableFuture<>();
+        if (!sequence.startPrefetch(prefetch)) {
+            return;
+        }
+        int rangeSize = nextRangeSize(sequence);
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    prefetch.complete(new SequenceRange.Range(setNewRange(sequenceId, rangeSize), rangeSize));
+                } catch (Exception e) {
+                    logger.warn("Unable to fetch in advance the next range of sequence {}: {}", sequenceId,
+                            e.getMessage());
+                    logger.debug("Cause:", e);
+                    prefetch.completeExceptionally(e);
                 }
-            }
+            });
+        } catch (RuntimeException e) {
+            // executor is shutting down, the range will be fetched when needed
+            prefetch.completeExceptionally(e);
+        }
+    }
+
+    private int nextRangeSize(SequenceRange sequence) {
+        if (maxRangeSizeFactor == 1) {
+            return sequence.getRangeSize();
+        }
+        return sequence.nextRangeSize(nanoTime(), TARGET_REFILL_INTERVAL_NANOS,
+                sequence.getRangeSize() * maxRangeSizeFactor);
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private SequenceRange getSequence(Long sequenceId) {
+        SequenceRange sequence = sequences.get(sequenceId);
+        if (sequence == null) {
+            sequence = sequences.computeIfAbsent(sequenceId,
+                    id -> new SequenceRange(sequenceIdToRangeSize.get(id)));
         }
-        return sequences.get(sequenceId);
+        return sequence;
     }
 
     private Long getSequenceId(String entityName) throws SObjectNotFoundException {
@@ -119,7 +194,7 @@ public class TenantSequenceManagerImpl {
      *
      * @return the next available id of the sequence
      */
-    private long setNewRange(final long sequenceId) throws SObjectNotFoundException {
+    private long setNewRange(final long sequenceId, final int rangeSize) throws SObjectNotFoundException {
         BonitaLock lock = createLock(sequenceId);
         Exception lastException = null;
         try {
@@ -134,7 +209,7 @@ public class TenantSequenceManagerImpl {
                     connection.setAutoCommit(false);
                     SequenceDAO sequenceDAO = createDao(connection);
                     long nextAvailableId = sequenceDAO.selectById(sequenceId);
-                    sequenceDAO.updateSequence(nextAvailableId + sequenceIdToRangeSize.get(sequenceId), sequenceId);
+                    sequenceDAO.updateSequence(nextAvailableId + rangeSize, sequenceId);
                     connection.commit();
                     return nextAvailableId;
                 } catch (final SObjectNotFoundException t) {
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.persistence;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.persistence.search.FilterOperationType;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.junit.Test;
+
+public class QueryShapeCacheTest {
+
+    private static final char LIKE_ESCAPE_CHARACTER = '§';
+    private static final String BASE_QUERY = "SELECT testObj FROM TestObject testObj";
+    private final Map<String, String> classAliasMappings = singletonMap(TestObject.class.getName(), "testObj");
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryShapeCache queryShapeCache = new QueryShapeCache(2, meterRegistry);
+
+    @Test
+    public void should_reuse_generated_query_and_bind_new_parameter_values_for_searches_having_the_same_shape()
+            throws Exception {
+        QueryBuilder<TestObject> first = build(search("john", 12));
+        QueryBuilder<TestObject> second = build(search("jack", 25));
+
+        assertThat(second.getQuery()).isEqualTo(first.getQuery());
+        assertThat(second.getQueryParameters()).containsOnly(entry("f1", 25), entry("s1", "%jack%"),
+                entry("s2", "%jack%"));
+        assertThat(counter(QueryShapeCache.QUERY_SHAPE_CACHE_MISS)).isEqualTo(1);
+        assertThat(counter(QueryShapeCache.QUERY_SHAPE_CACHE_HIT)).isEqualTo(1);
+    }
+
+    @Test
+    public void should_generate_a_new_query_when_shape_is_different() throws Exception {
+        build(search("john", 12));
+        QueryBuilder<TestObject> withNullValue = build(search("john", null));
+
+        assertThat(withNullValue.getQuery()).contains("testObj.age IS NULL");
+        assertThat(counter(QueryShapeCache.QUERY_SHAPE_CACHE_MISS)).isEqualTo(2);
+        assertThat(counter(QueryShapeCache.QUERY_SHAPE_CACHE_HIT)).isEqualTo(0);
+    }
+
+    @Test
+    public void should_evict_least_recently_used_query_when_cache_is_full() throws Exception {
+        build(searchWithOperator(FilterOperationType.GREATER));
+        build(searchWithOperator(FilterOperationType.LESS));
+        build(searchWithOperator(FilterOperationType.GREATER));
+        build(searchWithOperator(FilterOperationType.DIFFERENT));
+
+        assertThat(queryShapeCache.size()).isEqualTo(2);
+        assertThat(counter(QueryShapeCache.QUERY_SHAPE_CACHE_EVICTION)).isEqualTo(1);
+        build(searchWithOperator(FilterOperationType.GREATER));
+        assertThat(counter(QueryShapeCache.QUERY_SHAPE_CACHE_HIT)).isEqualTo(2);
+    }
+
+    @Test
+    public void should_compute_same_parameter_values_as_the_query_generator_for_all_operators() {
+        List<FilterOption> filters = Arrays.asList(
+                new FilterOption(TestObject.class, "a", 1),
+                new FilterOption(TestObject.class, "b", null),
+                new FilterOption(TestObject.class, "c", 2, FilterOperationType.DIFFERENT),
+                new FilterOption(TestObject.class, "d", null, FilterOperationType.DIFFERENT),
+                new FilterOption(FilterOperationType.OR),
+                new FilterOption(FilterOperationType.L_PARENTHESIS),
+                new FilterOption(TestObject.class, "e", 3, FilterOperationType.GREATER),
+                new FilterOption(TestObject.class, "f", 4, FilterOperationType.GREATER_OR_EQUALS),
+                new FilterOption(TestObject.class, "g", 5, FilterOperationType.LESS),
+                new FilterOption(TestObject.class, "h", 6, FilterOperationType.LESS_OR_EQUALS),
+                new FilterOption(FilterOperationType.R_PARENTHESIS),
+                new FilterOption(TestObject.class, "i", 7, 8),
+                new FilterOption(TestObject.class, "j", "50%_off", FilterOperationType.LIKE));
+
+        Map<String, Object> generated = new QueryGeneratorForFilters(classAliasMappings, LIKE_ESCAPE_CHARACTER)
+                .generate(filters).getParameters();
+        QueryShapeCache.CompiledQuery compiledQuery = new QueryShapeCache.CompiledQuery("", 0);
+
+        assertThat(compiledQuery.bindParameters(new QueryOptions(filters, null),
+                String.valueOf(LIKE_ESCAPE_CHARACTER))).isEqualTo(generated);
+    }
+
+    private SelectListDescriptor<TestObject> search(String term, Object age) {
+        return new SelectListDescriptor<>("searchTestObject", emptyMap(), TestObject.class,
+                new QueryOptions(0, 10, singletonList(new OrderByOption(TestObject.class, "lastname",
+                        OrderByType.ASC)),
+                        singletonList(new FilterOption(TestObject.class, "age", age)),
+                        new SearchFields(singletonList(term), singletonMap(TestObject.class,
+                                new HashSet<>(asList("firstname", "lastname"))))));
+    }
+
+    private SelectListDescriptor<TestObject> searchWithOperator(FilterOperationType operator) {
+        return new SelectListDescriptor<>("searchTestObject", emptyMap(), TestObject.class,
+                new QueryOptions(singletonList(new FilterOption(TestObject.class, "age", 12, operator)), null));
+    }
+
+    private QueryBuilder<TestObject> build(SelectListDescriptor<TestObject> selectDescriptor) throws Exception {
+        Query baseQuery = mock(Query.class);
+        doReturn(BASE_QUERY).when(baseQuery).getQueryString();
+        QueryBuilder<TestObject> queryBuilder = new HQLQueryBuilder<TestObject>(mock(Session.class), baseQuery,
+                new DefaultOrderByBuilder(), classAliasMappings, LIKE_ESCAPE_CHARACTER, OrderByCheckingMode.NONE,
+                selectDescriptor) {
+
+            @Override
+            Query rebuildQuery(AbstractSelectDescriptor<TestObject> selectDescriptor, Session session, Query query) {
+                Query generatedQuery = mock(Query.class);
+                doReturn(getQuery()).when(generatedQuery).getQueryString();
+                return generatedQuery;
+            }
+        };
+        queryBuilder.queryShapeCache(queryShapeCache).build();
+        return queryBuilder;
+    }
+
+    private double counter(String name) {
+        return meterRegistry.find(name).counter().count();
+    }
+}
@@ -13,7 +13,11 @@
  **/
 package org.bonitasoft.engine.recorder.impl;
 
+import static java.util.Arrays.asList;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.util.Collections;
@@ -48,6 +52,7 @@ public class RecorderImplTest {
 
     @Test
     public void should_fire_event_when_recording_an_insert() throws Exception {
+        doReturn(true).when(eventService).hasHandlers("theEvent_CREATED");
         MyPersistentObject entity = entity();
         recorder.recordInsert(insertRecord(entity), "theEvent");
 
@@ -56,6 +61,7 @@ public class RecorderImplTest {
 
     @Test
     public void should_fire_event_when_recording_an_update() throws Exception {
+        doReturn(true).when(eventService).hasHandlers("theEvent_UPDATED");
         MyPersistentObject entity = entity();
         recorder.recordUpdate(updateRecord(entity), "theEvent");
 
@@ -64,12 +70,49 @@ public class RecorderImplTest {
 
     @Test
     public void should_fire_event_when_recording_a_delete() throws Exception {
+        doReturn(true).when(eventService).hasHandlers("theEvent_DELETED");
         MyPersistentObject entity = entity();
         recorder.recordDelete(deleteRecord(entity), "theEvent");
 
         verify(eventService).fireEvent(argThat(match("theEvent_DELETED", entity)));
     }
 
+    @Test
+    public void should_not_fire_event_when_no_handler_listens_to_it() throws Exception {
+        MyPersistentObject entity = entity();
+        recorder.recordInsert(insertRecord(entity), "theEvent");
+        recorder.recordUpdate(updateRecord(entity), "theEvent");
+        recorder.recordDelete(deleteRecord(entity), "theEvent");
+
+        verify(persistenceService).insert(entity);
+        verify(persistenceService).delete(entity);
+        verify(eventService, never()).fireEvent(any());
+    }
+
+    @Test
+    public void should_insert_records_in_batch_and_fire_an_event_for_each_of_them() throws Exception {
+        doReturn(true).when(eventService).hasHandlers("theEvent_CREATED");
+        MyPersistentObject entity1 = entity();
+        MyPersistentObject entity2 = entity();
+
+        recorder.recordInserts(asList(insertRecord(entity1), insertRecord(entity2)), "theEvent");
+
+        verify(persistenceService).insertInBatch(asList(entity1, entity2));
+        verify(eventService).fireEvent(argThat(match("theEvent_CREATED", entity1)));
+        verify(eventService).fireEvent(argThat(match("theEvent_CREATED", entity2)));
+    }
+
+    @Test
+    public void should_insert_records_in_batch_without_event_when_no_handler_listens_to_it() throws Exception {
+        MyPersistentObject entity1 = entity();
+        MyPersistentObject entity2 = entity();
+
+        recorder.recordInserts(asList(insertRecord(entity1), insertRecord(entity2)), "theEvent");
+
+        verify(persistenceService).insertInBatch(asList(entity1, entity2));
+        verify(eventService, never()).fireEvent(any());
+    }
+
     protected ArgumentMatcher<SEvent> match(String type, Object entity) {
         return sEvent -> sEvent.getType().equals(type) && sEvent.getObject().equals(entity);
     }
@@ -24,6 +24,8 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
 
 import javax.sql.DataSource;
 
@@ -66,16 +68,18 @@ public class TenantSequenceManagerImplTest {
     private Connection connection;
 
     private TenantSequenceManagerImpl tenantSequenceManager;
+    private HashMap<Long, Integer> sequenceIdToRangeSize;
+    private HashMap<String, Long> classNameToSequenceId;
 
     @Before
     public void before() throws Exception {
         doReturn(connection).when(dataSource).getConnection();
-        HashMap<Long, Integer> sequenceIdToRangeSize = new HashMap<>();
+        sequenceIdToRangeSize = new HashMap<>();
         sequenceIdToRangeSize.put(SEQUENCE_w_2, 2);
         sequenceIdToRangeSize.put(SEQUENCE_w_5, 5);
         sequenceIdToRangeSize.put(SEQUENCE_w_100, 100);
         sequenceIdToRangeSize.put(SEQUENCE_w_1000, 1000);
-        HashMap<String, Long> classNameToSequenceId = new HashMap<>();
+        classNameToSequenceId = new HashMap<>();
         classNameToSequenceId.put(OBJECT_w_2, SEQUENCE_w_2);
         classNameToSequenceId.put(OBJECT_w_5, SEQUENCE_w_5);
         classNameToSequenceId.put(OBJECT_w_100, SEQUENCE_w_100);
@@ -269,4 +273,106 @@ public class TenantSequenceManagerImplTest {
         assertThatThrownBy(() -> tenantSequenceManager.getNextId(OBJECT_w_5))
                 .hasMessage("Unable to get a sequence id for 554");
     }
+
+    @Test
+    public void should_fetch_next_range_in_advance_when_low_water_mark_is_reached() throws Exception {
+        doReturn(100L, 200L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+        tenantSequenceManager = createTenantSequenceManager(40, 1, () -> 0L);
+
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(100);
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(101);
+        verify(sequenceDAO, never()).updateSequence(205L, SEQUENCE_w_5);
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(102);
+        // only 2 ids remain in the range: next one is already reserved
+        verify(sequenceDAO).updateSequence(205L, SEQUENCE_w_5);
+
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(103);
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(104);
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(200);
+        verify(sequenceDAO, times(2)).selectById(SEQUENCE_w_5);
+    }
+
+    @Test
+    public void should_fetch_next_range_when_needed_if_fetch_in_advance_failed() throws Exception {
+        doReturn(100L, 200L, 300L, 400L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+        doNothing().doThrow(new SQLException("SQL error")).doThrow(new SQLException("SQL error")).doNothing()
+                .when(sequenceDAO).updateSequence(anyLong(), eq(SEQUENCE_w_5));
+        tenantSequenceManager = createTenantSequenceManager(40, 1, () -> 0L);
+
+        for (int i = 0; i < 5; i++) {
+            tenantSequenceManager.getNextId(OBJECT_w_5);
+        }
+
+        // the 2 retries of the fetch in advance failed, the range is fetched when the current one is exhausted
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(400);
+        verify(sequenceDAO).updateSequence(405L, SEQUENCE_w_5);
+    }
+
+    @Test
+    public void should_grow_range_size_when_ranges_are_consumed_quickly() throws Exception {
+        doReturn(100L, 200L, 300L, 400L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+        tenantSequenceManager = createTenantSequenceManager(0, 4, () -> 0L);
+
+        for (int i = 0; i < 5 + 10 + 20 + 1; i++) {
+            tenantSequenceManager.getNextId(OBJECT_w_5);
+        }
+
+        InOrder inOrder = inOrder(sequenceDAO);
+        inOrder.verify(sequenceDAO).updateSequence(105L, SEQUENCE_w_5);
+        inOrder.verify(sequenceDAO).updateSequence(210L, SEQUENCE_w_5);
+        inOrder.verify(sequenceDAO).updateSequence(320L, SEQUENCE_w_5);
+        inOrder.verify(sequenceDAO).updateSequence(420L, SEQUENCE_w_5);
+    }
+
+    @Test
+    public void should_fetch_next_range_in_advance_using_the_size_of_the_grown_range() throws Exception {
+        doReturn(100L, 200L, 300L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+        tenantSequenceManager = createTenantSequenceManager(40, 4, () -> 0L);
+
+        for (int i = 0; i < 5 + 5; i++) {
+            tenantSequenceManager.getNextId(OBJECT_w_5);
+        }
+        verify(sequenceDAO, never()).updateSequence(320L, SEQUENCE_w_5);
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(205);
+
+        // 4 ids remain in the current range of 10 ids: the next one is already reserved
+        verify(sequenceDAO).updateSequence(320L, SEQUENCE_w_5);
+    }
+
+    @Test
+    public void should_shrink_range_size_when_ranges_are_consumed_slowly() throws Exception {
+        doReturn(100L, 200L, 300L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+        long[] now = { 0 };
+        tenantSequenceManager = createTenantSequenceManager(0, 4, () -> now[0]);
+
+        for (int i = 0; i < 5 + 10; i++) {
+            tenantSequenceManager.getNextId(OBJECT_w_5);
+        }
+        now[0] = TenantSequenceManagerImpl.TARGET_REFILL_INTERVAL_NANOS * 11;
+        tenantSequenceManager.getNextId(OBJECT_w_5);
+
+        InOrder inOrder = inOrder(sequenceDAO);
+        inOrder.verify(sequenceDAO).updateSequence(105L, SEQUENCE_w_5);
+        inOrder.verify(sequenceDAO).updateSequence(210L, SEQUENCE_w_5);
+        inOrder.verify(sequenceDAO).updateSequence(305L, SEQUENCE_w_5);
+    }
+
+    private TenantSequenceManagerImpl createTenantSequenceManager(int lowWaterMarkPercent, int maxRangeSizeFactor,
+            LongSupplier nanoTime) {
+        Executor prefetchExecutor = lowWaterMarkPercent > 0 ? Runnable::run : null;
+        return new TenantSequenceManagerImpl(TENANT_ID, lockService, sequenceIdToRangeSize,
+                classNameToSequenceId, dataSource, RETRIES, 1, 1, prefetchExecutor, lowWaterMarkPercent,
+                maxRangeSizeFactor) {
+
+            @Override
+            SequenceDAO createDao(Connection connection) {
+                return sequenceDAO;
+            }
+
+            @Override
+            long nanoTime() {
+                return nanoTime.getAsLong();
+            }
+        };
+    }
 }
@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.session.impl;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bonitasoft.engine.session.SSessionAlreadyExistsException;
+import org.bonitasoft.engine.session.SSessionNotFoundException;
+import org.bonitasoft.engine.session.SessionProvider;
+import org.bonitasoft.engine.session.model.SSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link SessionProvider} storing the sessions in a concurrent map, so getting, adding and renewing a session does
+ * not lock the whole provider.
+ * <p>
+ * Sessions are also indexed by expiration time, in buckets of {@link #BUCKET_DURATION_MILLIS}: cleaning the invalid
+ * sessions only looks at the buckets that are already over instead of scanning all sessions. A session renewed in the
+ * same bucket is not indexed again.
+ * <p>
+ * Enabled using {@code bonita.platform.session.provider.implementation=concurrent}
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bonita.platform.session.provider.implementation", havingValue = "concurrent")
+public class ConcurrentSessionProvider implements SessionProvider {
+
+    static final String ACTIVE_SESSIONS = "bonita.sessions.active";
+    static final String EXPIRED_SESSIONS = "bonita.sessions.expired";
+    static final long BUCKET_DURATION_MILLIS = 10_000;
+
+    private final Map<Long, SSession> sessions = new ConcurrentHashMap<>();
+    // all changes of a bucket are done atomically using compute methods of the map
+    private final Map<Long, Set<Long>> sessionIdsByExpirationBucket = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private final Counter expiredSessions;
+
+    @Autowired
+    public ConcurrentSessionProvider(MeterRegistry meterRegistry) {
+        this(meterRegistry, System::currentTimeMillis);
+    }
+
+    ConcurrentSessionProvider(MeterRegistry meterRegistry, LongSupplier clock) {
+        this.clock = clock;
+        Gauge.builder(ACTIVE_SESSIONS, sessions, Map::size).baseUnit("sessions")
+                .description("Sessions currently opened on the engine").register(meterRegistry);
+        expiredSessions = Counter.builder(EXPIRED_SESSIONS).baseUnit("sessions")
+                .description("Sessions removed by the cleaning of invalid sessions").register(meterRegistry);
+    }
+
+    @Override
+    public void addSession(SSession session) throws SSessionAlreadyExistsException {
+        long id = session.getId();
+        boolean[] added = new boolean[1];
+        sessions.computeIfAbsent(id, k -> {
+            index(id, null, session);
+            added[0] = true;
+            return session;
+        });
+        if (!added[0]) {
+            throw new SSessionAlreadyExistsException("A session wih id \"" + id + "\" already exists");
+        }
+    }
+
+    @Override
+    public void updateSession(SSession session) throws SSessionNotFoundException {
+        long id = session.getId();
+        SSession updated = sessions.computeIfPresent(id, (k, previous) -> {
+            index(id, previous, session);
+            return session;
+        });
+        if (updated == null) {
+            throw new SSessionNotFoundException("No session found with id \"" + id + "\"");
+        }
+    }
+
+    @Override
+    public SSession getSession(long sessionId) throws SSessionNotFoundException {
+        SSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new SSessionNotFoundException("No session found with id \"" + sessionId + "\"");
+        }
+        return session;
+    }
+
+    @Override
+    public void removeSession(long sessionId) throws SSessionNotFoundException {
+        SSession session = sessions.remove(sessionId);
+        if (session == null) {
+            throw new SSessionNotFoundException("No session found with id \"" + sessionId + "\"");
+        }
+        unindex(sessionId, session);
+    }
+
+    /**
+     * Remove the invalid sessions of the expiration buckets that are over. Sessions expiring in the current bucket
+     * are removed by the next call.
+     */
+    @Override
+    public void cleanInvalidSessions() {
+        long now = clock.getAsLong();
+        long currentBucket = bucketOf(now);
+        long removed = 0;
+        // there are at most (session duration / bucket duration) buckets
+        for (Long bucket : sessionIdsByExpirationBucket.keySet()) {
+            if (bucket >= currentBucket) {
+                continue;
+            }
+            Set<Long> sessionIds = sessionIdsByExpirationBucket.remove(bucket);
+            if (sessionIds == null) {
+                continue;
+            }
+            for (Long sessionId : sessionIds) {
+                boolean[] expired = new boolean[1];
+                // the session might have been renewed since this bucket was polled: it is then in a later bucket
+                sessions.computeIfPresent(sessionId, (k, session) -> {
+                    expired[0] = expirationOf(session) <= now;
+                    return expired[0] ? null : session;
+                });
+                if (expired[0]) {
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            expiredSessions.increment(removed);
+            log.debug("{} invalid sessions removed", removed);
+        }
+    }
+
+    @Override
+    public void removeSessions() {
+        sessions.clear();
+        sessionIdsByExpirationBucket.clear();
+    }
+
+    @Override
+    public void deleteSessionsOfTenant(long tenantId, boolean keepTechnicalSessions) {
+        sessions.forEach((id, session) -> {
+            if (tenantId == session.getTenantId() && (!keepTechnicalSessions || !session.isTechnicalUser())
+                    && sessions.remove(id, session)) {
+                unindex(id, session);
+            }
+        });
+    }
+
+    // called while holding the entry of the session in the sessions map
+    private void index(long sessionId, SSession previous, SSession session) {
+        long bucket = bucketOf(expirationOf(session));
+        if (previous != null) {
+            long previousBucket = bucketOf(expirationOf(previous));
+            if (previousBucket == bucket) {
+                return;
+            }
+            removeFromBucket(sessionId, previousBucket);
+        }
+        sessionIdsByExpirationBucket.compute(bucket, (b, ids) -> {
+            Set<Long> updatedIds = ids != null ? ids : new HashSet<>();
+            updatedIds.add(sessionId);
+            return updatedIds;
+        });
+    }
+
+    private void unindex(long sessionId, SSession session) {
+        removeFromBucket(sessionId, bucketOf(expirationOf(session)));
+    }
+
+    private void removeFromBucket(long sessionId, long bucket) {
+        sessionIdsByExpirationBucket.computeIfPresent(bucket, (b, ids) -> {
+            ids.remove(sessionId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static long expirationOf(SSession session) {
+        if (session.getLastRenewDate() == null) {
+            // session built without renew date: it is already expired
+            return Long.MIN_VALUE;
+        }
+        return session.getExpirationDate().getTime();
+    }
+
+    private static long bucketOf(long time) {
+        return Math.floorDiv(time, BUCKET_DURATION_MILLIS);
+    }
+}
@@ -18,11 +18,13 @@ import java.util.Map;
 
 import org.bonitasoft.engine.session.SessionProvider;
 import org.bonitasoft.engine.session.model.SSession;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnSingleCandidate;
 import org.springframework.stereotype.Component;
 
 @Component
 @ConditionalOnSingleCandidate(SessionProvider.class)
+@ConditionalOnProperty(name = "bonita.platform.session.provider.implementation", havingValue = "default", matchIfMissing = true)
 public final class SessionProviderImpl extends AbstractSessionProvider {
 
     private final Map<Long, SSession> sessions = new HashMap<>();
@@ -133,7 +133,8 @@ public class SessionServiceImpl implements SessionService {
 
     @Override
     public void renewSession(final long sessionId) throws SSessionException {
-        final SSession session = getSession(sessionId);
+        // the session of the provider is not modified, no need to copy it before building the renewed one
+        final SSession session = sessionProvider.getSession(sessionId);
         SSession updatedSession = session.toBuilder().lastRenewDate(new Date()).build();
         sessionProvider.updateSession(updatedSession);
     }
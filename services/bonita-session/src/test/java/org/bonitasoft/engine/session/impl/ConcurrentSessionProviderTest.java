@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.session.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.session.SSessionAlreadyExistsException;
+import org.bonitasoft.engine.session.SSessionNotFoundException;
+import org.bonitasoft.engine.session.model.SSession;
+import org.junit.Test;
+
+public class ConcurrentSessionProviderTest {
+
+    private static final long DURATION = 60_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final ConcurrentSessionProvider sessionProvider = new ConcurrentSessionProvider(meterRegistry, now::get);
+
+    @Test
+    public void should_add_get_and_remove_sessions() throws Exception {
+        SSession session = session(12L, 1, false);
+
+        sessionProvider.addSession(session);
+
+        assertThat(sessionProvider.getSession(12L)).isSameAs(session);
+        assertThatThrownBy(() -> sessionProvider.addSession(session(12L, 1, false)))
+                .isInstanceOf(SSessionAlreadyExistsException.class);
+        sessionProvider.removeSession(12L);
+        assertThatThrownBy(() -> sessionProvider.getSession(12L)).isInstanceOf(SSessionNotFoundException.class);
+        assertThatThrownBy(() -> sessionProvider.removeSession(12L)).isInstanceOf(SSessionNotFoundException.class);
+    }
+
+    @Test
+    public void should_not_update_unknown_session() {
+        assertThatThrownBy(() -> sessionProvider.updateSession(session(12L, 1, false)))
+                .isInstanceOf(SSessionNotFoundException.class);
+    }
+
+    @Test
+    public void cleanInvalidSessions_should_remove_expired_sessions_only() throws Exception {
+        sessionProvider.addSession(session(1L, 1, false));
+        now.addAndGet(DURATION / 2);
+        sessionProvider.addSession(session(2L, 1, false));
+
+        now.addAndGet(DURATION / 2 + ConcurrentSessionProvider.BUCKET_DURATION_MILLIS);
+        sessionProvider.cleanInvalidSessions();
+
+        assertThatThrownBy(() -> sessionProvider.getSession(1L)).isInstanceOf(SSessionNotFoundException.class);
+        assertThat(sessionProvider.getSession(2L)).isNotNull();
+        assertThat(meterRegistry.find(ConcurrentSessionProvider.EXPIRED_SESSIONS).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find(ConcurrentSessionProvider.ACTIVE_SESSIONS).gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    public void cleanInvalidSessions_should_keep_renewed_sessions() throws Exception {
+        SSession session = session(1L, 1, false);
+        sessionProvider.addSession(session);
+        now.addAndGet(DURATION / 2);
+        sessionProvider.updateSession(session.toBuilder().lastRenewDate(new Date(now.get())).build());
+
+        now.addAndGet(DURATION / 2 + ConcurrentSessionProvider.BUCKET_DURATION_MILLIS);
+        sessionProvider.cleanInvalidSessions();
+        assertThat(sessionProvider.getSession(1L)).isNotNull();
+
+        now.addAndGet(DURATION / 2);
+        sessionProvider.cleanInvalidSessions();
+        assertThatThrownBy(() -> sessionProvider.getSession(1L)).isInstanceOf(SSessionNotFoundException.class);
+    }
+
+    @Test
+    public void cleanInvalidSessions_should_ignore_sessions_already_removed() throws Exception {
+        sessionProvider.addSession(session(1L, 1, false));
+        sessionProvider.addSession(session(2L, 2, false));
+        sessionProvider.removeSession(1L);
+        sessionProvider.deleteSessionsOfTenant(2, false);
+
+        now.addAndGet(DURATION + ConcurrentSessionProvider.BUCKET_DURATION_MILLIS);
+        sessionProvider.cleanInvalidSessions();
+
+        assertThat(meterRegistry.find(ConcurrentSessionProvider.EXPIRED_SESSIONS).counter().count()).isZero();
+    }
+
+    @Test
+    public void deleteSessionsOfTenant_should_keep_technical_sessions_when_asked() throws Exception {
+        sessionProvider.addSession(session(54L, 3, false));
+        sessionProvider.addSession(session(55L, 3, true));
+        sessionProvider.addSession(session(56L, 1, false));
+
+        sessionProvider.deleteSessionsOfTenant(3, true);
+
+        assertThat(sessionProvider.getSession(55L)).isNotNull();
+        assertThat(sessionProvider.getSession(56L)).isNotNull();
+        assertThatThrownBy(() -> sessionProvider.getSession(54L)).isInstanceOf(SSessionNotFoundException.class);
+    }
+
+    @Test
+    public void should_renew_sessions_concurrently() throws Exception {
+        for (long id = 0; id < 100; id++) {
+            sessionProvider.addSession(session(id, 1, false));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        long id = i % 100;
+                        SSession session = sessionProvider.getSession(id);
+                        sessionProvider.updateSession(session.toBuilder()
+                                .lastRenewDate(new Date(now.get() + i)).build());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        now.addAndGet(2 * DURATION);
+        sessionProvider.cleanInvalidSessions();
+
+        assertThat(meterRegistry.find(ConcurrentSessionProvider.EXPIRED_SESSIONS).counter().count()).isEqualTo(100);
+        assertThat(meterRegistry.find(ConcurrentSessionProvider.ACTIVE_SESSIONS).gauge().value()).isZero();
+    }
+
+    private SSession session(long id, long tenantId, boolean technicalUser) {
+        return SSession.builder().id(id).tenantId(tenantId).userName("john").userId(12)
+                .technicalUser(technicalUser).duration(DURATION).lastRenewDate(new Date(now.get())).build();
+    }
+}
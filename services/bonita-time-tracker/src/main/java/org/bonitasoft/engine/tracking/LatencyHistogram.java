@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tracking;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Histogram of durations in nanoseconds, with log-linear buckets: each power of two is divided in
+ * {@link #SUB_BUCKETS} buckets, so the value of a percentile is known with a relative error lower than
+ * 1 / {@link #SUB_BUCKETS}.
+ * <p>
+ * Values are recorded without lock nor allocation in a fixed number of striped counters, a thread always recording in
+ * the same stripe, so that threads rarely compete for the same counters and nothing is kept per thread. The counters
+ * of all stripes are merged when a {@link Snapshot} is taken.
+ * <p>
+ * Counters are never reset: the percentiles of the recent durations are computed on the difference between the
+ * counters and a snapshot of them taken at the start of the window, like the time window histograms of micrometer.
+ * The window is made of {@link #WINDOW_STEPS} steps, and moves by one step at a time: it covers the durations recorded
+ * during the last two to three steps, as long as {@link #recentWindowSnapshot()} is called at least once per step.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // durations above 2^40 ns (~18 minutes) are recorded in the last bucket
+    private static final int MAX_VALUE_BITS = 40;
+    static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKETS = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final int COUNT = BUCKETS;
+    private static final int SUM = BUCKETS + 1;
+    private static final int MAX = BUCKETS + 2;
+    // a power of two, so that the stripe of a thread is selected with a mask
+    private static final int STRIPES = Integer.highestOneBit(
+            Math.max(1, Math.min(64, Runtime.getRuntime().availableProcessors() * 2) - 1)) << 1;
+    // percentiles gauges of the same histogram are read at the same time, they share the snapshot taken by the first
+    private static final long SNAPSHOT_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // same window as the distribution statistics of micrometer: 2 minutes, in 3 steps
+    private static final int WINDOW_STEPS = 3;
+    static final long WINDOW_STEP_NANOS = TimeUnit.MINUTES.toNanos(2) / WINDOW_STEPS;
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+    private final LongSupplier nanoClock;
+    // snapshots taken at the start of each step of the window, the oldest first
+    private final Deque<Snapshot> windowStarts = new ArrayDeque<>();
+    private volatile Snapshot recentWindowSnapshot;
+
+    LatencyHistogram() {
+        this(System::nanoTime);
+    }
+
+    LatencyHistogram(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS + 3);
+        }
+        windowStarts.addLast(new Snapshot(new long[BUCKETS], 0, 0, 0, nanoClock.getAsLong()));
+    }
+
+    void record(long durationInNanos) {
+        long value = Math.max(0, Math.min(durationInNanos, MAX_VALUE));
+        AtomicLongArray counters = stripes[stripeIndex(Thread.currentThread().getId())];
+        counters.incrementAndGet(bucketIndex(value));
+        counters.incrementAndGet(COUNT);
+        counters.addAndGet(SUM, value);
+        if (value > counters.get(MAX)) {
+            counters.accumulateAndGet(MAX, value, Math::max);
+        }
+    }
+
+    private static int stripeIndex(long threadId) {
+        // thread ids are often consecutive: spread them over the stripes
+        return (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKETS + subBucket - SUB_BUCKETS;
+    }
+
+    /**
+     * @return the highest value recorded in the bucket
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    Snapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (AtomicLongArray counters : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] += counters.get(i);
+            }
+            count += counters.get(COUNT);
+            sum += counters.get(SUM);
+            max = Math.max(max, counters.get(MAX));
+        }
+        return new Snapshot(buckets, count, sum, max, nanoClock.getAsLong());
+    }
+
+    /**
+     * @return the durations recorded during the window, in a snapshot taken less than a second ago, so that the gauges
+     *         of the percentiles read during the same scrape merge the counters only once
+     */
+    Snapshot recentWindowSnapshot() {
+        Snapshot snapshot = recentWindowSnapshot;
+        if (snapshot == null || nanoClock.getAsLong() - snapshot.takenAt > SNAPSHOT_MAX_AGE_NANOS) {
+            snapshot = windowSnapshot();
+            recentWindowSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    private synchronized Snapshot windowSnapshot() {
+        Snapshot now = snapshot();
+        if (now.takenAt - windowStarts.getLast().takenAt >= WINDOW_STEP_NANOS) {
+            windowStarts.addLast(now);
+            if (windowStarts.size() > WINDOW_STEPS) {
+                windowStarts.removeFirst();
+            }
+        }
+        return now.since(windowStarts.getFirst());
+    }
+
+    long count() {
+        long count = 0;
+        for (AtomicLongArray counters : stripes) {
+            count += counters.get(COUNT);
+        }
+        return count;
+    }
+
+    long sum() {
+        long sum = 0;
+        for (AtomicLongArray counters : stripes) {
+            sum += counters.get(SUM);
+        }
+        return sum;
+    }
+
+    static final class Snapshot {
+
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+        private final long takenAt;
+
+        private Snapshot(long[] buckets, long count, long sum, long max, long takenAt) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.takenAt = takenAt;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getSum() {
+            return sum;
+        }
+
+        /**
+         * @return the highest duration recorded since the start of the histogram, bounding the percentiles
+         */
+        long getMax() {
+            return max;
+        }
+
+        /**
+         * @return the durations recorded between the given snapshot and this one
+         */
+        private Snapshot since(Snapshot start) {
+            long[] recentBuckets = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                recentBuckets[i] = buckets[i] - start.buckets[i];
+            }
+            return new Snapshot(recentBuckets, count - start.count, sum - start.sum, max, takenAt);
+        }
+
+        /**
+         * @param percentile between 0 and 1
+         * @return the duration in nanoseconds under which this percentage of the recorded durations are, 0 when
+         *         nothing was recorded
+         */
+        long valueAt(double percentile) {
+            // counters of the buckets might have been read before the total count was updated: use their own total
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile * total));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
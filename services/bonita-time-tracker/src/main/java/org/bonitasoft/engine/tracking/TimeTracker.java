@@ -15,7 +15,11 @@ package org.bonitasoft.engine.tracking;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.collections4.queue.CircularFifoQueue;
 import org.bonitasoft.engine.commons.TenantLifecycleService;
 import org.slf4j.Logger;
@@ -23,12 +27,18 @@ import org.slf4j.LoggerFactory;
 
 public class TimeTracker implements TenantLifecycleService {
 
+    static final String DURATION = "bonita.timetracker.duration";
+    static final String DURATION_PERCENTILE = "bonita.timetracker.duration.percentile";
+    private static final double[] PERCENTILES = { 0.5, 0.95, 0.99, 0.999 };
+
     private static final Logger log = LoggerFactory.getLogger(TimeTracker.class);
     private final Set<TimeTrackerRecords> activatedRecords;
     private FlushThread flushThread;
     private final Map<String, FlushEventListener> flushEventListeners;
     private final Queue<Record> records;
     private final Clock clock;
+    // indexed by record ordinal, null when durations are not recorded
+    private final LatencyHistogram[] durationHistograms;
 
     private long flushIntervalInMS;
     private boolean startTracking = false;
@@ -46,6 +56,23 @@ public class TimeTracker implements TenantLifecycleService {
                 flushIntervalInSeconds * 1000, activatedRecords);
     }
 
+    /**
+     * @param meterRegistry registry where durations given to {@link #recordDuration(TimeTrackerRecords, long)} are
+     *        published
+     * @param recordDurations whether durations are recorded in histograms, whatever the tracking state is
+     */
+    public TimeTracker(
+            final boolean startTracking,
+            final List<FlushEventListener> flushEventListeners,
+            final int maxSize,
+            final int flushIntervalInSeconds,
+            final MeterRegistry meterRegistry,
+            final boolean recordDurations,
+            final String... activatedRecords) {
+        this(new ThreadSleepClockImpl(), startTracking, flushEventListeners, maxSize,
+                flushIntervalInSeconds * 1000, meterRegistry, recordDurations, activatedRecords);
+    }
+
     public TimeTracker(
             final Clock clock,
             final boolean startTracking,
@@ -53,6 +80,18 @@ public class TimeTracker implements TenantLifecycleService {
             final int maxSize,
             final int flushIntervalInMS,
             final String... activatedRecords) {
+        this(clock, startTracking, flushEventListeners, maxSize, flushIntervalInMS, null, false, activatedRecords);
+    }
+
+    public TimeTracker(
+            final Clock clock,
+            final boolean startTracking,
+            final List<FlushEventListener> flushEventListeners,
+            final int maxSize,
+            final int flushIntervalInMS,
+            final MeterRegistry meterRegistry,
+            final boolean recordDurations,
+            final String... activatedRecords) {
         super();
         this.startTracking = startTracking;
         this.clock = clock;
@@ -78,9 +117,38 @@ public class TimeTracker implements TenantLifecycleService {
                 this.activatedRecords.add(TimeTrackerRecords.valueOf(activatedRecord));
             }
         }
+        if (recordDurations && meterRegistry != null) {
+            this.durationHistograms = createDurationHistograms(meterRegistry);
+        } else {
+            this.durationHistograms = null;
+        }
         log.info(getStatus());
     }
 
+    private static LatencyHistogram[] createDurationHistograms(final MeterRegistry meterRegistry) {
+        final TimeTrackerRecords[] recordNames = TimeTrackerRecords.values();
+        final LatencyHistogram[] histograms = new LatencyHistogram[recordNames.length];
+        for (final TimeTrackerRecords recordName : recordNames) {
+            final LatencyHistogram histogram = new LatencyHistogram();
+            histograms[recordName.ordinal()] = histogram;
+            FunctionTimer.builder(DURATION, histogram, LatencyHistogram::count, LatencyHistogram::sum,
+                    TimeUnit.NANOSECONDS)
+                    .tag("record", recordName.name())
+                    .description("Duration of the operations tracked by the time tracker")
+                    .register(meterRegistry);
+            for (final double percentile : PERCENTILES) {
+                // percentiles are computed on the durations recorded during the last minutes only
+                Gauge.builder(DURATION_PERCENTILE, histogram,
+                        h -> h.recentWindowSnapshot().valueAt(percentile) / (double) TimeUnit.SECONDS.toNanos(1))
+                        .tags("record", recordName.name(), "percentile", String.valueOf(percentile))
+                        .baseUnit("seconds")
+                        .description("Percentiles of the duration of the operations tracked by the time tracker")
+                        .register(meterRegistry);
+            }
+        }
+        return histograms;
+    }
+
     /**
      * get the list of Active Listener
      */
@@ -230,6 +298,10 @@ public class TimeTracker implements TenantLifecycleService {
         sb.append(isTracking());
         sb.append("\n");
 
+        sb.append("  - recordDurations: ");
+        sb.append(isRecordingDurations());
+        sb.append("\n");
+
         sb.append("  - flushIntervalInSeconds: ");
         sb.append(this.flushIntervalInMS);
         sb.append("\n");
@@ -261,6 +333,25 @@ public class TimeTracker implements TenantLifecycleService {
         return sb.toString();
     }
 
+    public boolean isRecordingDurations() {
+        return this.durationHistograms != null;
+    }
+
+    /**
+     * Record the duration of an operation in the histogram of its record name. Unlike {@link #track}, nothing is
+     * allocated nor locked, so it can stay enabled in production.
+     */
+    public void recordDuration(final TimeTrackerRecords recordName, final long durationInNanos) {
+        if (this.durationHistograms == null) {
+            return;
+        }
+        this.durationHistograms[recordName.ordinal()].record(durationInNanos);
+    }
+
+    LatencyHistogram.Snapshot getDurations(final TimeTrackerRecords recordName) {
+        return this.durationHistograms[recordName.ordinal()].snapshot();
+    }
+
     public boolean isTrackable(final TimeTrackerRecords recordName) {
         return isTracking() && this.activatedRecords.contains(recordName);
     }
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tracking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void buckets_should_contain_their_upper_bound_and_follow_each_other() {
+        for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789, LatencyHistogram.MAX_VALUE }) {
+            int index = LatencyHistogram.bucketIndex(value);
+
+            assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.bucketUpperBound(index))).isEqualTo(index);
+            assertThat(LatencyHistogram.bucketUpperBound(index)).isGreaterThanOrEqualTo(value);
+            assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.bucketUpperBound(index) + 1))
+                    .isEqualTo(index + 1);
+        }
+    }
+
+    @Test
+    public void percentiles_should_have_a_bounded_relative_error() {
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(10_000);
+        assertThat(snapshot.getMax()).isEqualTo(10_000_000);
+        assertThat(snapshot.valueAt(0.5)).isBetween(5_000_000L, 5_000_000L + 5_000_000L / LatencyHistogram.SUB_BUCKETS);
+        assertThat(snapshot.valueAt(0.99))
+                .isBetween(9_900_000L, 9_900_000L + 9_900_000L / LatencyHistogram.SUB_BUCKETS);
+        assertThat(snapshot.valueAt(1)).isEqualTo(10_000_000);
+    }
+
+    @Test
+    public void should_clamp_out_of_range_durations() {
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.valueAt(0.5)).isZero();
+        assertThat(snapshot.getMax()).isEqualTo(LatencyHistogram.MAX_VALUE);
+        assertThat(new LatencyHistogram().snapshot().valueAt(0.99)).isZero();
+    }
+
+    @Test
+    public void should_merge_durations_recorded_by_several_threads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        histogram.record(100);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(histogram.count()).isEqualTo(400_000);
+        assertThat(histogram.sum()).isEqualTo(40_000_000);
+        assertThat(histogram.snapshot().valueAt(0.5)).isEqualTo(100);
+    }
+
+    @Test
+    public void should_keep_durations_recorded_by_threads_that_ended() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            Thread thread = new Thread(() -> histogram.record(100));
+            thread.start();
+            thread.join();
+        }
+
+        assertThat(histogram.count()).isEqualTo(100);
+        assertThat(histogram.snapshot().getCount()).isEqualTo(100);
+    }
+
+    @Test
+    public void should_share_a_recent_snapshot() {
+        histogram.record(100);
+
+        LatencyHistogram.Snapshot snapshot = histogram.recentWindowSnapshot();
+
+        assertThat(histogram.recentWindowSnapshot()).isSameAs(snapshot);
+        assertThat(snapshot.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void percentiles_should_follow_a_recent_shift_of_the_durations() {
+        AtomicLong clock = new AtomicLong();
+        LatencyHistogram windowedHistogram = new LatencyHistogram(clock::get);
+        // a long history of 1 ms durations
+        for (int i = 0; i < 100_000; i++) {
+            windowedHistogram.record(1_000_000);
+        }
+        assertThat(windowedHistogram.recentWindowSnapshot().valueAt(0.95)).isEqualTo(1_000_000);
+
+        // durations become 100 ms, the percentiles being read at each step of the window
+        for (int step = 0; step < 3; step++) {
+            clock.addAndGet(LatencyHistogram.WINDOW_STEP_NANOS);
+            for (int i = 0; i < 1000; i++) {
+                windowedHistogram.record(100_000_000);
+            }
+            windowedHistogram.recentWindowSnapshot();
+        }
+
+        LatencyHistogram.Snapshot snapshot = windowedHistogram.recentWindowSnapshot();
+        assertThat(snapshot.getCount()).isEqualTo(2000);
+        assertThat(snapshot.valueAt(0.95)).isEqualTo(100_000_000);
+        assertThat(windowedHistogram.snapshot().getCount()).isEqualTo(103_000);
+    }
+}
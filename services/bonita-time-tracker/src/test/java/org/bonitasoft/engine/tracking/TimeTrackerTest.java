@@ -24,7 +24,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.tracking.memory.MemoryFlushEventListener;
 import org.junit.After;
 import org.junit.Test;
@@ -531,4 +533,35 @@ public class TimeTrackerTest extends AbstractTimeTrackerTest {
         // must have only one time
         assertThat(this.tracker.getActiveFlushEventListeners()).containsOnlyOnce(flushEvent2);
     }
+
+    @Test
+    public void should_record_durations_even_when_not_tracking() {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        this.tracker = new TimeTracker(false, new LinkedList<>(), 500, 1, meterRegistry, true);
+
+        this.tracker.recordDuration(REC, TimeUnit.MILLISECONDS.toNanos(3));
+        this.tracker.recordDuration(REC, TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertThat(this.tracker.isTrackable(REC)).isFalse();
+        assertThat(this.tracker.getRecordsCopy()).isEmpty();
+        assertThat(meterRegistry.get(TimeTracker.DURATION).tag("record", REC.name()).functionTimer().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get(TimeTracker.DURATION).tag("record", REC.name()).functionTimer()
+                .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(8);
+        assertThat(meterRegistry.get(TimeTracker.DURATION).tag("record", REC1.name()).functionTimer().count())
+                .isZero();
+        assertThat(meterRegistry.get(TimeTracker.DURATION_PERCENTILE).tag("record", REC.name())
+                .tag("percentile", "0.999").gauge().value()).isBetween(0.0047, 0.005);
+    }
+
+    @Test
+    public void should_not_record_durations_when_disabled() {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        this.tracker = new TimeTracker(false, new LinkedList<>(), 500, 1, meterRegistry, false);
+
+        this.tracker.recordDuration(REC, 10);
+
+        assertThat(this.tracker.isRecordingDurations()).isFalse();
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
 }
@@ -15,9 +15,12 @@ package org.bonitasoft.engine.transaction;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import javax.transaction.*;
 
@@ -33,6 +36,8 @@ public class JTATransactionServiceImpl implements TransactionService {
     private final AtomicLong numberOfActiveTransactions = new AtomicLong(0);
 
     private final ThreadLocal<TransactionServiceContext> txContextThreadLocal;
+    // keyed by the transaction itself, as transactions can be completed by another thread (e.g. on timeout)
+    private final Map<Transaction, Map<Object, Object>> transactionResources = new ConcurrentHashMap<>();
     private XAResourceRetriever xaResourceRetriever;
 
     public JTATransactionServiceImpl(final TransactionManager txManager) {
@@ -248,6 +253,32 @@ public class JTATransactionServiceImpl implements TransactionService {
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getTransactionResource(final Object key, final Supplier<T> resourceFactory)
+            throws STransactionNotFoundException {
+        try {
+            final Transaction transaction = txManager.getTransaction();
+            if (transaction == null) {
+                throw new STransactionNotFoundException("No active transaction");
+            }
+            Map<Object, Object> resources = transactionResources.get(transaction);
+            if (resources == null) {
+                transaction.registerSynchronization(new UnbindResourcesSynchronization(this, transaction));
+                resources = new ConcurrentHashMap<>();
+                transactionResources.put(transaction, resources);
+            }
+            Object resource = resources.get(key);
+            if (resource == null) {
+                resource = resourceFactory.get();
+                resources.put(key, resource);
+            }
+            return (T) resource;
+        } catch (final IllegalStateException | SystemException | RollbackException e) {
+            throw new STransactionNotFoundException(e);
+        }
+    }
+
     @Override
     public <T> T executeInTransaction(final Callable<T> callable) throws Exception {
         begin();
@@ -300,6 +331,28 @@ public class JTATransactionServiceImpl implements TransactionService {
         }
     }
 
+    private static class UnbindResourcesSynchronization implements Synchronization {
+
+        private final JTATransactionServiceImpl txService;
+        private final Transaction transaction;
+
+        private UnbindResourcesSynchronization(final JTATransactionServiceImpl txService,
+                final Transaction transaction) {
+            this.txService = txService;
+            this.transaction = transaction;
+        }
+
+        @Override
+        public void beforeCompletion() {
+            // Nothing to do
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            txService.transactionResources.remove(transaction);
+        }
+    }
+
     static class TransactionServiceContext {
 
         /*
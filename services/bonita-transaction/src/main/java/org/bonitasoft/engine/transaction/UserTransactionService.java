@@ -15,6 +15,7 @@ package org.bonitasoft.engine.transaction;
 
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 import javax.transaction.Synchronization;
 
@@ -54,6 +55,21 @@ public interface UserTransactionService {
 
     void registerBeforeCommitCallable(Callable<Void> callable) throws STransactionNotFoundException;
 
+    /**
+     * Get the resource bound to the current transaction under the given key, creating it with the given factory the
+     * first time it is asked in this transaction. Resources are unbound when the transaction completes, whatever the
+     * thread completing it, so that a resource is never seen by another transaction.
+     *
+     * @param key
+     *        the key of the resource, usually the service owning it
+     * @param resourceFactory
+     *        creates the resource when none is bound to the current transaction
+     * @exception STransactionNotFoundException
+     *            Thrown if there is no active transaction
+     * @since 10.3
+     */
+    <T> T getTransactionResource(Object key, Supplier<T> resourceFactory) throws STransactionNotFoundException;
+
     boolean isTransactionActive();
 
     Optional<Boolean> hasMultipleResources();
@@ -33,6 +33,7 @@ import javax.transaction.xa.XAResource;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -398,4 +399,43 @@ public class JTATransactionServiceImplTest {
         txService.hasMultipleResources();
     }
 
+    @Test
+    public void getTransactionResource_should_create_the_resource_once_per_transaction() throws Exception {
+        Object first = txService.getTransactionResource("key", Object::new);
+        Object second = txService.getTransactionResource("key", Object::new);
+
+        assertThat(second).isSameAs(first);
+        verify(transaction, times(1)).registerSynchronization(any(Synchronization.class));
+    }
+
+    @Test
+    public void getTransactionResource_should_unbind_resources_when_the_transaction_completes() throws Exception {
+        Object first = txService.getTransactionResource("key", Object::new);
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transaction).registerSynchronization(synchronization.capture());
+
+        // e.g. rolled back by the transaction timeout on another thread
+        Thread completingThread = new Thread(
+                () -> synchronization.getValue().afterCompletion(Status.STATUS_ROLLEDBACK));
+        completingThread.start();
+        completingThread.join();
+
+        assertThat(txService.getTransactionResource("key", Object::new)).isNotSameAs(first);
+    }
+
+    @Test
+    public void getTransactionResource_should_not_share_resources_between_transactions() throws Exception {
+        Object first = txService.getTransactionResource("key", Object::new);
+        doReturn(mock(Transaction.class)).when(txManager).getTransaction();
+
+        assertThat(txService.getTransactionResource("key", Object::new)).isNotSameAs(first);
+    }
+
+    @Test(expected = STransactionNotFoundException.class)
+    public void getTransactionResource_should_throw_exception_when_there_is_no_transaction() throws Exception {
+        doReturn(null).when(txManager).getTransaction();
+
+        txService.getTransactionResource("key", Object::new);
+    }
+
 }
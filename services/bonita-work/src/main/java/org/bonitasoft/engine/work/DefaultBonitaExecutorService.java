@@ -13,6 +13,8 @@
  **/
 package org.bonitasoft.engine.work;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.concurrent.*;
@@ -22,6 +24,7 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.bonitasoft.engine.commons.time.EngineClock;
 import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
 import org.slf4j.Logger;
@@ -33,6 +36,8 @@ public class DefaultBonitaExecutorService implements BonitaExecutorService {
     public static final String NUMBER_OF_WORKS_PENDING = "bonita.bpmengine.work.pending";
     public static final String NUMBER_OF_WORKS_RUNNING = "bonita.bpmengine.work.running";
     public static final String NUMBER_OF_WORKS_EXECUTED = "bonita.bpmengine.work.executed";
+    public static final String NUMBER_OF_WORKS_DELAYED = "bonita.bpmengine.work.delayed";
+    public static final String WORKS_DELAYED_LATENESS = "bonita.bpmengine.work.delayed.lateness";
     public static final String WORKS_UNIT = "works";
 
     private final WorkFactory workFactory;
@@ -45,7 +50,11 @@ public class DefaultBonitaExecutorService implements BonitaExecutorService {
     private final Counter executedWorkCounter;
     private final Gauge numberOfWorksPending;
     private final Gauge numberOfWorksRunning;
+    private final Gauge numberOfWorksDelayed;
+    private final Timer delayedWorksLateness;
     private final ThreadPoolExecutor executor;
+    private final DelayedWorkScheduler delayedWorkScheduler;
+    private final WorkLanes workLanes;
 
     public DefaultBonitaExecutorService(final ThreadPoolExecutor executor,
             final WorkFactory workFactory,
@@ -54,12 +63,30 @@ public class DefaultBonitaExecutorService implements BonitaExecutorService {
             final WorkExecutionAuditor workExecutionAuditor,
             final MeterRegistry meterRegistry,
             final long tenantId) {
+        this(executor, workFactory, engineClock, workExecutionCallback, workExecutionAuditor, meterRegistry, tenantId,
+                0);
+    }
+
+    /**
+     * @param numberOfLanes number of lanes used to never execute two works of the same process instance at the same
+     *        time, 0 to execute works in the order they are submitted
+     */
+    public DefaultBonitaExecutorService(final ThreadPoolExecutor executor,
+            final WorkFactory workFactory,
+            final EngineClock engineClock,
+            final WorkExecutionCallback workExecutionCallback,
+            final WorkExecutionAuditor workExecutionAuditor,
+            final MeterRegistry meterRegistry,
+            final long tenantId,
+            final int numberOfLanes) {
         this.executor = executor;
         this.workFactory = workFactory;
         this.engineClock = engineClock;
         this.workExecutionCallback = workExecutionCallback;
         this.workExecutionAuditor = workExecutionAuditor;
         this.meterRegistry = meterRegistry;
+        this.delayedWorkScheduler = new DelayedWorkScheduler(engineClock, work -> execute(work, true), tenantId);
+        this.workLanes = numberOfLanes > 0 ? new WorkLanes(numberOfLanes, executor, meterRegistry, tenantId) : null;
 
         Tags tags = Tags.of("tenant", String.valueOf(tenantId));
         numberOfWorksPending = Gauge.builder(NUMBER_OF_WORKS_PENDING, executor.getQueue(), Collection::size)
@@ -71,6 +98,14 @@ public class DefaultBonitaExecutorService implements BonitaExecutorService {
         executedWorkCounter = Counter.builder(NUMBER_OF_WORKS_EXECUTED)
                 .tags(tags).baseUnit(WORKS_UNIT).description("total works executed since last server start")
                 .register(meterRegistry);
+        numberOfWorksDelayed = Gauge.builder(NUMBER_OF_WORKS_DELAYED, delayedWorkScheduler,
+                DelayedWorkScheduler::size)
+                .tags(tags).baseUnit(WORKS_UNIT)
+                .description("Works waiting for their execution date, they do not use any worker thread")
+                .register(meterRegistry);
+        delayedWorksLateness = Timer.builder(WORKS_DELAYED_LATENESS)
+                .tags(tags).description("Time elapsed between the execution date of a delayed work and its execution")
+                .register(meterRegistry);
     }
 
     public ThreadPoolExecutor getExecutor() {
@@ -80,6 +115,10 @@ public class DefaultBonitaExecutorService implements BonitaExecutorService {
     @Override
     public void clearAllQueues() {
         executor.getQueue().clear();
+        delayedWorkScheduler.clear();
+        if (workLanes != null) {
+            workLanes.clear();
+        }
     }
 
     @Override
@@ -87,20 +126,36 @@ public class DefaultBonitaExecutorService implements BonitaExecutorService {
         executor.shutdown();
         log.info("Clearing queue of work, had {} elements", executor.getQueue().size());
         executor.getQueue().clear();
+        delayedWorkScheduler.stop();
         meterRegistry.remove(numberOfWorksPending);
         meterRegistry.remove(numberOfWorksRunning);
         meterRegistry.remove(executedWorkCounter);
+        meterRegistry.remove(numberOfWorksDelayed);
+        meterRegistry.remove(delayedWorksLateness);
+        if (workLanes != null) {
+            workLanes.clear();
+            workLanes.removeMeters(meterRegistry);
+        }
     }
 
     @Override
     public Future<?> submit(WorkDescriptor work) {
-        return executor.submit(() -> {
+        if (isRequiringDelayedExecution(work)) {
+            // Will be handed to the executor when due, without holding any worker thread until then
+            return delayedWorkScheduler.schedule(work);
+        }
+        return execute(work, false);
+    }
+
+    private Future<?> execute(WorkDescriptor work, boolean wasDelayed) {
+        Runnable task = () -> {
             if (isRequiringDelayedExecution(work)) {
-                // Future implementation should use a real delay e.g. using a ScheduledThreadPoolExecutor
-                // Will be executed later
-                submit(work);
+                delayedWorkScheduler.schedule(work);
                 return;
             }
+            if (wasDelayed) {
+                recordLateness(work);
+            }
             work.incrementExecutionCount();
             workExecutionAuditor.detectAbnormalExecutionAndNotify(work);
 
@@ -130,7 +185,11 @@ public class DefaultBonitaExecutorService implements BonitaExecutorService {
                 }
                 return null;
             });
-        });
+        };
+        if (workLanes != null) {
+            return workLanes.submit(work, task);
+        }
+        return executor.submit(task);
     }
 
     @Override
@@ -138,6 +197,13 @@ public class DefaultBonitaExecutorService implements BonitaExecutorService {
         return executor.awaitTermination(workTerminationTimeout, seconds);
     }
 
+    private void recordLateness(WorkDescriptor work) {
+        Instant executionThreshold = work.getExecutionThreshold();
+        if (executionThreshold != null) {
+            delayedWorksLateness.record(Duration.between(executionThreshold, engineClock.now()));
+        }
+    }
+
     private boolean isRequiringDelayedExecution(WorkDescriptor work) {
         return work.getExecutionThreshold() != null && work.getExecutionThreshold().isAfter(engineClock.now());
     }
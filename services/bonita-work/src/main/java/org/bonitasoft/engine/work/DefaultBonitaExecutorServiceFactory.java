@@ -22,6 +22,7 @@ import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 /**
@@ -38,12 +39,14 @@ import org.springframework.stereotype.Component;
  */
 
 @Component("bonitaExecutorServiceFactory")
+@ConditionalOnProperty(name = "bonita.tenant.work.virtualThreads.enabled", havingValue = "false", matchIfMissing = true)
 public class DefaultBonitaExecutorServiceFactory implements BonitaExecutorServiceFactory {
 
     private static final String BONITA_WORK_EXECUTOR = "bonita-work-executor";
     private final Logger logger = LoggerFactory.getLogger(DefaultBonitaExecutorServiceFactory.class);
 
     private final long tenantId;
+    private final int numberOfLanes;
     private final MeterRegistry meterRegistry;
     private final ExecutorServiceMetricsProvider executorServiceMetricsProvider;
     private final BonitaWorkExecutorFactory bonitaWorkExecutorFactory;
@@ -52,6 +55,7 @@ public class DefaultBonitaExecutorServiceFactory implements BonitaExecutorServic
     private final WorkExecutionAuditor workExecutionAuditor;
 
     public DefaultBonitaExecutorServiceFactory(@Value("${tenantId}") long tenantId,
+            @Value("${bonita.tenant.work.lanes:0}") int numberOfLanes,
             MeterRegistry meterRegistry,
             EngineClock engineClock,
             WorkFactory workFactory,
@@ -59,6 +63,7 @@ public class DefaultBonitaExecutorServiceFactory implements BonitaExecutorServic
             ExecutorServiceMetricsProvider executorServiceMetricsProvider,
             BonitaWorkExecutorFactory bonitaWorkExecutorFactory) {
         this.tenantId = tenantId;
+        this.numberOfLanes = numberOfLanes;
         this.meterRegistry = meterRegistry;
         this.workFactory = workFactory;
         this.workExecutionAuditor = workExecutionAuditor;
@@ -76,7 +81,8 @@ public class DefaultBonitaExecutorServiceFactory implements BonitaExecutorServic
                 workExecutionCallback,
                 workExecutionAuditor,
                 meterRegistry,
-                tenantId);
+                tenantId,
+                numberOfLanes);
         logger.info(
                 "Creating a new Thread pool to handle works: {}", bonitaThreadPoolExecutor);
 
@@ -135,6 +135,10 @@ public class DefaultExceptionRetryabilityEvaluator implements ExceptionRetryabil
                     allExceptions.addAll(getAllCauses(exception));
                 }
             }
+            if (thrown instanceof SQLException && ((SQLException) thrown).getNextException() != null) {
+                // e.g. a BatchUpdateException, reporting the errors of the statements of a JDBC batch
+                allExceptions.addAll(getAllCauses(((SQLException) thrown).getNextException()));
+            }
             thrown = thrown.getCause();
         }
         return allExceptions;
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bonitasoft.engine.commons.time.EngineClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds works that must not be executed before their execution threshold.
+ * Works are kept in a {@link DelayQueue} polled by a single dedicated thread, they do not use any worker thread
+ * until they are due. Once due, they are handed to the given dispatcher (i.e. the work thread pool).
+ * <p>
+ * The delay is computed using the {@link EngineClock}. Because that clock can be moved (e.g. in tests), the queue is
+ * re-evaluated at least every {@link #MAX_POLL_INTERVAL}.
+ */
+class DelayedWorkScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(DelayedWorkScheduler.class);
+    static final Duration MAX_POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final DelayQueue<DelayedWork> delayedWorks = new DelayQueue<>();
+    private final EngineClock engineClock;
+    private final Consumer<WorkDescriptor> dispatcher;
+    private final WorkerThreadFactory threadFactory;
+    private Thread schedulerThread;
+    private volatile boolean stopped = false;
+
+    DelayedWorkScheduler(EngineClock engineClock, Consumer<WorkDescriptor> dispatcher, long tenantId) {
+        this.engineClock = engineClock;
+        this.dispatcher = dispatcher;
+        this.threadFactory = new WorkerThreadFactory("Bonita-Work-Delayer", tenantId);
+    }
+
+    /**
+     * Keep the work until its execution threshold is reached.
+     *
+     * @return a future completed when the work is handed to the dispatcher
+     */
+    Future<?> schedule(WorkDescriptor work) {
+        DelayedWork delayedWork = new DelayedWork(work);
+        if (stopped) {
+            log.debug("Ignored delayed work submission (scheduler stopped) {}", work);
+            delayedWork.dispatched.cancel(false);
+            return delayedWork.dispatched;
+        }
+        startIfNeeded();
+        delayedWorks.offer(delayedWork);
+        return delayedWork.dispatched;
+    }
+
+    int size() {
+        return delayedWorks.size();
+    }
+
+    void clear() {
+        delayedWorks.clear();
+    }
+
+    synchronized void stop() {
+        stopped = true;
+        if (schedulerThread != null) {
+            schedulerThread.interrupt();
+            schedulerThread = null;
+        }
+        log.info("Clearing queue of delayed work, had {} elements", delayedWorks.size());
+        delayedWorks.clear();
+    }
+
+    private synchronized void startIfNeeded() {
+        if (schedulerThread != null || stopped) {
+            return;
+        }
+        schedulerThread = threadFactory.newThread(this::dispatchDueWorks);
+        schedulerThread.setDaemon(true);
+        schedulerThread.start();
+    }
+
+    private void dispatchDueWorks() {
+        while (!stopped) {
+            DelayedWork delayedWork;
+            try {
+                delayedWork = delayedWorks.poll(MAX_POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (delayedWork == null) {
+                continue;
+            }
+            try {
+                dispatcher.accept(delayedWork.work);
+                delayedWork.dispatched.complete(null);
+            } catch (RuntimeException e) {
+                log.warn("Unable to dispatch delayed work {}", delayedWork.work, e);
+                delayedWork.dispatched.completeExceptionally(e);
+            }
+        }
+    }
+
+    private class DelayedWork implements Delayed {
+
+        private final WorkDescriptor work;
+        private final CompletableFuture<Void> dispatched = new CompletableFuture<>();
+
+        private DelayedWork(WorkDescriptor work) {
+            this.work = work;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            long delayInMillis = work.getExecutionThreshold().toEpochMilli() - engineClock.now().toEpochMilli();
+            return unit.convert(delayInMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof DelayedWork otherWork) {
+                return work.getExecutionThreshold().compareTo(otherWork.work.getExecutionThreshold());
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
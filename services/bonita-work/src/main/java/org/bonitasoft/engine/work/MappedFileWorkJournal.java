@@ -0,0 +1,446 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Journal of the works written in memory-mapped segment files, in a folder specific to the node and the tenant.
+ * <p>
+ * Each record is appended to the last segment: a work when its transaction is committed, and its uuid when it is
+ * completed. A new segment is created when the last one is full, and the oldest segments are deleted once all their
+ * works are completed. Beyond {@code maxSegments}, the works of the oldest segment that are still not completed, e.g.
+ * works that were rejected or dropped, are copied to the last segment so that the oldest one can be deleted. When the
+ * node starts, the works not completed are read from the segments, written to a new segment and the old segments are
+ * deleted.
+ * <p>
+ * The folder must be on a persistent disk and specific to each node: it is locked, and the engine does not start
+ * when it is not set.
+ * <p>
+ * Records are written in the page cache of the operating system without being forced to the disk: the journal
+ * survives a crash of the JVM, not a crash of the machine. Works missing from the journal are still restarted by the
+ * recovery mechanism.
+ */
+@Component
+@ConditionalOnProperty(name = "bonita.tenant.work.journal.enabled", havingValue = "true")
+public class MappedFileWorkJournal implements WorkJournal, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedFileWorkJournal.class);
+
+    static final String SEGMENT_PREFIX = "works-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final int DEFAULT_MAX_SEGMENTS = 4;
+    private static final String LOCK_FILE = "journal.lock";
+    private static final byte APPENDED = 1;
+    private static final byte COMPLETED = 2;
+    private static final byte[] NO_WORK = new byte[0];
+    // works only contain parameters of the engine or of the JDK
+    private static final ObjectInputFilter WORK_FILTER = ObjectInputFilter.Config
+            .createFilter("java.**;org.bonitasoft.**;!*");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    // segments from the oldest to the newest, records are written in the newest one
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    // record of each work that is not completed
+    private final Map<String, LiveWork> liveWorks = new HashMap<>();
+    private List<WorkDescriptor> recoveredWorks = new ArrayList<>();
+    private FileChannel lockChannel;
+    private long nextSequence;
+    private boolean compacting;
+    private boolean closed;
+
+    public MappedFileWorkJournal(@Value("${bonita.tenant.work.journal.folder:}") String folder,
+            @Value("${bonita.tenant.work.journal.segmentSize:16777216}") int segmentSize,
+            @Value("${bonita.tenant.work.journal.maxSegments:4}") int maxSegments,
+            @Value("${tenantId}") long tenantId) throws IOException {
+        this(Paths.get(requireFolder(folder), "tenant-" + tenantId), segmentSize, maxSegments);
+    }
+
+    MappedFileWorkJournal(Path directory, int segmentSize) throws IOException {
+        this(directory, segmentSize, DEFAULT_MAX_SEGMENTS);
+    }
+
+    MappedFileWorkJournal(Path directory, int segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(2, maxSegments);
+        open();
+    }
+
+    private static String requireFolder(String folder) {
+        if (folder == null || folder.isBlank()) {
+            throw new IllegalArgumentException("The work journal is enabled but bonita.tenant.work.journal.folder "
+                    + "is not set: it must be a folder on a persistent disk, specific to each node");
+        }
+        return folder;
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), CREATE, WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // already locked by this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("The work journal " + directory + " is already used by another node");
+        }
+        List<Path> previousSegments = listSegments();
+        Map<String, byte[]> pendingWorks = new LinkedHashMap<>();
+        for (Path previousSegment : previousSegments) {
+            readSegment(previousSegment, pendingWorks);
+        }
+        if (!previousSegments.isEmpty()) {
+            nextSequence = sequenceOf(previousSegments.get(previousSegments.size() - 1)) + 1;
+        }
+        segments.addLast(newSegment());
+        for (Map.Entry<String, byte[]> pendingWork : pendingWorks.entrySet()) {
+            WorkDescriptor work = deserialize(pendingWork.getKey(), pendingWork.getValue());
+            if (work != null) {
+                append(pendingWork.getKey(), pendingWork.getValue());
+                recoveredWorks.add(work);
+            }
+        }
+        for (Path previousSegment : previousSegments) {
+            Files.deleteIfExists(previousSegment);
+        }
+        LOG.info("Work journal opened in {}, {} works were not completed before the node stopped", directory,
+                recoveredWorks.size());
+    }
+
+    @Override
+    public void append(WorkDescriptor work) {
+        byte[] serializedWork;
+        try {
+            serializedWork = serialize(work);
+        } catch (IOException e) {
+            LOG.warn("Unable to write the work {} in the journal, it will only be restarted by the recovery "
+                    + "mechanism: {}", work, e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            if (closed || liveWorks.containsKey(work.getUuid())) {
+                return;
+            }
+            append(work.getUuid(), serializedWork);
+        }
+    }
+
+    private void append(String uuid, byte[] serializedWork) {
+        try {
+            int position = write(uuid, APPENDED, serializedWork);
+            if (position >= 0) {
+                Segment segment = segments.getLast();
+                segment.liveWorks++;
+                liveWorks.put(uuid, new LiveWork(segment, position));
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to write the work {} in the journal, it will only be restarted by the recovery "
+                    + "mechanism: {}", uuid, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void completed(WorkDescriptor work) {
+        if (closed) {
+            return;
+        }
+        LiveWork liveWork = liveWorks.remove(work.getUuid());
+        if (liveWork == null) {
+            return;
+        }
+        try {
+            write(work.getUuid(), COMPLETED, NO_WORK);
+        } catch (IOException e) {
+            LOG.warn("Unable to write the completion of the work {} in the journal, it might be executed again when "
+                    + "the node restarts: {}", work, e.getMessage());
+        }
+        liveWork.segment.liveWorks--;
+        deleteCompletedSegments();
+    }
+
+    /**
+     * Forget all the works, e.g. when the queues of works are cleared and the works are left to the recovery mechanism
+     */
+    @Override
+    public synchronized void clear() {
+        if (closed) {
+            return;
+        }
+        LOG.info("Clearing the work journal, {} works not completed are left to the recovery mechanism",
+                liveWorks.size());
+        liveWorks.clear();
+        for (Segment segment : segments) {
+            segment.liveWorks = 0;
+        }
+        try {
+            // the previous segments, including the last one, can then be deleted
+            segments.addLast(newSegment());
+        } catch (IOException e) {
+            LOG.warn("Unable to create a new work journal segment, the works cleared might be executed again when "
+                    + "the node restarts: {}", e.getMessage());
+        }
+        deleteCompletedSegments();
+    }
+
+    @Override
+    public synchronized List<WorkDescriptor> getRecoveredWorks() {
+        return Collections.unmodifiableList(new ArrayList<>(recoveredWorks));
+    }
+
+    @Override
+    public synchronized List<WorkDescriptor> takeRecoveredWorks() {
+        List<WorkDescriptor> works = recoveredWorks;
+        recoveredWorks = Collections.emptyList();
+        return works;
+    }
+
+    /**
+     * Record: its length, its type, the length of the uuid, the uuid and the serialized work (when appended)
+     *
+     * @return the position of the record in the last segment, -1 when the record is larger than a segment
+     */
+    private int write(String uuid, byte type, byte[] serializedWork) throws IOException {
+        byte[] id = uuid.getBytes(UTF_8);
+        int length = 1 + Short.BYTES + id.length + serializedWork.length;
+        if (Integer.BYTES + length > segmentSize) {
+            LOG.warn("Work {} is too large ({} bytes) to be written in the journal, it will only be restarted by the "
+                    + "recovery mechanism", uuid, length);
+            return -1;
+        }
+        if (segments.getLast().buffer.remaining() < Integer.BYTES + length) {
+            segments.addLast(newSegment());
+            deleteCompletedSegments();
+            if (segments.size() > maxSegments && !compacting) {
+                compactOldestSegment();
+                if (segments.getLast().buffer.remaining() < Integer.BYTES + length) {
+                    // filled by the copied works
+                    segments.addLast(newSegment());
+                }
+            }
+        }
+        MappedByteBuffer buffer = segments.getLast().buffer;
+        int position = buffer.position();
+        buffer.position(position + Integer.BYTES);
+        buffer.put(type).putShort((short) id.length).put(id).put(serializedWork);
+        // length is written last: a record interrupted by a crash is ignored when the journal is read
+        buffer.putInt(position, length);
+        return position;
+    }
+
+    /**
+     * Copy the works of the oldest segment that are not completed to the last segment, so that works that are never
+     * completed do not prevent the deletion of the segments
+     */
+    private void compactOldestSegment() throws IOException {
+        compacting = true;
+        try {
+            Segment oldest = segments.getFirst();
+            List<Map.Entry<String, LiveWork>> works = liveWorks.entrySet().stream()
+                    .filter(liveWork -> liveWork.getValue().segment == oldest)
+                    .collect(Collectors.toList());
+            LOG.debug("Copying {} works not completed from the work journal segment {}", works.size(), oldest.file);
+            for (Map.Entry<String, LiveWork> work : works) {
+                byte[] serializedWork = readWork(oldest, work.getValue().position);
+                int position = write(work.getKey(), APPENDED, serializedWork);
+                Segment segment = segments.getLast();
+                segment.liveWorks++;
+                work.setValue(new LiveWork(segment, position));
+                oldest.liveWorks--;
+            }
+            deleteCompletedSegments();
+        } finally {
+            compacting = false;
+        }
+    }
+
+    private static byte[] readWork(Segment segment, int position) {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(position);
+        int length = buffer.getInt();
+        buffer.get();
+        int idLength = buffer.getShort();
+        buffer.position(buffer.position() + idLength);
+        byte[] serializedWork = new byte[length - 1 - Short.BYTES - idLength];
+        buffer.get(serializedWork);
+        return serializedWork;
+    }
+
+    /**
+     * Delete the oldest segments once all their works are completed. Segments are deleted from the oldest only, so
+     * that a work is never read again because the segment containing its completion was deleted before the segment
+     * containing the work.
+     */
+    private void deleteCompletedSegments() {
+        while (segments.size() > 1 && segments.getFirst().liveWorks == 0) {
+            Segment segment = segments.removeFirst();
+            try {
+                segment.channel.close();
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                LOG.debug("Unable to delete the work journal segment {}, it will be deleted on next start",
+                        segment.file, e);
+            }
+        }
+    }
+
+    private Segment newSegment() throws IOException {
+        Path file = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(file, CREATE_NEW, READ, WRITE);
+        return new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void readSegment(Path segment, Map<String, byte[]> pendingWorks) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= Integer.BYTES) {
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    // end of the segment, or record interrupted by a crash
+                    return;
+                }
+                byte type = buffer.get();
+                byte[] id = new byte[buffer.getShort()];
+                buffer.get(id);
+                String uuid = new String(id, UTF_8);
+                if (type == APPENDED) {
+                    byte[] serializedWork = new byte[length - 1 - Short.BYTES - id.length];
+                    buffer.get(serializedWork);
+                    pendingWorks.put(uuid, serializedWork);
+                } else if (type == COMPLETED) {
+                    pendingWorks.remove(uuid);
+                } else {
+                    LOG.warn("Unexpected record in the work journal segment {}, next records are ignored", segment);
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Corrupted work journal segment {}, next records are ignored: {}", segment, e.getMessage());
+        }
+    }
+
+    private static byte[] serialize(WorkDescriptor work) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(work);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static WorkDescriptor deserialize(String uuid, byte[] serializedWork) {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(serializedWork))) {
+            input.setObjectInputFilter(WORK_FILTER);
+            return (WorkDescriptor) input.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            LOG.warn("Unable to read the work {} from the journal, it will only be restarted by the recovery "
+                    + "mechanism: {}", uuid, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+        segments.clear();
+        liveWorks.clear();
+        lockChannel.close();
+    }
+
+    private static final class LiveWork {
+
+        private final Segment segment;
+        private final int position;
+
+        private LiveWork(Segment segment, int position) {
+            this.segment = segment;
+            this.position = position;
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int liveWorks;
+
+        private Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default journal, keeping nothing: works registered before a crash are restarted by the recovery mechanism.
+ */
+@Component
+@ConditionalOnProperty(name = "bonita.tenant.work.journal.enabled", havingValue = "false", matchIfMissing = true)
+public class NoOpWorkJournal implements WorkJournal {
+
+    @Override
+    public void append(WorkDescriptor work) {
+    }
+
+    @Override
+    public void completed(WorkDescriptor work) {
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    @Override
+    public List<WorkDescriptor> getRecoveredWorks() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<WorkDescriptor> takeRecoveredWorks() {
+        return Collections.emptyList();
+    }
+}
@@ -20,6 +20,7 @@ import static org.bonitasoft.engine.commons.ExceptionUtils.printRootCauseOnly;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -48,6 +49,7 @@ public class RetryingWorkExecutorService implements WorkExecutorService, WorkExe
     private final EngineClock engineClock;
     private final int maxRetry;
     private final WorkExecutionAuditor workExecutionAuditor;
+    private final WorkJournal workJournal;
     private int delay;
     private final double delayFactor;
     private final ExceptionRetryabilityEvaluator exceptionRetryabilityEvaluator;
@@ -68,6 +70,7 @@ public class RetryingWorkExecutorService implements WorkExecutorService, WorkExe
             @Value("${bonita.tenant.work.retry.factor}") double delayFactor,
             ExceptionRetryabilityEvaluator exceptionRetryabilityEvaluator,
             WorkExecutionAuditor workExecutionAuditor,
+            WorkJournal workJournal,
             MeterRegistry meterRegistry,
             IncidentService incidentService,
             @Value("${tenantId}") long tenantId) {
@@ -79,6 +82,7 @@ public class RetryingWorkExecutorService implements WorkExecutorService, WorkExe
         this.delayFactor = delayFactor;
         this.exceptionRetryabilityEvaluator = exceptionRetryabilityEvaluator;
         this.workExecutionAuditor = workExecutionAuditor;
+        this.workJournal = workJournal;
         this.incidentService = incidentService;
         this.tenantId = tenantId;
         Gauge.builder(NUMBER_OF_WORKS_RETRIED, retriedWorks, AtomicLong::get)
@@ -100,6 +104,7 @@ public class RetryingWorkExecutorService implements WorkExecutorService, WorkExe
         }
         logger.debug("Completed work {}", work);
         workExecutionAuditor.notifySuccess(work);
+        workJournal.completed(work);
     }
 
     @Override
@@ -123,6 +128,7 @@ public class RetryingWorkExecutorService implements WorkExecutorService, WorkExe
                     logger.warn("Work was not executed because preconditions were not met, {} : {}",
                             bonitaWork.getDescription(), thrown.getMessage());
                     decrementRetryCounterIfNeeded(work);
+                    workJournal.completed(work);
                 } else {
                     logger.warn("Work {} failed. The element will be marked as failed. Exception is: {}",
                             bonitaWork.getDescription(),
@@ -167,6 +173,8 @@ public class RetryingWorkExecutorService implements WorkExecutorService, WorkExe
     public void handleFailure(WorkDescriptor work, BonitaWork bonitaWork, Map<String, Object> context,
             Throwable thrown) {
         decrementRetryCounterIfNeeded(work);
+        // the element is marked as failed or left to the recovery mechanism: no need to execute the work again
+        workJournal.completed(work);
         try {
             bonitaWork.handleFailure(thrown, context);
         } catch (Exception e) {
@@ -235,7 +243,13 @@ public class RetryingWorkExecutorService implements WorkExecutorService, WorkExe
     public void execute(WorkDescriptor work) {
         if (!isStopped()) {
             logger.debug("Submitted work {}", work);
-            executor.submit(work);
+            try {
+                executor.submit(work);
+            } catch (RejectedExecutionException e) {
+                // the work is left to the recovery mechanism, it must not pin the journal
+                workJournal.completed(work);
+                throw e;
+            }
         } else {
             logger.debug("Ignored work submission (service stopped) {}", work);
         }
@@ -276,6 +290,7 @@ public class RetryingWorkExecutorService implements WorkExecutorService, WorkExe
         shutdownExecutor();
         // completely clear the queue because it's a global pause
         executor.clearAllQueues();
+        workJournal.clear();
         awaitTermination();
     }
 
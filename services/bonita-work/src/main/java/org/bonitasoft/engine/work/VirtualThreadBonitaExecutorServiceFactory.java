@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bonitasoft.engine.commons.time.EngineClock;
+import org.bonitasoft.engine.monitoring.ExecutorServiceMetricsProvider;
+import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Execute works on virtual threads, so that works blocked on JDBC or on remote calls do not hold an OS thread.
+ * <p>
+ * The number of works executing at the same time is capped by {@code bonita.tenant.work.virtualThreads.maxConcurrency}
+ * instead of the size of a platform thread pool: works above that limit wait in the work queue, exactly like with
+ * {@link DefaultBonitaExecutorServiceFactory}, and the {@code bonita.bpmengine.work.*} metrics are the same.
+ * Idle virtual threads are discarded after {@link #KEEP_ALIVE_SECONDS}.
+ * <p>
+ * Virtual threads require Java 21 or later. On older JVMs, works are executed on platform threads, with the same
+ * concurrency limit.
+ * Enabled using {@code bonita.tenant.work.virtualThreads.enabled=true}
+ */
+@Component("bonitaExecutorServiceFactory")
+@ConditionalOnProperty(name = "bonita.tenant.work.virtualThreads.enabled", havingValue = "true")
+public class VirtualThreadBonitaExecutorServiceFactory implements BonitaExecutorServiceFactory {
+
+    private static final String BONITA_WORK_EXECUTOR = "bonita-work-executor";
+    private static final String THREAD_NAME = "Bonita-Virtual-Worker";
+    static final long KEEP_ALIVE_SECONDS = 60;
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadBonitaExecutorServiceFactory.class);
+
+    private final long tenantId;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final int numberOfLanes;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorServiceMetricsProvider executorServiceMetricsProvider;
+    private final EngineClock engineClock;
+    private final WorkFactory workFactory;
+    private final WorkExecutionAuditor workExecutionAuditor;
+
+    public VirtualThreadBonitaExecutorServiceFactory(@Value("${tenantId}") long tenantId,
+            @Value("${bonita.tenant.work.virtualThreads.maxConcurrency:200}") int maxConcurrency,
+            @Value("${bonita.tenant.work.queueCapacity}") int queueCapacity,
+            @Value("${bonita.tenant.work.lanes:0}") int numberOfLanes,
+            MeterRegistry meterRegistry,
+            EngineClock engineClock,
+            WorkFactory workFactory,
+            WorkExecutionAuditor workExecutionAuditor,
+            ExecutorServiceMetricsProvider executorServiceMetricsProvider) {
+        this.tenantId = tenantId;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.numberOfLanes = numberOfLanes;
+        this.meterRegistry = meterRegistry;
+        this.engineClock = engineClock;
+        this.workFactory = workFactory;
+        this.workExecutionAuditor = workExecutionAuditor;
+        this.executorServiceMetricsProvider = executorServiceMetricsProvider;
+    }
+
+    @Override
+    public BonitaExecutorService createExecutorService(WorkExecutionCallback workExecutionCallback) {
+        ThreadFactory threadFactory = VirtualThreads.factory(THREAD_NAME + "-" + tenantId + "-");
+        if (threadFactory == null) {
+            logger.warn("Virtual threads are not supported by this JVM (Java 21 or later is required), "
+                    + "works will be executed on platform threads");
+            threadFactory = new WorkerThreadFactory("Bonita-Worker", tenantId, maxConcurrency);
+        }
+        final ThreadPoolExecutor executor = new BoundedThreadPerWorkExecutor(maxConcurrency,
+                new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+        final BonitaExecutorService bonitaExecutorService = new DefaultBonitaExecutorService(executor,
+                workFactory,
+                engineClock,
+                workExecutionCallback,
+                workExecutionAuditor,
+                meterRegistry,
+                tenantId,
+                numberOfLanes);
+        logger.info("Creating a new executor to handle works on at most {} concurrent threads: {}", maxConcurrency,
+                executor);
+        executorServiceMetricsProvider.bindMetricsOnly(meterRegistry, executor, BONITA_WORK_EXECUTOR, tenantId);
+        return bonitaExecutorService;
+    }
+
+    @Override
+    public void unbind() {
+        executorServiceMetricsProvider.unbind(meterRegistry, BONITA_WORK_EXECUTOR, tenantId);
+    }
+
+    /**
+     * Start one thread per work until {@code maxConcurrency} works are executing, then queue the works. Threads
+     * are not kept once idle, virtual threads being cheap to create.
+     */
+    static class BoundedThreadPerWorkExecutor extends ThreadPoolExecutor {
+
+        BoundedThreadPerWorkExecutor(int maxConcurrency, BlockingQueue<Runnable> workQueue,
+                ThreadFactory threadFactory) {
+            super(maxConcurrency, maxConcurrency, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, workQueue, threadFactory,
+                    new WorkSingleThreadPoolExecutorFactory.QueueRejectedExecutionHandler());
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public Future<?> submit(final Runnable task) {
+            // only submit if not shutdown
+            if (!isShutdown()) {
+                return super.submit(task);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Access to the virtual threads API without requiring to compile against Java 21
+     */
+    static class VirtualThreads {
+
+        static ThreadFactory factory(String namePrefix) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+                return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                logger.debug("Virtual threads are not available", e);
+                return null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.List;
+
+/**
+ * Journal of the works registered by committed transactions and not yet completed, so that they can be executed again,
+ * as they were registered, when the node restarts after a crash.
+ */
+public interface WorkJournal {
+
+    /**
+     * Write the work in the journal, once the transaction that registered it is committed
+     */
+    void append(WorkDescriptor work);
+
+    /**
+     * Remove the work from the journal, once it is executed or marked as failed
+     */
+    void completed(WorkDescriptor work);
+
+    /**
+     * Remove all the works from the journal, once they are dropped from the queues and left to the recovery mechanism
+     */
+    void clear();
+
+    /**
+     * @return the works that were in the journal when the node started and that are not taken yet
+     */
+    List<WorkDescriptor> getRecoveredWorks();
+
+    /**
+     * @return the works that were in the journal when the node started, only once
+     */
+    List<WorkDescriptor> takeRecoveredWorks();
+}
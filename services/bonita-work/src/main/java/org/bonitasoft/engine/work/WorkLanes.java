@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serial lanes of works, so that two works locking the same process instance are never executed at the same time:
+ * they would otherwise compete for the lock of the process instance, and one of them would be retried later after a
+ * lock timeout.
+ * <p>
+ * Works are assigned to a lane using the id of the process instance they lock. A lane is not bound to a thread: a work
+ * is handed to the executor as soon as no other work of its process instance is executing, so idle threads execute
+ * the works of any lane, and only the works of a busy process instance wait in their lane. Works that do not lock a
+ * process instance are handed directly to the executor.
+ * <p>
+ * When the executor rejects a work, its lane is released: a rejected work submitted by the caller is reported to it,
+ * and a rejected waiting work is cancelled so that the works behind it are still executed.
+ */
+class WorkLanes {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkLanes.class);
+
+    static final String PROCESS_INSTANCE_ID = "processInstanceId";
+    static final String NUMBER_OF_WORKS_WAITING = "bonita.bpmengine.work.lane.waiting";
+    static final String NUMBER_OF_WORKS_EXECUTED = "bonita.bpmengine.work.lane.executed";
+
+    private final ThreadPoolExecutor executor;
+    private final Lane[] lanes;
+
+    WorkLanes(int numberOfLanes, ThreadPoolExecutor executor, MeterRegistry meterRegistry, long tenantId) {
+        this.executor = executor;
+        this.lanes = new Lane[numberOfLanes];
+        for (int i = 0; i < numberOfLanes; i++) {
+            lanes[i] = new Lane(i, meterRegistry, tenantId);
+        }
+    }
+
+    /**
+     * Hand the task executing the work to the executor, or keep it in its lane until the works of the same process
+     * instance are executed.
+     */
+    Future<?> submit(WorkDescriptor work, Runnable task) {
+        if (!work.hasParameter(PROCESS_INSTANCE_ID) || work.getLong(PROCESS_INSTANCE_ID) == null) {
+            return executor.submit(task);
+        }
+        long processInstanceId = work.getLong(PROCESS_INSTANCE_ID);
+        Lane lane = lanes[Math.floorMod(Long.hashCode(processInstanceId), lanes.length)];
+        FutureTask<Void> laneTask = new FutureTask<>(() -> {
+            try {
+                task.run();
+            } finally {
+                lane.executed.increment();
+                submitNext(lane, processInstanceId);
+            }
+        }, null);
+        if (lane.dispatch(processInstanceId, laneTask)) {
+            try {
+                executor.submit(laneTask);
+            } catch (RejectedExecutionException e) {
+                // the work will not be executed, the works that started waiting for it must not wait forever
+                submitNext(lane, processInstanceId);
+                throw e;
+            }
+        }
+        return laneTask;
+    }
+
+    private void submitNext(Lane lane, long processInstanceId) {
+        FutureTask<?> next = lane.next(processInstanceId);
+        while (next != null) {
+            try {
+                executor.submit(next);
+                return;
+            } catch (RejectedExecutionException e) {
+                log.warn("A work of process instance {} waiting in its lane was rejected, it is cancelled: {}",
+                        processInstanceId, e.getMessage());
+                next.cancel(false);
+                next = lane.next(processInstanceId);
+            }
+        }
+    }
+
+    int getWaitingWorks() {
+        int waiting = 0;
+        for (Lane lane : lanes) {
+            waiting += lane.waiting.get();
+        }
+        return waiting;
+    }
+
+    void clear() {
+        for (Lane lane : lanes) {
+            lane.clear();
+        }
+    }
+
+    void removeMeters(MeterRegistry meterRegistry) {
+        for (Lane lane : lanes) {
+            meterRegistry.remove(lane.waitingGauge);
+            meterRegistry.remove(lane.executed);
+        }
+    }
+
+    private static final class Lane {
+
+        // process instances having a work executing, with the works waiting for it
+        private final Map<Long, Deque<FutureTask<?>>> processInstances = new HashMap<>();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Gauge waitingGauge;
+        private final Counter executed;
+
+        private Lane(int index, MeterRegistry meterRegistry, long tenantId) {
+            Tags tags = Tags.of("tenant", String.valueOf(tenantId), "lane", String.valueOf(index));
+            waitingGauge = Gauge.builder(NUMBER_OF_WORKS_WAITING, waiting, AtomicInteger::get)
+                    .tags(tags).baseUnit(DefaultBonitaExecutorService.WORKS_UNIT)
+                    .description("Works waiting for the end of a work of the same process instance")
+                    .register(meterRegistry);
+            executed = Counter.builder(NUMBER_OF_WORKS_EXECUTED)
+                    .tags(tags).baseUnit(DefaultBonitaExecutorService.WORKS_UNIT)
+                    .description("Total works executed in the lane since last server start")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * @return true when the task can be handed to the executor, false when it waits for another work
+         */
+        private synchronized boolean dispatch(long processInstanceId, FutureTask<?> task) {
+            if (!processInstances.containsKey(processInstanceId)) {
+                // the queue is only created when a work has to wait
+                processInstances.put(processInstanceId, null);
+                return true;
+            }
+            processInstances.computeIfAbsent(processInstanceId, id -> new ArrayDeque<>()).add(task);
+            waiting.incrementAndGet();
+            return false;
+        }
+
+        /**
+         * @return the next task of the process instance, or null when no task waits for it
+         */
+        private synchronized FutureTask<?> next(long processInstanceId) {
+            Deque<FutureTask<?>> waitingTasks = processInstances.get(processInstanceId);
+            FutureTask<?> next = waitingTasks != null ? waitingTasks.poll() : null;
+            if (next == null) {
+                processInstances.remove(processInstanceId);
+            } else {
+                waiting.decrementAndGet();
+            }
+            return next;
+        }
+
+        private synchronized void clear() {
+            processInstances.clear();
+            waiting.set(0);
+        }
+    }
+}
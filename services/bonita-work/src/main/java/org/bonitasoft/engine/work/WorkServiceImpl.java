@@ -37,17 +37,20 @@ public class WorkServiceImpl implements WorkService {
     private final UserTransactionService transactionService;
     private final SessionAccessor sessionAccessor;
     private final WorkExecutorService workExecutorService;
+    private final WorkJournal workJournal;
     private final EngineClock engineClock;
     private int workDelayOnMultipleXAResource;
 
     public WorkServiceImpl(UserTransactionService transactionService,
             SessionAccessor sessionAccessor,
             WorkExecutorService workExecutorService,
+            WorkJournal workJournal,
             EngineClock engineClock,
             @Value("${bonita.tenant.work.${db.vendor}.delayOnMultipleXAResource:0}") int workDelayOnMultipleXAResource) {
         this.transactionService = transactionService;
         this.sessionAccessor = sessionAccessor;
         this.workExecutorService = workExecutorService;
+        this.workJournal = workJournal;
         this.engineClock = engineClock;
         this.workDelayOnMultipleXAResource = workDelayOnMultipleXAResource;
     }
@@ -66,8 +69,8 @@ public class WorkServiceImpl implements WorkService {
 
     private WorkSynchronization createAndRegisterNewSynchronization(WorkDescriptor workDescriptor)
             throws SWorkRegisterException {
-        WorkSynchronization synchro = new WorkSynchronization(transactionService, workExecutorService, sessionAccessor,
-                workDescriptor, workDelayOnMultipleXAResource);
+        WorkSynchronization synchro = new WorkSynchronization(transactionService, workExecutorService, workJournal,
+                sessionAccessor, workDescriptor, workDelayOnMultipleXAResource);
         try {
             transactionService.registerBonitaSynchronization(synchro);
         } catch (final STransactionNotFoundException e) {
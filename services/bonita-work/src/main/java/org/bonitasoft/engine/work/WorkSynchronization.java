@@ -33,12 +33,14 @@ public class WorkSynchronization implements BonitaTransactionSynchronization {
 
     private final WorkExecutorService workExecutorService;
 
+    private final WorkJournal workJournal;
+
     private long tenantId;
     private UserTransactionService transactionService;
     private int workDelayOnMultipleXAResource;
 
     WorkSynchronization(final UserTransactionService transactionService, final WorkExecutorService workExecutorService,
-            final SessionAccessor sessionAccessor,
+            final WorkJournal workJournal, final SessionAccessor sessionAccessor,
             WorkDescriptor work, int workDelayOnMultipleXAResource) {
         this.transactionService = transactionService;
         this.workDelayOnMultipleXAResource = workDelayOnMultipleXAResource;
@@ -51,6 +53,7 @@ public class WorkSynchronization implements BonitaTransactionSynchronization {
         }
         this.work = work;
         this.workExecutorService = workExecutorService;
+        this.workJournal = workJournal;
     }
 
     WorkDescriptor getWork() {
@@ -68,6 +71,7 @@ public class WorkSynchronization implements BonitaTransactionSynchronization {
                     work.mustBeExecutedAfter(Instant.now().plusMillis(workDelayOnMultipleXAResource));
                 }
             }
+            workJournal.append(work);
             workExecutorService.execute(work);
         } else {
             LOG.debug("Transaction completion with state {} != COMMITTED. Not triggering the work: {}",
@@ -38,6 +38,7 @@ public class DefaultBonitaExecutorServiceFactoryTest {
         long tenantId = 999;
         DefaultBonitaExecutorServiceFactory defaultBonitaExecutorServiceFactory = new DefaultBonitaExecutorServiceFactory(
                 tenantId,
+                0,
                 new SimpleMeterRegistry(),
                 new DefaultEngineClock(),
                 workFactory,
@@ -61,6 +62,7 @@ public class DefaultBonitaExecutorServiceFactoryTest {
         final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
         DefaultBonitaExecutorServiceFactory defaultBonitaExecutorServiceFactory = new DefaultBonitaExecutorServiceFactory(
                 tenantId,
+                0,
                 meterRegistry,
                 new DefaultEngineClock(),
                 workFactory,
@@ -87,6 +89,7 @@ public class DefaultBonitaExecutorServiceFactoryTest {
         final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
         DefaultBonitaExecutorServiceFactory defaultBonitaExecutorServiceFactory = new DefaultBonitaExecutorServiceFactory(
                 tenantId,
+                0,
                 meterRegistry,
                 new DefaultEngineClock(),
                 workFactory,
@@ -25,6 +25,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.micrometer.core.instrument.Clock;
 import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.commons.time.FixedEngineClock;
 import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
@@ -101,6 +102,41 @@ public class DefaultBonitaExecutorServiceTest {
         await().until(workExecutionCallback::isOnSuccessCalled);
     }
 
+    @Test
+    public void should_not_use_worker_thread_while_work_is_delayed() {
+        WorkDescriptor delayedWork = WorkDescriptor.create("NORMAL");
+        delayedWork.mustBeExecutedAfter(engineClock.now().plus(5, SECONDS));
+
+        bonitaExecutorService.submit(delayedWork);
+
+        assertThat(meterRegistry.find(DefaultBonitaExecutorService.NUMBER_OF_WORKS_DELAYED).gauge().value())
+                .isEqualTo(1);
+        assertThat(meterRegistry.find(DefaultBonitaExecutorService.NUMBER_OF_WORKS_PENDING).gauge().value())
+                .isZero();
+        assertThat(bonitaExecutorService.getExecutor().getCompletedTaskCount()).isZero();
+
+        engineClock.addTime(7, SECONDS);
+        await().until(workExecutionCallback::isOnSuccessCalled);
+        assertThat(meterRegistry.find(DefaultBonitaExecutorService.NUMBER_OF_WORKS_DELAYED).gauge().value())
+                .isZero();
+        Timer lateness = meterRegistry.find(DefaultBonitaExecutorService.WORKS_DELAYED_LATENESS).timer();
+        assertThat(lateness.count()).isEqualTo(1);
+        assertThat(lateness.totalTime(TimeUnit.SECONDS)).isEqualTo(2);
+    }
+
+    @Test
+    public void should_drop_delayed_works_on_shutdown() {
+        WorkDescriptor delayedWork = WorkDescriptor.create("NORMAL");
+        delayedWork.mustBeExecutedAfter(engineClock.now().plus(5, SECONDS));
+        bonitaExecutorService.submit(delayedWork);
+
+        bonitaExecutorService.shutdownAndEmptyQueue();
+        engineClock.addTime(7, SECONDS);
+
+        await().during(200, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> assertThat(workExecutionCallback.isOnSuccessCalled()).isFalse());
+    }
+
     @Test
     public void should_update_meter_when_work_executes() {
         Gauge currentWorkQueue = meterRegistry.find(DefaultBonitaExecutorService.NUMBER_OF_WORKS_PENDING).gauge();
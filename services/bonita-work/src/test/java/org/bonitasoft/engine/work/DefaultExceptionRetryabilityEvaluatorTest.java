@@ -20,6 +20,7 @@ import static org.bonitasoft.engine.work.ExceptionRetryabilityEvaluator.Retryabi
 
 import java.io.IOException;
 import java.net.PortUnreachableException;
+import java.sql.BatchUpdateException;
 import java.sql.SQLException;
 import java.sql.SQLTransientException;
 import java.util.Arrays;
@@ -178,6 +179,27 @@ public class DefaultExceptionRetryabilityEvaluatorTest {
                 .evaluateRetryability(new ExceptionThatHasNested(new SQLTransientException()))).isEqualTo(RETRYABLE);
     }
 
+    @Test
+    public void should_retry_a_failed_jdbc_batch_when_the_error_of_a_statement_is_retryable() {
+        initWith(SRetryableException.class);
+        // the batch itself is reported with a generic SQL state, the statement with the actual one
+        BatchUpdateException batchUpdateException = new BatchUpdateException("batch failed", "HY000", new int[0]);
+        batchUpdateException.setNextException(new SQLException("deadlock detected", "40001"));
+
+        assertThat(defaultExceptionRetryabilityEvaluator
+                .evaluateRetryability(new IllegalStateException(batchUpdateException))).isEqualTo(RETRYABLE);
+    }
+
+    @Test
+    public void should_not_retry_a_failed_jdbc_batch_when_the_errors_of_its_statements_are_not_retryable() {
+        initWith(SRetryableException.class);
+        BatchUpdateException batchUpdateException = new BatchUpdateException("batch failed", new int[0]);
+        batchUpdateException.setNextException(new SQLException("duplicate key value", "23505"));
+
+        assertThat(defaultExceptionRetryabilityEvaluator
+                .evaluateRetryability(new IllegalStateException(batchUpdateException))).isEqualTo(NOT_RETRYABLE);
+    }
+
     @SafeVarargs
     private final void initWith(Class<? extends Throwable>... throwables) {
         defaultExceptionRetryabilityEvaluator = new DefaultExceptionRetryabilityEvaluator(toListNames(throwables),
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileWorkJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private Path directory;
+    private MappedFileWorkJournal journal;
+
+    @Before
+    public void before() throws Exception {
+        directory = temporaryFolder.getRoot().toPath().resolve("journal");
+        journal = new MappedFileWorkJournal(directory, SEGMENT_SIZE);
+    }
+
+    @After
+    public void after() throws Exception {
+        journal.close();
+    }
+
+    private void restart() throws IOException {
+        journal.close();
+        journal = new MappedFileWorkJournal(directory, SEGMENT_SIZE);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(MappedFileWorkJournal.SEGMENT_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void should_recover_works_not_completed_when_restarting() throws Exception {
+        WorkDescriptor work1 = WorkDescriptor.create("work1").withParameter("processInstanceId", 42L)
+                .setTenantId(12L);
+        WorkDescriptor work2 = WorkDescriptor.create("work2").setTenantId(12L);
+        journal.append(work1);
+        journal.append(work2);
+        journal.completed(work2);
+
+        restart();
+
+        assertThat(journal.getRecoveredWorks()).extracting(WorkDescriptor::getUuid).containsExactly(work1.getUuid());
+        List<WorkDescriptor> recoveredWorks = journal.takeRecoveredWorks();
+        assertThat(recoveredWorks).hasSize(1);
+        WorkDescriptor recoveredWork = recoveredWorks.get(0);
+        assertThat(recoveredWork.getUuid()).isEqualTo(work1.getUuid());
+        assertThat(recoveredWork.getType()).isEqualTo("work1");
+        assertThat(recoveredWork.getTenantId()).isEqualTo(12L);
+        assertThat(recoveredWork.getLong("processInstanceId")).isEqualTo(42L);
+        assertThat(journal.takeRecoveredWorks()).isEmpty();
+        assertThat(journal.getRecoveredWorks()).isEmpty();
+    }
+
+    @Test
+    public void should_not_recover_a_recovered_work_completed_after_the_restart() throws Exception {
+        WorkDescriptor work = WorkDescriptor.create("work");
+        journal.append(work);
+        restart();
+
+        journal.completed(journal.takeRecoveredWorks().get(0));
+        restart();
+
+        assertThat(journal.takeRecoveredWorks()).isEmpty();
+    }
+
+    @Test
+    public void should_delete_segments_once_all_their_works_are_completed() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            WorkDescriptor work = WorkDescriptor.create("work" + i);
+            journal.append(work);
+            journal.completed(work);
+        }
+
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    public void should_keep_segments_containing_works_not_completed() throws Exception {
+        journal.close();
+        journal = new MappedFileWorkJournal(directory, SEGMENT_SIZE, 100);
+        WorkDescriptor pendingWork = WorkDescriptor.create("pending");
+        journal.append(pendingWork);
+        for (int i = 0; i < 50; i++) {
+            WorkDescriptor work = WorkDescriptor.create("work" + i);
+            journal.append(work);
+            journal.completed(work);
+        }
+        assertThat(segments().size()).isGreaterThan(1);
+
+        journal.completed(pendingWork);
+
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    public void should_copy_works_never_completed_to_the_last_segment_beyond_the_maximum_number_of_segments()
+            throws Exception {
+        WorkDescriptor pendingWork = WorkDescriptor.create("pending");
+        journal.append(pendingWork);
+        for (int i = 0; i < 200; i++) {
+            WorkDescriptor work = WorkDescriptor.create("work" + i);
+            journal.append(work);
+            journal.completed(work);
+        }
+
+        assertThat(segments().size()).isLessThanOrEqualTo(MappedFileWorkJournal.DEFAULT_MAX_SEGMENTS);
+        restart();
+        assertThat(journal.takeRecoveredWorks()).extracting(WorkDescriptor::getUuid)
+                .containsExactly(pendingWork.getUuid());
+    }
+
+    @Test
+    public void should_not_recover_works_cleared() throws Exception {
+        WorkDescriptor droppedWork = WorkDescriptor.create("dropped");
+        journal.append(droppedWork);
+
+        journal.clear();
+        WorkDescriptor newWork = WorkDescriptor.create("new");
+        journal.append(newWork);
+        restart();
+
+        assertThat(segments()).hasSize(1);
+        assertThat(journal.takeRecoveredWorks()).extracting(WorkDescriptor::getUuid)
+                .containsExactly(newWork.getUuid());
+    }
+
+    @Test
+    public void should_not_start_without_a_folder() {
+        assertThatThrownBy(() -> new MappedFileWorkJournal("", SEGMENT_SIZE, 4, 1L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("bonita.tenant.work.journal.folder");
+    }
+
+    @Test
+    public void should_compact_segments_when_restarting() throws Exception {
+        WorkDescriptor pendingWork = WorkDescriptor.create("pending");
+        journal.append(pendingWork);
+        for (int i = 0; i < 50; i++) {
+            WorkDescriptor work = WorkDescriptor.create("work" + i);
+            journal.append(work);
+            journal.completed(work);
+        }
+
+        restart();
+
+        assertThat(segments()).hasSize(1);
+        assertThat(journal.takeRecoveredWorks()).extracting(WorkDescriptor::getUuid)
+                .containsExactly(pendingWork.getUuid());
+    }
+
+    @Test
+    public void should_not_write_works_larger_than_a_segment() throws Exception {
+        WorkDescriptor work = WorkDescriptor.create("work").withParameter("content", new byte[SEGMENT_SIZE]);
+
+        journal.append(work);
+        restart();
+
+        assertThat(journal.takeRecoveredWorks()).isEmpty();
+    }
+
+    @Test
+    public void should_not_allow_two_journals_in_the_same_folder() {
+        assertThatThrownBy(() -> new MappedFileWorkJournal(directory, SEGMENT_SIZE))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("already used by another node");
+    }
+}
@@ -15,6 +15,7 @@ package org.bonitasoft.engine.work;
 
 import static java.util.Collections.emptyMap;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.bonitasoft.engine.work.ExceptionRetryabilityEvaluator.Retryability.*;
 import static org.bonitasoft.engine.work.RetryingWorkExecutorService.NUMBER_OF_WORKS_RETRIED;
 import static org.mockito.ArgumentMatchers.*;
@@ -24,6 +25,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import io.micrometer.core.instrument.Clock;
@@ -71,6 +73,8 @@ public class RetryingWorkExecutorServiceTest {
     private WorkExecutionAuditor workExecutionAuditor;
     @Mock
     private IncidentService incidentService;
+    @Mock
+    private WorkJournal workJournal;
     @Mock(lenient = true)
     private ExceptionRetryabilityEvaluator retryabilityEvaluator;
     private final FixedEngineClock engineClock = new FixedEngineClock(Instant.EPOCH);
@@ -90,7 +94,7 @@ public class RetryingWorkExecutorServiceTest {
         workExecutorService = new RetryingWorkExecutorService(
                 bonitaExecutorServiceFactory, engineClock, WORK_TERMINATION_TIMEOUT, MAX_RETRY, DELAY, DELAY_FACTOR,
                 retryabilityEvaluator,
-                workExecutionAuditor, meterRegistry, incidentService, TENANT_ID);
+                workExecutionAuditor, workJournal, meterRegistry, incidentService, TENANT_ID);
         doReturn(true).when(bonitaExecutorService).awaitTermination(anyLong(), any(TimeUnit.class));
         workExecutorService.start();
     }
@@ -116,6 +120,17 @@ public class RetryingWorkExecutorServiceTest {
         inOrder.verify(bonitaExecutorService).shutdownAndEmptyQueue();
         inOrder.verify(bonitaExecutorService).clearAllQueues();
         inOrder.verify(bonitaExecutorService).awaitTermination(anyLong(), any(TimeUnit.class));
+        verify(workJournal).clear();
+    }
+
+    @Test
+    public void should_remove_a_rejected_work_from_the_journal() {
+        doThrow(new RejectedExecutionException("queue is full")).when(bonitaExecutorService).submit(workDescriptor);
+
+        assertThatThrownBy(() -> workExecutorService.execute(workDescriptor))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        verify(workJournal).completed(workDescriptor);
     }
 
     @Test
@@ -282,6 +297,28 @@ public class RetryingWorkExecutorServiceTest {
         assertThat(systemOutRule.getLog()).contains("Completed work ");
     }
 
+    @Test
+    public void should_remove_work_from_the_journal_on_success() {
+        workExecutorService.onSuccess(workDescriptor);
+
+        verify(workJournal).completed(workDescriptor);
+    }
+
+    @Test
+    public void should_keep_work_in_the_journal_when_it_is_retried() {
+        workExecutorService.onFailure(workDescriptor, bonitaWork, emptyMap(),
+                new SRetryableException(new Exception("rootCause")));
+
+        verify(workJournal, never()).completed(workDescriptor);
+    }
+
+    @Test
+    public void should_remove_work_from_the_journal_when_it_is_marked_as_failed() throws Exception {
+        workExecutorService.onFailure(workDescriptor, bonitaWork, emptyMap(), new Exception("rootCause"));
+
+        verify(workJournal).completed(workDescriptor);
+    }
+
     @Test
     public void should_await_specified_time_when_stopping_the_executor() throws Exception {
 
@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.commons.time.DefaultEngineClock;
+import org.bonitasoft.engine.monitoring.DefaultExecutorServiceMetricsProvider;
+import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
+import org.junit.After;
+import org.junit.Test;
+
+public class VirtualThreadBonitaExecutorServiceFactoryTest {
+
+    private static final long TENANT_ID = 97L;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WorkFactory workFactory = mock(WorkFactory.class);
+    private final WorkExecutionCallback workExecutionCallback = mock(WorkExecutionCallback.class);
+    private BonitaExecutorService executorService;
+
+    @After
+    public void after() {
+        if (executorService != null) {
+            executorService.shutdownAndEmptyQueue();
+        }
+    }
+
+    private BonitaExecutorService createExecutorService(int maxConcurrency) {
+        executorService = new VirtualThreadBonitaExecutorServiceFactory(TENANT_ID, maxConcurrency, 100, 0,
+                meterRegistry, new DefaultEngineClock(), workFactory, mock(WorkExecutionAuditor.class),
+                new DefaultExecutorServiceMetricsProvider())
+                .createExecutorService(workExecutionCallback);
+        return executorService;
+    }
+
+    @Test
+    public void should_execute_works_and_update_work_metrics() throws Exception {
+        BonitaWork work = mock(BonitaWork.class);
+        doReturn(CompletableFuture.completedFuture(null)).when(work).work(any());
+        doReturn(work).when(workFactory).create(any());
+        createExecutorService(4);
+
+        executorService.submit(WorkDescriptor.create("NORMAL"));
+        executorService.submit(WorkDescriptor.create("NORMAL"));
+
+        await().untilAsserted(() -> assertThat(
+                meterRegistry.find(DefaultBonitaExecutorService.NUMBER_OF_WORKS_EXECUTED).counter().count())
+                .isEqualTo(2));
+        verify(workExecutionCallback, times(2)).onSuccess(any());
+        assertThat(meterRegistry.find(DefaultBonitaExecutorService.NUMBER_OF_WORKS_RUNNING).gauge().value())
+                .isZero();
+        assertThat(meterRegistry.find("executor.pool.size").tag("name", "bonita-work-executor")
+                .tag("tenant", String.valueOf(TENANT_ID)).gauge()).isNotNull();
+    }
+
+    @Test
+    public void should_not_execute_more_works_than_max_concurrency() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executing = new AtomicInteger();
+        AtomicInteger maxExecuting = new AtomicInteger();
+        BonitaWork work = mock(BonitaWork.class);
+        doAnswer(invocation -> {
+            maxExecuting.accumulateAndGet(executing.incrementAndGet(), Math::max);
+            release.await(10, TimeUnit.SECONDS);
+            executing.decrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }).when(work).work(any());
+        doReturn(work).when(workFactory).create(any());
+        createExecutorService(2);
+
+        for (int i = 0; i < 5; i++) {
+            executorService.submit(WorkDescriptor.create("NORMAL"));
+        }
+
+        await().untilAsserted(() -> assertThat(executing).hasValue(2));
+        assertThat(meterRegistry.find(DefaultBonitaExecutorService.NUMBER_OF_WORKS_PENDING).gauge().value())
+                .isEqualTo(3);
+        release.countDown();
+        await().untilAsserted(() -> assertThat(
+                meterRegistry.find(DefaultBonitaExecutorService.NUMBER_OF_WORKS_EXECUTED).counter().count())
+                .isEqualTo(5));
+        assertThat(maxExecuting).hasValue(2);
+    }
+
+    @Test
+    public void should_name_threads_with_tenant_id() {
+        createExecutorService(1);
+
+        String name = executorService.getExecutor().getThreadFactory().newThread(() -> {
+        }).getName();
+
+        assertThat(name).contains(Long.toString(TENANT_ID));
+    }
+}
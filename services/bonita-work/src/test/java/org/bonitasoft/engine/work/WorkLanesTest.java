@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2024 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+public class WorkLanesTest {
+
+    private static final long TENANT_ID = 13L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RejectingExecutor executor = new RejectingExecutor();
+    private final WorkLanes workLanes = new WorkLanes(2, executor, meterRegistry, TENANT_ID);
+    private final CountDownLatch firstWorkCanFinish = new CountDownLatch(1);
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+
+    @After
+    public void after() {
+        firstWorkCanFinish.countDown();
+        executor.shutdownNow();
+    }
+
+    private static WorkDescriptor work(long processInstanceId) {
+        return WorkDescriptor.create("WORK").withParameter(WorkLanes.PROCESS_INSTANCE_ID, processInstanceId);
+    }
+
+    private Runnable blockingTask(String name) {
+        return () -> {
+            try {
+                firstWorkCanFinish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executed.add(name);
+        };
+    }
+
+    private Runnable task(String name) {
+        return () -> executed.add(name);
+    }
+
+    @Test
+    public void should_execute_works_of_the_same_process_instance_one_after_the_other() {
+        workLanes.submit(work(1L), blockingTask("first"));
+        workLanes.submit(work(1L), task("second"));
+        Future<?> third = workLanes.submit(work(1L), task("third"));
+
+        assertThat(workLanes.getWaitingWorks()).isEqualTo(2);
+        assertThat(executed).isEmpty();
+
+        firstWorkCanFinish.countDown();
+
+        await().until(third::isDone);
+        assertThat(executed).containsExactly("first", "second", "third");
+        assertThat(workLanes.getWaitingWorks()).isZero();
+    }
+
+    @Test
+    public void should_execute_works_of_other_process_instances_while_a_process_instance_is_busy() {
+        workLanes.submit(work(1L), blockingTask("first"));
+        // same lane as the process instance 1, but not the same process instance
+        Future<?> otherProcessInstance = workLanes.submit(work(3L), task("other process instance"));
+        Future<?> noProcessInstance = workLanes.submit(WorkDescriptor.create("WORK"), task("no process instance"));
+
+        await().until(() -> otherProcessInstance.isDone() && noProcessInstance.isDone());
+        assertThat(executed).containsExactlyInAnyOrder("other process instance", "no process instance");
+    }
+
+    @Test
+    public void should_not_keep_waiting_works_when_cleared() {
+        workLanes.submit(work(1L), blockingTask("first"));
+        workLanes.submit(work(1L), task("second"));
+
+        workLanes.clear();
+        firstWorkCanFinish.countDown();
+
+        await().until(() -> executed.contains("first"));
+        assertThat(workLanes.getWaitingWorks()).isZero();
+        assertThat(executed).containsExactly("first");
+    }
+
+    @Test
+    public void should_release_the_lane_when_a_submitted_work_is_rejected() throws Exception {
+        executor.rejectNext.set(true);
+
+        assertThatThrownBy(() -> workLanes.submit(work(1L), task("rejected")))
+                .isInstanceOf(RejectedExecutionException.class);
+        Future<?> accepted = workLanes.submit(work(1L), task("accepted"));
+
+        accepted.get(10, TimeUnit.SECONDS);
+        assertThat(executed).containsExactly("accepted");
+    }
+
+    @Test
+    public void should_cancel_a_waiting_work_that_is_rejected_and_execute_the_next_ones() {
+        workLanes.submit(work(1L), blockingTask("first"));
+        Future<?> second = workLanes.submit(work(1L), task("second"));
+        Future<?> third = workLanes.submit(work(1L), task("third"));
+        executor.rejectNext.set(true);
+
+        firstWorkCanFinish.countDown();
+
+        await().until(third::isDone);
+        assertThat(second.isCancelled()).isTrue();
+        assertThat(executed).containsExactly("first", "third");
+        assertThat(workLanes.getWaitingWorks()).isZero();
+    }
+
+    @Test
+    public void should_publish_metrics_per_lane() {
+        Future<?> first = workLanes.submit(work(1L), task("first"));
+        Future<?> second = workLanes.submit(work(2L), task("second"));
+        Future<?> third = workLanes.submit(work(4L), task("third"));
+        await().until(() -> first.isDone() && second.isDone() && third.isDone());
+
+        assertThat(meterRegistry.find(WorkLanes.NUMBER_OF_WORKS_EXECUTED).tag("tenant", String.valueOf(TENANT_ID))
+                .tag("lane", "0").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.find(WorkLanes.NUMBER_OF_WORKS_EXECUTED).tag("lane", "1").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.find(WorkLanes.NUMBER_OF_WORKS_WAITING).tag("lane", "0").gauge().value())
+                .isZero();
+
+        workLanes.removeMeters(meterRegistry);
+
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    private static class RejectingExecutor extends ThreadPoolExecutor {
+
+        private final AtomicBoolean rejectNext = new AtomicBoolean();
+
+        private RejectingExecutor() {
+            super(4, 4, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejectNext.getAndSet(false)) {
+                throw new RejectedExecutionException("Work queue is full");
+            }
+            super.execute(command);
+        }
+    }
+}
@@ -40,13 +40,15 @@ public class WorkServiceImplTest {
     @Mock
     private WorkExecutorService workExecutorService;
     @Mock
+    private WorkJournal workJournal;
+    @Mock
     private EngineClock engineClock;
 
     @Before
     public void before() throws Exception {
         doReturn(1L).when(sessionAccessor).getTenantId();
         workService = new WorkServiceImpl(transactionService, sessionAccessor, workExecutorService,
-                engineClock, 0);
+                workJournal, engineClock, 0);
     }
 
     @Test
@@ -24,6 +24,7 @@ import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
 import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -39,13 +40,15 @@ public class WorkSynchronizationTest {
     private SessionAccessor sessionAccessor;
     @Mock
     private UserTransactionService userTransactionService;
+    @Mock
+    private WorkJournal workJournal;
 
     private final WorkDescriptor workDescriptor1 = WorkDescriptor.create("myWork1");
 
     @Test
     public void should_submit_work_on_commit() {
         WorkSynchronization workSynchronization = new WorkSynchronization(userTransactionService, workExecutorService,
-                sessionAccessor,
+                workJournal, sessionAccessor,
                 workDescriptor1, 0);
 
         workSynchronization.afterCompletion(STATUS_COMMITTED);
@@ -53,20 +56,34 @@ public class WorkSynchronizationTest {
         verify(workExecutorService).execute(workDescriptor1);
     }
 
+    @Test
+    public void should_write_work_in_the_journal_before_submitting_it_on_commit() {
+        WorkSynchronization workSynchronization = new WorkSynchronization(userTransactionService, workExecutorService,
+                workJournal, sessionAccessor,
+                workDescriptor1, 0);
+
+        workSynchronization.afterCompletion(STATUS_COMMITTED);
+
+        InOrder inOrder = inOrder(workJournal, workExecutorService);
+        inOrder.verify(workJournal).append(workDescriptor1);
+        inOrder.verify(workExecutorService).execute(workDescriptor1);
+    }
+
     @Test
     public void should_not_submit_work_on_transaction_not_in_committed_state() {
         WorkSynchronization workSynchronization = new WorkSynchronization(userTransactionService, workExecutorService,
-                sessionAccessor,
+                workJournal, sessionAccessor,
                 workDescriptor1, 0);
         workSynchronization.afterCompletion(STATUS_ROLLEDBACK);
 
         verify(workExecutorService, never()).execute(workDescriptor1);
+        verifyNoInteractions(workJournal);
     }
 
     @Test
     public void should_not_add_delay_when_the_workDelayOnMultipleXAResource_equal_0() {
         WorkSynchronization workSynchronization = new WorkSynchronization(userTransactionService, workExecutorService,
-                sessionAccessor,
+                workJournal, sessionAccessor,
                 workDescriptor1, 0);
 
         workSynchronization.afterCompletion(STATUS_COMMITTED);
@@ -77,7 +94,7 @@ public class WorkSynchronizationTest {
     @Test
     public void should_add_delay_when_the_workDelayOnMultipleXAResource_greater_than_0_and_multiple_resources() {
         WorkSynchronization workSynchronization = new WorkSynchronization(userTransactionService, workExecutorService,
-                sessionAccessor,
+                workJournal, sessionAccessor,
                 workDescriptor1, 10);
         when(userTransactionService.hasMultipleResources()).thenReturn(Optional.of(true));
 
@@ -89,7 +106,7 @@ public class WorkSynchronizationTest {
     @Test
     public void should_not_add_delay_when_the_workDelayOnMultipleXAResource_greater_than_0_and_no_multiple_resources() {
         WorkSynchronization workSynchronization = new WorkSynchronization(userTransactionService, workExecutorService,
-                sessionAccessor,
+                workJournal, sessionAccessor,
                 workDescriptor1, 10);
         when(userTransactionService.hasMultipleResources()).thenReturn(Optional.of(false));
 
@@ -101,7 +118,7 @@ public class WorkSynchronizationTest {
     @Test
     public void should_add_delay_when_the_workDelayOnMultipleXAResource_greater_than_0_and_multiple_resources_not_defined() {
         WorkSynchronization workSynchronization = new WorkSynchronization(userTransactionService, workExecutorService,
-                sessionAccessor,
+                workJournal, sessionAccessor,
                 workDescriptor1, 10);
         when(userTransactionService.hasMultipleResources()).thenReturn(Optional.empty());
 